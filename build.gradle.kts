@@ -3,6 +3,7 @@ plugins {
     application
     com.github.johnrengelman.shadow
     org.hidetake.ssh
+    id("me.champeau.jmh")
 }
 
 group = "com.jacobcxdev"
@@ -22,6 +23,11 @@ dependencies {
     implementation("io.socket:socket.io-server:3.0.1")
     implementation("org.slf4j:slf4j-simple:1.7.30")
     implementation("net.oneandone.reflections8:reflections8:0.11.7")
+    testImplementation("org.junit.jupiter:junit-jupiter:5.7.1")
+}
+
+jmh {
+    jmhVersion.set("1.29")
 }
 
 application {
@@ -29,6 +35,10 @@ application {
 }
 
 tasks {
+    test {
+        useJUnitPlatform()
+    }
+
     shadowJar {
         archiveBaseName.set(project.name)
         mergeServiceFiles()
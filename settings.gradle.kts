@@ -10,5 +10,6 @@ buildscript {
     dependencies {
         classpath("com.github.johnrengelman:shadow:master-SNAPSHOT")
         classpath("org.hidetake:gradle-ssh-plugin:2.10.1")
+        classpath("me.champeau.jmh:jmh-gradle-plugin:0.6.6")
     }
 }
@@ -0,0 +1,83 @@
+package com.jacobcxdev.ev3mazeproject.hardware;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading an integer attribute file with a {@code SysfsAttribute} against reopening the file and parsing it as a {@code String} on each read, as EV3Dev does.<br/><br/>
+ *
+ * The attribute is a {@code position} file in a fake sysfs tree on the normal filesystem, so this measures the cost of opening and parsing rather than of sysfs generating the attribute.
+ * Run with {@code -prof gc}: {@code readInt} should allocate nothing.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SysfsAttributeBenchmark {
+    // Private Fields
+
+    /**
+     * The root of the fake sysfs tree.
+     */
+    private Path sysfs;
+
+    /**
+     * The {@code Path} of the attribute file.
+     */
+    private Path path;
+
+    /**
+     * The {@code SysfsAttribute} of the attribute file.
+     */
+    private SysfsAttribute attribute;
+
+    // Public Methods
+
+    @Setup
+    public void setUp() throws IOException {
+        sysfs = Files.createTempDirectory("sysfs");
+        var motor = Files.createDirectories(sysfs.resolve("tacho-motor/motor0"));
+        Files.writeString(motor.resolve("address"), "ev3-ports:outA\n");
+        path = Files.writeString(motor.resolve("position"), "-123456\n");
+        attribute = new SysfsAttribute(path);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        attribute.close();
+        Files.delete(path);
+        Files.delete(path.resolveSibling("address"));
+        Files.delete(path.getParent());
+        Files.delete(path.getParent().getParent());
+        Files.delete(sysfs);
+    }
+
+    @Benchmark
+    public int readInt() throws IOException {
+        return attribute.readInt();
+    }
+
+    @Benchmark
+    public int readString() throws IOException {
+        return Integer.parseInt(Files.readString(path, StandardCharsets.US_ASCII).strip());
+    }
+}
@@ -0,0 +1,132 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.mapping.LineMap;
+import lejos.robotics.navigation.Pose;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks range and nearest-wall queries against an {@code IndexedLineMap} and a plain {@code LineMap} of 100, 1k and 10k walls.<br/><br/>
+ *
+ * Each operation makes one query from the next of a fixed set of random {@code Pose}s. {@code LineMap} has no nearest-wall query, so the indexed query is compared against a scan of every wall.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexedLineMapBenchmark {
+	// Private Static Fields
+
+	/**
+	 * The number of {@code Pose}s queried from, which is a power of two.
+	 */
+	private static final int POSES = 1024;
+
+	/**
+	 * The maximum range of the queries (in millimetres), which is the maximum range of the ultrasonic sensors.
+	 */
+	private static final float MAX_RANGE = 2550;
+
+	// Private Fields
+
+	/**
+	 * The number of walls in the map.
+	 */
+	@Param({"100", "1000", "10000"})
+	private int walls;
+
+	/**
+	 * The walls of the map.
+	 */
+	private Line[] lines;
+
+	/**
+	 * The map without an index.
+	 */
+	private LineMap lineMap;
+
+	/**
+	 * The map with an index.
+	 */
+	private IndexedLineMap indexedLineMap;
+
+	/**
+	 * The {@code Pose}s queried from.
+	 */
+	private final Pose[] poses = new Pose[POSES];
+
+	/**
+	 * The index of the next {@code Pose} to query from.
+	 */
+	private int next;
+
+	// Private Methods
+
+	/**
+	 * Gets the next {@code Pose} to query from.
+	 *
+	 * @return The {@code Pose}.
+	 */
+	private Pose nextPose() {
+		return poses[next++ & (POSES - 1)];
+	}
+
+	// Public Methods
+
+	@Setup
+	public void setUp() {
+		lines = SyntheticMaze.scatteredWalls(walls, 1);
+		var side = SyntheticMaze.scatteredSide(walls);
+		var bounds = new Rectangle(-side / 2, -side / 2, side, side);
+		lineMap = new LineMap(lines, bounds);
+		indexedLineMap = new IndexedLineMap(lines, bounds, MAX_RANGE, 0);
+		var random = new Random(2);
+		for (int i = 0; i < POSES; i++) {
+			poses[i] = new Pose(random.nextFloat() * side - side / 2, random.nextFloat() * side - side / 2, random.nextFloat() * 360);
+		}
+	}
+
+	@Benchmark
+	public float rangeLineMap() {
+		return lineMap.range(nextPose());
+	}
+
+	@Benchmark
+	public float rangeIndexedLineMap() {
+		return indexedLineMap.range(nextPose());
+	}
+
+	@Benchmark
+	public float nearestWallScan() {
+		var pose = nextPose();
+		var best = Double.POSITIVE_INFINITY;
+		for (var line : lines) {
+			best = Math.min(best, line.ptSegDist(pose.getX(), pose.getY()));
+		}
+		return (float)best;
+	}
+
+	@Benchmark
+	public float nearestWallIndexedLineMap() {
+		var pose = nextPose();
+		return indexedLineMap.distanceToNearestWall(pose.getX(), pose.getY());
+	}
+}
@@ -0,0 +1,81 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks loading a saved maze: reading a {@code MazeFile} of a {@code SyntheticMaze}, and restoring a {@code MazeStore} from it.<br/><br/>
+ *
+ * {@code restore} is what {@code MazeStore.load} does after reading the file, less the line it prints, and replays the moves without deriving the walls or junction graph again.
+ * The file is in the temporary directory, so the first read of each fork may come from disk, but later reads come from the page cache, as they would when a maze is reloaded on the EV3.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MazeFileBenchmark {
+	// Private Fields
+
+	/**
+	 * The number of {@code TRAVEL} moves in the maze.
+	 */
+	@Param({"5000", "10000"})
+	private int moves;
+
+	/**
+	 * The {@code Path} of the saved maze.
+	 */
+	private Path path;
+
+	/**
+	 * The {@code MazeStore} restored into.
+	 */
+	private MazeStore store;
+
+	// Public Methods
+
+	@Setup
+	public void setUp() throws IOException {
+		var saved = new MazeStore();
+		saved.recordRoadWidth(SyntheticMaze.roadWidth());
+		saved.replay(SyntheticMaze.moveLog(moves, 1));
+		path = Files.createTempFile("maze", ".bin");
+		saved.save(path);
+		store = new MazeStore();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.delete(path);
+	}
+
+	@Benchmark
+	public MazeFile read() throws IOException {
+		return MazeFile.read(path);
+	}
+
+	@Benchmark
+	public MazeStore restore() throws IOException {
+		store.restore(MazeFile.read(path));
+		return store;
+	}
+}
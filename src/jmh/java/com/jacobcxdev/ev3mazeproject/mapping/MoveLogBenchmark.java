@@ -0,0 +1,106 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.navigation.Move;
+import lejos.robotics.navigation.Move.MoveType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks appending to and iterating a {@code MoveLog} against the {@code ArrayList} of LeJOS {@code Move}s which {@code MazeStore} used to keep.<br/><br/>
+ *
+ * Run with {@code -prof gc}: the normalised allocation of the append benchmarks is the heap taken by a log of {@code moves} entries, including the arrays discarded while growing.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveLogBenchmark {
+	// Private Fields
+
+	/**
+	 * The number of moves appended per operation.
+	 */
+	@Param({"1000", "10000"})
+	private int moves;
+
+	/**
+	 * A {@code MoveLog} of {@code moves} entries to iterate.
+	 */
+	private MoveLog moveLog;
+
+	/**
+	 * A list of {@code moves} LeJOS {@code Move}s to iterate.
+	 */
+	private List<Move> moveList;
+
+	// Private Static Methods
+
+	/**
+	 * Gets the type of the move at a given index, alternating between travelling and rotating as the EV3 does.
+	 *
+	 * @param index The index of the move.
+	 * @return The {@code MoveType}.
+	 */
+	private static MoveType typeOf(int index) {
+		return index % 2 == 0 ? MoveType.TRAVEL : MoveType.ROTATE;
+	}
+
+	// Public Methods
+
+	@Setup
+	public void setUp() {
+		moveLog = appendMoveLog();
+		moveList = appendMoveList();
+	}
+
+	@Benchmark
+	public MoveLog appendMoveLog() {
+		var log = new MoveLog();
+		for (int i = 0; i < moves; i++) {
+			log.append(typeOf(i), i, 90, i);
+		}
+		return log;
+	}
+
+	@Benchmark
+	public List<Move> appendMoveList() {
+		var list = new ArrayList<Move>();
+		for (int i = 0; i < moves; i++) {
+			list.add(new Move(typeOf(i), i, 90, 0, 0, false)); // MazeStore allocated a Move per rotation, and kept the MovePilot's Move per travel.
+		}
+		return list;
+	}
+
+	@Benchmark
+	public double iterateMoveLog() {
+		var total = new double[1];
+		moveLog.forEach((type, distance, angle, timestamp) -> total[0] += distance + angle);
+		return total[0];
+	}
+
+	@Benchmark
+	public double iterateMoveList() {
+		var total = 0.0;
+		for (var move : moveList) {
+			total += move.getDistanceTraveled() + move.getAngleTurned();
+		}
+		return total;
+	}
+}
@@ -0,0 +1,181 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.navigation.Move.MoveType;
+
+import java.util.Random;
+
+/**
+ * A class used to generate the moves and walls of a synthetic maze for benchmarks, in the form {@code MazeStore} records them before compaction.<br/><br/>
+ *
+ * The EV3 is walked randomly around a grid of corridors, driving each corridor in several short hops, so that the walls either side of a corridor are split into many collinear, overlapping pieces.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+final class SyntheticMaze {
+	// Private Static Fields
+
+	/**
+	 * The distance between the centres of adjacent corridors (in millimetres).
+	 */
+	private static final int CORRIDOR_PITCH = 600;
+
+	/**
+	 * The number of corridors along each side of the grid.
+	 */
+	private static final int GRID_SIZE = 16;
+
+	/**
+	 * The road width, which the walls are offset from the path of the EV3 by (in millimetres).
+	 */
+	private static final int ROAD_WIDTH = 200;
+
+	// Private Constructors
+
+	/**
+	 * Prevents {@code SyntheticMaze} from being instantiated.
+	 */
+	private SyntheticMaze() {}
+
+	// Private Static Methods
+
+	/**
+	 * Gets the x component of the direction of a heading, measured clockwise from the y axis as {@code MazeStore} measures it.
+	 *
+	 * @param heading The heading, a multiple of 90 (in degrees).
+	 * @return The x component, which is -1, 0 or 1.
+	 */
+	private static int dx(int heading) {
+		return (int)Math.round(Math.sin(Math.toRadians(heading)));
+	}
+
+	/**
+	 * Gets the y component of the direction of a heading, measured clockwise from the y axis as {@code MazeStore} measures it.
+	 *
+	 * @param heading The heading, a multiple of 90 (in degrees).
+	 * @return The y component, which is -1, 0 or 1.
+	 */
+	private static int dy(int heading) {
+		return (int)Math.round(Math.cos(Math.toRadians(heading)));
+	}
+
+	// Public Static Methods
+
+	/**
+	 * Generates the moves of a synthetic maze, as {@code MazeStore} records them.
+	 *
+	 * @param moves The number of {@code TRAVEL} moves to make, each of which is preceded by a right-angled or about-turn {@code ROTATE} move at a junction where the EV3 turns.
+	 * @param seed The seed of the random walk.
+	 * @return The {@code MoveLog}.
+	 */
+	public static MoveLog moveLog(int moves, long seed) {
+		var random = new Random(seed);
+		var log = new MoveLog(moves * 2);
+		var x = 0;
+		var y = 0;
+		var heading = 0;
+		var travelled = 0;
+		for (int i = 0; i < moves; i++) {
+			if (travelled >= CORRIDOR_PITCH) { // Turn at a junction, staying within the grid.
+				travelled = 0;
+				var angle = 0;
+				do {
+					angle += (1 - random.nextInt(3)) * 90;
+				} while (Math.abs(x + dx(heading + angle) * CORRIDOR_PITCH) > GRID_SIZE * CORRIDOR_PITCH / 2 || Math.abs(y + dy(heading + angle) * CORRIDOR_PITCH) > GRID_SIZE * CORRIDOR_PITCH / 2);
+				angle = Math.floorMod(angle + 180, 360) - 180;
+				if (angle != 0) {
+					log.append(MoveType.ROTATE, 0, angle, i);
+					heading = Math.floorMod(heading + angle, 360);
+				}
+			}
+			var hop = Math.min(CORRIDOR_PITCH - travelled, 50 + random.nextInt(250));
+			log.append(MoveType.TRAVEL, hop, 0, i);
+			travelled += hop;
+			x += dx(heading) * hop;
+			y += dy(heading) * hop;
+		}
+		return log;
+	}
+
+	/**
+	 * Generates the walls of a synthetic maze, either side of the path of {@code moveLog}.
+	 *
+	 * @param moves The number of {@code TRAVEL} moves to make, each of which adds two walls.
+	 * @param seed The seed of the random walk.
+	 * @return The walls, before compaction.
+	 */
+	public static Line[] walls(int moves, long seed) {
+		var log = moveLog(moves, seed);
+		var walls = new Line[moves * 2];
+		var n = 0;
+		var x = 0;
+		var y = 0;
+		var heading = 0;
+		for (int i = 0; i < log.size(); i++) {
+			if (log.getType(i) == MoveType.ROTATE) {
+				heading = Math.floorMod(heading + (int)log.getAngle(i), 360);
+				continue;
+			}
+			var dx = dx(heading);
+			var dy = dy(heading);
+			var hop = (int)log.getDistance(i);
+			var x2 = x + dx * hop;
+			var y2 = y + dy * hop;
+			walls[n++] = new Line(x - dy * ROAD_WIDTH, y + dx * ROAD_WIDTH, x2 - dy * ROAD_WIDTH, y2 + dx * ROAD_WIDTH);
+			walls[n++] = new Line(x + dy * ROAD_WIDTH, y - dx * ROAD_WIDTH, x2 + dy * ROAD_WIDTH, y2 - dx * ROAD_WIDTH);
+			x = x2;
+			y = y2;
+		}
+		return walls;
+	}
+
+	/**
+	 * Generates walls scattered at random over a square whose area grows with the number of walls, so that the density of walls is the same for any number.
+	 *
+	 * @param count The number of walls.
+	 * @param seed The seed of the walls.
+	 * @return The walls, each of which is axis-aligned.
+	 */
+	public static Line[] scatteredWalls(int count, long seed) {
+		var random = new Random(seed);
+		var side = scatteredSide(count);
+		var walls = new Line[count];
+		for (int i = 0; i < count; i++) {
+			var x = random.nextFloat() * side - side / 2;
+			var y = random.nextFloat() * side - side / 2;
+			var length = CORRIDOR_PITCH / 3f + random.nextFloat() * CORRIDOR_PITCH;
+			walls[i] = random.nextBoolean() ? new Line(x, y, x + length, y) : new Line(x, y, x, y + length);
+		}
+		return walls;
+	}
+
+	/**
+	 * Gets the width and height of the square which {@code scatteredWalls} scatters a given number of walls over.
+	 *
+	 * @param count The number of walls.
+	 * @return The width and height of the square (in millimetres).
+	 */
+	public static float scatteredSide(int count) {
+		return (float)Math.sqrt(count) * CORRIDOR_PITCH;
+	}
+
+	/**
+	 * Gets the road width of every maze generated by {@code moveLog} and {@code walls}.
+	 *
+	 * @return The road width (in millimetres).
+	 */
+	public static float roadWidth() {
+		return ROAD_WIDTH;
+	}
+
+	/**
+	 * Gets the bounding rectangle of every maze generated by {@code walls}.
+	 *
+	 * @return The bounding rectangle.
+	 */
+	public static Rectangle bounds() {
+		var half = GRID_SIZE * CORRIDOR_PITCH / 2 + ROAD_WIDTH;
+		return new Rectangle(-half, -half, 2 * half, 2 * half);
+	}
+}
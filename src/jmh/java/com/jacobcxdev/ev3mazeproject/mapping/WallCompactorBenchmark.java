@@ -0,0 +1,92 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.geometry.Line;
+import lejos.robotics.mapping.LineMap;
+import lejos.robotics.navigation.Pose;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks compacting the walls of a synthetic 10k-move maze with a {@code WallCompactor}, and ray casting against the walls before and after compaction.<br/><br/>
+ *
+ * The reduction ratio is printed once the walls have been compacted.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WallCompactorBenchmark {
+	// Private Static Fields
+
+	/**
+	 * The number of {@code TRAVEL} moves in the synthetic maze.
+	 */
+	private static final int MOVES = 10000;
+
+	/**
+	 * The distance within which walls are merged (in millimetres).
+	 */
+	private static final float TOLERANCE = 10;
+
+	// Private Fields
+
+	/**
+	 * The walls of the synthetic maze, before compaction.
+	 */
+	private Line[] walls;
+
+	/**
+	 * A {@code LineMap} of the walls before compaction.
+	 */
+	private LineMap uncompactedMap;
+
+	/**
+	 * A {@code LineMap} of the walls after compaction.
+	 */
+	private LineMap compactedMap;
+
+	/**
+	 * The {@code Pose} to ray cast from, at the start of the maze facing along the first corridor.
+	 */
+	private final Pose pose = new Pose(0, 0, 90);
+
+	// Public Methods
+
+	@Setup
+	public void setUp() {
+		walls = SyntheticMaze.walls(MOVES, 1);
+		var compactor = new WallCompactor(TOLERANCE);
+		uncompactedMap = new LineMap(walls, SyntheticMaze.bounds());
+		compactedMap = new LineMap(compactor.compact(walls), SyntheticMaze.bounds());
+		System.out.printf("%nCompacted %d walls to %d (%.1f%% reduction).%n", compactor.getLastInputCount(), compactor.getLastOutputCount(), compactor.getReductionRatio() * 100);
+	}
+
+	@Benchmark
+	public Line[] compact() {
+		return new WallCompactor(TOLERANCE).compact(walls);
+	}
+
+	@Benchmark
+	public float rangeUncompacted() {
+		return uncompactedMap.range(pose);
+	}
+
+	@Benchmark
+	public float rangeCompacted() {
+		return compactedMap.range(pose);
+	}
+}
@@ -0,0 +1,159 @@
+package com.jacobcxdev.ev3mazeproject.robotics;
+
+import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import lejos.robotics.SampleProvider;
+import lejos.robotics.chassis.IdleMotor;
+import lejos.robotics.chassis.Wheel;
+import lejos.robotics.chassis.WheeledChassis;
+import lejos.robotics.navigation.Pose;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks one update of the {@code FusedPoseProvider} of a {@code GyroWheeledChassis}, and reading its pose on its own and while one thread updates it as fast as it can.<br/><br/>
+ *
+ * The motors advance their tacho counts by a different step each read and the gyro turns by a fixed step each read, so every update moves the pose along an arc and fuses a changing gyro heading.
+ * The schedulers of the chassis still run, but only once a second, so they barely compete with the benchmark threads.
+ * Run with {@code -prof gc}: updates and {@code getHeading()} should allocate nothing, and {@code getPose()} only the {@code Pose} it returns.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FusedPoseProviderBenchmark {
+	// Private Static Classes
+
+	/**
+	 * A class used to stand in for a gyro sensor, whose angle turns by a fixed step each time it is read.<br/><br/>
+	 *
+	 * The angle is not guarded, as the benchmarks only need it to change, not to be exact.
+	 */
+	private static class TurningGyroSensor implements BaseGyroSensor {
+		// Private Fields
+
+		/**
+		 * The angle reported by the sensor (in degrees).
+		 */
+		private float angle;
+
+		/**
+		 * The {@code SampleProvider} which measures the angle, turning it by a fixed step each read.
+		 */
+		private final SampleProvider angleMode = new SampleProvider() {
+			@Override
+			public int sampleSize() {
+				return 1;
+			}
+
+			@Override
+			public void fetchSample(float[] sample, int offset) {
+				sample[offset] = angle;
+				angle += ANGLE_STEP;
+			}
+		};
+
+		// BaseGyroSensor Override Methods
+
+		@Override
+		public SampleProvider getAngleMode() {
+			return angleMode;
+		}
+
+		@Override
+		public GyroOrientation getGyroOrientation() {
+			return GyroOrientation.GLYPH_TOP;
+		}
+
+		@Override
+		public void setGyroOrientation(GyroOrientation orientation) {}
+
+		@Override
+		public void reset() {
+			angle = 0;
+		}
+	}
+
+	// Private Static Fields
+
+	/**
+	 * The amount the angle of the gyro turns by each time it is read (in degrees).
+	 */
+	private static final float ANGLE_STEP = .01f;
+
+	// Private Fields
+
+	/**
+	 * The chassis whose {@code FusedPoseProvider} is benchmarked.
+	 */
+	private GyroWheeledChassis chassis;
+
+	/**
+	 * The {@code FusedPoseProvider} of the chassis.
+	 */
+	private FusedPoseProvider poseProvider;
+
+	// Public Methods
+
+	@Setup
+	public void setUp() {
+		var wheels = new Wheel[] {
+			WheeledChassis.modelWheel(new IdleMotor(0, 3), 56).offset(-61.5),
+			WheeledChassis.modelWheel(new IdleMotor(0, 2), 56).offset(61.5)
+		};
+		chassis = new GyroWheeledChassis(wheels, WheeledChassis.TYPE_DIFFERENTIAL, new TurningGyroSensor());
+		chassis.getHeadingControlScheduler().setPeriod(TimeUnit.SECONDS.toNanos(1));
+		poseProvider = chassis.getPoseProvider();
+		poseProvider.getScheduler().setPeriod(TimeUnit.SECONDS.toNanos(1));
+	}
+
+	@TearDown
+	public void tearDown() {
+		chassis.shutdown();
+	}
+
+	@Benchmark
+	public void update() {
+		poseProvider.run();
+	}
+
+	@Benchmark
+	public Pose getPose() {
+		return poseProvider.getPose();
+	}
+
+	@Benchmark
+	public double getHeading() {
+		return poseProvider.getHeading();
+	}
+
+	@Benchmark
+	@Group("contended")
+	@GroupThreads(1)
+	public void contendedUpdate() {
+		poseProvider.run();
+	}
+
+	@Benchmark
+	@Group("contended")
+	@GroupThreads(3)
+	public Pose contendedGetPose() {
+		return poseProvider.getPose();
+	}
+}
@@ -0,0 +1,152 @@
+package com.jacobcxdev.ev3mazeproject.sensors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks publishing to and reading from a {@code SampleRingBuffer}, on its own and with one producer publishing while three readers copy the latest sample.<br/><br/>
+ *
+ * Run with {@code -prof gc}: every operation should allocate nothing.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SampleRingBufferBenchmark {
+    // Public Static Classes
+
+    /**
+     * A class used to hold the buffers a single reader copies samples into.
+     */
+    @State(Scope.Thread)
+    public static class Reader {
+        // Public Fields
+
+        /**
+         * The buffer the latest sample is copied into.
+         */
+        public float[] sample;
+
+        /**
+         * The buffer the timestamps of a window of samples are copied into.
+         */
+        public long[] timestamps;
+
+        /**
+         * The buffer the values of a window of samples are copied into.
+         */
+        public float[] values;
+
+        // Public Methods
+
+        @Setup
+        public void setUp(SampleRingBufferBenchmark benchmark) {
+            sample = new float[benchmark.width];
+            timestamps = new long[WINDOW];
+            values = new float[WINDOW * benchmark.width];
+        }
+    }
+
+    // Private Static Fields
+
+    /**
+     * The number of samples kept, matching the history of a {@code SensorHub} channel.
+     */
+    private static final int CAPACITY = 64;
+
+    /**
+     * The number of samples read or averaged at once.
+     */
+    private static final int WINDOW = 16;
+
+    // Private Fields
+
+    /**
+     * The number of values in each sample.
+     */
+    @Param({"1", "3"})
+    private int width;
+
+    /**
+     * The {@code SampleRingBuffer} benchmarked.
+     */
+    private SampleRingBuffer ring;
+
+    /**
+     * The sample published.
+     */
+    private float[] sample;
+
+    /**
+     * The timestamp of the next sample published.
+     */
+    private long timestamp;
+
+    // Public Methods
+
+    @Setup
+    public void setUp() {
+        ring = new SampleRingBuffer(CAPACITY, width);
+        sample = new float[width];
+        for (int i = 0; i < CAPACITY; i++) {
+            publish();
+        }
+    }
+
+    @Benchmark
+    public void publish() {
+        sample[0] = timestamp;
+        ring.publish(timestamp++, sample, 0);
+    }
+
+    @Benchmark
+    public long latest(Reader reader) {
+        return ring.latest(reader.sample, 0);
+    }
+
+    @Benchmark
+    public float latestValue() {
+        return ring.latestValue();
+    }
+
+    @Benchmark
+    public int read(Reader reader) {
+        return ring.read(reader.timestamps, reader.values, WINDOW);
+    }
+
+    @Benchmark
+    public double mean() {
+        return ring.mean(WINDOW);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void contendedPublish() {
+        publish();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public long contendedLatest(Reader reader) {
+        return ring.latest(reader.sample, 0);
+    }
+}
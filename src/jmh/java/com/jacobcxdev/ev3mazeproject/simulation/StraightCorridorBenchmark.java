@@ -0,0 +1,144 @@
+package com.jacobcxdev.ev3mazeproject.simulation;
+
+import com.jacobcxdev.ev3mazeproject.hardware.BuildDescription;
+import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.mapping.LineMap;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the CPU used while the simulated EV3 maps a long straight corridor, where no behaviour needs to take over and every thread but the heading controller should be idle.<br/><br/>
+ *
+ * Each invocation is a whole {@code SimulationRunner} run, so the primary score is just the real time the run took; compare the {@code cpuUtilisation} and {@code cpuMillisPerSimulatedSecond} secondary results instead.
+ * Pin the fork to one core (e.g. with {@code taskset -c 0}) to match the single core of the EV3.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StraightCorridorBenchmark {
+	// Public Static Classes
+
+	/**
+	 * A class used to report the CPU used by each run as secondary results.
+	 */
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Usage {
+		// Public Fields
+
+		/**
+		 * The CPU time used by the process, as a fraction of the real time the run took.
+		 */
+		public double cpuUtilisation;
+
+		/**
+		 * The CPU time used by the process per simulated second (in milliseconds).
+		 */
+		public double cpuMillisPerSimulatedSecond;
+
+		/**
+		 * The number of calls to {@code takeControl()}.
+		 */
+		public long evaluations;
+
+		// Public Methods
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			cpuUtilisation = 0;
+			cpuMillisPerSimulatedSecond = 0;
+			evaluations = 0;
+		}
+	}
+
+	// Private Static Fields
+
+	/**
+	 * The {@code BuildDescription} of the simulated EV3.
+	 */
+	private static final BuildDescription BUILD_DESCRIPTION = new BuildDescription(150, 45, 80, BaseGyroSensor.GyroOrientation.GLYPH_TOP);
+
+	/**
+	 * The distance from the centre of the EV3 to its touch sensor (in millimetres).
+	 */
+	private static final float BUMPER_OFFSET = 100;
+
+	/**
+	 * The half-width of the corridor (in millimetres).
+	 */
+	private static final float HALF_WIDTH = 150;
+
+	/**
+	 * The distance from the EV3 to the wall behind it (in millimetres).
+	 */
+	private static final float BACK = 200;
+
+	/**
+	 * The longest simulated time a run may take (in seconds).
+	 */
+	private static final double TIME_LIMIT = 600;
+
+	// Private Fields
+
+	/**
+	 * The length of the corridor ahead of the EV3 (in millimetres).
+	 */
+	@Param({"4000"})
+	private float length;
+
+	/**
+	 * The number of simulated seconds which pass per real second.
+	 */
+	@Param({"20"})
+	private double timeScale;
+
+	/**
+	 * The {@code SimulationRunner} run by each invocation.
+	 */
+	private SimulationRunner runner;
+
+	// Public Methods
+
+	@Setup
+	public void setUp() {
+		var walls = new Line[] {
+			new Line(-HALF_WIDTH, -BACK, HALF_WIDTH, -BACK),
+			new Line(-HALF_WIDTH, -BACK, -HALF_WIDTH, length),
+			new Line(HALF_WIDTH, -BACK, HALF_WIDTH, length)
+		};
+		var maze = new LineMap(walls, new Rectangle(-HALF_WIDTH, -BACK, 2 * HALF_WIDTH, length + BACK));
+		runner = new SimulationRunner(maze, BUILD_DESCRIPTION, BUMPER_OFFSET, timeScale, TIME_LIMIT);
+	}
+
+	@Benchmark
+	public SimulationRunner.Report straight(Usage usage) {
+		var report = runner.run();
+		if (!report.exited) {
+			throw new IllegalStateException(String.format("The EV3 did not leave the corridor: %s", report));
+		}
+		usage.cpuUtilisation += (double)report.cpuTime / report.realTime;
+		usage.cpuMillisPerSimulatedSecond += report.cpuTime / 1e6 / (report.simulatedTime / 1e9);
+		usage.evaluations += report.evaluationCount;
+		return report;
+	}
+}
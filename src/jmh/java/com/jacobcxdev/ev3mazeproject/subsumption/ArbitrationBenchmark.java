@@ -0,0 +1,408 @@
+package com.jacobcxdev.ev3mazeproject.subsumption;
+
+import lejos.robotics.SampleProvider;
+import lejos.robotics.subsumption.Behavior;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks the CPU used to arbitrate between the maze behaviours while none of them wants to take over, as on a straight, comparing a loop which polls {@code takeControl()} as LeJOS' {@code Arbitrator} does with an {@code EventArbitrator} signalled by a {@code SensorEventMonitor}.<br/><br/>
+ *
+ * The sensors are simulated by {@code SampleProvider}s which spin for {@code readCost} microseconds per sample, standing in for a sysfs read on the EV3.
+ * Each invocation arbitrates for a fixed window, so the primary score is just the length of the window; compare the {@code cpuMillis}, {@code sensorReads} and {@code evaluations} secondary results instead.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArbitrationBenchmark {
+	// Public Enums
+
+	/**
+	 * An enum used to choose how the behaviours are arbitrated.
+	 */
+	public enum Arbitration {
+		/**
+		 * Poll {@code takeControl()} of each behaviour as fast as possible, fetching a new sample each time, as LeJOS' {@code Arbitrator} does.
+		 */
+		POLLING,
+
+		/**
+		 * Sample the sensors at the interval of a {@code SensorEventMonitor}, only evaluating {@code takeControl()} when a {@code SensorCondition} changes.
+		 */
+		EVENT
+	}
+
+	// Public Static Classes
+
+	/**
+	 * A class used to report the resources used by each invocation as secondary results.
+	 */
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Usage {
+		// Public Fields
+
+		/**
+		 * The CPU time used by the process (in milliseconds).
+		 */
+		public double cpuMillis;
+
+		/**
+		 * The number of samples fetched from the simulated sensors.
+		 */
+		public long sensorReads;
+
+		/**
+		 * The number of calls to {@code takeControl()}.
+		 */
+		public long evaluations;
+
+		// Public Methods
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			cpuMillis = 0;
+			sensorReads = 0;
+			evaluations = 0;
+		}
+	}
+
+	// Private Static Classes
+
+	/**
+	 * A class used to simulate a sensor which always measures the same value, spinning for a fixed time per sample.
+	 */
+	private static class CostlySampleProvider implements SampleProvider {
+		// Private Fields
+
+		/**
+		 * The value measured.
+		 */
+		private final float value;
+
+		/**
+		 * The time spent fetching each sample (in nanoseconds).
+		 */
+		private final long readCost;
+
+		/**
+		 * The number of samples fetched.
+		 */
+		private final AtomicLong readCount = new AtomicLong();
+
+		// Public Constructors
+
+		/**
+		 * Creates a {@code CostlySampleProvider} object.
+		 *
+		 * @param value The value measured.
+		 * @param readCost The time spent fetching each sample (in nanoseconds).
+		 */
+		public CostlySampleProvider(float value, long readCost) {
+			this.value = value;
+			this.readCost = readCost;
+		}
+
+		// Public Getters/Setters
+
+		/**
+		 * Gets the number of samples fetched.
+		 *
+		 * @return The number of samples fetched.
+		 */
+		public long getReadCount() {
+			return readCount.get();
+		}
+
+		// SampleProvider Override Methods
+
+		@Override
+		public int sampleSize() {
+			return 1;
+		}
+
+		@Override
+		public void fetchSample(float[] sample, int offset) {
+			var end = System.nanoTime() + readCost;
+			while (System.nanoTime() < end) {
+				Thread.onSpinWait();
+			}
+			sample[offset] = value;
+			readCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * A class used to stand in for a turning behaviour, which fetches a new sample every time {@code takeControl()} is called, as the behaviours did before {@code SensorEventMonitor}.
+	 */
+	private static class PollingBehavior implements Behavior {
+		// Private Fields
+
+		/**
+		 * The {@code SampleProvider} fetched from.
+		 */
+		private final SampleProvider provider;
+
+		// Public Constructors
+
+		/**
+		 * Creates a {@code PollingBehavior} object.
+		 *
+		 * @param provider The {@code SampleProvider} fetched from.
+		 */
+		public PollingBehavior(SampleProvider provider) {
+			this.provider = provider;
+		}
+
+		// Behavior Override Methods
+
+		@Override
+		public boolean takeControl() {
+			var sample = new float[provider.sampleSize()];
+			provider.fetchSample(sample, 0);
+			return sample[0] <= THRESHOLD;
+		}
+
+		@Override
+		public void action() {}
+
+		@Override
+		public void suppress() {}
+	}
+
+	/**
+	 * A class used to stand in for a turning behaviour, which wants control while a {@code SensorCondition} is met.
+	 */
+	private static class ConditionBehavior implements Behavior {
+		// Private Fields
+
+		/**
+		 * The {@code SensorCondition} checked.
+		 */
+		private final SensorCondition condition;
+
+		// Public Constructors
+
+		/**
+		 * Creates a {@code ConditionBehavior} object.
+		 *
+		 * @param condition The {@code SensorCondition} checked.
+		 */
+		public ConditionBehavior(SensorCondition condition) {
+			this.condition = condition;
+		}
+
+		// Behavior Override Methods
+
+		@Override
+		public boolean takeControl() {
+			return condition.isMet();
+		}
+
+		@Override
+		public void action() {}
+
+		@Override
+		public void suppress() {}
+	}
+
+	/**
+	 * A class used to stand in for the behaviour which drives forwards, which always wants control and runs until it is suppressed.
+	 */
+	private static class CruiseBehavior implements Behavior {
+		// Private Fields
+
+		/**
+		 * Whether the running action has been suppressed.
+		 */
+		private boolean suppressed;
+
+		// Behavior Override Methods
+
+		@Override
+		public boolean takeControl() {
+			return true;
+		}
+
+		@Override
+		public synchronized void action() {
+			suppressed = false;
+			while (!suppressed) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+
+		@Override
+		public synchronized void suppress() {
+			suppressed = true;
+			notifyAll();
+		}
+	}
+
+	// Private Static Fields
+
+	/**
+	 * The distance at or below which a turning behaviour wants control (in metres).
+	 */
+	private static final float THRESHOLD = .3f;
+
+	/**
+	 * The distance measured by every simulated sensor, which is far enough that no turning behaviour wants control (in metres).
+	 */
+	private static final float DISTANCE = 1;
+
+	/**
+	 * The number of turning behaviours, matching the touch and ultrasonic sensors of the maze driver.
+	 */
+	private static final int SENSORS = 2;
+
+	/**
+	 * The time arbitrated for per invocation (in milliseconds).
+	 */
+	private static final long WINDOW = 1000;
+
+	// Private Fields
+
+	/**
+	 * How the behaviours are arbitrated.
+	 */
+	@Param
+	private Arbitration arbitration;
+
+	/**
+	 * The time spent fetching each sample (in microseconds).
+	 */
+	@Param({"100", "1000"})
+	private long readCost;
+
+	/**
+	 * The simulated sensors.
+	 */
+	private CostlySampleProvider[] providers;
+
+	/**
+	 * The turning behaviours polled by the {@code POLLING} arbitration.
+	 */
+	private Behavior[] pollingBehaviors;
+
+	/**
+	 * The {@code SensorEventMonitor} sampling the simulated sensors for the {@code EVENT} arbitration.
+	 */
+	private SensorEventMonitor monitor;
+
+	/**
+	 * The {@code EventArbitrator} of the {@code EVENT} arbitration.
+	 */
+	private EventArbitrator arbitrator;
+
+	// Private Methods
+
+	/**
+	 * Polls {@code takeControl()} of each turning behaviour, yielding between rounds as LeJOS' {@code Arbitrator} does, until the window has passed.
+	 *
+	 * @return The number of calls to {@code takeControl()}.
+	 */
+	private long poll() {
+		var evaluations = 0L;
+		var end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WINDOW);
+		while (System.nanoTime() < end) {
+			for (var behavior : pollingBehaviors) {
+				evaluations++;
+				if (behavior.takeControl()) {
+					behavior.action();
+					break;
+				}
+			}
+			Thread.yield();
+		}
+		return evaluations;
+	}
+
+	/**
+	 * Runs the {@code EventArbitrator} on another thread until the window has passed.
+	 *
+	 * @return The number of calls to {@code takeControl()}.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	private long arbitrate() throws InterruptedException {
+		var start = arbitrator.getEvaluationCount();
+		var arbitration = new Thread(arbitrator::go, "BenchmarkArbitration");
+		monitor.resumeRunLoop();
+		arbitration.start();
+		while (!arbitrator.isRunning()) {
+			Thread.onSpinWait();
+		}
+		Thread.sleep(WINDOW);
+		arbitrator.stop();
+		arbitration.join();
+		monitor.suspendRunLoop();
+		return arbitrator.getEvaluationCount() - start;
+	}
+
+	// Public Methods
+
+	@Setup
+	public void setUp() {
+		providers = new CostlySampleProvider[SENSORS];
+		pollingBehaviors = new Behavior[SENSORS];
+		var behaviors = new Behavior[SENSORS + 1];
+		behaviors[0] = new CruiseBehavior();
+		monitor = new SensorEventMonitor();
+		for (int i = 0; i < SENSORS; i++) {
+			providers[i] = new CostlySampleProvider(DISTANCE, TimeUnit.MICROSECONDS.toNanos(readCost));
+			pollingBehaviors[i] = new PollingBehavior(providers[i]);
+			behaviors[i + 1] = new ConditionBehavior(monitor.watch(providers[i], SensorCondition.Comparison.AT_MOST, THRESHOLD));
+		}
+		arbitrator = new EventArbitrator(behaviors);
+		monitor.addTransitionListener(arbitrator);
+	}
+
+	@TearDown
+	public void tearDown() {
+		monitor.shutdown();
+	}
+
+	@Benchmark
+	public void straight(Usage usage) throws InterruptedException {
+		var os = (com.sun.management.OperatingSystemMXBean)ManagementFactory.getOperatingSystemMXBean();
+		var startCpuTime = os.getProcessCpuTime();
+		var startReads = 0L;
+		for (var provider : providers) {
+			startReads += provider.getReadCount();
+		}
+
+		usage.evaluations += arbitration == Arbitration.POLLING ? poll() : arbitrate();
+
+		usage.cpuMillis += (os.getProcessCpuTime() - startCpuTime) / 1e6;
+		for (var provider : providers) {
+			usage.sensorReads += provider.getReadCount();
+		}
+		usage.sensorReads -= startReads;
+	}
+}
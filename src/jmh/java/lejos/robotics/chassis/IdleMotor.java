@@ -0,0 +1,160 @@
+package lejos.robotics.chassis;
+
+import lejos.robotics.RegulatedMotor;
+import lejos.robotics.RegulatedMotorListener;
+
+/**
+ * A class used by the benchmarks to stand in for a motor, which ignores commands and reports a fixed rotation speed and a tacho count which advances by a fixed step each time it is read.<br/><br/>
+ *
+ * The tacho count is not guarded, as the benchmarks only need it to change, not to be exact.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class IdleMotor implements RegulatedMotor {
+  // Private Fields
+
+  /**
+   * The rotation speed reported by the motor (in degrees per second).
+   */
+  private final int rotationSpeed;
+
+  /**
+   * The amount the tacho count advances by each time it is read (in degrees).
+   */
+  private final int tachoStep;
+
+  /**
+   * The tacho count reported by the motor (in degrees).
+   */
+  private int tachoCount;
+
+  // Public Constructors
+
+  /**
+   * Creates an {@code IdleMotor} object with a tacho count of zero.
+   *
+   * @param rotationSpeed The rotation speed reported by the motor (in degrees per second).
+   * @param tachoStep The amount the tacho count advances by each time it is read (in degrees).
+   */
+  public IdleMotor(int rotationSpeed, int tachoStep) {
+    this.rotationSpeed = rotationSpeed;
+    this.tachoStep = tachoStep;
+  }
+
+  // Package-Private Methods
+
+  /**
+   * Sets the tacho count reported by the motor.
+   *
+   * @param tachoCount The tacho count (in degrees).
+   */
+  void setTachoCount(int tachoCount) {
+    this.tachoCount = tachoCount;
+  }
+
+  // RegulatedMotor Override Methods
+
+  @Override
+  public void forward() {}
+
+  @Override
+  public void backward() {}
+
+  @Override
+  public void stop() {}
+
+  @Override
+  public void flt() {}
+
+  @Override
+  public boolean isMoving() {
+    return true;
+  }
+
+  @Override
+  public int getTachoCount() {
+    var count = tachoCount;
+    tachoCount = count + tachoStep;
+    return count;
+  }
+
+  @Override
+  public void resetTachoCount() {
+    tachoCount = 0;
+  }
+
+  @Override
+  public int getRotationSpeed() {
+    return rotationSpeed;
+  }
+
+  @Override
+  public void addListener(RegulatedMotorListener listener) {}
+
+  @Override
+  public RegulatedMotorListener removeListener() {
+    return null;
+  }
+
+  @Override
+  public void stop(boolean immediateReturn) {}
+
+  @Override
+  public void flt(boolean immediateReturn) {}
+
+  @Override
+  public void waitComplete() {}
+
+  @Override
+  public void rotate(int angle, boolean immediateReturn) {}
+
+  @Override
+  public void rotate(int angle) {}
+
+  @Override
+  public void rotateTo(int limitAngle) {}
+
+  @Override
+  public void rotateTo(int limitAngle, boolean immediateReturn) {}
+
+  @Override
+  public int getLimitAngle() {
+    return 0;
+  }
+
+  @Override
+  public void setSpeed(int speed) {}
+
+  @Override
+  public int getSpeed() {
+    return 0;
+  }
+
+  @Override
+  public float getMaxSpeed() {
+    return 740;
+  }
+
+  @Override
+  public boolean isStalled() {
+    return false;
+  }
+
+  @Override
+  public void setStallThreshold(int error, int time) {}
+
+  @Override
+  public void setAcceleration(int acceleration) {}
+
+  @Override
+  public void synchronizeWith(RegulatedMotor[] syncList) {}
+
+  @Override
+  public void startSynchronization() {}
+
+  @Override
+  public void endSynchronization() {}
+
+  @Override
+  public void close() {}
+}
@@ -0,0 +1,87 @@
+package lejos.robotics.chassis;
+
+import lejos.robotics.localization.DynamicPoseProvider;
+import lejos.robotics.navigation.Pose;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks updating the odometer of a two wheel differential {@code WheeledChassis}, and reading its pose on its own and while one thread updates it as fast as it can.<br/><br/>
+ *
+ * The motors advance their tacho counts by a different step each read, so every update moves the pose along an arc. The tracker thread of the odometer still runs, but at most once every few milliseconds.
+ * Run with {@code -prof gc}: updates and {@code getHeading()} should allocate nothing, and {@code getPose()} only the {@code Pose} it returns.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OdometerBenchmark {
+  // Private Fields
+
+  /**
+   * The chassis whose odometer is benchmarked.
+   */
+  private WheeledChassis chassis;
+
+  /**
+   * The odometer of the chassis.
+   */
+  private DynamicPoseProvider odometer;
+
+  // Public Methods
+
+  @Setup
+  public void setUp() {
+    var wheels = new Wheel[] {
+      WheeledChassis.modelWheel(new IdleMotor(0, 3), 56).offset(-61.5),
+      WheeledChassis.modelWheel(new IdleMotor(0, 2), 56).offset(61.5)
+    };
+    chassis = new WheeledChassis(wheels, WheeledChassis.TYPE_DIFFERENTIAL);
+    odometer = chassis.getPoseProvider();
+  }
+
+  @Benchmark
+  public void update() {
+    chassis.updatePose();
+  }
+
+  @Benchmark
+  public Pose getPose() {
+    return odometer.getPose();
+  }
+
+  @Benchmark
+  public double getHeading() {
+    return odometer.getHeading();
+  }
+
+  @Benchmark
+  @Group("contended")
+  @GroupThreads(1)
+  public void contendedUpdate() {
+    chassis.updatePose();
+  }
+
+  @Benchmark
+  @Group("contended")
+  @GroupThreads(3)
+  public Pose contendedGetPose() {
+    return odometer.getPose();
+  }
+}
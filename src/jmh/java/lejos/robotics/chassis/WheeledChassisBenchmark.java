@@ -0,0 +1,95 @@
+package lejos.robotics.chassis;
+
+import lejos.robotics.navigation.Move;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@code setVelocity()} and {@code getDisplacement()} of a two wheel differential {@code WheeledChassis} on the fast path and on the matrix path it replaces.<br/><br/>
+ *
+ * The motors do nothing but report a tacho count and rotation speed, so this measures the kinematics rather than the motors.
+ * Run with {@code -prof gc}: the fast path should allocate nothing.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WheeledChassisBenchmark {
+  // Public Enums
+
+  /**
+   * An enumeration to represent the ways a two wheel differential chassis can calculate its kinematics.
+   */
+  public enum Path {
+    FAST,
+    MATRIX
+  }
+
+  // Public Fields
+
+  /**
+   * The way the chassis calculates its kinematics.
+   */
+  @Param
+  public Path path;
+
+  // Private Fields
+
+  /**
+   * The chassis.
+   */
+  private WheeledChassis chassis;
+
+  /**
+   * The {@code Move} the displacement is written to.
+   */
+  private Move move;
+
+  /**
+   * The angular speed of the next call to {@code setVelocity()}, which changes each call so that the motors always need to accelerate (in degrees per second).
+   */
+  private double angularSpeed;
+
+  // Public Methods
+
+  @Setup
+  public void setUp() {
+    // The wheels of the maze robot, part of the way through an arc which started when the chassis was created.
+    var left = new IdleMotor(300, 0);
+    var right = new IdleMotor(420, 0);
+    var wheels = new Wheel[] {
+      WheeledChassis.modelWheel(left, 56).offset(-61.5),
+      WheeledChassis.modelWheel(right, 56).offset(61.5)
+    };
+    chassis = new WheeledChassis(wheels, WheeledChassis.TYPE_DIFFERENTIAL, path == Path.FAST);
+    left.setTachoCount(987);
+    right.setTachoCount(1234);
+    move = new Move(0, 0, false);
+  }
+
+  @Benchmark
+  public void setVelocity() {
+    angularSpeed = angularSpeed > 90 ? -90 : angularSpeed + 1;
+    chassis.setVelocity(150, 0, angularSpeed);
+  }
+
+  @Benchmark
+  public Move getDisplacement() {
+    return chassis.getDisplacement(move);
+  }
+}
@@ -1,16 +1,21 @@
 package com.jacobcxdev.ev3mazeproject;
 
 import com.jacobcxdev.ev3mazeproject.hardware.*;
+import com.jacobcxdev.ev3mazeproject.mapping.MapExporter;
 import com.jacobcxdev.ev3mazeproject.mapping.MazeStore;
 import com.jacobcxdev.ev3mazeproject.networking.ServerThread;
 import com.jacobcxdev.ev3mazeproject.robotics.MazeDriver;
 import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import ev3dev.sensors.Button;
 import lejos.hardware.port.MotorPort;
 import lejos.hardware.port.SensorPort;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 /**
  * A class used to store the {@code main} method invoked by the EV3's JVM, along with the shared state of the EV3.<br/><br/>
@@ -98,7 +103,9 @@ public class EV3MazeProject {
 	// Public Static Methods
 
 	/**
-	 * The main method which is invoked by the EV3's JVM.
+	 * The main method which is invoked by the EV3's JVM.<br/><br/>
+	 *
+	 * If a maze has already been mapped and saved to {@code maze.bin}, it is navigated without being mapped again, unless the {@code --remap} argument is passed.
 	 * 
 	 * @param args The {@code String} arguments passed to the program.
 	 * @throws ClassNotFoundException If an error is encountered during hardware initialisation.
@@ -116,12 +123,32 @@ public class EV3MazeProject {
 
 		MazeStore mazeStore = new MazeStore();
 		MazeDriver driver = new MazeDriver(buildDescription, portConfiguration, mazeStore);
-		try {
-			driver.startMapping().createSVGFile("maze.svg");
+		var mazeFile = Path.of("maze.bin");
+		var remap = Arrays.asList(args).contains("--remap");
+		if (!remap && Files.exists(mazeFile)) {
+			try {
+				mazeStore.load(mazeFile); // Navigate a known maze without mapping it again.
+				driver.startNavigating();
+				LoggerFactory.getLogger(EV3MazeProject.class).info("Exiting cleanly...");
+				return;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		try (var exporter = new MapExporter(Path.of("maze.svg"), Path.of("maze.ndjson"))) {
+			mazeStore.addWallListener(exporter); // Stream walls to disk while mapping, so a partial map survives a crash.
+			driver.startMapping();
+			exporter.finish(mazeStore);
+			mazeStore.save(mazeFile);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 
+		System.out.println("Please return the EV3 to the start of the maze, pointing in the direction it started mapping in, then press ENTER to navigate the maze.");
+		Button.ENTER.waitForPressAndRelease();
+		driver.startNavigating();
+
 		LoggerFactory.getLogger(EV3MazeProject.class).info("Exiting cleanly...");
 	}
 }
@@ -3,7 +3,8 @@ package com.jacobcxdev.ev3mazeproject.hardware;
 import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
 import com.jacobcxdev.ev3mazeproject.sensors.BaseTouchSensor;
 import com.jacobcxdev.ev3mazeproject.sensors.BaseUltrasonicSensor;
-import ev3dev.actuators.lego.motors.BaseRegulatedMotor;
+import lejos.hardware.port.Port;
+import lejos.robotics.RegulatedMotor;
 
 import java.lang.reflect.InvocationTargetException;
 
@@ -36,19 +37,34 @@ public class PortConfiguration {
     public final BaseUltrasonicSensor rightUltrasonicSensor;
 
     /**
-     * The {@code BaseRegulatedMotor} used to control the left track.
+     * The {@code RegulatedMotor} used to control the left track.
      */
-    public final BaseRegulatedMotor leftRegulatedMotor;
+    public final RegulatedMotor leftRegulatedMotor;
 
     /**
-     * The {@code BaseRegulatedMotor} used to control the right track.
+     * The {@code RegulatedMotor} used to control the right track.
      */
-    public final BaseRegulatedMotor rightRegulatedMotor;
+    public final RegulatedMotor rightRegulatedMotor;
 
     /**
-     * The {@code BaseRegulatedMotor} used to control the claw.
+     * The {@code RegulatedMotor} used to control the claw.
      */
-    public final BaseRegulatedMotor clawRegulatedMotor;
+    public final RegulatedMotor clawRegulatedMotor;
+
+    /**
+     * The {@code SysfsAttribute} holding the tacho count of the left regulated motor, or {@code null} if the tacho count is read through the motor.
+     */
+    public final SysfsAttribute leftTachoCount;
+
+    /**
+     * The {@code SysfsAttribute} holding the tacho count of the right regulated motor, or {@code null} if the tacho count is read through the motor.
+     */
+    public final SysfsAttribute rightTachoCount;
+
+    /**
+     * The {@code Port} which the gyroscopic sensor is connected to, or {@code null} if it is not known, e.g. for simulated parts.
+     */
+    public final Port gyroSensorPort;
 
     // Public Constructors
 
@@ -68,8 +84,70 @@ public class PortConfiguration {
         this.touchSensor = (BaseTouchSensor)touchSensor.newPartInstance();
         this.leftUltrasonicSensor = (BaseUltrasonicSensor)leftUltrasonicSensor.newPartInstance();
         this.rightUltrasonicSensor = (BaseUltrasonicSensor)rightUltrasonicSensor.newPartInstance();
-        this.leftRegulatedMotor = (BaseRegulatedMotor)leftLargeRegulatedMotor.newPartInstance();
-        this.rightRegulatedMotor = (BaseRegulatedMotor)rightLargeRegulatedMotor.newPartInstance();
-        this.clawRegulatedMotor = (BaseRegulatedMotor)clawMediumRegulatedMotor.newPartInstance();
+        this.leftRegulatedMotor = (RegulatedMotor)leftLargeRegulatedMotor.newPartInstance();
+        this.rightRegulatedMotor = (RegulatedMotor)rightLargeRegulatedMotor.newPartInstance();
+        this.clawRegulatedMotor = (RegulatedMotor)clawMediumRegulatedMotor.newPartInstance();
+        this.leftTachoCount = SysfsAttribute.openMotorAttribute(leftLargeRegulatedMotor.port, "position");
+        this.rightTachoCount = SysfsAttribute.openMotorAttribute(rightLargeRegulatedMotor.port, "position");
+        this.gyroSensorPort = gyroSensor.port;
+    }
+
+    /**
+     * Creates a {@code PortConfiguration} object from parts which have already been created, such as simulated parts.
+     *
+     * @param gyroSensor The {@code BaseGyroSensor} used to measure angles for the EV3.
+     * @param touchSensor The {@code BaseTouchSensor} used to detect when an object is in front of the EV3.
+     * @param leftUltrasonicSensor The {@code BaseUltrasonicSensor} used to measure the distance between the EV3 and the nearest object on its left.
+     * @param rightUltrasonicSensor The {@code BaseUltrasonicSensor} used to measure the distance between the EV3 and the nearest object on its right.
+     * @param leftRegulatedMotor The {@code RegulatedMotor} used to control the left track.
+     * @param rightRegulatedMotor The {@code RegulatedMotor} used to control the right track.
+     * @param clawRegulatedMotor The {@code RegulatedMotor} used to control the claw.
+     */
+    public PortConfiguration(BaseGyroSensor gyroSensor, BaseTouchSensor touchSensor, BaseUltrasonicSensor leftUltrasonicSensor, BaseUltrasonicSensor rightUltrasonicSensor, RegulatedMotor leftRegulatedMotor, RegulatedMotor rightRegulatedMotor, RegulatedMotor clawRegulatedMotor) {
+        this(gyroSensor, touchSensor, leftUltrasonicSensor, rightUltrasonicSensor, leftRegulatedMotor, rightRegulatedMotor, clawRegulatedMotor, null, null);
+    }
+
+    /**
+     * Creates a {@code PortConfiguration} object from parts which have already been created, along with the attributes holding the tacho counts of the track motors.
+     *
+     * @param gyroSensor The {@code BaseGyroSensor} used to measure angles for the EV3.
+     * @param touchSensor The {@code BaseTouchSensor} used to detect when an object is in front of the EV3.
+     * @param leftUltrasonicSensor The {@code BaseUltrasonicSensor} used to measure the distance between the EV3 and the nearest object on its left.
+     * @param rightUltrasonicSensor The {@code BaseUltrasonicSensor} used to measure the distance between the EV3 and the nearest object on its right.
+     * @param leftRegulatedMotor The {@code RegulatedMotor} used to control the left track.
+     * @param rightRegulatedMotor The {@code RegulatedMotor} used to control the right track.
+     * @param clawRegulatedMotor The {@code RegulatedMotor} used to control the claw.
+     * @param leftTachoCount The {@code SysfsAttribute} holding the tacho count of the left regulated motor, or {@code null} if the tacho count is read through the motor.
+     * @param rightTachoCount The {@code SysfsAttribute} holding the tacho count of the right regulated motor, or {@code null} if the tacho count is read through the motor.
+     */
+    public PortConfiguration(BaseGyroSensor gyroSensor, BaseTouchSensor touchSensor, BaseUltrasonicSensor leftUltrasonicSensor, BaseUltrasonicSensor rightUltrasonicSensor, RegulatedMotor leftRegulatedMotor, RegulatedMotor rightRegulatedMotor, RegulatedMotor clawRegulatedMotor, SysfsAttribute leftTachoCount, SysfsAttribute rightTachoCount) {
+        this(gyroSensor, touchSensor, leftUltrasonicSensor, rightUltrasonicSensor, leftRegulatedMotor, rightRegulatedMotor, clawRegulatedMotor, leftTachoCount, rightTachoCount, null);
+    }
+
+    /**
+     * Creates a {@code PortConfiguration} object from parts which have already been created, along with the attributes holding the tacho counts of the track motors and the port of the gyroscopic sensor.
+     *
+     * @param gyroSensor The {@code BaseGyroSensor} used to measure angles for the EV3.
+     * @param touchSensor The {@code BaseTouchSensor} used to detect when an object is in front of the EV3.
+     * @param leftUltrasonicSensor The {@code BaseUltrasonicSensor} used to measure the distance between the EV3 and the nearest object on its left.
+     * @param rightUltrasonicSensor The {@code BaseUltrasonicSensor} used to measure the distance between the EV3 and the nearest object on its right.
+     * @param leftRegulatedMotor The {@code RegulatedMotor} used to control the left track.
+     * @param rightRegulatedMotor The {@code RegulatedMotor} used to control the right track.
+     * @param clawRegulatedMotor The {@code RegulatedMotor} used to control the claw.
+     * @param leftTachoCount The {@code SysfsAttribute} holding the tacho count of the left regulated motor, or {@code null} if the tacho count is read through the motor.
+     * @param rightTachoCount The {@code SysfsAttribute} holding the tacho count of the right regulated motor, or {@code null} if the tacho count is read through the motor.
+     * @param gyroSensorPort The {@code Port} which the gyroscopic sensor is connected to, or {@code null} if it is not known.
+     */
+    public PortConfiguration(BaseGyroSensor gyroSensor, BaseTouchSensor touchSensor, BaseUltrasonicSensor leftUltrasonicSensor, BaseUltrasonicSensor rightUltrasonicSensor, RegulatedMotor leftRegulatedMotor, RegulatedMotor rightRegulatedMotor, RegulatedMotor clawRegulatedMotor, SysfsAttribute leftTachoCount, SysfsAttribute rightTachoCount, Port gyroSensorPort) {
+        this.gyroSensor = gyroSensor;
+        this.touchSensor = touchSensor;
+        this.leftUltrasonicSensor = leftUltrasonicSensor;
+        this.rightUltrasonicSensor = rightUltrasonicSensor;
+        this.leftRegulatedMotor = leftRegulatedMotor;
+        this.rightRegulatedMotor = rightRegulatedMotor;
+        this.clawRegulatedMotor = clawRegulatedMotor;
+        this.leftTachoCount = leftTachoCount;
+        this.rightTachoCount = rightTachoCount;
+        this.gyroSensorPort = gyroSensorPort;
     }
 }
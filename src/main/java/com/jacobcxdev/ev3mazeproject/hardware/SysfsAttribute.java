@@ -0,0 +1,191 @@
+package com.jacobcxdev.ev3mazeproject.hardware;
+
+import lejos.hardware.port.Port;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A class used to read an integer attribute file of an EV3Dev device, such as the {@code position} of a tacho motor or the {@code value0} of a sensor, without reopening the file or creating a {@code String} on each read.<br/><br/>
+ *
+ * The file is kept open as a {@code FileChannel} and re-read from the start into a reused direct {@code ByteBuffer}, which makes sysfs generate the attribute again, then parsed as ASCII.<br/><br/>
+ *
+ * Devices are looked up under a configurable root, {@code /sys/class} by default, so that the reader can be used with a fake sysfs tree on a normal filesystem.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class SysfsAttribute implements Closeable {
+    // Private Static Fields
+
+    /**
+     * The default directory containing the device classes.
+     */
+    private static final Path DEFAULT_ROOT = Path.of("/sys/class");
+
+    /**
+     * The prefix of the {@code address} of a device connected to an output port.
+     */
+    private static final String OUTPUT_PORT_ADDRESS_PREFIX = "ev3-ports:out";
+
+    /**
+     * The greatest length of an attribute (in bytes).
+     */
+    private static final int BUFFER_SIZE = 32;
+
+    /**
+     * The directory containing the device classes.
+     */
+    private static volatile Path root = DEFAULT_ROOT;
+
+    // Private Fields
+
+    /**
+     * The {@code Path} of the attribute file.
+     */
+    private final Path path;
+
+    /**
+     * The {@code FileChannel} of the attribute file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The buffer reused for every read.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // Public Constructors
+
+    /**
+     * Creates a {@code SysfsAttribute} object, opening the attribute file.
+     *
+     * @param path The {@code Path} of the attribute file.
+     * @throws IOException If the file could not be opened.
+     */
+    public SysfsAttribute(Path path) throws IOException {
+        this.path = path;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    // Public Static Methods
+
+    /**
+     * Finds the directory of the device of a given class connected to a given output port.
+     *
+     * @param deviceClass The class of the device, e.g. {@code tacho-motor}.
+     * @param port The output {@code Port} the device is connected to.
+     * @return The {@code Path} of the directory of the device, or {@code null} if no such device was found.
+     * @throws IOException If the directory of the device class could not be listed.
+     */
+    public static Path findOutputDevice(String deviceClass, Port port) throws IOException {
+        var directory = root.resolve(deviceClass);
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        var address = OUTPUT_PORT_ADDRESS_PREFIX + port.getName();
+        try (var devices = Files.newDirectoryStream(directory)) {
+            for (var device : devices) {
+                var addressFile = device.resolve("address");
+                if (Files.isReadable(addressFile) && Files.readString(addressFile, StandardCharsets.US_ASCII).strip().equals(address)) {
+                    return device;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Opens an attribute of the tacho motor connected to a given output port.
+     *
+     * @param port The output {@code Port} the motor is connected to.
+     * @param attribute The name of the attribute, e.g. {@code position}.
+     * @return The {@code SysfsAttribute}, or {@code null} if no tacho motor is connected to the port or the attribute could not be opened, e.g. when not running on an EV3.
+     */
+    public static SysfsAttribute openMotorAttribute(Port port, String attribute) {
+        try {
+            var device = findOutputDevice("tacho-motor", port);
+            return device == null ? null : new SysfsAttribute(device.resolve(attribute));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Public Methods
+
+    /**
+     * Reads the attribute as an integer.
+     *
+     * @return The value of the attribute.
+     * @throws IOException If the attribute could not be read, or does not hold an integer.
+     */
+    public synchronized int readInt() throws IOException {
+        buffer.clear();
+        var length = channel.read(buffer, 0);
+        var i = 0;
+        while (i < length && buffer.get(i) == ' ') {
+            i++;
+        }
+        var negative = i < length && buffer.get(i) == '-';
+        if (negative) {
+            i++;
+        }
+        var start = i;
+        var value = 0;
+        while (i < length) {
+            var digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            value = value * 10 + digit;
+            i++;
+        }
+        if (i == start) {
+            throw new IOException(String.format("%s does not hold an integer.", path));
+        }
+        return negative ? -value : value;
+    }
+
+    // Public Static Getters/Setters
+
+    /**
+     * Gets the directory containing the device classes.
+     *
+     * @return The {@code Path} of the directory, {@code /sys/class} by default.
+     */
+    public static Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Sets the directory containing the device classes, e.g. to a fake sysfs tree.
+     *
+     * @param root The {@code Path} of the directory.
+     */
+    public static void setRoot(Path root) {
+        SysfsAttribute.root = root;
+    }
+
+    // Public Getters/Setters
+
+    /**
+     * Gets the {@code Path} of the attribute file.
+     *
+     * @return The {@code Path} of the attribute file.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    // Closeable Override Methods
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
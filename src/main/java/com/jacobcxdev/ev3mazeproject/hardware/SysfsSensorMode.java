@@ -0,0 +1,113 @@
+package com.jacobcxdev.ev3mazeproject.hardware;
+
+import lejos.hardware.sensor.SensorMode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * A class used to read a mode of an EV3Dev sensor from its {@code value<n>} attribute files through {@code SysfsAttribute}s, in place of EV3Dev's {@code GenericMode}.<br/><br/>
+ *
+ * Each value is divided by a correction factor, and values outside of the range of the sensor are reported as negative or positive infinity.
+ * The attribute files are opened when the first sample is fetched, and kept open for the lifetime of the mode.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class SysfsSensorMode implements SensorMode {
+    // Private Fields
+
+    /**
+     * The {@code Path} of the directory of the sensor.
+     */
+    private final Path device;
+
+    /**
+     * The name of the mode.
+     */
+    private final String name;
+
+    /**
+     * The smallest value in the range of the sensor.
+     */
+    private final float minRange;
+
+    /**
+     * The largest value in the range of the sensor.
+     */
+    private final float maxRange;
+
+    /**
+     * The factor each value is divided by.
+     */
+    private final float correctFactor;
+
+    /**
+     * The {@code SysfsAttribute} of each value, which are opened when the first sample is fetched.
+     */
+    private final SysfsAttribute[] values;
+
+    // Public Constructors
+
+    /**
+     * Creates a {@code SysfsSensorMode} object with an unlimited range and no correction.
+     *
+     * @param device The {@code Path} of the directory of the sensor.
+     * @param sampleSize The number of values in each sample.
+     * @param name The name of the mode.
+     */
+    public SysfsSensorMode(Path device, int sampleSize, String name) {
+        this(device, sampleSize, name, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, 1f);
+    }
+
+    /**
+     * Creates a {@code SysfsSensorMode} object.
+     *
+     * @param device The {@code Path} of the directory of the sensor.
+     * @param sampleSize The number of values in each sample.
+     * @param name The name of the mode.
+     * @param minRange The smallest value in the range of the sensor, after correction.
+     * @param maxRange The largest value in the range of the sensor, after correction.
+     * @param correctFactor The factor each value is divided by.
+     */
+    public SysfsSensorMode(Path device, int sampleSize, String name, float minRange, float maxRange, float correctFactor) {
+        this.device = device;
+        this.name = name;
+        this.minRange = minRange;
+        this.maxRange = maxRange;
+        this.correctFactor = correctFactor;
+        values = new SysfsAttribute[sampleSize];
+    }
+
+    // SensorMode Override Methods
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int sampleSize() {
+        return values.length;
+    }
+
+    @Override
+    public synchronized void fetchSample(float[] sample, int offset) {
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null) {
+                    values[i] = new SysfsAttribute(device.resolve("value" + i));
+                }
+                var value = values[i].readInt() / correctFactor;
+                if (value < minRange) {
+                    value = Float.NEGATIVE_INFINITY;
+                } else if (value > maxRange) {
+                    value = Float.POSITIVE_INFINITY;
+                }
+                sample[offset + i] = value;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
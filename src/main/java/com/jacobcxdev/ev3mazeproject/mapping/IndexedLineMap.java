@@ -0,0 +1,460 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.mapping.LineMap;
+import lejos.robotics.navigation.Pose;
+
+/**
+ * A subclass of LeJOS' {@code LineMap} which indexes its walls in a uniform grid, so that range and nearest-wall queries only test the walls in the cells they pass through.<br/><br/>
+ *
+ * {@code range(Pose)} behaves like {@code LineMap.range(Pose)}: it returns the distance to the nearest wall along the heading of the {@code Pose} (in degrees anticlockwise from the x axis), or -1 if no wall is within the maximum range.
+ * Queries do not modify the {@code IndexedLineMap}, so they may be made from multiple threads.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class IndexedLineMap extends LineMap {
+	// Private Interfaces
+
+	/**
+	 * An interface used to visit the cells covered by a wall.
+	 */
+	private interface CellVisitor {
+		/**
+		 * Visits a cell.
+		 *
+		 * @param cell The index of the cell.
+		 */
+		void visit(int cell);
+	}
+
+	// Private Static Fields
+
+	/**
+	 * The maximum range used by {@code LineMap.range(Pose)}.
+	 */
+	private static final float DEFAULT_MAX_RANGE = 254;
+
+	/**
+	 * The largest number of cells allowed per wall, which bounds the memory used by the grid.
+	 */
+	private static final int MAX_CELLS_PER_WALL = 16;
+
+	// Private Fields
+
+	/**
+	 * The walls of the map.
+	 */
+	private final Line[] walls;
+
+	/**
+	 * The maximum range of {@code range(Pose)}.
+	 */
+	private final float maxRange;
+
+	/**
+	 * The x coordinate of the lower edge of the grid.
+	 */
+	private final float originX;
+
+	/**
+	 * The y coordinate of the lower edge of the grid.
+	 */
+	private final float originY;
+
+	/**
+	 * The width and height of each cell.
+	 */
+	private final float cellSize;
+
+	/**
+	 * The number of columns in the grid.
+	 */
+	private final int cols;
+
+	/**
+	 * The number of rows in the grid.
+	 */
+	private final int rows;
+
+	/**
+	 * The index into {@code cellWalls} of the first wall of each cell, followed by the length of {@code cellWalls}.
+	 */
+	private final int[] cellStart;
+
+	/**
+	 * The indices of the walls in each cell, stored contiguously by cell.
+	 */
+	private final int[] cellWalls;
+
+	// Public Constructors
+
+	/**
+	 * Creates an {@code IndexedLineMap} object with the same maximum range as {@code LineMap} and a cell size chosen from the number of walls.
+	 *
+	 * @param lines The walls of the map.
+	 * @param boundingRect The bounding rectangle of the map.
+	 */
+	public IndexedLineMap(Line[] lines, Rectangle boundingRect) {
+		this(lines, boundingRect, DEFAULT_MAX_RANGE, 0);
+	}
+
+	/**
+	 * Creates an {@code IndexedLineMap} object.
+	 *
+	 * @param lines The walls of the map.
+	 * @param boundingRect The bounding rectangle of the map.
+	 * @param maxRange The maximum range of {@code range(Pose)}.
+	 * @param cellSize The width and height of each cell, or 0 to choose one from the number of walls.
+	 */
+	public IndexedLineMap(Line[] lines, Rectangle boundingRect, float maxRange, float cellSize) {
+		super(lines, boundingRect);
+		walls = lines;
+		this.maxRange = maxRange;
+
+		// Find the extent of the walls, which may exceed the bounding rectangle.
+		var minX = Float.POSITIVE_INFINITY;
+		var minY = Float.POSITIVE_INFINITY;
+		var maxX = Float.NEGATIVE_INFINITY;
+		var maxY = Float.NEGATIVE_INFINITY;
+		for (var line : lines) {
+			minX = Math.min(minX, Math.min(line.x1, line.x2));
+			minY = Math.min(minY, Math.min(line.y1, line.y2));
+			maxX = Math.max(maxX, Math.max(line.x1, line.x2));
+			maxY = Math.max(maxY, Math.max(line.y1, line.y2));
+		}
+		if (lines.length == 0) {
+			minX = minY = maxX = maxY = 0;
+		}
+		var width = Math.max(maxX - minX, 1);
+		var height = Math.max(maxY - minY, 1);
+		if (cellSize <= 0) {
+			cellSize = (float)Math.sqrt(width * height / Math.max(lines.length, 1));
+		}
+		// Grow the cells until the grid fits within the memory bound.
+		var maxCells = (long)Math.max(lines.length, 1) * MAX_CELLS_PER_WALL;
+		while ((long)(Math.floor(width / cellSize) + 1) * (long)(Math.floor(height / cellSize) + 1) > maxCells) {
+			cellSize *= 2;
+		}
+		this.cellSize = cellSize;
+		originX = minX;
+		originY = minY;
+		cols = (int)Math.floor(width / cellSize) + 1;
+		rows = (int)Math.floor(height / cellSize) + 1;
+
+		// Count the walls in each cell, then fill the cells.
+		cellStart = new int[cols * rows + 1];
+		for (var line : lines) {
+			forEachCell(line, cell -> cellStart[cell + 1]++);
+		}
+		for (int i = 0; i < cols * rows; i++) {
+			cellStart[i + 1] += cellStart[i];
+		}
+		cellWalls = new int[cellStart[cols * rows]];
+		var fill = new int[cols * rows];
+		for (int i = 0; i < lines.length; i++) {
+			var wall = i;
+			forEachCell(lines[i], cell -> cellWalls[cellStart[cell] + fill[cell]++] = wall);
+		}
+	}
+
+	// Private Methods
+
+	/**
+	 * Gets the column containing a given x coordinate, clamped to the grid.
+	 *
+	 * @param x The x coordinate.
+	 * @return The column containing the coordinate.
+	 */
+	private int col(float x) {
+		return Math.max(0, Math.min(cols - 1, (int)Math.floor((x - originX) / cellSize)));
+	}
+
+	/**
+	 * Gets the row containing a given y coordinate, clamped to the grid.
+	 *
+	 * @param y The y coordinate.
+	 * @return The row containing the coordinate.
+	 */
+	private int row(float y) {
+		return Math.max(0, Math.min(rows - 1, (int)Math.floor((y - originY) / cellSize)));
+	}
+
+	/**
+	 * Visits each cell overlapping the bounding box of a given wall. For the axis-aligned walls produced by {@code MazeStore} this is exactly the cells the wall passes through.
+	 *
+	 * @param line The wall.
+	 * @param visitor The {@code CellVisitor} to call for each cell.
+	 */
+	private void forEachCell(Line line, CellVisitor visitor) {
+		var c0 = col(Math.min(line.x1, line.x2));
+		var c1 = col(Math.max(line.x1, line.x2));
+		var r0 = row(Math.min(line.y1, line.y2));
+		var r1 = row(Math.max(line.y1, line.y2));
+		for (int r = r0; r <= r1; r++) {
+			for (int c = c0; c <= c1; c++) {
+				visitor.visit(r * cols + c);
+			}
+		}
+	}
+
+	/**
+	 * Checks whether a value lies between two others, in either order, as LeJOS' {@code Line} does.
+	 *
+	 * @param value The value.
+	 * @param a One bound.
+	 * @param b The other bound.
+	 * @return Whether the value lies between the bounds, inclusive.
+	 */
+	private static boolean between(float value, float a, float b) {
+		return a <= b ? value >= a && value <= b : value >= b && value <= a;
+	}
+
+	/**
+	 * Gets the distance along a ray to a given wall.<br/><br/>
+	 *
+	 * This repeats the arithmetic of {@code Line.intersectsAt(Line)} and {@code Line.length()} in single precision, so that every ray hits or misses a wall exactly as it does in {@code LineMap.range(Pose)}, including rays which start on a wall or run along one, without allocating a {@code Point} or {@code Line}.
+	 *
+	 * @param ox The x coordinate of the origin of the ray.
+	 * @param oy The y coordinate of the origin of the ray.
+	 * @param ex The x coordinate of the end of the ray, at the maximum range.
+	 * @param ey The y coordinate of the end of the ray, at the maximum range.
+	 * @param line The wall.
+	 * @return The distance along the ray to the wall, or {@code Float.POSITIVE_INFINITY} if the ray does not hit the wall.
+	 */
+	private static float intersect(float ox, float oy, float ex, float ey, Line line) {
+		if (line.y2 == line.y1 && ey == oy || line.x2 == line.x1 && ex == ox) {
+			return Float.POSITIVE_INFINITY; // Parallel walls are never hit, as with LineMap.
+		}
+		float x;
+		float y;
+		if (line.x1 == line.x2 && oy == ey) {
+			x = line.x1;
+			y = oy;
+		} else if (line.y1 == line.y2 && ox == ex) {
+			x = ox;
+			y = line.y1;
+		} else if (line.y2 == line.y1 || ey == oy) {
+			var a1 = (line.y2 - line.y1) / (line.x2 - line.x1);
+			var b1 = line.y1 - a1 * line.x1;
+			var a2 = (ey - oy) / (ex - ox);
+			var b2 = oy - a2 * ox;
+			if (a1 == a2) {
+				return Float.POSITIVE_INFINITY;
+			}
+			x = (b2 - b1) / (a1 - a2);
+			y = a1 * x + b1;
+		} else {
+			var a1 = (line.x2 - line.x1) / (line.y2 - line.y1);
+			var b1 = line.x1 - a1 * line.y1;
+			var a2 = (ex - ox) / (ey - oy);
+			var b2 = ox - a2 * oy;
+			if (a1 == a2) {
+				return Float.POSITIVE_INFINITY;
+			}
+			y = (b2 - b1) / (a1 - a2);
+			x = a1 * y + b1;
+		}
+		if (!between(x, line.x1, line.x2) || !between(x, ox, ex) || !between(y, line.y1, line.y2) || !between(y, oy, ey)) {
+			return Float.POSITIVE_INFINITY;
+		}
+		return (float)Math.sqrt((x - ox) * (x - ox) + (y - oy) * (y - oy));
+	}
+
+	/**
+	 * Gets the distance from a point to a given wall.
+	 *
+	 * @param x The x coordinate of the point.
+	 * @param y The y coordinate of the point.
+	 * @param line The wall.
+	 * @return The distance from the point to the wall.
+	 */
+	private static float distance(float x, float y, Line line) {
+		var ex = line.x2 - line.x1;
+		var ey = line.y2 - line.y1;
+		var lengthSquared = ex * ex + ey * ey;
+		var t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((x - line.x1) * ex + (y - line.y1) * ey) / lengthSquared));
+		var px = line.x1 + t * ex - x;
+		var py = line.y1 + t * ey - y;
+		return (float)Math.sqrt(px * px + py * py);
+	}
+
+	/**
+	 * Gets the index of the wall nearest to a given point by testing every wall.
+	 *
+	 * @param x The x coordinate of the point.
+	 * @param y The y coordinate of the point.
+	 * @return The index of the nearest wall, or -1 if the map has no walls.
+	 */
+	private int nearestWallLinear(float x, float y) {
+		var best = -1;
+		var bestDistance = Float.POSITIVE_INFINITY;
+		for (int i = 0; i < walls.length; i++) {
+			var d = distance(x, y, walls[i]);
+			if (d < bestDistance) {
+				bestDistance = d;
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Gets the index of the wall nearest to a given point.
+	 *
+	 * @param x The x coordinate of the point.
+	 * @param y The y coordinate of the point.
+	 * @return The index of the nearest wall, or -1 if the map has no walls.
+	 */
+	private int nearestWallIndex(float x, float y) {
+		var gx = (x - originX) / cellSize;
+		var gy = (y - originY) / cellSize;
+		if (gx < 0 || gy < 0 || gx >= cols || gy >= rows) {
+			return nearestWallLinear(x, y); // Rings around a clamped cell do not bound the distance from points outside the grid.
+		}
+		var c = (int)gx;
+		var r = (int)gy;
+		var best = -1;
+		var bestDistance = Float.POSITIVE_INFINITY;
+		var maxRing = Math.max(cols, rows);
+		for (int k = 0; k <= maxRing; k++) {
+			for (int rr = r - k; rr <= r + k; rr++) {
+				if (rr < 0 || rr >= rows) {
+					continue;
+				}
+				var edge = rr == r - k || rr == r + k;
+				for (int cc = c - k; cc <= c + k; cc += edge ? 1 : 2 * k) {
+					if (cc >= 0 && cc < cols) {
+						var cell = rr * cols + cc;
+						for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+							var d = distance(x, y, walls[cellWalls[i]]);
+							if (d < bestDistance) {
+								bestDistance = d;
+								best = cellWalls[i];
+							}
+						}
+					}
+					if (k == 0) {
+						break;
+					}
+				}
+			}
+			// Every cell outside ring k is at least k cells away from the point.
+			if (bestDistance <= k * cellSize) {
+				break;
+			}
+		}
+		return best;
+	}
+
+	// Public Methods
+
+	/**
+	 * Gets the wall nearest to a given point.
+	 *
+	 * @param x The x coordinate of the point.
+	 * @param y The y coordinate of the point.
+	 * @return The nearest wall, or {@code null} if the map has no walls.
+	 */
+	public Line nearestWall(float x, float y) {
+		var index = nearestWallIndex(x, y);
+		return index < 0 ? null : walls[index];
+	}
+
+	/**
+	 * Gets the distance from a given point to the nearest wall.
+	 *
+	 * @param x The x coordinate of the point.
+	 * @param y The y coordinate of the point.
+	 * @return The distance to the nearest wall, or {@code Float.POSITIVE_INFINITY} if the map has no walls.
+	 */
+	public float distanceToNearestWall(float x, float y) {
+		var index = nearestWallIndex(x, y);
+		return index < 0 ? Float.POSITIVE_INFINITY : distance(x, y, walls[index]);
+	}
+
+	/**
+	 * Gets the maximum range of {@code range(Pose)}.
+	 *
+	 * @return The maximum range.
+	 */
+	public float getMaxRange() {
+		return maxRange;
+	}
+
+	// LineMap Override Methods
+
+	@Override
+	public float range(Pose pose) {
+		var ox = pose.getX();
+		var oy = pose.getY();
+		var heading = Math.toRadians(pose.getHeading());
+		var dx = (float)Math.cos(heading);
+		var dy = (float)Math.sin(heading);
+		var ex = ox + maxRange * dx;
+		var ey = oy + maxRange * dy;
+		var best = Float.POSITIVE_INFINITY;
+
+		// Clip the ray to the grid.
+		var tEnter = 0f;
+		var tLeave = maxRange;
+		var gridMaxX = originX + cols * cellSize;
+		var gridMaxY = originY + rows * cellSize;
+		if (dx != 0) {
+			var t1 = (originX - ox) / dx;
+			var t2 = (gridMaxX - ox) / dx;
+			tEnter = Math.max(tEnter, Math.min(t1, t2));
+			tLeave = Math.min(tLeave, Math.max(t1, t2));
+		} else if (ox < originX || ox > gridMaxX) {
+			return -1;
+		}
+		if (dy != 0) {
+			var t1 = (originY - oy) / dy;
+			var t2 = (gridMaxY - oy) / dy;
+			tEnter = Math.max(tEnter, Math.min(t1, t2));
+			tLeave = Math.min(tLeave, Math.max(t1, t2));
+		} else if (oy < originY || oy > gridMaxY) {
+			return -1;
+		}
+		if (tEnter > tLeave) {
+			return -1;
+		}
+
+		// Walk the cells along the ray (Amanatides & Woo), stopping once the nearest hit is before the exit of the current cell.
+		var c = col(ox + dx * tEnter);
+		var r = row(oy + dy * tEnter);
+		var stepC = dx > 0 ? 1 : -1;
+		var stepR = dy > 0 ? 1 : -1;
+		var tDeltaX = dx != 0 ? cellSize / Math.abs(dx) : Float.POSITIVE_INFINITY;
+		var tDeltaY = dy != 0 ? cellSize / Math.abs(dy) : Float.POSITIVE_INFINITY;
+		var tMaxX = dx != 0 ? (originX + (c + (dx > 0 ? 1 : 0)) * cellSize - ox) / dx : Float.POSITIVE_INFINITY;
+		var tMaxY = dy != 0 ? (originY + (r + (dy > 0 ? 1 : 0)) * cellSize - oy) / dy : Float.POSITIVE_INFINITY;
+		while (true) {
+			var cell = r * cols + c;
+			for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+				var t = intersect(ox, oy, ex, ey, walls[cellWalls[i]]);
+				if (t < best) {
+					best = t;
+				}
+			}
+			var tExit = Math.min(tMaxX, tMaxY);
+			if (best <= tExit || tExit > tLeave) {
+				break;
+			}
+			if (tMaxX < tMaxY) {
+				c += stepC;
+				tMaxX += tDeltaX;
+				if (c < 0 || c >= cols) {
+					break;
+				}
+			} else {
+				r += stepR;
+				tMaxY += tDeltaY;
+				if (r < 0 || r >= rows) {
+					break;
+				}
+			}
+		}
+		return best <= maxRange ? best : -1;
+	}
+}
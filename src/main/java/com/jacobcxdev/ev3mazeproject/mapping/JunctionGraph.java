@@ -0,0 +1,604 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.navigation.Move.MoveType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A class used to represent a maze as a graph of junctions connected by corridors, derived from the {@code ROTATE} and {@code TRAVEL} moves made while mapping it.<br/><br/>
+ *
+ * Each coordinate is snapped to a grid line, so that coordinates within a given tolerance of each other share a line, and each junction lies where two grid lines cross. Each travel is rounded to the nearest right angle and moves along one grid line, so every corridor is axis-aligned and every turn on a route is a right angle.
+ * Corridors are split wherever a junction lies along them, and dead ends are pruned, leaving only the junctions which can be on a route from the start to the exit.
+ * Headings are in degrees clockwise from the starting direction of the EV3, matching {@code MazeStore}.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class JunctionGraph {
+	// Private Static Classes
+
+	/**
+	 * A class used to snap the coordinates along one axis to a set of grid lines, creating a new line for each coordinate which is not within the tolerance of an existing line.
+	 */
+	private static class GridLines {
+		// Private Fields
+
+		/**
+		 * The index of each line, keyed by its coordinate.
+		 */
+		private final TreeMap<Float, Integer> lines = new TreeMap<>();
+
+		/**
+		 * The coordinate of each line, indexed by line.
+		 */
+		private final List<Float> coordinates = new ArrayList<>();
+
+		/**
+		 * The distance within which a coordinate is snapped to a line.
+		 */
+		private final float tolerance;
+
+		// Public Constructors
+
+		/**
+		 * Creates a {@code GridLines} object.
+		 *
+		 * @param tolerance The distance within which a coordinate is snapped to a line.
+		 */
+		public GridLines(float tolerance) {
+			this.tolerance = tolerance;
+		}
+
+		// Public Methods
+
+		/**
+		 * Snaps a coordinate to the nearest line within the tolerance, adding a new line if there is none.
+		 *
+		 * @param coordinate The coordinate to snap.
+		 * @return The index of the line.
+		 */
+		public int snap(float coordinate) {
+			var below = lines.floorEntry(coordinate);
+			var above = lines.ceilingEntry(coordinate);
+			var belowDistance = below != null ? coordinate - below.getKey() : Float.POSITIVE_INFINITY;
+			var aboveDistance = above != null ? above.getKey() - coordinate : Float.POSITIVE_INFINITY;
+			if (belowDistance <= tolerance && belowDistance <= aboveDistance) {
+				return below.getValue();
+			}
+			if (aboveDistance <= tolerance) {
+				return above.getValue();
+			}
+			lines.put(coordinate, coordinates.size());
+			coordinates.add(coordinate);
+			return coordinates.size() - 1;
+		}
+
+		/**
+		 * Gets the coordinate of a given line.
+		 *
+		 * @param line The index of the line.
+		 * @return The coordinate of the line.
+		 */
+		public float coordinate(int line) {
+			return coordinates.get(line);
+		}
+	}
+
+	// Private Fields
+
+	/**
+	 * The x coordinate of each junction (in millimetres).
+	 */
+	private final float[] nodeX;
+
+	/**
+	 * The y coordinate of each junction (in millimetres).
+	 */
+	private final float[] nodeY;
+
+	/**
+	 * The junction at one end of each corridor.
+	 */
+	private final int[] edgeFrom;
+
+	/**
+	 * The junction at the other end of each corridor.
+	 */
+	private final int[] edgeTo;
+
+	/**
+	 * The index into {@code adjacentNodes} and {@code adjacentEdges} of the first corridor of each junction, followed by their length.
+	 */
+	private final int[] adjacencyStart;
+
+	/**
+	 * The junction at the other end of each corridor of each junction, stored contiguously by junction.
+	 */
+	private final int[] adjacentNodes;
+
+	/**
+	 * The index of each corridor of each junction, stored contiguously by junction.
+	 */
+	private final int[] adjacentEdges;
+
+	/**
+	 * The junction the EV3 started at.
+	 */
+	private final int startNode;
+
+	/**
+	 * The junction the EV3 finished at.
+	 */
+	private final int exitNode;
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code JunctionGraph} object from the moves recorded while mapping a maze.
+	 *
+	 * @param moveLog The {@code MoveLog} of moves made while mapping the maze, starting at (0, 0) with a heading of 0.
+	 * @param tolerance The distance within which coordinates are snapped to the same grid line (in millimetres).
+	 */
+	public JunctionGraph(MoveLog moveLog, float tolerance) {
+		// Walk the moves, snapping the end of each travel to a junction where two grid lines cross.
+		var xLines = new GridLines(tolerance);
+		var yLines = new GridLines(tolerance);
+		List<int[]> nodes = new ArrayList<>();
+		Map<Long, Integer> nodeIndex = new HashMap<>();
+		List<int[]> edges = new ArrayList<>();
+		var heading = 0d;
+		var previous = findOrAddNode(nodes, nodeIndex, xLines.snap(0), yLines.snap(0));
+		var start = previous;
+		for (int i = 0; i < moveLog.size(); i++) {
+			switch (moveLog.getType(i)) {
+				case ROTATE -> heading += moveLog.getAngle(i);
+				case TRAVEL -> {
+					// Travel along the grid line of the previous junction, in the nearest right-angled direction.
+					var xLine = nodes.get(previous)[0];
+					var yLine = nodes.get(previous)[1];
+					var distance = moveLog.getDistance(i);
+					switch (Math.floorMod(Math.round(heading / 90), 4)) {
+						case 0 -> yLine = yLines.snap(yLines.coordinate(yLine) + distance);
+						case 1 -> xLine = xLines.snap(xLines.coordinate(xLine) + distance);
+						case 2 -> yLine = yLines.snap(yLines.coordinate(yLine) - distance);
+						default -> xLine = xLines.snap(xLines.coordinate(xLine) - distance);
+					}
+					var node = findOrAddNode(nodes, nodeIndex, xLine, yLine);
+					if (node != previous) {
+						edges.add(new int[] {previous, node});
+					}
+					previous = node;
+				}
+				default -> {}
+			}
+		}
+		var exit = previous;
+
+		edges = splitEdges(nodes, edges, xLines, yLines);
+		var degree = new int[nodes.size()];
+		var alive = new boolean[edges.size()];
+		Arrays.fill(alive, true);
+		List<List<Integer>> nodeEdges = new ArrayList<>(nodes.size());
+		for (int n = 0; n < nodes.size(); n++) {
+			nodeEdges.add(new ArrayList<>());
+		}
+		for (int e = 0; e < edges.size(); e++) {
+			for (var n : edges.get(e)) {
+				degree[n]++;
+				nodeEdges.get(n).add(e);
+			}
+		}
+
+		// Prune dead ends, i.e. junctions with one corridor which are neither the start nor the exit, working back along each dead end.
+		var deadEnds = new ArrayDeque<Integer>();
+		for (int n = 0; n < nodes.size(); n++) {
+			if (degree[n] == 1 && n != start && n != exit) {
+				deadEnds.add(n);
+			}
+		}
+		while (!deadEnds.isEmpty()) {
+			int n = deadEnds.poll();
+			for (var e : nodeEdges.get(n)) {
+				if (alive[e]) {
+					alive[e] = false;
+					var other = edges.get(e)[0] == n ? edges.get(e)[1] : edges.get(e)[0];
+					degree[n]--;
+					degree[other]--;
+					if (degree[other] == 1 && other != start && other != exit) {
+						deadEnds.add(other);
+					}
+					break;
+				}
+			}
+		}
+
+		// Compact the remaining junctions and corridors.
+		var remap = new int[nodes.size()];
+		Arrays.fill(remap, -1);
+		var nNodes = 0;
+		for (int n = 0; n < nodes.size(); n++) {
+			if (degree[n] > 0 || n == start || n == exit) {
+				remap[n] = nNodes++;
+			}
+		}
+		nodeX = new float[nNodes];
+		nodeY = new float[nNodes];
+		for (int n = 0; n < nodes.size(); n++) {
+			if (remap[n] >= 0) {
+				nodeX[remap[n]] = xLines.coordinate(nodes.get(n)[0]);
+				nodeY[remap[n]] = yLines.coordinate(nodes.get(n)[1]);
+			}
+		}
+		var nEdges = 0;
+		for (var isAlive : alive) {
+			nEdges += isAlive ? 1 : 0;
+		}
+		edgeFrom = new int[nEdges];
+		edgeTo = new int[nEdges];
+		for (int e = 0, i = 0; e < edges.size(); e++) {
+			if (alive[e]) {
+				edgeFrom[i] = remap[edges.get(e)[0]];
+				edgeTo[i++] = remap[edges.get(e)[1]];
+			}
+		}
+		startNode = remap[start];
+		exitNode = remap[exit];
+
+		adjacencyStart = new int[nNodes + 1];
+		adjacentNodes = new int[nEdges * 2];
+		adjacentEdges = new int[nEdges * 2];
+		buildAdjacency();
+	}
+
+	/**
+	 * Creates a {@code JunctionGraph} object from previously derived junctions and corridors.
+	 *
+	 * @param nodeX The x coordinate of each junction (in millimetres).
+	 * @param nodeY The y coordinate of each junction (in millimetres).
+	 * @param edgeFrom The junction at one end of each corridor.
+	 * @param edgeTo The junction at the other end of each corridor.
+	 * @param startNode The junction the EV3 started at.
+	 * @param exitNode The junction the EV3 finished at.
+	 */
+	public JunctionGraph(float[] nodeX, float[] nodeY, int[] edgeFrom, int[] edgeTo, int startNode, int exitNode) {
+		if (nodeX.length != nodeY.length || edgeFrom.length != edgeTo.length) {
+			throw new IllegalArgumentException("Junction and corridor arrays must have matching lengths");
+		}
+		this.nodeX = nodeX.clone();
+		this.nodeY = nodeY.clone();
+		this.edgeFrom = edgeFrom.clone();
+		this.edgeTo = edgeTo.clone();
+		this.startNode = startNode;
+		this.exitNode = exitNode;
+		adjacencyStart = new int[nodeX.length + 1];
+		adjacentNodes = new int[edgeFrom.length * 2];
+		adjacentEdges = new int[edgeFrom.length * 2];
+		buildAdjacency();
+	}
+
+	// Private Static Methods
+
+	/**
+	 * Finds the junction where two grid lines cross, adding a new junction if there is none.
+	 *
+	 * @param nodes The grid lines of the junctions found so far, as {x line, y line}.
+	 * @param nodeIndex The index of each junction found so far, keyed by {@code nodeKey}.
+	 * @param xLine The index of the grid line of the x coordinate.
+	 * @param yLine The index of the grid line of the y coordinate.
+	 * @return The index of the junction.
+	 */
+	private static int findOrAddNode(List<int[]> nodes, Map<Long, Integer> nodeIndex, int xLine, int yLine) {
+		return nodeIndex.computeIfAbsent(nodeKey(xLine, yLine), key -> {
+			nodes.add(new int[] {xLine, yLine});
+			return nodes.size() - 1;
+		});
+	}
+
+	/**
+	 * Creates the key of the junction where two grid lines cross.
+	 *
+	 * @param xLine The index of the grid line of the x coordinate.
+	 * @param yLine The index of the grid line of the y coordinate.
+	 * @return The key of the junction.
+	 */
+	private static long nodeKey(int xLine, int yLine) {
+		return ((long)xLine << 32) | yLine;
+	}
+
+	/**
+	 * Splits each corridor at every junction lying along it, and removes duplicate corridors.<br/><br/>
+	 *
+	 * Each corridor runs along a grid line, so only the junctions on the same grid line need to be tested.
+	 *
+	 * @param nodes The grid lines of the junctions, as {x line, y line}.
+	 * @param edges The corridors to split.
+	 * @param xLines The grid lines of the x coordinates.
+	 * @param yLines The grid lines of the y coordinates.
+	 * @return The split corridors.
+	 */
+	private static List<int[]> splitEdges(List<int[]> nodes, List<int[]> edges, GridLines xLines, GridLines yLines) {
+		// Group the junctions by the grid lines they lie on.
+		Map<Integer, List<Integer>> nodesByXLine = new HashMap<>();
+		Map<Integer, List<Integer>> nodesByYLine = new HashMap<>();
+		for (int n = 0; n < nodes.size(); n++) {
+			nodesByXLine.computeIfAbsent(nodes.get(n)[0], line -> new ArrayList<>()).add(n);
+			nodesByYLine.computeIfAbsent(nodes.get(n)[1], line -> new ArrayList<>()).add(n);
+		}
+
+		List<int[]> split = new ArrayList<>();
+		var seen = new HashSet<Long>();
+		for (var edge : edges) {
+			var a = nodes.get(edge[0]);
+			var b = nodes.get(edge[1]);
+			var vertical = a[0] == b[0];
+			var from = vertical ? yLines.coordinate(a[1]) : xLines.coordinate(a[0]);
+			var length = (vertical ? yLines.coordinate(b[1]) : xLines.coordinate(b[0])) - from;
+
+			// Collect the junctions along the corridor, ordered by their distance from its start.
+			List<float[]> along = new ArrayList<>();
+			for (var n : vertical ? nodesByXLine.get(a[0]) : nodesByYLine.get(a[1])) {
+				if (n == edge[0] || n == edge[1]) {
+					continue;
+				}
+				var p = nodes.get(n);
+				var t = ((vertical ? yLines.coordinate(p[1]) : xLines.coordinate(p[0])) - from) / length;
+				if (t > 0 && t < 1) {
+					along.add(new float[] {t, n});
+				}
+			}
+			along.sort((p, q) -> Float.compare(p[0], q[0]));
+
+			var previous = edge[0];
+			for (var p : along) {
+				addEdge(split, seen, previous, (int)p[1]);
+				previous = (int)p[1];
+			}
+			addEdge(split, seen, previous, edge[1]);
+		}
+		return split;
+	}
+
+	/**
+	 * Adds a corridor to a list unless it has already been added in either direction.
+	 *
+	 * @param edges The list of corridors.
+	 * @param seen The keys of the corridors already added.
+	 * @param a The junction at one end of the corridor.
+	 * @param b The junction at the other end of the corridor.
+	 */
+	private static void addEdge(List<int[]> edges, Set<Long> seen, int a, int b) {
+		if (a == b) {
+			return;
+		}
+		var key = ((long)Math.min(a, b) << 32) | Math.max(a, b);
+		if (seen.add(key)) {
+			edges.add(new int[] {a, b});
+		}
+	}
+
+	/**
+	 * Normalises a heading to the range [0, 360).
+	 *
+	 * @param heading The heading to normalise (in degrees).
+	 * @return The normalised heading (in degrees).
+	 */
+	private static double normaliseHeading(double heading) {
+		heading %= 360;
+		return heading < 0 ? heading + 360 : heading;
+	}
+
+	// Private Methods
+
+	/**
+	 * Builds the adjacency arrays from {@code edgeFrom} and {@code edgeTo}.
+	 */
+	private void buildAdjacency() {
+		for (int e = 0; e < edgeFrom.length; e++) {
+			adjacencyStart[edgeFrom[e] + 1]++;
+			adjacencyStart[edgeTo[e] + 1]++;
+		}
+		for (int n = 0; n < nodeX.length; n++) {
+			adjacencyStart[n + 1] += adjacencyStart[n];
+		}
+		var fill = new int[nodeX.length];
+		for (int e = 0; e < edgeFrom.length; e++) {
+			var i = adjacencyStart[edgeFrom[e]] + fill[edgeFrom[e]]++;
+			adjacentNodes[i] = edgeTo[e];
+			adjacentEdges[i] = e;
+			var j = adjacencyStart[edgeTo[e]] + fill[edgeTo[e]]++;
+			adjacentNodes[j] = edgeFrom[e];
+			adjacentEdges[j] = e;
+		}
+	}
+
+	// Public Methods
+
+	/**
+	 * Finds the shortest route from the start to the exit using Dijkstra's algorithm.
+	 *
+	 * @return The junctions along the shortest route, starting with the start and ending with the exit, or an empty array if the exit cannot be reached.
+	 */
+	public int[] shortestPath() {
+		var n = nodeX.length;
+		var distance = new float[n];
+		var previous = new int[n];
+		var done = new boolean[n];
+		Arrays.fill(distance, Float.POSITIVE_INFINITY);
+		Arrays.fill(previous, -1);
+		distance[startNode] = 0;
+
+		// The graph is small, so a linear scan for the nearest junction is faster than a heap.
+		for (int i = 0; i < n; i++) {
+			var u = -1;
+			for (int v = 0; v < n; v++) {
+				if (!done[v] && (u < 0 || distance[v] < distance[u])) {
+					u = v;
+				}
+			}
+			if (u < 0 || distance[u] == Float.POSITIVE_INFINITY || u == exitNode) {
+				break;
+			}
+			done[u] = true;
+			for (int a = adjacencyStart[u]; a < adjacencyStart[u + 1]; a++) {
+				var v = adjacentNodes[a];
+				var d = distance[u] + getEdgeLength(adjacentEdges[a]);
+				if (d < distance[v]) {
+					distance[v] = d;
+					previous[v] = u;
+				}
+			}
+		}
+		if (distance[exitNode] == Float.POSITIVE_INFINITY) {
+			return new int[0];
+		}
+
+		var length = 1;
+		for (int v = exitNode; v != startNode; v = previous[v]) {
+			length++;
+		}
+		var path = new int[length];
+		for (int v = exitNode, i = length - 1; i >= 0; v = previous[v], i--) {
+			path[i] = v;
+		}
+		return path;
+	}
+
+	/**
+	 * Finds the shortest route from the start to the exit as a sequence of moves, assuming the EV3 starts at the start junction with a heading of 0.<br/><br/>
+	 *
+	 * Consecutive corridors with the same heading are joined into a single {@code TRAVEL} move, and each change of heading is a single {@code ROTATE} move of at most 180 degrees either way.
+	 *
+	 * @return A {@code MoveLog} of the moves along the shortest route, which is empty if the exit cannot be reached.
+	 */
+	public MoveLog shortestRoute() {
+		var path = shortestPath();
+		var route = new MoveLog(Math.max(path.length * 2, 1));
+		var heading = 0d;
+		var pendingDistance = 0f;
+		for (int i = 1; i < path.length; i++) {
+			var dx = nodeX[path[i]] - nodeX[path[i - 1]];
+			var dy = nodeY[path[i]] - nodeY[path[i - 1]];
+			var edgeHeading = normaliseHeading(Math.toDegrees(Math.atan2(dx, dy)));
+			var rotation = normaliseHeading(edgeHeading - heading);
+			rotation = rotation > 180 ? rotation - 360 : rotation;
+			if (Math.abs(rotation) >= 1) {
+				if (pendingDistance > 0) {
+					route.append(MoveType.TRAVEL, pendingDistance, 0, 0);
+					pendingDistance = 0;
+				}
+				route.append(MoveType.ROTATE, 0, (float)rotation, 0);
+				heading = edgeHeading;
+			}
+			pendingDistance += (float)Math.hypot(dx, dy);
+		}
+		if (pendingDistance > 0) {
+			route.append(MoveType.TRAVEL, pendingDistance, 0, 0);
+		}
+		return route;
+	}
+
+	// Public Getters/Setters
+
+	/**
+	 * Gets the number of junctions.
+	 *
+	 * @return The number of junctions.
+	 */
+	public int getNodeCount() {
+		return nodeX.length;
+	}
+
+	/**
+	 * Gets the x coordinate of a given junction.
+	 *
+	 * @param node The index of the junction.
+	 * @return The x coordinate of the junction (in millimetres).
+	 */
+	public float getNodeX(int node) {
+		return nodeX[node];
+	}
+
+	/**
+	 * Gets the y coordinate of a given junction.
+	 *
+	 * @param node The index of the junction.
+	 * @return The y coordinate of the junction (in millimetres).
+	 */
+	public float getNodeY(int node) {
+		return nodeY[node];
+	}
+
+	/**
+	 * Gets the number of corridors.
+	 *
+	 * @return The number of corridors.
+	 */
+	public int getEdgeCount() {
+		return edgeFrom.length;
+	}
+
+	/**
+	 * Gets the junction at one end of a given corridor.
+	 *
+	 * @param edge The index of the corridor.
+	 * @return The index of the junction.
+	 */
+	public int getEdgeFrom(int edge) {
+		return edgeFrom[edge];
+	}
+
+	/**
+	 * Gets the junction at the other end of a given corridor.
+	 *
+	 * @param edge The index of the corridor.
+	 * @return The index of the junction.
+	 */
+	public int getEdgeTo(int edge) {
+		return edgeTo[edge];
+	}
+
+	/**
+	 * Gets the length of a given corridor.
+	 *
+	 * @param edge The index of the corridor.
+	 * @return The length of the corridor (in millimetres).
+	 */
+	public float getEdgeLength(int edge) {
+		return (float)Math.hypot(nodeX[edgeTo[edge]] - nodeX[edgeFrom[edge]], nodeY[edgeTo[edge]] - nodeY[edgeFrom[edge]]);
+	}
+
+	/**
+	 * Gets the heading of a given corridor, from the junction returned by {@code getEdgeFrom} to the junction returned by {@code getEdgeTo}.
+	 *
+	 * @param edge The index of the corridor.
+	 * @return The heading of the corridor (in degrees clockwise from the starting direction of the EV3).
+	 */
+	public float getEdgeHeading(int edge) {
+		return (float)normaliseHeading(Math.toDegrees(Math.atan2(nodeX[edgeTo[edge]] - nodeX[edgeFrom[edge]], nodeY[edgeTo[edge]] - nodeY[edgeFrom[edge]])));
+	}
+
+	/**
+	 * Gets the junction the EV3 started at.
+	 *
+	 * @return The index of the junction.
+	 */
+	public int getStartNode() {
+		return startNode;
+	}
+
+	/**
+	 * Gets the junction the EV3 finished at.
+	 *
+	 * @return The index of the junction.
+	 */
+	public int getExitNode() {
+		return exitNode;
+	}
+}
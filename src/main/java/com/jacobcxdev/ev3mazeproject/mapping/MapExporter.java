@@ -0,0 +1,486 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.geometry.Line;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An implementation of the {@code MazeStore.WallListener} interface used to stream the walls of a maze to an SVG file and a newline-delimited JSON file as they are committed, rather than writing a {@code LineMap} in one go at the end of a run.<br/><br/>
+ *
+ * Walls are handed to a background thread as they are committed, so that no file is written while the lock of the {@code MazeStore} is held.
+ * The thread writes both files through small buffers which are flushed whenever they fill up, and at least once every {@code FLUSH_INTERVAL} milliseconds while walls are buffered.
+ * Each time the SVG file is flushed, its closing tags are written after the last wall and its fixed-width {@code viewBox} is rewritten in place, so the file on disk is always a complete SVG document and a partial map survives a crash.
+ * Once mapping has finished, {@code finish} rewrites both files from the compacted walls of {@code MazeStore.constructLineMap}.
+ * Walls are exported with the y axis flipped so that the SVG is drawn the right way up.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class MapExporter implements MazeStore.WallListener, Closeable {
+	// Private Static Fields
+
+	/**
+	 * The size of each buffer (in bytes).
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * The longest time walls are kept in the buffers before being flushed (in milliseconds).
+	 */
+	private static final long FLUSH_INTERVAL = 1000;
+
+	/**
+	 * The SVG written before the {@code viewBox}.
+	 */
+	private static final String SVG_PREFIX = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"";
+
+	/**
+	 * The SVG written after the {@code viewBox}.
+	 */
+	private static final String SVG_SUFFIX = "\">\n<g stroke=\"black\" stroke-width=\"5\" stroke-linecap=\"square\">\n";
+
+	/**
+	 * The format of the {@code viewBox}, which has a fixed width so that it can be rewritten in place.
+	 */
+	private static final String VIEW_BOX_FORMAT = "%11d %11d %11d %11d";
+
+	/**
+	 * The closing tags of the SVG.
+	 */
+	private static final byte[] SVG_FOOTER = "</g>\n</svg>\n".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * The margin added around the walls in the {@code viewBox} (in millimetres).
+	 */
+	private static final int VIEW_BOX_MARGIN = 20;
+
+	/**
+	 * The wall queued to stop the writer thread.
+	 */
+	private static final Line STOP = new Line(0, 0, 0, 0);
+
+	// Private Fields
+
+	/**
+	 * The {@code FileChannel} of the SVG file.
+	 */
+	private final FileChannel svgChannel;
+
+	/**
+	 * The {@code FileChannel} of the JSON file.
+	 */
+	private final FileChannel jsonChannel;
+
+	/**
+	 * The buffer of SVG waiting to be written.
+	 */
+	private final ByteBuffer svgBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/**
+	 * The buffer of JSON waiting to be written.
+	 */
+	private final ByteBuffer jsonBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/**
+	 * The queue of committed walls waiting to be written by the writer thread.
+	 */
+	private final BlockingQueue<Line> queue = new LinkedBlockingQueue<>();
+
+	/**
+	 * The thread which writes the queued walls to the files.
+	 */
+	private final Thread writer = new Thread(this::run, "MapExporter");
+
+	/**
+	 * The {@code StringBuilder} reused to format each wall.
+	 */
+	private final StringBuilder builder = new StringBuilder(128);
+
+	/**
+	 * The position in the SVG file at which the next wall is written, i.e. the position of the closing tags.
+	 */
+	private long svgPosition;
+
+	/**
+	 * The number of walls exported.
+	 */
+	private int wallCount;
+
+	/**
+	 * The minimum x coordinate of the walls exported.
+	 */
+	private float minX = Float.POSITIVE_INFINITY;
+
+	/**
+	 * The minimum y coordinate of the walls exported.
+	 */
+	private float minY = Float.POSITIVE_INFINITY;
+
+	/**
+	 * The maximum x coordinate of the walls exported.
+	 */
+	private float maxX = Float.NEGATIVE_INFINITY;
+
+	/**
+	 * The maximum y coordinate of the walls exported.
+	 */
+	private float maxY = Float.NEGATIVE_INFINITY;
+
+	/**
+	 * The time the buffers were last flushed, or the first wall was buffered since (in milliseconds since the epoch).
+	 */
+	private long lastFlushTime = System.currentTimeMillis();
+
+	/**
+	 * The first error encountered while writing walls, which is thrown when the {@code MapExporter} is flushed or closed.
+	 */
+	private IOException error;
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code MapExporter} object, replacing any existing files, and starts its writer thread.
+	 *
+	 * @param svgPath The {@code Path} of the SVG file to write.
+	 * @param jsonPath The {@code Path} of the newline-delimited JSON file to write.
+	 * @throws IOException If either file could not be opened.
+	 */
+	public MapExporter(Path svgPath, Path jsonPath) throws IOException {
+		svgChannel = FileChannel.open(svgPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			jsonChannel = FileChannel.open(jsonPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		} catch (IOException e) {
+			svgChannel.close();
+			throw e;
+		}
+		writeHeader();
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	// Private Static Methods
+
+	/**
+	 * Appends a coordinate to a {@code StringBuilder}, without a fractional part if it is a whole number.
+	 *
+	 * @param builder The {@code StringBuilder} to append to.
+	 * @param value The coordinate to append.
+	 */
+	private static void appendCoordinate(StringBuilder builder, float value) {
+		if (value == (int)value) {
+			builder.append((int)value);
+		} else {
+			builder.append(value);
+		}
+	}
+
+	/**
+	 * Copies the ASCII characters of a {@code StringBuilder} into a {@code ByteBuffer}.
+	 *
+	 * @param builder The {@code StringBuilder} to copy from.
+	 * @param buffer The {@code ByteBuffer} to copy into, which must have enough space remaining.
+	 */
+	private static void put(StringBuilder builder, ByteBuffer buffer) {
+		for (int i = 0; i < builder.length(); i++) {
+			buffer.put((byte)builder.charAt(i));
+		}
+	}
+
+	// Private Methods
+
+	/**
+	 * Writes a given array of bytes to the SVG file at a given position.
+	 *
+	 * @param bytes The bytes to write.
+	 * @param position The position in the SVG file to write at.
+	 * @throws IOException If the bytes could not be written.
+	 */
+	private void writeFully(byte[] bytes, long position) throws IOException {
+		var buffer = ByteBuffer.wrap(bytes);
+		while (buffer.hasRemaining()) {
+			position += svgChannel.write(buffer, position);
+		}
+	}
+
+	/**
+	 * Writes the opening tags of the SVG file, with an empty {@code viewBox}, followed by its closing tags.
+	 *
+	 * @throws IOException If the SVG file could not be written.
+	 */
+	private void writeHeader() throws IOException {
+		var header = (SVG_PREFIX + String.format(VIEW_BOX_FORMAT, 0, 0, 0, 0) + SVG_SUFFIX).getBytes(StandardCharsets.US_ASCII);
+		writeFully(header, 0);
+		svgPosition = header.length;
+		writeFully(SVG_FOOTER, svgPosition);
+	}
+
+	/**
+	 * Writes the queued walls to the files until {@code STOP} is queued, flushing the buffers once walls have been buffered for {@code FLUSH_INTERVAL} milliseconds.
+	 */
+	private void run() {
+		try {
+			while (true) {
+				long timeout;
+				synchronized (this) {
+					timeout = svgBuffer.position() > 0 ? Math.max(lastFlushTime + FLUSH_INTERVAL - System.currentTimeMillis(), 0) : -1;
+				}
+				var wall = timeout < 0 ? queue.take() : queue.poll(timeout, TimeUnit.MILLISECONDS);
+				if (wall == STOP) {
+					return;
+				}
+				synchronized (this) {
+					if (error != null || !svgChannel.isOpen()) {
+						continue;
+					}
+					try {
+						if (wall != null) {
+							if (svgBuffer.position() == 0) {
+								lastFlushTime = System.currentTimeMillis(); // Start timing from the first buffered wall.
+							}
+							writeWall(wall);
+						}
+						if (svgBuffer.position() > 0 && System.currentTimeMillis() - lastFlushTime >= FLUSH_INTERVAL) {
+							flushBuffers();
+						}
+					} catch (IOException e) {
+						error = e;
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Stops the writer thread once it has written the walls already queued.
+	 */
+	private void stopWriter() {
+		if (writer.isAlive()) {
+			queue.add(STOP);
+			try {
+				writer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Discards the walls written so far, then writes a given array of walls to the files.
+	 *
+	 * @param walls The walls to write.
+	 * @throws IOException If the files could not be written.
+	 */
+	private void rewrite(Line[] walls) throws IOException {
+		svgBuffer.clear();
+		jsonBuffer.clear();
+		svgChannel.truncate(0);
+		jsonChannel.truncate(0);
+		wallCount = 0;
+		minX = Float.POSITIVE_INFINITY;
+		minY = Float.POSITIVE_INFINITY;
+		maxX = Float.NEGATIVE_INFINITY;
+		maxY = Float.NEGATIVE_INFINITY;
+		error = null;
+		writeHeader();
+		for (var wall : walls) {
+			writeWall(wall);
+		}
+		flushBuffers();
+	}
+
+	/**
+	 * Writes the contents of the buffers to the files, then rewrites the closing tags and {@code viewBox} of the SVG file.
+	 *
+	 * @throws IOException If the files could not be written.
+	 */
+	private void flushBuffers() throws IOException {
+		svgBuffer.flip();
+		while (svgBuffer.hasRemaining()) {
+			svgPosition += svgChannel.write(svgBuffer, svgPosition);
+		}
+		svgBuffer.clear();
+		writeFully(SVG_FOOTER, svgPosition);
+		if (wallCount > 0) {
+			var x = (int)Math.floor(minX) - VIEW_BOX_MARGIN;
+			var y = (int)Math.floor(-maxY) - VIEW_BOX_MARGIN;
+			var width = (int)Math.ceil(maxX - minX) + VIEW_BOX_MARGIN * 2;
+			var height = (int)Math.ceil(maxY - minY) + VIEW_BOX_MARGIN * 2;
+			writeFully(String.format(VIEW_BOX_FORMAT, x, y, width, height).getBytes(StandardCharsets.US_ASCII), SVG_PREFIX.length());
+		}
+
+		jsonBuffer.flip();
+		while (jsonBuffer.hasRemaining()) {
+			jsonChannel.write(jsonBuffer);
+		}
+		jsonBuffer.clear();
+		lastFlushTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Writes a wall to the buffers, flushing them first if they do not have enough space remaining.
+	 *
+	 * @param wall The wall to write.
+	 * @throws IOException If the buffers could not be flushed.
+	 */
+	private void writeWall(Line wall) throws IOException {
+		builder.setLength(0);
+		builder.append("<line x1=\"");
+		appendCoordinate(builder, wall.x1);
+		builder.append("\" y1=\"");
+		appendCoordinate(builder, -wall.y1);
+		builder.append("\" x2=\"");
+		appendCoordinate(builder, wall.x2);
+		builder.append("\" y2=\"");
+		appendCoordinate(builder, -wall.y2);
+		builder.append("\"/>\n");
+		if (svgBuffer.remaining() < builder.length()) {
+			flushBuffers();
+		}
+		put(builder, svgBuffer);
+
+		builder.setLength(0);
+		builder.append("{\"x1\":");
+		appendCoordinate(builder, wall.x1);
+		builder.append(",\"y1\":");
+		appendCoordinate(builder, wall.y1);
+		builder.append(",\"x2\":");
+		appendCoordinate(builder, wall.x2);
+		builder.append(",\"y2\":");
+		appendCoordinate(builder, wall.y2);
+		builder.append("}\n");
+		if (jsonBuffer.remaining() < builder.length()) {
+			flushBuffers();
+		}
+		put(builder, jsonBuffer);
+
+		minX = Math.min(minX, Math.min(wall.x1, wall.x2));
+		minY = Math.min(minY, Math.min(wall.y1, wall.y2));
+		maxX = Math.max(maxX, Math.max(wall.x1, wall.x2));
+		maxY = Math.max(maxY, Math.max(wall.y1, wall.y2));
+		wallCount++;
+	}
+
+	// Public Static Methods
+
+	/**
+	 * Exports the walls of a saved maze by replaying its moves through a new {@code MazeStore}.
+	 *
+	 * @param file The {@code MazeFile} to export.
+	 * @param svgPath The {@code Path} of the SVG file to write.
+	 * @param jsonPath The {@code Path} of the newline-delimited JSON file to write.
+	 * @throws IOException If either file could not be written.
+	 */
+	public static void export(MazeFile file, Path svgPath, Path jsonPath) throws IOException {
+		var store = new MazeStore();
+		if (!Float.isNaN(file.getRoadWidth())) {
+			store.recordRoadWidth(file.getRoadWidth());
+		}
+		store.replay(file.getMoveLog());
+		try (var exporter = new MapExporter(svgPath, jsonPath)) {
+			exporter.finish(store);
+		}
+	}
+
+	/**
+	 * Exports the walls of a saved maze file from the command line.
+	 *
+	 * @param args The {@code Path}s of the maze file to read, the SVG file to write and the newline-delimited JSON file to write.
+	 * @throws IOException If a file could not be read or written.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 3) {
+			System.out.println("Usage: MapExporter <maze file> <SVG file> <JSON file>");
+			return;
+		}
+		export(MazeFile.read(Path.of(args[0])), Path.of(args[1]), Path.of(args[2]));
+	}
+
+	// Public Methods
+
+	/**
+	 * Rewrites the files from the compacted walls of a {@code MazeStore}, including the walls of the most recent move and the walls closing the maze, then closes the files.<br/><br/>
+	 *
+	 * This should be called once the EV3 has finished mapping the maze.
+	 *
+	 * @param store The {@code MazeStore} this {@code MapExporter} was added to.
+	 * @throws IOException If the files could not be written.
+	 */
+	public void finish(MazeStore store) throws IOException {
+		store.removeWallListener(this);
+		stopWriter();
+		var walls = store.constructLineMap().getLines();
+		synchronized (this) {
+			if (!svgChannel.isOpen()) {
+				return;
+			}
+			queue.clear();
+			rewrite(walls);
+		}
+		close();
+	}
+
+	/**
+	 * Writes any buffered walls to the files.
+	 *
+	 * @throws IOException If the files could not be written, or an error was encountered while writing an earlier wall.
+	 */
+	public synchronized void flush() throws IOException {
+		if (error != null) {
+			throw error;
+		}
+		flushBuffers();
+	}
+
+	// Public Getters/Setters
+
+	/**
+	 * Gets the number of walls exported.
+	 *
+	 * @return The number of walls exported.
+	 */
+	public synchronized int getWallCount() {
+		return wallCount;
+	}
+
+	// WallListener Override Methods
+
+	@Override
+	public void wallCommitted(Line wall) {
+		queue.add(wall);
+	}
+
+	// Closeable Override Methods
+
+	@Override
+	public void close() throws IOException {
+		stopWriter();
+		synchronized (this) {
+			if (!svgChannel.isOpen()) {
+				return;
+			}
+			try {
+				Line wall;
+				while ((wall = queue.poll()) != null) {
+					if (wall != STOP && error == null) {
+						writeWall(wall);
+					}
+				}
+				flush();
+			} finally {
+				svgChannel.close();
+				jsonChannel.close();
+			}
+			System.out.printf("Exported %d walls.%n", wallCount);
+		}
+	}
+}
@@ -0,0 +1,344 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.navigation.Move.MoveType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A class used to save the contents of a {@code MazeStore} to, and load them from, a compact binary file, so that a known maze can be navigated without being mapped again.<br/><br/>
+ *
+ * The file is little-endian and laid out as a header followed by column-wise sections, each aligned to 8 bytes so that it can be bulk-copied straight out of a {@code MappedByteBuffer}:
+ * <ol>
+ *     <li>Header: the magic number {@code EV3M}, the format version, the recorded road width (or {@code NaN}) and the number of moves, walls, junctions and corridors.</li>
+ *     <li>Moves: the types, distances, angles and timestamps of the moves, each as a separate column.</li>
+ *     <li>Walls: the bounding box of the maze, then the end points of each wall.</li>
+ *     <li>Junction graph: the x and y coordinates of each junction, the ends of each corridor, then the start and exit junctions.</li>
+ * </ol>
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class MazeFile {
+	// Public Static Fields
+
+	/**
+	 * The magic number at the start of every maze file, which reads {@code EV3M} in ASCII.
+	 */
+	public static final int MAGIC = 0x4D335645;
+
+	/**
+	 * The version of the format written by this class.
+	 */
+	public static final int VERSION = 1;
+
+	// Private Static Fields
+
+	/**
+	 * The size of the header (in bytes).
+	 */
+	private static final int HEADER_SIZE = 32;
+
+	// Private Fields
+
+	/**
+	 * The recorded road width (in millimetres), or {@code NaN} if none was recorded.
+	 */
+	private final float roadWidth;
+
+	/**
+	 * The log of moves made by the EV3.
+	 */
+	private final MoveLog moveLog;
+
+	/**
+	 * The walls derived from the moves.
+	 */
+	private final IndexedLineMap lineMap;
+
+	/**
+	 * The junction graph derived from the moves.
+	 */
+	private final JunctionGraph junctionGraph;
+
+	// Private Constructors
+
+	/**
+	 * Creates a {@code MazeFile} object.
+	 *
+	 * @param roadWidth The recorded road width (in millimetres), or {@code NaN} if none was recorded.
+	 * @param moveLog The log of moves made by the EV3.
+	 * @param lineMap The walls derived from the moves.
+	 * @param junctionGraph The junction graph derived from the moves.
+	 */
+	private MazeFile(float roadWidth, MoveLog moveLog, IndexedLineMap lineMap, JunctionGraph junctionGraph) {
+		this.roadWidth = roadWidth;
+		this.moveLog = moveLog;
+		this.lineMap = lineMap;
+		this.junctionGraph = junctionGraph;
+	}
+
+	// Private Static Methods
+
+	/**
+	 * Rounds a size up to a multiple of 8 bytes.
+	 *
+	 * @param size The size to round up (in bytes).
+	 * @return The rounded size (in bytes).
+	 */
+	private static int align(int size) {
+		return (size + 7) & ~7;
+	}
+
+	/**
+	 * Rounds a size up to a multiple of 8 bytes.
+	 *
+	 * @param size The size to round up (in bytes).
+	 * @return The rounded size (in bytes).
+	 */
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+
+	/**
+	 * Moves the position of a {@code ByteBuffer} forward to the next multiple of 8 bytes.
+	 *
+	 * @param buffer The {@code ByteBuffer} to align.
+	 */
+	private static void align(ByteBuffer buffer) {
+		buffer.position(align(buffer.position()));
+	}
+
+	/**
+	 * Calculates the size of a maze file.
+	 *
+	 * @param nMoves The number of moves.
+	 * @param nLines The number of walls.
+	 * @param nNodes The number of junctions.
+	 * @param nEdges The number of corridors.
+	 * @return The size of the file (in bytes).
+	 */
+	private static long size(long nMoves, long nLines, long nNodes, long nEdges) {
+		return HEADER_SIZE
+			+ align(nMoves) + align(nMoves * Float.BYTES * 2) + nMoves * Long.BYTES
+			+ align(Float.BYTES * 4 + nLines * Float.BYTES * 4)
+			+ align(nNodes * Float.BYTES * 2 + nEdges * Integer.BYTES * 2 + Integer.BYTES * 2);
+	}
+
+	/**
+	 * Checks that a junction index read from a maze file refers to one of its junctions.
+	 *
+	 * @param path The {@code Path} of the file.
+	 * @param node The junction index.
+	 * @param nNodes The number of junctions.
+	 * @throws IOException If the junction index is out of range.
+	 */
+	private static void checkNode(Path path, int node, int nNodes) throws IOException {
+		if (node < 0 || node >= nNodes) {
+			throw new IOException(String.format("%s refers to junction %d, but only has %d junctions.", path, node, nNodes));
+		}
+	}
+
+	// Public Static Methods
+
+	/**
+	 * Writes the contents of a {@code MazeStore} to a file, replacing any existing file. The file is written alongside and then moved into place in one step, so a run which stops while saving cannot leave it half written.
+	 *
+	 * @param path The {@code Path} of the file to write.
+	 * @param roadWidth The recorded road width (in millimetres), or {@code NaN} if none was recorded.
+	 * @param moveLog The log of moves made by the EV3.
+	 * @param lineMap The walls derived from the moves.
+	 * @param junctionGraph The junction graph derived from the moves.
+	 * @throws IOException If the file could not be written.
+	 */
+	public static void write(Path path, float roadWidth, MoveLog moveLog, IndexedLineMap lineMap, JunctionGraph junctionGraph) throws IOException {
+		var nMoves = moveLog.size();
+		var lines = lineMap.getLines();
+		var nNodes = junctionGraph.getNodeCount();
+		var nEdges = junctionGraph.getEdgeCount();
+		var size = size(nMoves, lines.length, nNodes, nEdges);
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException(String.format("The maze is too large to write to %s.", path));
+		}
+
+		var buffer = ByteBuffer.allocate((int)size).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(VERSION).putFloat(roadWidth).putInt(nMoves).putInt(lines.length).putInt(nNodes).putInt(nEdges);
+		buffer.position(HEADER_SIZE);
+
+		for (int i = 0; i < nMoves; i++) {
+			buffer.put((byte)moveLog.getType(i).ordinal());
+		}
+		align(buffer);
+		for (int i = 0; i < nMoves; i++) {
+			buffer.putFloat(moveLog.getDistance(i));
+		}
+		for (int i = 0; i < nMoves; i++) {
+			buffer.putFloat(moveLog.getAngle(i));
+		}
+		align(buffer);
+		for (int i = 0; i < nMoves; i++) {
+			buffer.putLong(moveLog.getTimestamp(i));
+		}
+
+		var bounds = lineMap.getBoundingRect();
+		buffer.putFloat((float)bounds.getX()).putFloat((float)bounds.getY()).putFloat((float)bounds.getWidth()).putFloat((float)bounds.getHeight());
+		for (var line : lines) {
+			buffer.putFloat(line.x1).putFloat(line.y1).putFloat(line.x2).putFloat(line.y2);
+		}
+		align(buffer);
+
+		for (int n = 0; n < nNodes; n++) {
+			buffer.putFloat(junctionGraph.getNodeX(n));
+		}
+		for (int n = 0; n < nNodes; n++) {
+			buffer.putFloat(junctionGraph.getNodeY(n));
+		}
+		for (int e = 0; e < nEdges; e++) {
+			buffer.putInt(junctionGraph.getEdgeFrom(e));
+		}
+		for (int e = 0; e < nEdges; e++) {
+			buffer.putInt(junctionGraph.getEdgeTo(e));
+		}
+		buffer.putInt(junctionGraph.getStartNode()).putInt(junctionGraph.getExitNode());
+
+		buffer.clear();
+		var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads a maze file by mapping it into memory.
+	 *
+	 * @param path The {@code Path} of the file to read.
+	 * @return A {@code MazeFile} holding the contents of the file.
+	 * @throws IOException If the file could not be read, is not a maze file of a supported version, or is truncated or corrupt.
+	 */
+	public static MazeFile read(Path path) throws IOException {
+		ByteBuffer buffer;
+		try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(String.format("%s is too large to be a maze file.", path));
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+			throw new IOException(String.format("%s is not a maze file.", path));
+		}
+		var version = buffer.getInt();
+		if (version != VERSION) {
+			throw new IOException(String.format("Maze file version %d is not supported.", version));
+		}
+		var roadWidth = buffer.getFloat();
+		var nMoves = buffer.getInt();
+		var nLines = buffer.getInt();
+		var nNodes = buffer.getInt();
+		var nEdges = buffer.getInt();
+		if (nMoves < 0 || nLines < 0 || nNodes < 0 || nEdges < 0) {
+			throw new IOException(String.format("%s is corrupt: negative counts in header.", path));
+		}
+		var expectedSize = size(nMoves, nLines, nNodes, nEdges);
+		if (expectedSize != buffer.limit()) {
+			throw new IOException(String.format("%s is %d bytes, but its header describes %d bytes.", path, buffer.limit(), expectedSize));
+		}
+		buffer.position(HEADER_SIZE);
+
+		var types = new byte[nMoves];
+		var distances = new float[nMoves];
+		var angles = new float[nMoves];
+		var timestamps = new long[nMoves];
+		buffer.get(types);
+		align(buffer);
+		buffer.asFloatBuffer().get(distances).get(angles);
+		buffer.position(align(buffer.position() + nMoves * Float.BYTES * 2));
+		buffer.asLongBuffer().get(timestamps);
+		buffer.position(buffer.position() + nMoves * Long.BYTES);
+		var moveLog = new MoveLog(Math.max(nMoves, 1));
+		var moveTypes = MoveType.values();
+		for (int i = 0; i < nMoves; i++) {
+			if (types[i] < 0 || types[i] >= moveTypes.length) {
+				throw new IOException(String.format("%s is corrupt: move %d has unknown type %d.", path, i, types[i]));
+			}
+			moveLog.append(moveTypes[types[i]], distances[i], angles[i], timestamps[i]);
+		}
+
+		var coordinates = new float[4 + nLines * 4];
+		buffer.asFloatBuffer().get(coordinates);
+		buffer.position(align(buffer.position() + coordinates.length * Float.BYTES));
+		var lines = new Line[nLines];
+		for (int i = 0, j = 4; i < nLines; i++, j += 4) {
+			lines[i] = new Line(coordinates[j], coordinates[j + 1], coordinates[j + 2], coordinates[j + 3]);
+		}
+		var lineMap = new IndexedLineMap(lines, new Rectangle(coordinates[0], coordinates[1], coordinates[2], coordinates[3]));
+
+		var nodeX = new float[nNodes];
+		var nodeY = new float[nNodes];
+		var edgeFrom = new int[nEdges];
+		var edgeTo = new int[nEdges];
+		buffer.asFloatBuffer().get(nodeX).get(nodeY);
+		buffer.position(buffer.position() + nNodes * Float.BYTES * 2);
+		var ints = buffer.asIntBuffer();
+		ints.get(edgeFrom).get(edgeTo);
+		var startNode = ints.get();
+		var exitNode = ints.get();
+		for (int e = 0; e < nEdges; e++) {
+			checkNode(path, edgeFrom[e], nNodes);
+			checkNode(path, edgeTo[e], nNodes);
+		}
+		checkNode(path, startNode, nNodes);
+		checkNode(path, exitNode, nNodes);
+		var junctionGraph = new JunctionGraph(nodeX, nodeY, edgeFrom, edgeTo, startNode, exitNode);
+
+		return new MazeFile(roadWidth, moveLog, lineMap, junctionGraph);
+	}
+
+	// Public Getters/Setters
+
+	/**
+	 * Gets the recorded road width.
+	 *
+	 * @return The recorded road width (in millimetres), or {@code NaN} if none was recorded.
+	 */
+	public float getRoadWidth() {
+		return roadWidth;
+	}
+
+	/**
+	 * Gets the log of moves made by the EV3.
+	 *
+	 * @return The {@code MoveLog} of moves made by the EV3.
+	 */
+	public MoveLog getMoveLog() {
+		return moveLog;
+	}
+
+	/**
+	 * Gets the walls derived from the moves.
+	 *
+	 * @return An {@code IndexedLineMap} of the walls.
+	 */
+	public IndexedLineMap getLineMap() {
+		return lineMap;
+	}
+
+	/**
+	 * Gets the junction graph derived from the moves.
+	 *
+	 * @return The {@code JunctionGraph}.
+	 */
+	public JunctionGraph getJunctionGraph() {
+		return junctionGraph;
+	}
+}
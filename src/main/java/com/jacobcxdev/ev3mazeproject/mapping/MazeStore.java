@@ -2,62 +2,142 @@ package com.jacobcxdev.ev3mazeproject.mapping;
 
 import lejos.robotics.geometry.Line;
 import lejos.robotics.geometry.Rectangle;
-import lejos.robotics.mapping.LineMap;
 import lejos.robotics.navigation.Move;
 import lejos.robotics.navigation.MoveListener;
 import lejos.robotics.navigation.MoveProvider;
 import lejos.robotics.navigation.Move.MoveType;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * A class which implements LeJOS' {@code MoveListener} interface and is used to store and construct a maze navigated by a {@code MazeDriver}.
- * 
+ * A class which implements LeJOS' {@code MoveListener} interface and is used to store and construct a maze navigated by a {@code MazeDriver}.<br/><br/>
+ *
+ * The walls of the maze are built incrementally as moves are reported, so a {@code LineMap} can be taken at any point during a run without re-walking the recorded moves.
+ *
  * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
  */
 public class MazeStore implements MoveListener {
+	// Public Interfaces
+
+	/**
+	 * An interface used to be notified of walls as they are committed to a {@code MazeStore}, so that they can be exported without constructing a {@code LineMap}.<br/><br/>
+	 *
+	 * Walls are reported using the road width recorded at the time they are committed, and are not reported again if a narrower road width is recorded later.
+	 */
+	public interface WallListener {
+		/**
+		 * Called when a wall has been committed. This is called while holding the lock of the {@code MazeStore}, on the thread which reported the move, so it should return without blocking.
+		 *
+		 * @param wall The wall which has been committed.
+		 */
+		void wallCommitted(Line wall);
+	}
+
 	// Private Static Classes
-	
+
 	/**
-	 * A class used to hold a {@code Move} made by the EV3 and the associated {@code Line}s.
+	 * A class used to hold the pair of walls either side of a {@code TRAVEL} move made by the EV3.<br/><br/>
+	 *
+	 * The walls are stored independently of the road width so that they can be materialised as {@code Line}s using whichever road width is narrowest when a {@code LineMap} is constructed.
 	 */
-	private static class MoveLines {
+	private static class Segment {
 		// Public Fields
-		
+
+		/**
+		 * The x coordinate of the start of the move.
+		 */
+		public final int x;
+
+		/**
+		 * The y coordinate of the start of the move.
+		 */
+		public final int y;
+
+		/**
+		 * The x coordinate of the end of the move.
+		 */
+		public final int x2;
+
 		/**
-		 * A {@code Move} made by the EV3.
+		 * The y coordinate of the end of the move.
 		 */
-		public Move move;
+		public final int y2;
 
 		/**
-		 * A {@code Line} associated with the {@code Move}.
+		 * The {@code SquarePlane} the move was made in.
 		 */
-		public Line line1;
-		
+		public final SquarePlane plane;
+
 		/**
-		 * A {@code Line} associated with the {@code Move}.
+		 * The sign of the rotation made before the move, or 0 if the move did not follow a rotation.
 		 */
-		public Line line2;
-		
+		public final int startSign;
+
+		/**
+		 * The sign of the rotation made after the move, or 0 if the move was not followed by a rotation.
+		 */
+		public int endSign;
+
 		// Public Constructors
-		
+
+		/**
+		 * Creates a {@code Segment} object.
+		 *
+		 * @param x The x coordinate of the start of the move.
+		 * @param y The y coordinate of the start of the move.
+		 * @param x2 The x coordinate of the end of the move.
+		 * @param y2 The y coordinate of the end of the move.
+		 * @param plane The {@code SquarePlane} the move was made in.
+		 * @param startSign The sign of the rotation made before the move, or 0 if the move did not follow a rotation.
+		 */
+		public Segment(int x, int y, int x2, int y2, SquarePlane plane, int startSign) {
+			this.x = x;
+			this.y = y;
+			this.x2 = x2;
+			this.y2 = y2;
+			this.plane = plane;
+			this.startSign = startSign;
+		}
+
+		// Public Methods
+
 		/**
-		 * Creates a {@code MoveLines} object.
-		 * 
-		 * @param move A {@code Move} made by the EV3.
-		 * @param line1 A {@code Line} associated with the {@code Move}.
-		 * @param line2 A {@code Line} associated with the {@code Move}.
+		 * Creates the {@code Line} on the negative side of the move.
+		 *
+		 * @param r The road width, which the walls are offset from the path of the EV3 by (in millimetres).
+		 * @return The {@code Line} on the negative side of the move.
 		 */
-		public MoveLines(Move move, Line line1, Line line2) {
-			this.move = move;
-			this.line1 = line1;
-			this.line2 = line2;
+		public Line line1(int r) {
+			var startStretch = startSign * r;
+			var endStretch = endSign * r;
+			return switch (plane) {
+				case HORIZONTAL -> new Line(x + startStretch, y - r, x2 - endStretch, y2 - r);
+				case VERTICAL -> new Line(x - r, y - startStretch, x2 - r, y2 + endStretch);
+			};
+		}
+
+		/**
+		 * Creates the {@code Line} on the positive side of the move.
+		 *
+		 * @param r The road width, which the walls are offset from the path of the EV3 by (in millimetres).
+		 * @return The {@code Line} on the positive side of the move.
+		 */
+		public Line line2(int r) {
+			var startStretch = startSign * r;
+			var endStretch = endSign * r;
+			return switch (plane) {
+				case HORIZONTAL -> new Line(x - startStretch, y + r, x2 + endStretch, y2 + r);
+				case VERTICAL -> new Line(x + r, y + startStretch, x2 + r, y2 - endStretch);
+			};
 		}
 	}
-	
+
 	// Private Enumerations
-	
+
 	/**
 	 * An enumeration to represent different 2D planes.
 	 */
@@ -65,179 +145,734 @@ public class MazeStore implements MoveListener {
 		HORIZONTAL,
 		VERTICAL
 	}
-	
+
+	// Private Static Fields
+
+	/**
+	 * The road width used when no road width has been recorded (in millimetres).
+	 */
+	private static final int DEFAULT_ROAD_WIDTH = 200;
+
+	/**
+	 * The default distance within which walls are snapped together and merged (in millimetres).
+	 */
+	private static final float DEFAULT_COMPACTION_TOLERANCE = 10;
+
+	/**
+	 * The default width and height of the {@code OccupancyGrid}, which is centred on the starting position (in millimetres).
+	 */
+	private static final float DEFAULT_GRID_SIZE = 8000;
+
+	/**
+	 * The default width and height of each cell of the {@code OccupancyGrid} (in millimetres).
+	 */
+	private static final float DEFAULT_GRID_RESOLUTION = 20;
+
+	/**
+	 * The maximum distance an ultrasonic sample can measure; samples at or beyond this are treated as not hitting a wall (in millimetres).
+	 */
+	private static final float MAX_ULTRASONIC_RANGE = 2550;
+
 	// Private Fields
-	
+
+	/**
+	 * The log of moves made by the EV3.
+	 */
+	private final MoveLog moveLog = new MoveLog();
+
+	/**
+	 * The {@code WallCompactor} which the committed walls are added to as they are materialised, and which merges collinear walls before a {@code LineMap} is returned.
+	 */
+	private final WallCompactor compactor;
+
+	/**
+	 * The {@code OccupancyGrid} updated from each {@code TRAVEL} move and ultrasonic sample.
+	 */
+	private final OccupancyGrid occupancyGrid;
+
+	/**
+	 * The {@code WallListener}s to notify when walls are committed.
+	 */
+	private final List<WallListener> wallListeners = new ArrayList<>();
+
+	/**
+	 * The {@code MoveProvider} of the {@code TRAVEL} move in progress, or {@code null} if the EV3 is not travelling. Only accessed while holding the lock of the {@code MazeStore}.
+	 */
+	private MoveProvider activeTravel;
+
+	/**
+	 * The list of committed {@code Segment}s, i.e. those whose following move is known.
+	 */
+	private final List<Segment> segments = new ArrayList<>();
+
+	/**
+	 * The {@code Line}s materialised from the committed {@code Segment}s, in pairs.
+	 */
+	private Line[] lines = new Line[64];
+
+	/**
+	 * The number of {@code Line}s in {@code lines} which are valid for {@code linesRoadWidth}.
+	 */
+	private int nLines;
+
+	/**
+	 * The value of {@code r} which {@code lines} were materialised with.
+	 */
+	private int linesRoadWidth = -1;
+
+	/**
+	 * The most recent {@code TRAVEL} {@code Segment}, whose end depends on the next move made.
+	 */
+	private Segment pending;
+
+	/**
+	 * The first {@code TRAVEL} {@code Segment} recorded.
+	 */
+	private Segment first;
+
+	/**
+	 * The minimum x coordinates of the bounding box, indexed by the multiple of {@code r} (offset by 1) they are to be adjusted by.
+	 */
+	private final int[] minX = new int[3];
+
+	/**
+	 * The minimum y coordinates of the bounding box, indexed by the multiple of {@code r} (offset by 1) they are to be adjusted by.
+	 */
+	private final int[] minY = new int[3];
+
+	/**
+	 * The maximum x coordinates of the bounding box, indexed by the multiple of {@code r} (offset by 1) they are to be adjusted by.
+	 */
+	private final int[] maxX = new int[3];
+
+	/**
+	 * The maximum y coordinates of the bounding box, indexed by the multiple of {@code r} (offset by 1) they are to be adjusted by.
+	 */
+	private final int[] maxY = new int[3];
+
+	/**
+	 * The current x coordinate of the EV3.
+	 */
+	private int x;
+
+	/**
+	 * The current y coordinate of the EV3.
+	 */
+	private int y;
+
+	/**
+	 * The current heading of the EV3 (in degrees).
+	 */
+	private int heading;
+
+	/**
+	 * The angle of the previous move if it was a rotation, otherwise 0.
+	 */
+	private int previousRotation;
+
+	/**
+	 * The first error encountered while recording the moves, which is thrown when constructing a {@code LineMap}.
+	 */
+	private RuntimeException error;
+
+	/**
+	 * The most recently constructed {@code LineMap}, or {@code null} if the store has changed since.
+	 */
+	private IndexedLineMap lineMap;
+
+	/**
+	 * The value of {@code r} which {@code lineMap} was constructed with.
+	 */
+	private int lineMapRoadWidth;
+
 	/**
-	 * The list of moves made by the EV3.
+	 * The most recently constructed {@code JunctionGraph}, or {@code null} if the store has changed since.
 	 */
-	private final List<Move> moves = new ArrayList<>();
-	
+	private JunctionGraph junctionGraph;
+
+	/**
+	 * The value of {@code r} which {@code junctionGraph} was constructed with.
+	 */
+	private int junctionGraphRoadWidth;
+
 	/**
 	 * The narrowest road width recorded (in millimetres).
 	 */
-	private double minRoadWidth = Double.MAX_VALUE;
-	
+	private volatile double minRoadWidth = Double.MAX_VALUE;
+
 	// Public Constructors
-	
+
 	/**
 	 * Creates a {@code MazeStore} object.
 	 */
-	public MazeStore() {}
-	
+	public MazeStore() {
+		this(DEFAULT_COMPACTION_TOLERANCE);
+	}
+
+	/**
+	 * Creates a {@code MazeStore} object with a given compaction tolerance.
+	 *
+	 * @param compactionTolerance The distance within which walls are snapped together and merged (in millimetres).
+	 */
+	public MazeStore(float compactionTolerance) {
+		this(compactionTolerance, new OccupancyGrid(-DEFAULT_GRID_SIZE / 2, -DEFAULT_GRID_SIZE / 2, DEFAULT_GRID_SIZE, DEFAULT_GRID_SIZE, DEFAULT_GRID_RESOLUTION));
+	}
+
+	/**
+	 * Creates a {@code MazeStore} object with a given compaction tolerance and {@code OccupancyGrid}.
+	 *
+	 * @param compactionTolerance The distance within which walls are snapped together and merged (in millimetres).
+	 * @param occupancyGrid The {@code OccupancyGrid} to update from each {@code TRAVEL} move and ultrasonic sample, in the same coordinates as the walls.
+	 */
+	public MazeStore(float compactionTolerance, OccupancyGrid occupancyGrid) {
+		compactor = new WallCompactor(compactionTolerance);
+		this.occupancyGrid = occupancyGrid;
+		resetBounds();
+	}
+
+	// Private Methods
+
+	/**
+	 * Resets the bounding box.
+	 */
+	private void resetBounds() {
+		Arrays.fill(minX, Integer.MAX_VALUE);
+		Arrays.fill(minY, Integer.MAX_VALUE);
+		Arrays.fill(maxX, Integer.MIN_VALUE);
+		Arrays.fill(maxY, Integer.MIN_VALUE);
+	}
+
+	/**
+	 * Extends the bounding box to include a given coordinate.
+	 *
+	 * @param min The minimum coordinates of the bounding box for the axis of the coordinate.
+	 * @param max The maximum coordinates of the bounding box for the axis of the coordinate.
+	 * @param value The coordinate, excluding any multiple of {@code r}.
+	 * @param k The multiple of {@code r} to adjust the coordinate by.
+	 */
+	private static void extendBounds(int[] min, int[] max, int value, int k) {
+		min[k + 1] = Math.min(min[k + 1], value);
+		max[k + 1] = Math.max(max[k + 1], value);
+	}
+
+	/**
+	 * Gets the lower bound of an axis of the bounding box.
+	 *
+	 * @param min The minimum coordinates of the bounding box for the axis.
+	 * @param r The road width, which the walls are offset from the path of the EV3 by (in millimetres).
+	 * @return The lower bound of the axis.
+	 */
+	private static int lowerBound(int[] min, int r) {
+		var bound = 0;
+		for (int k = -1; k <= 1; k++) {
+			if (min[k + 1] != Integer.MAX_VALUE) {
+				bound = Math.min(bound, min[k + 1] + k * r);
+			}
+		}
+		return bound;
+	}
+
+	/**
+	 * Gets the upper bound of an axis of the bounding box.
+	 *
+	 * @param max The maximum coordinates of the bounding box for the axis.
+	 * @param r The road width, which the walls are offset from the path of the EV3 by (in millimetres).
+	 * @return The upper bound of the axis.
+	 */
+	private static int upperBound(int[] max, int r) {
+		var bound = 0;
+		for (int k = -1; k <= 1; k++) {
+			if (max[k + 1] != Integer.MIN_VALUE) {
+				bound = Math.max(bound, max[k + 1] + k * r);
+			}
+		}
+		return bound;
+	}
+
+	/**
+	 * Gets the road width used to construct walls, i.e. the narrowest road width recorded, or a default if none has been recorded.
+	 *
+	 * @return The road width (in millimetres).
+	 */
+	private int getR() {
+		var minRoadWidth = this.minRoadWidth;
+		return minRoadWidth != Double.MAX_VALUE ? (int)minRoadWidth : DEFAULT_ROAD_WIDTH;
+	}
+
+	/**
+	 * Appends the {@code Line}s of a given {@code Segment} to {@code lines}, and adds them to the {@code WallCompactor}.
+	 *
+	 * @param segment The {@code Segment} whose {@code Line}s are to be appended.
+	 * @param r The road width, which the walls are offset from the path of the EV3 by (in millimetres).
+	 */
+	private void appendLines(Segment segment, int r) {
+		if (nLines + 2 > lines.length) {
+			lines = Arrays.copyOf(lines, lines.length * 2);
+		}
+		lines[nLines] = segment.line1(r);
+		lines[nLines + 1] = segment.line2(r);
+		compactor.add(lines[nLines++]);
+		compactor.add(lines[nLines++]);
+	}
+
+	/**
+	 * Materialises the {@code Line}s of every committed {@code Segment} again if they were materialised with a different road width.
+	 *
+	 * @param r The road width, which the walls are offset from the path of the EV3 by (in millimetres).
+	 */
+	private void materialiseLines(int r) {
+		if (linesRoadWidth == r) {
+			return;
+		}
+		nLines = 0;
+		linesRoadWidth = r;
+		compactor.clear();
+		for (var segment : segments) {
+			appendLines(segment, r);
+		}
+	}
+
+	/**
+	 * Constructs the walls which have not been committed, i.e. the walls either side of the pending {@code Segment} and the walls joining the ends of the first and last {@code Segment}s.
+	 *
+	 * @param r The road width, which the walls are offset from the path of the EV3 by (in millimetres).
+	 * @return The walls which have not been committed.
+	 */
+	private Line[] constructUncommittedWalls(int r) {
+		var nSegments = segments.size() + (pending != null ? 1 : 0);
+		var walls = new Line[(pending != null ? 2 : 0) + (nSegments > 1 ? 2 : 0)];
+		var n = 0;
+		Segment last = null;
+		if (pending != null) {
+			last = pending;
+			walls[n++] = pending.line1(r);
+			walls[n++] = pending.line2(r);
+		} else if (!segments.isEmpty()) {
+			last = segments.get(segments.size() - 1);
+		}
+
+		if (nSegments > 1) {
+			var firstLine1 = first.line1(r);
+			var firstLine2 = first.line2(r);
+			var lastLine1 = last.line1(r);
+			var lastLine2 = last.line2(r);
+			walls[n++] = new Line(firstLine1.x1, firstLine1.y1, lastLine1.x2, lastLine1.y2);
+			walls[n++] = new Line(firstLine2.x1, firstLine2.y1, lastLine2.x2, lastLine2.y2);
+		}
+		return walls;
+	}
+
+	/**
+	 * Traces an ultrasonic sample into the {@code OccupancyGrid}.
+	 *
+	 * @param x The x coordinate of the centre of the EV3.
+	 * @param y The y coordinate of the centre of the EV3.
+	 * @param ux The x component of the unit direction the sensor faces.
+	 * @param uy The y component of the unit direction the sensor faces.
+	 * @param offset The distance from the centre of the EV3 to the sensor, in the direction it faces (in millimetres).
+	 * @param distance The distance measured by the sensor (in millimetres).
+	 */
+	private void traceUltrasonicSample(float x, float y, float ux, float uy, float offset, float distance) {
+		if (!(distance > 0)) {
+			return; // Ignore missing (NaN) and non-positive samples.
+		}
+		var hit = distance < MAX_ULTRASONIC_RANGE;
+		distance = Math.min(distance, MAX_ULTRASONIC_RANGE);
+		var sx = x + ux * offset;
+		var sy = y + uy * offset;
+		occupancyGrid.traceRay(sx, sy, sx + ux * distance, sy + uy * distance, hit);
+	}
+
+	/**
+	 * Commits the pending {@code Segment} now that the move following it is known.
+	 *
+	 * @param nextRotation The angle of the following move if it is a rotation, otherwise 0.
+	 */
+	private void commitPending(int nextRotation) {
+		if (pending == null) {
+			return;
+		}
+		pending.endSign = (int)Math.signum(nextRotation);
+		segments.add(pending);
+		if (linesRoadWidth == getR()) {
+			appendLines(pending, linesRoadWidth);
+		}
+		if (!wallListeners.isEmpty()) {
+			var r = getR();
+			var line1 = pending.line1(r);
+			var line2 = pending.line2(r);
+			for (var listener : wallListeners) {
+				listener.wallCommitted(line1);
+				listener.wallCommitted(line2);
+			}
+		}
+		pending = null;
+	}
+
+	/**
+	 * Records a move made by the EV3, updating the walls, bounding box and heading.
+	 *
+	 * @param type The type of the move.
+	 * @param distance The distance travelled during the move (in millimetres).
+	 * @param angleTurned The angle turned during the move (in degrees).
+	 * @param timestamp The time the move was made (in milliseconds since the epoch).
+	 */
+	private synchronized void record(MoveType type, float distance, float angleTurned, long timestamp) {
+		moveLog.append(type, distance, angleTurned, timestamp);
+		lineMap = null;
+		junctionGraph = null;
+		if (error != null) {
+			return;
+		}
+
+		switch (type) {
+		case ROTATE:
+			int angle = (int)angleTurned;
+			commitPending(angle);
+			if (angle % 90 != 0) {
+				error = new RuntimeException(String.format("Angle %d not a multiple of 90 degrees.", angle));
+				return;
+			}
+
+			heading += angle;
+			heading += heading >= 360 ? -360 : heading < 0 ? 360 : 0;
+			previousRotation = angle;
+			break;
+		case TRAVEL:
+			commitPending(0);
+			var x2 = x;
+			var y2 = y;
+			var delta = (int)distance;
+			var startSign = (int)Math.signum(previousRotation);
+			SquarePlane plane;
+
+			switch (heading) {
+				case 0 -> {
+					plane = SquarePlane.VERTICAL;
+					y2 += delta;
+				}
+				case 90 -> {
+					plane = SquarePlane.HORIZONTAL;
+					x2 += delta;
+				}
+				case 180 -> {
+					plane = SquarePlane.VERTICAL;
+					y2 -= delta;
+				}
+				case 270 -> {
+					plane = SquarePlane.HORIZONTAL;
+					x2 -= delta;
+				}
+				default -> {
+					error = new RuntimeException(String.format("Heading %d not a multiple of 90 degrees.", heading));
+					return;
+				}
+			}
+
+			// Only the starts of the walls contribute to the bounding box.
+			switch (plane) {
+				case HORIZONTAL -> {
+					extendBounds(minX, maxX, x, startSign);
+					extendBounds(minX, maxX, x, -startSign);
+					extendBounds(minY, maxY, y, -1);
+					extendBounds(minY, maxY, y, 1);
+				}
+				case VERTICAL -> {
+					extendBounds(minX, maxX, x, -1);
+					extendBounds(minX, maxX, x, 1);
+					extendBounds(minY, maxY, y, -startSign);
+					extendBounds(minY, maxY, y, startSign);
+				}
+			}
+
+			occupancyGrid.traceRay(x, y, x2, y2, false); // The path of the EV3 is free.
+			pending = new Segment(x, y, x2, y2, plane, startSign);
+			if (first == null) {
+				first = pending;
+			}
+			x = x2;
+			y = y2;
+			previousRotation = 0;
+			break;
+		default:
+			commitPending(0);
+			previousRotation = 0;
+		}
+	}
+
 	// Public Methods
 
 	/**
 	 * Records a given road width.
-	 * 
+	 *
 	 * @param roadWidth The road width to record (in millimetres).
 	 */
 	public void recordRoadWidth(float roadWidth) {
-		minRoadWidth = Math.min(minRoadWidth, roadWidth);
+		if (roadWidth < minRoadWidth) {
+			minRoadWidth = roadWidth;
+		}
 	}
-	
+
+	/**
+	 * Records a pair of samples from the left and right {@code BaseUltrasonicSensor}s into the {@code OccupancyGrid}.<br/><br/>
+	 *
+	 * The samples are placed at the current position of the EV3, including the progress of any {@code TRAVEL} move in progress.
+	 * The progress is read without holding the lock, as it reads the motors, so the samples are dropped if a move is recorded meanwhile, as the recorded position would then already include some or all of the progress.
+	 *
+	 * @param leftDistance The distance measured by the left sensor (in millimetres).
+	 * @param rightDistance The distance measured by the right sensor (in millimetres).
+	 * @param ultrasonicSensorGap The width between the two sensors (in millimetres).
+	 */
+	public void recordUltrasonicSample(float leftDistance, float rightDistance, float ultrasonicSensorGap) {
+		MoveProvider travel;
+		int moveCount;
+		synchronized (this) {
+			travel = activeTravel;
+			moveCount = moveLog.size();
+		}
+		var progress = travel != null ? travel.getMovement().getDistanceTraveled() : 0; // Read outside the lock, as this reads the motors.
+		synchronized (this) {
+			if (activeTravel != travel || moveLog.size() != moveCount) {
+				return;
+			}
+			var radians = Math.toRadians(heading);
+			var dx = (float)Math.sin(radians);
+			var dy = (float)Math.cos(radians);
+			var px = x + dx * progress;
+			var py = y + dy * progress;
+			traceUltrasonicSample(px, py, -dy, dx, ultrasonicSensorGap / 2, leftDistance);
+			traceUltrasonicSample(px, py, dy, -dx, ultrasonicSensorGap / 2, rightDistance);
+		}
+	}
+
 	/**
 	 * Resets the {@code MazeStore}.
 	 */
-	public void reset() {
+	public synchronized void reset() {
 		minRoadWidth = Double.MAX_VALUE;
-		moves.clear();
+		moveLog.clear();
+		segments.clear();
+		lines = new Line[64];
+		nLines = 0;
+		linesRoadWidth = -1;
+		compactor.clear();
+		pending = null;
+		first = null;
+		resetBounds();
+		x = 0;
+		y = 0;
+		heading = 0;
+		previousRotation = 0;
+		error = null;
+		lineMap = null;
+		junctionGraph = null;
+		occupancyGrid.clear();
+		activeTravel = null;
+	}
+
+	/**
+	 * Gets the {@code OccupancyGrid} updated from each {@code TRAVEL} move and ultrasonic sample.<br/><br/>
+	 *
+	 * The grid is updated while holding the lock of this {@code MazeStore}, so reads which must be consistent with each other should synchronise on it.
+	 *
+	 * @return The {@code OccupancyGrid}.
+	 */
+	public OccupancyGrid getOccupancyGrid() {
+		return occupancyGrid;
+	}
+
+	/**
+	 * Gets the number of moves recorded.
+	 *
+	 * @return The number of moves recorded.
+	 */
+	public synchronized int getMoveCount() {
+		return moveLog.size();
+	}
+
+	/**
+	 * Visits each recorded move in the order they were made, without creating LeJOS {@code Move} objects.<br/><br/>
+	 *
+	 * Moves cannot be recorded while the moves are being visited.
+	 *
+	 * @param visitor The {@code MoveLog.Visitor} to call for each move.
+	 */
+	public synchronized void forEachMove(MoveLog.Visitor visitor) {
+		moveLog.forEach(visitor);
 	}
-	
+
+	/**
+	 * Gets the fraction of walls removed by compaction when the most recent {@code LineMap} was constructed.
+	 *
+	 * @return The fraction of walls removed, between 0 and 1.
+	 */
+	public synchronized double getCompactionRatio() {
+		return compactor.getReductionRatio();
+	}
+
 	/**
-	 * Constructs a {@code LineMap} from the moves made by the EV3.
-	 * 
-	 * @return A {@code LineMap} constructed from the moves made by the EV3.
+	 * Constructs a {@code LineMap} from the moves made by the EV3.<br/><br/>
+	 *
+	 * The walls are materialised and added to a {@code WallCompactor} as moves are committed, so a cache miss only compacts the walls which have not been committed into those already merged, unless a narrower road width has been recorded since.
+	 * The merged walls are then indexed so that range queries against the map need not test every wall.<br/><br/>
+	 *
+	 * The {@code IndexedLineMap} returned is cached until the next move is recorded, so repeated calls between moves cost nothing. The first call after a move still copies and indexes every merged wall, which takes time proportional to the number of walls rather than constant time:
+	 * a {@code LineMap} holds a fixed array of walls which callers may keep and query from other threads, so it cannot be extended in place. This is called once per run, when mapping finishes or the map is exported, so rebuilding the index then is cheaper than keeping it up to date after every move.
+	 *
+	 * @return An {@code IndexedLineMap} constructed from the moves made by the EV3.
 	 */
-	public LineMap constructLineMap() {
+	public synchronized IndexedLineMap constructLineMap() {
+		if (error != null) {
+			throw error;
+		}
+		var r = getR();
+		if (lineMap != null && lineMapRoadWidth == r) {
+			return lineMap;
+		}
 		System.out.println("Constructing LineMap...");
-		var r = minRoadWidth != Double.MAX_VALUE ? (int)minRoadWidth : 200;
-		var x = 0;
-		var y = 0;
-		var minX = 0;
-		var minY = 0;
-		var maxX = 0;
-		var maxY = 0;
-		var heading = 0;
-		var moves = this.moves.toArray(new Move[0]);
-		List<MoveLines> moveLines = new ArrayList<>();
-		
-		for (int i = 0; i < moves.length; i++) {
-			var move = moves[i];
-			var previous = i > 0 ? moves[i - 1] : null;
-			var next = i < moves.length - 1 ? moves[i + 1] : null;
-			var previousRotation = 0;
-			var nextRotation = 0;
-			
-			if (previous != null && previous.getMoveType() == MoveType.ROTATE) {
-				previousRotation = (int)previous.getAngleTurned();
-			}
-			
-			if (next != null && next.getMoveType() == MoveType.ROTATE) {
-				nextRotation = (int)next.getAngleTurned();
-			}
-			switch (move.getMoveType()) {
-			case ROTATE:
-				int angle = (int)move.getAngleTurned();
-				if (angle % 90 != 0) {
-					throw new RuntimeException(String.format("Angle %d not a multiple of 90 degrees.", angle));
-				}
-				
-				heading += angle;
-				heading += heading >= 360 ? -360 : heading < 0 ? 360 : 0;
-				break;
-			case TRAVEL:
-				var x2 = x;
-				var y2 = y;
-				var delta = (int)move.getDistanceTraveled();
-				var startStretch = (int)Math.signum(previousRotation) * r;
-				var endStretch = (int)Math.signum(nextRotation) * r;
-				SquarePlane plane;
-
-				switch (heading) {
-					case 0 -> {
-						plane = SquarePlane.VERTICAL;
-						y2 += delta;
-					}
-					case 90 -> {
-						plane = SquarePlane.HORIZONTAL;
-						x2 += delta;
-					}
-					case 180 -> {
-						plane = SquarePlane.VERTICAL;
-						y2 -= delta;
-					}
-					case 270 -> {
-						plane = SquarePlane.HORIZONTAL;
-						x2 -= delta;
-					}
-					default -> throw new RuntimeException(String.format("Heading %d not a multiple of 90 degrees.", heading));
-				}
-	
-				Line line1 = null;
-				Line line2 = null;
-
-				switch (plane) {
-					case HORIZONTAL -> {
-						line1 = new Line(x + startStretch, y - r, x2 - endStretch, y2 - r);
-						line2 = new Line(x - startStretch, y + r, x2 + endStretch, y2 + r);
-					}
-					case VERTICAL -> {
-						line1 = new Line(x - r, y - startStretch, x2 - r, y2 + endStretch);
-						line2 = new Line(x + r, y + startStretch, x2 + r, y2 - endStretch);
-					}
-				}
-				
-				moveLines.add(new MoveLines(move, line1, line2));
-				
-				x = x2;
-				y = y2;
-				minX = (int)Math.min(minX, line1.x1);
-				minX = (int)Math.min(minX, line2.x1);
-				minY = (int)Math.min(minY, line1.y1);
-				minY = (int)Math.min(minY, line2.y1);
-				maxX = (int)Math.max(maxX, line1.x1);
-				maxX = (int)Math.max(maxX, line2.x1);
-				maxY = (int)Math.max(maxY, line1.y1);
-				maxY = (int)Math.max(maxY, line2.y1);
-				break;
-			default:
-			}
+
+		materialiseLines(r);
+
+		var minX = lowerBound(this.minX, r);
+		var minY = lowerBound(this.minY, r);
+		var maxX = upperBound(this.maxX, r);
+		var maxY = upperBound(this.maxY, r);
+		lineMap = new IndexedLineMap(compactor.snapshot(constructUncommittedWalls(r)), new Rectangle(minX, minY, maxX - minX, maxY - minY));
+		lineMapRoadWidth = r;
+
+		System.out.printf("Constructed LineMap (compacted %d walls to %d, %.1f%% reduction).%n", compactor.getLastInputCount(), compactor.getLastOutputCount(), compactor.getReductionRatio() * 100);
+		return lineMap;
+	}
+
+	/**
+	 * Constructs the walls from the moves made by the EV3 before they are compacted, in the order they were committed, followed by the walls which have not been committed.
+	 *
+	 * @return The walls, before compaction.
+	 */
+	synchronized Line[] constructWalls() {
+		if (error != null) {
+			throw error;
 		}
-		
-		List<Line> lines = new ArrayList<>();
-		for (var e : moveLines) {
-			lines.add(e.line1);
-			lines.add(e.line2);
+		var r = getR();
+		materialiseLines(r);
+		var uncommitted = constructUncommittedWalls(r);
+		var walls = Arrays.copyOf(lines, nLines + uncommitted.length);
+		System.arraycopy(uncommitted, 0, walls, nLines, uncommitted.length);
+		return walls;
+	}
+
+	/**
+	 * Constructs a {@code JunctionGraph} from the moves made by the EV3, snapping coordinates within half of the road width of each other to the same grid line.
+	 *
+	 * @return A {@code JunctionGraph} constructed from the moves made by the EV3, with dead ends pruned.
+	 */
+	public synchronized JunctionGraph constructJunctionGraph() {
+		var r = getR();
+		if (junctionGraph != null && junctionGraphRoadWidth == r) {
+			return junctionGraph;
 		}
-		
-		var nMoveLines = moveLines.size();
-		if (nMoveLines > 1) {
-			var first = moveLines.get(0);
-			var last = moveLines.get(nMoveLines - 1);
-			Line line1 = new Line(first.line1.x1, first.line1.y1, last.line1.x2, last.line1.y2);
-			Line line2 = new Line(first.line2.x1, first.line2.y1, last.line2.x2, last.line2.y2);
-			lines.add(line1);
-			lines.add(line2);
+		junctionGraph = new JunctionGraph(moveLog, r / 2f);
+		junctionGraphRoadWidth = r;
+		System.out.printf("Constructed JunctionGraph (%d junctions, %d corridors).%n", junctionGraph.getNodeCount(), junctionGraph.getEdgeCount());
+		return junctionGraph;
+	}
+
+	/**
+	 * Finds the shortest route from where the EV3 started to where it is now, as a sequence of moves starting with the heading the EV3 started with.
+	 *
+	 * @return A {@code MoveLog} of the moves along the shortest route.
+	 */
+	public MoveLog constructShortestRoute() {
+		return constructJunctionGraph().shortestRoute();
+	}
+
+	/**
+	 * Records each move in a given {@code MoveLog} as if it had been reported by a {@code MovePilot}, notifying any {@code WallListener}s of the walls committed.
+	 *
+	 * @param moves The {@code MoveLog} of moves to replay.
+	 */
+	public synchronized void replay(MoveLog moves) {
+		moves.forEach(this::record);
+	}
+
+	/**
+	 * Adds a {@code WallListener} to be notified when walls are committed.
+	 *
+	 * @param listener The {@code WallListener} to add.
+	 */
+	public synchronized void addWallListener(WallListener listener) {
+		wallListeners.add(listener);
+	}
+
+	/**
+	 * Removes a {@code WallListener} so that it is no longer notified when walls are committed.
+	 *
+	 * @param listener The {@code WallListener} to remove.
+	 */
+	public synchronized void removeWallListener(WallListener listener) {
+		wallListeners.remove(listener);
+	}
+
+	/**
+	 * Saves the recorded moves and road width, along with the walls and junction graph derived from them, to a {@code MazeFile}.
+	 *
+	 * @param path The {@code Path} of the file to write.
+	 * @throws IOException If the file could not be written.
+	 */
+	public synchronized void save(Path path) throws IOException {
+		var minRoadWidth = this.minRoadWidth;
+		MazeFile.write(path, minRoadWidth != Double.MAX_VALUE ? (float)minRoadWidth : Float.NaN, moveLog, constructLineMap(), constructJunctionGraph());
+		System.out.printf("Saved maze to %s.%n", path);
+	}
+
+	/**
+	 * Replaces the contents of the {@code MazeStore} with those of a {@code MazeFile}.<br/><br/>
+	 *
+	 * The moves are replayed so that mapping can continue from where the file left off, but the walls and junction graph are taken from the file rather than derived again.
+	 *
+	 * @param file The {@code MazeFile} to restore from.
+	 */
+	public synchronized void restore(MazeFile file) {
+		reset();
+		if (!Float.isNaN(file.getRoadWidth())) {
+			minRoadWidth = file.getRoadWidth();
 		}
+		replay(file.getMoveLog());
+		lineMap = file.getLineMap();
+		lineMapRoadWidth = getR();
+		junctionGraph = file.getJunctionGraph();
+		junctionGraphRoadWidth = getR();
+	}
 
-		System.out.println("Constructed LineMap.");
-		return new LineMap(lines.toArray(new Line[0]), new Rectangle(minX, minY, maxX - minX, maxY - minY));
+	/**
+	 * Loads the contents of the {@code MazeStore} from a maze file written by {@code save}.
+	 *
+	 * @param path The {@code Path} of the file to read.
+	 * @throws IOException If the file could not be read.
+	 */
+	public void load(Path path) throws IOException {
+		var startTime = System.nanoTime();
+		var file = MazeFile.read(path);
+		restore(file);
+		System.out.printf("Loaded maze from %s (%d moves) in %.1fms.%n", path, file.getMoveLog().size(), (System.nanoTime() - startTime) / 1e6);
 	}
-	
+
 	// MoveListener Override Methods
 
 	@Override
-	public void moveStarted(Move event, MoveProvider mp) {
-		if (event.getMoveType() == MoveType.ROTATE) {
-			moves.add(new Move(MoveType.ROTATE, 0, event.getAngleTurned(), false));
+	public synchronized void moveStarted(Move event, MoveProvider mp) {
+		if (event.getMoveType() == MoveType.TRAVEL) {
+			activeTravel = mp;
+		} else if (event.getMoveType() == MoveType.ROTATE) {
+			record(MoveType.ROTATE, 0, event.getAngleTurned(), event.getTimeStamp());
 		}
 	}
 
 	@Override
-	public void moveStopped(Move event, MoveProvider mp) {
+	public synchronized void moveStopped(Move event, MoveProvider mp) {
+		activeTravel = null;
 		if (event.getMoveType() == MoveType.TRAVEL) {
-			moves.add(event);
+			record(MoveType.TRAVEL, event.getDistanceTraveled(), event.getAngleTurned(), event.getTimeStamp());
 		}
 	}
 }
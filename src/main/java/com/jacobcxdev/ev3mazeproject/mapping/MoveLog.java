@@ -0,0 +1,212 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.navigation.Move.MoveType;
+
+import java.util.Arrays;
+
+/**
+ * A class used to record the moves made by the EV3 as parallel primitive arrays, so that moves can be appended and iterated without creating LeJOS {@code Move} objects.<br/><br/>
+ *
+ * Each entry takes 17 bytes (a type byte, two floats and a long). {@code MoveLog} objects are not thread safe.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class MoveLog {
+	// Public Interfaces
+
+	/**
+	 * An interface used to visit each entry of a {@code MoveLog} without creating any objects.
+	 */
+	public interface Visitor {
+		/**
+		 * Visits an entry of a {@code MoveLog}.
+		 *
+		 * @param type The type of the move.
+		 * @param distance The distance travelled during the move (in millimetres).
+		 * @param angle The angle turned during the move (in degrees).
+		 * @param timestamp The time the move was recorded (in milliseconds since the epoch).
+		 */
+		void visit(MoveType type, float distance, float angle, long timestamp);
+	}
+
+	// Private Static Fields
+
+	/**
+	 * The {@code MoveType} values indexed by ordinal, cached to avoid copying the array on every lookup.
+	 */
+	private static final MoveType[] MOVE_TYPES = MoveType.values();
+
+	/**
+	 * The initial capacity of a {@code MoveLog}.
+	 */
+	private static final int DEFAULT_CAPACITY = 256;
+
+	// Private Fields
+
+	/**
+	 * The ordinals of the {@code MoveType} of each move.
+	 */
+	private byte[] types;
+
+	/**
+	 * The distance travelled during each move (in millimetres).
+	 */
+	private float[] distances;
+
+	/**
+	 * The angle turned during each move (in degrees).
+	 */
+	private float[] angles;
+
+	/**
+	 * The time each move was recorded (in milliseconds since the epoch).
+	 */
+	private long[] timestamps;
+
+	/**
+	 * The number of moves recorded.
+	 */
+	private int size;
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code MoveLog} object.
+	 */
+	public MoveLog() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a {@code MoveLog} object with a given initial capacity.
+	 *
+	 * @param capacity The number of moves which can be recorded before the arrays need to grow.
+	 */
+	public MoveLog(int capacity) {
+		capacity = Math.max(capacity, 1);
+		types = new byte[capacity];
+		distances = new float[capacity];
+		angles = new float[capacity];
+		timestamps = new long[capacity];
+	}
+
+	// Private Methods
+
+	/**
+	 * Checks that a given index refers to a recorded move.
+	 *
+	 * @param index The index to check.
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(String.format("Index %d out of bounds for size %d.", index, size));
+		}
+	}
+
+	// Public Methods
+
+	/**
+	 * Appends a move to the {@code MoveLog}.
+	 *
+	 * @param type The type of the move.
+	 * @param distance The distance travelled during the move (in millimetres).
+	 * @param angle The angle turned during the move (in degrees).
+	 * @param timestamp The time the move was recorded (in milliseconds since the epoch).
+	 */
+	public void append(MoveType type, float distance, float angle, long timestamp) {
+		if (size == types.length) {
+			var capacity = size * 2;
+			types = Arrays.copyOf(types, capacity);
+			distances = Arrays.copyOf(distances, capacity);
+			angles = Arrays.copyOf(angles, capacity);
+			timestamps = Arrays.copyOf(timestamps, capacity);
+		}
+		types[size] = (byte)type.ordinal();
+		distances[size] = distance;
+		angles[size] = angle;
+		timestamps[size] = timestamp;
+		size++;
+	}
+
+	/**
+	 * Removes all moves from the {@code MoveLog}, keeping its capacity.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Gets the number of moves recorded.
+	 *
+	 * @return The number of moves recorded.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the type of the move at a given index.
+	 *
+	 * @param index The index of the move.
+	 * @return The type of the move.
+	 */
+	public MoveType getType(int index) {
+		checkIndex(index);
+		return MOVE_TYPES[types[index]];
+	}
+
+	/**
+	 * Gets the distance travelled during the move at a given index.
+	 *
+	 * @param index The index of the move.
+	 * @return The distance travelled during the move (in millimetres).
+	 */
+	public float getDistance(int index) {
+		checkIndex(index);
+		return distances[index];
+	}
+
+	/**
+	 * Gets the angle turned during the move at a given index.
+	 *
+	 * @param index The index of the move.
+	 * @return The angle turned during the move (in degrees).
+	 */
+	public float getAngle(int index) {
+		checkIndex(index);
+		return angles[index];
+	}
+
+	/**
+	 * Gets the time the move at a given index was recorded.
+	 *
+	 * @param index The index of the move.
+	 * @return The time the move was recorded (in milliseconds since the epoch).
+	 */
+	public long getTimestamp(int index) {
+		checkIndex(index);
+		return timestamps[index];
+	}
+
+	/**
+	 * Visits each move in the order they were recorded.
+	 *
+	 * @param visitor The {@code Visitor} to call for each move.
+	 */
+	public void forEach(Visitor visitor) {
+		for (int i = 0; i < size; i++) {
+			visitor.visit(MOVE_TYPES[types[i]], distances[i], angles[i], timestamps[i]);
+		}
+	}
+
+	/**
+	 * Appends every move from another {@code MoveLog} to this one.
+	 *
+	 * @param other The {@code MoveLog} to copy moves from.
+	 */
+	public void appendAll(MoveLog other) {
+		for (int i = 0; i < other.size; i++) {
+			append(MOVE_TYPES[other.types[i]], other.distances[i], other.angles[i], other.timestamps[i]);
+		}
+	}
+}
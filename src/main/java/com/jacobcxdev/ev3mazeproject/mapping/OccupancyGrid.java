@@ -0,0 +1,359 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A class used to represent a maze as a grid of cells, each holding a 4-bit occupancy value packed sixteen to a {@code long}.<br/><br/>
+ *
+ * Each cell starts as {@code UNKNOWN}. Observing a cell as free decrements its value and observing it as occupied increments its value by {@code HIT_WEIGHT}, saturating at 0 and 15, so a few noisy readings do not flip a well-observed cell.
+ * A 4 m x 4 m arena at 1 cm resolution takes 80 KB. {@code OccupancyGrid} objects are not thread safe.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class OccupancyGrid {
+	// Public Static Fields
+
+	/**
+	 * The value of a cell which has not been observed.
+	 */
+	public static final int UNKNOWN = 8;
+
+	/**
+	 * The largest value of a cell.
+	 */
+	public static final int MAX_VALUE = 15;
+
+	// Private Static Fields
+
+	/**
+	 * The amount a cell's value is increased by each time it is observed as occupied.
+	 */
+	private static final int HIT_WEIGHT = 2;
+
+	/**
+	 * A {@code long} with every cell set to {@code UNKNOWN}.
+	 */
+	private static final long UNKNOWN_WORD = 0x8888888888888888L;
+
+	// Private Fields
+
+	/**
+	 * The x coordinate of the lower edge of the grid (in millimetres).
+	 */
+	private final float originX;
+
+	/**
+	 * The y coordinate of the lower edge of the grid (in millimetres).
+	 */
+	private final float originY;
+
+	/**
+	 * The width and height of each cell (in millimetres).
+	 */
+	private final float resolution;
+
+	/**
+	 * The number of columns in the grid.
+	 */
+	private final int cols;
+
+	/**
+	 * The number of rows in the grid.
+	 */
+	private final int rows;
+
+	/**
+	 * The cells of the grid, sixteen to a {@code long}, in row-major order.
+	 */
+	private final long[] cells;
+
+	// Public Constructors
+
+	/**
+	 * Creates an {@code OccupancyGrid} object.
+	 *
+	 * @param originX The x coordinate of the lower edge of the grid (in millimetres).
+	 * @param originY The y coordinate of the lower edge of the grid (in millimetres).
+	 * @param width The width of the grid (in millimetres).
+	 * @param height The height of the grid (in millimetres).
+	 * @param resolution The width and height of each cell (in millimetres).
+	 */
+	public OccupancyGrid(float originX, float originY, float width, float height, float resolution) {
+		if (width <= 0 || height <= 0 || resolution <= 0) {
+			throw new IllegalArgumentException("Width, height and resolution must be greater than 0");
+		}
+		this.originX = originX;
+		this.originY = originY;
+		this.resolution = resolution;
+		cols = (int)Math.ceil(width / resolution);
+		rows = (int)Math.ceil(height / resolution);
+		cells = new long[(int)(((long)cols * rows + 15) / 16)];
+		clear();
+	}
+
+	// Private Methods
+
+	/**
+	 * Gets the value of the cell at a given index.
+	 *
+	 * @param index The index of the cell.
+	 * @return The value of the cell.
+	 */
+	private int getValue(int index) {
+		return (int)(cells[index >>> 4] >>> ((index & 15) << 2)) & 0xF;
+	}
+
+	/**
+	 * Sets the value of the cell at a given index.
+	 *
+	 * @param index The index of the cell.
+	 * @param value The new value of the cell.
+	 */
+	private void setValue(int index, int value) {
+		var shift = (index & 15) << 2;
+		cells[index >>> 4] = (cells[index >>> 4] & ~(0xFL << shift)) | ((long)value << shift);
+	}
+
+	/**
+	 * Adds an amount to the value of the cell at a given column and row, saturating at 0 and {@code MAX_VALUE}. Cells outside the grid are ignored.
+	 *
+	 * @param col The column of the cell.
+	 * @param row The row of the cell.
+	 * @param delta The amount to add.
+	 */
+	private void adjust(int col, int row, int delta) {
+		if (col < 0 || row < 0 || col >= cols || row >= rows) {
+			return;
+		}
+		var index = row * cols + col;
+		setValue(index, Math.max(0, Math.min(MAX_VALUE, getValue(index) + delta)));
+	}
+
+	/**
+	 * Gets the column containing a given x coordinate.
+	 *
+	 * @param x The x coordinate (in millimetres).
+	 * @return The column, which may be outside the grid.
+	 */
+	private int col(float x) {
+		return (int)Math.floor((x - originX) / resolution);
+	}
+
+	/**
+	 * Gets the row containing a given y coordinate.
+	 *
+	 * @param y The y coordinate (in millimetres).
+	 * @return The row, which may be outside the grid.
+	 */
+	private int row(float y) {
+		return (int)Math.floor((y - originY) / resolution);
+	}
+
+	/**
+	 * Gets whether a given cell is occupied, treating cells outside the grid as not occupied.
+	 *
+	 * @param col The column of the cell.
+	 * @param row The row of the cell.
+	 * @return Whether the cell is occupied.
+	 */
+	private boolean isOccupiedCell(int col, int row) {
+		return col >= 0 && row >= 0 && col < cols && row < rows && getValue(row * cols + col) > UNKNOWN;
+	}
+
+	// Public Methods
+
+	/**
+	 * Sets every cell to {@code UNKNOWN}.
+	 */
+	public void clear() {
+		Arrays.fill(cells, UNKNOWN_WORD);
+	}
+
+	/**
+	 * Gets the value of the cell containing a given point.
+	 *
+	 * @param x The x coordinate of the point (in millimetres).
+	 * @param y The y coordinate of the point (in millimetres).
+	 * @return The value of the cell, or {@code UNKNOWN} if the point is outside the grid.
+	 */
+	public int get(float x, float y) {
+		var col = col(x);
+		var row = row(y);
+		if (col < 0 || row < 0 || col >= cols || row >= rows) {
+			return UNKNOWN;
+		}
+		return getValue(row * cols + col);
+	}
+
+	/**
+	 * Gets whether the cell containing a given point has been observed as free more than as occupied.
+	 *
+	 * @param x The x coordinate of the point (in millimetres).
+	 * @param y The y coordinate of the point (in millimetres).
+	 * @return Whether the cell is free.
+	 */
+	public boolean isFree(float x, float y) {
+		return get(x, y) < UNKNOWN;
+	}
+
+	/**
+	 * Gets whether the cell containing a given point has been observed as occupied more than as free.
+	 *
+	 * @param x The x coordinate of the point (in millimetres).
+	 * @param y The y coordinate of the point (in millimetres).
+	 * @return Whether the cell is occupied.
+	 */
+	public boolean isOccupied(float x, float y) {
+		return get(x, y) > UNKNOWN;
+	}
+
+	/**
+	 * Observes the cell containing a given point as free.
+	 *
+	 * @param x The x coordinate of the point (in millimetres).
+	 * @param y The y coordinate of the point (in millimetres).
+	 */
+	public void markFree(float x, float y) {
+		adjust(col(x), row(y), -1);
+	}
+
+	/**
+	 * Observes the cell containing a given point as occupied.
+	 *
+	 * @param x The x coordinate of the point (in millimetres).
+	 * @param y The y coordinate of the point (in millimetres).
+	 */
+	public void markOccupied(float x, float y) {
+		adjust(col(x), row(y), HIT_WEIGHT);
+	}
+
+	/**
+	 * Observes the cells along a ray, marking every cell before the end of the ray as free and, if the ray hit something, the cell at the end as occupied.
+	 *
+	 * @param x0 The x coordinate of the start of the ray (in millimetres).
+	 * @param y0 The y coordinate of the start of the ray (in millimetres).
+	 * @param x1 The x coordinate of the end of the ray (in millimetres).
+	 * @param y1 The y coordinate of the end of the ray (in millimetres).
+	 * @param hit Whether the ray ended on an obstacle.
+	 */
+	public void traceRay(float x0, float y0, float x1, float y1, boolean hit) {
+		// Bresenham's line algorithm over cell indices.
+		var c = col(x0);
+		var r = row(y0);
+		var c1 = col(x1);
+		var r1 = row(y1);
+		var dc = Math.abs(c1 - c);
+		var dr = -Math.abs(r1 - r);
+		var sc = c < c1 ? 1 : -1;
+		var sr = r < r1 ? 1 : -1;
+		var error = dc + dr;
+		while (c != c1 || r != r1) {
+			adjust(c, r, -1);
+			var e2 = 2 * error;
+			if (e2 >= dr) {
+				error += dr;
+				c += sc;
+			}
+			if (e2 <= dc) {
+				error += dc;
+				r += sr;
+			}
+		}
+		adjust(c1, r1, hit ? HIT_WEIGHT : -1);
+	}
+
+	/**
+	 * Converts the occupied cells into a {@code LineMap}, joining runs of occupied cells along rows and columns into walls through the centres of the cells.
+	 *
+	 * @return An {@code IndexedLineMap} of the occupied cells.
+	 */
+	public IndexedLineMap toLineMap() {
+		List<Line> lines = new ArrayList<>();
+		var half = resolution / 2;
+
+		// Horizontal runs of two or more cells.
+		for (int r = 0; r < rows; r++) {
+			var y = originY + r * resolution + half;
+			var c = 0;
+			while (c < cols) {
+				if (!isOccupiedCell(c, r)) {
+					c++;
+					continue;
+				}
+				var start = c;
+				while (c < cols && isOccupiedCell(c, r)) {
+					c++;
+				}
+				if (c - start > 1) {
+					lines.add(new Line(originX + start * resolution + half, y, originX + (c - 1) * resolution + half, y));
+				}
+			}
+		}
+
+		// Vertical runs of two or more cells, plus isolated cells which are not part of any run.
+		for (int c = 0; c < cols; c++) {
+			var x = originX + c * resolution + half;
+			var r = 0;
+			while (r < rows) {
+				if (!isOccupiedCell(c, r)) {
+					r++;
+					continue;
+				}
+				var start = r;
+				while (r < rows && isOccupiedCell(c, r)) {
+					r++;
+				}
+				if (r - start > 1) {
+					lines.add(new Line(x, originY + start * resolution + half, x, originY + (r - 1) * resolution + half));
+				} else if (!isOccupiedCell(c - 1, start) && !isOccupiedCell(c + 1, start)) {
+					lines.add(new Line(x - half, originY + start * resolution + half, x + half, originY + start * resolution + half));
+				}
+			}
+		}
+
+		return new IndexedLineMap(lines.toArray(new Line[0]), new Rectangle(originX, originY, cols * resolution, rows * resolution));
+	}
+
+	// Public Getters/Setters
+
+	/**
+	 * Gets the width and height of each cell.
+	 *
+	 * @return The width and height of each cell (in millimetres).
+	 */
+	public float getResolution() {
+		return resolution;
+	}
+
+	/**
+	 * Gets the number of columns in the grid.
+	 *
+	 * @return The number of columns in the grid.
+	 */
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * Gets the number of rows in the grid.
+	 *
+	 * @return The number of rows in the grid.
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * Gets the number of bytes used to store the cells.
+	 *
+	 * @return The number of bytes used to store the cells.
+	 */
+	public int getSizeInBytes() {
+		return cells.length * Long.BYTES;
+	}
+}
@@ -0,0 +1,333 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.geometry.Line;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A class used to compact the walls of a maze by snapping near-coincident coordinates together and merging collinear, overlapping axis-aligned walls.<br/><br/>
+ *
+ * Walls can be added one at a time as they become known, so that taking a {@code snapshot} only needs to fold in the walls which have not been added yet, rather than sorting and merging every wall again.
+ * Each coordinate is snapped to the nearest coordinate seen before it within the tolerance, so walls added in the same order are always compacted the same way, whether they are added incrementally or all at once.
+ * Walls which are not axis-aligned are kept as they are.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class WallCompactor {
+	// Private Static Classes
+
+	/**
+	 * A class used to hold an axis-aligned wall as an interval along a fixed coordinate.
+	 */
+	private static class Interval {
+		// Public Fields
+
+		/**
+		 * The fixed coordinate of the wall (y for horizontal walls, x for vertical walls).
+		 */
+		public final float key;
+
+		/**
+		 * The lower end of the wall along its axis.
+		 */
+		public final float lo;
+
+		/**
+		 * The upper end of the wall along its axis.
+		 */
+		public final float hi;
+
+		// Public Constructors
+
+		/**
+		 * Creates an {@code Interval} object.
+		 *
+		 * @param key The fixed coordinate of the wall.
+		 * @param a One end of the wall along its axis.
+		 * @param b The other end of the wall along its axis.
+		 */
+		public Interval(float key, float a, float b) {
+			this.key = key;
+			this.lo = Math.min(a, b);
+			this.hi = Math.max(a, b);
+		}
+	}
+
+	// Private Fields
+
+	/**
+	 * The distance within which coordinates are snapped together and gaps between collinear walls are closed (in millimetres).
+	 */
+	private final float tolerance;
+
+	/**
+	 * The x coordinates which the x coordinates of the walls added have been snapped to.
+	 */
+	private final TreeSet<Float> xKeys = new TreeSet<>();
+
+	/**
+	 * The y coordinates which the y coordinates of the walls added have been snapped to.
+	 */
+	private final TreeSet<Float> yKeys = new TreeSet<>();
+
+	/**
+	 * The merged horizontal walls added, keyed by their y coordinate, then by their lower end.
+	 */
+	private final TreeMap<Float, TreeMap<Float, Interval>> horizontal = new TreeMap<>();
+
+	/**
+	 * The merged vertical walls added, keyed by their x coordinate, then by their lower end.
+	 */
+	private final TreeMap<Float, TreeMap<Float, Interval>> vertical = new TreeMap<>();
+
+	/**
+	 * The snapped walls added which are not axis-aligned, in the order they were added.
+	 */
+	private final List<Line> diagonal = new ArrayList<>();
+
+	/**
+	 * The number of walls added since the {@code WallCompactor} was last cleared.
+	 */
+	private int count;
+
+	/**
+	 * The number of walls passed to the most recent call to {@code snapshot} or {@code compact}, including those added beforehand.
+	 */
+	private int lastInputCount;
+
+	/**
+	 * The number of walls returned from the most recent call to {@code snapshot} or {@code compact}.
+	 */
+	private int lastOutputCount;
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code WallCompactor} object.
+	 *
+	 * @param tolerance The distance within which coordinates are snapped together and gaps between collinear walls are closed (in millimetres).
+	 */
+	public WallCompactor(float tolerance) {
+		if (tolerance < 0) {
+			throw new IllegalArgumentException("Tolerance must not be negative");
+		}
+		this.tolerance = tolerance;
+	}
+
+	// Private Static Methods
+
+	/**
+	 * Chooses whichever of two coordinates is closer to a given value, preferring the lower coordinate if they are equally close.
+	 *
+	 * @param a The first coordinate, or {@code null}.
+	 * @param b The second coordinate, or {@code null}.
+	 * @param value The value to compare against.
+	 * @return The closer coordinate, or {@code null} if both are {@code null}.
+	 */
+	private static Float closer(Float a, Float b, float value) {
+		if (a == null || b == null) {
+			return a != null ? a : b;
+		}
+		var da = Math.abs(a - value);
+		var db = Math.abs(b - value);
+		return da < db ? a : db < da ? b : Math.min(a, b);
+	}
+
+	/**
+	 * Inserts an {@code Interval} into a row of disjoint {@code Interval}s, merging it with any it overlaps or is separated from by no more than a given gap.<br/><br/>
+	 *
+	 * The {@code Interval}s in the row are replaced rather than modified, so that rows can be shallow-copied.
+	 *
+	 * @param row The {@code Interval}s sharing the fixed coordinate of {@code interval}, keyed by their lower end.
+	 * @param interval The {@code Interval} to insert.
+	 * @param gap The largest gap which is closed when merging.
+	 */
+	private static void insert(TreeMap<Float, Interval> row, Interval interval, float gap) {
+		var lo = interval.lo;
+		var hi = interval.hi;
+		var floor = row.floorEntry(lo);
+		if (floor != null && lo - floor.getValue().hi <= gap) {
+			lo = floor.getKey();
+			hi = Math.max(hi, floor.getValue().hi);
+			row.remove(lo);
+		}
+		for (var next = row.ceilingEntry(lo); next != null && next.getKey() - hi <= gap; next = row.ceilingEntry(lo)) {
+			hi = Math.max(hi, next.getValue().hi);
+			row.remove(next.getKey());
+		}
+		row.put(lo, new Interval(interval.key, lo, hi));
+	}
+
+	/**
+	 * Appends the walls of the given rows to a list, after inserting any extra {@code Interval}s into copies of the rows they belong to.
+	 *
+	 * @param compacted The list to append the walls to.
+	 * @param rows The rows of {@code Interval}s, keyed by their fixed coordinate.
+	 * @param extra The extra {@code Interval}s, which are not kept.
+	 * @param gap The largest gap which is closed when merging.
+	 * @param isHorizontal Whether the rows hold horizontal walls, rather than vertical walls.
+	 */
+	private static void appendRows(List<Line> compacted, TreeMap<Float, TreeMap<Float, Interval>> rows, List<Interval> extra, float gap, boolean isHorizontal) {
+		if (!extra.isEmpty()) {
+			rows = new TreeMap<>(rows);
+			for (var interval : extra) {
+				var row = rows.get(interval.key);
+				row = row != null ? new TreeMap<>(row) : new TreeMap<>();
+				rows.put(interval.key, row);
+				insert(row, interval, gap);
+			}
+		}
+		for (var row : rows.values()) {
+			for (var interval : row.values()) {
+				compacted.add(isHorizontal ? new Line(interval.lo, interval.key, interval.hi, interval.key) : new Line(interval.key, interval.lo, interval.key, interval.hi));
+			}
+		}
+	}
+
+	// Private Methods
+
+	/**
+	 * Snaps a value to the nearest coordinate seen before it within {@code tolerance}, or records it as a new coordinate if there is none.
+	 *
+	 * @param keys The coordinates seen so far on the axis of the value.
+	 * @param extraKeys The coordinates seen so far on the axis of the value which are not to be kept, which new coordinates are recorded in, or {@code null} to record new coordinates in {@code keys}.
+	 * @param value The value to snap.
+	 * @return The snapped value.
+	 */
+	private float snap(TreeSet<Float> keys, List<Float> extraKeys, float value) {
+		var nearest = closer(keys.floor(value), keys.ceiling(value), value);
+		if (extraKeys != null) {
+			for (var key : extraKeys) {
+				nearest = closer(nearest, key, value);
+			}
+		}
+		if (nearest != null && Math.abs(nearest - value) <= tolerance) {
+			return nearest;
+		}
+		if (extraKeys != null) {
+			extraKeys.add(value);
+		} else {
+			keys.add(value);
+		}
+		return value;
+	}
+
+	// Public Methods
+
+	/**
+	 * Adds a wall, so that it is included in every {@code snapshot} until the {@code WallCompactor} is cleared.
+	 *
+	 * @param line The wall to add.
+	 */
+	public void add(Line line) {
+		var x1 = snap(xKeys, null, line.x1);
+		var y1 = snap(yKeys, null, line.y1);
+		var x2 = snap(xKeys, null, line.x2);
+		var y2 = snap(yKeys, null, line.y2);
+		count++;
+		if (x1 == x2 && y1 == y2) {
+			return; // Drop walls which have collapsed to a point.
+		}
+		if (y1 == y2) {
+			insert(horizontal.computeIfAbsent(y1, key -> new TreeMap<>()), new Interval(y1, x1, x2), tolerance);
+		} else if (x1 == x2) {
+			insert(vertical.computeIfAbsent(x1, key -> new TreeMap<>()), new Interval(x1, y1, y2), tolerance);
+		} else {
+			diagonal.add(new Line(x1, y1, x2, y2));
+		}
+	}
+
+	/**
+	 * Removes every wall which has been added.
+	 */
+	public void clear() {
+		xKeys.clear();
+		yKeys.clear();
+		horizontal.clear();
+		vertical.clear();
+		diagonal.clear();
+		count = 0;
+	}
+
+	/**
+	 * Compacts the walls which have been added along with some extra walls, without keeping the extra walls.<br/><br/>
+	 *
+	 * This only snaps and merges the extra walls, so it costs time proportional to the number of compacted walls returned rather than the number of walls added.
+	 *
+	 * @param extra The extra walls to compact, as if they had been added after every other wall.
+	 * @return The compacted walls.
+	 */
+	public Line[] snapshot(Line[] extra) {
+		List<Float> extraXs = new ArrayList<>();
+		List<Float> extraYs = new ArrayList<>();
+		List<Interval> extraHorizontal = new ArrayList<>();
+		List<Interval> extraVertical = new ArrayList<>();
+		List<Line> compacted = new ArrayList<>(diagonal);
+		for (var line : extra) {
+			var x1 = snap(xKeys, extraXs, line.x1);
+			var y1 = snap(yKeys, extraYs, line.y1);
+			var x2 = snap(xKeys, extraXs, line.x2);
+			var y2 = snap(yKeys, extraYs, line.y2);
+			if (x1 == x2 && y1 == y2) {
+				continue; // Drop walls which have collapsed to a point.
+			}
+			if (y1 == y2) {
+				extraHorizontal.add(new Interval(y1, x1, x2));
+			} else if (x1 == x2) {
+				extraVertical.add(new Interval(x1, y1, y2));
+			} else {
+				compacted.add(new Line(x1, y1, x2, y2));
+			}
+		}
+		appendRows(compacted, horizontal, extraHorizontal, tolerance, true);
+		appendRows(compacted, vertical, extraVertical, tolerance, false);
+
+		lastInputCount = count + extra.length;
+		lastOutputCount = compacted.size();
+		return compacted.toArray(new Line[0]);
+	}
+
+	/**
+	 * Compacts a given array of walls, discarding any walls which have been added beforehand.
+	 *
+	 * @param lines The walls to compact.
+	 * @return The compacted walls.
+	 */
+	public Line[] compact(Line[] lines) {
+		clear();
+		for (var line : lines) {
+			add(line);
+		}
+		return snapshot(new Line[0]);
+	}
+
+	/**
+	 * Gets the fraction of walls removed by the most recent call to {@code snapshot} or {@code compact}.
+	 *
+	 * @return The fraction of walls removed, between 0 and 1.
+	 */
+	public double getReductionRatio() {
+		return lastInputCount == 0 ? 0 : 1 - (double)lastOutputCount / lastInputCount;
+	}
+
+	/**
+	 * Gets the number of walls passed to the most recent call to {@code snapshot} or {@code compact}.
+	 *
+	 * @return The number of walls before compaction.
+	 */
+	public int getLastInputCount() {
+		return lastInputCount;
+	}
+
+	/**
+	 * Gets the number of walls returned from the most recent call to {@code snapshot} or {@code compact}.
+	 *
+	 * @return The number of walls after compaction.
+	 */
+	public int getLastOutputCount() {
+		return lastOutputCount;
+	}
+}
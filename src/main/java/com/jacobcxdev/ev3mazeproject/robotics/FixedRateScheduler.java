@@ -0,0 +1,256 @@
+package com.jacobcxdev.ev3mazeproject.robotics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@code Thread} subclass which runs a control task at a fixed rate, such as a controller which must update at a known period.<br/><br/>
+ *
+ * Each run is scheduled a whole period after the previous deadline rather than after the previous run finished, so lateness does not accumulate. If a run finishes after the next deadline, the runs which were missed are skipped and counted as overruns rather than run back to back.
+ * The lateness of each run relative to its deadline is recorded, so that the jitter of the loop can be measured.<br/><br/>
+ *
+ * The task is run while holding the lock of the scheduler, so {@code suspendRunLoop()} waits for a run in progress to finish, and no run starts until every suspension has been matched by a call to {@code resumeRunLoop()}.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class FixedRateScheduler extends Thread {
+	// Private Static Fields
+
+	/**
+	 * The {@code Logger} for {@code FixedRateScheduler} instances.
+	 */
+	private static final Logger log = LoggerFactory.getLogger(FixedRateScheduler.class);
+
+	// Private Fields
+
+	/**
+	 * The task run once per period.
+	 */
+	private final Runnable task;
+
+	/**
+	 * The time between runs (in nanoseconds).
+	 */
+	private volatile long period;
+
+	/**
+	 * Whether the scheduler should keep running.
+	 */
+	private volatile boolean running = true;
+
+	/**
+	 * The number of calls to {@code suspendRunLoop()} which have not been matched by a call to {@code resumeRunLoop()}.
+	 */
+	private int suspensionCount;
+
+	/**
+	 * The number of runs since the statistics were last reset.
+	 */
+	private volatile long runCount;
+
+	/**
+	 * The total lateness of the runs since the statistics were last reset (in nanoseconds).
+	 */
+	private volatile long totalJitter;
+
+	/**
+	 * The greatest lateness of a run since the statistics were last reset (in nanoseconds).
+	 */
+	private volatile long maxJitter;
+
+	/**
+	 * The number of runs skipped because the previous run finished too late, since the statistics were last reset.
+	 */
+	private volatile long overrunCount;
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code FixedRateScheduler} thread, which must be started with {@code start()}.
+	 *
+	 * @param name The name of the thread.
+	 * @param period The time between runs (in nanoseconds).
+	 * @param task The task to run once per period.
+	 */
+	public FixedRateScheduler(String name, long period, Runnable task) {
+		super(name);
+		setPeriod(period);
+		this.task = task;
+		setDaemon(true);
+	}
+
+	// Private Methods
+
+	/**
+	 * Records the lateness of a run. Only called by the scheduler thread.
+	 *
+	 * @param jitter The time between when the run was due and when it started (in nanoseconds).
+	 */
+	private void recordJitter(long jitter) {
+		runCount++;
+		totalJitter += jitter;
+		if (jitter > maxJitter) {
+			maxJitter = jitter;
+		}
+	}
+
+	// Public Methods
+
+	/**
+	 * Suspends the run loop, waiting for a run in progress to finish. Suspensions are counted, so the task only runs again once each has been matched by a call to {@code resumeRunLoop()}.
+	 */
+	public synchronized void suspendRunLoop() {
+		suspensionCount++;
+	}
+
+	/**
+	 * Resumes the run loop after a call to {@code suspendRunLoop()}. The next run is scheduled immediately, and the time spent suspended is not counted as overruns.
+	 */
+	public synchronized void resumeRunLoop() {
+		if (suspensionCount > 0 && --suspensionCount == 0) {
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Stops the scheduler after the run in progress, if any.
+	 */
+	public void shutdown() {
+		running = false;
+		interrupt();
+	}
+
+	/**
+	 * Resets the run, jitter and overrun statistics.
+	 */
+	public void resetStatistics() {
+		runCount = 0;
+		totalJitter = 0;
+		maxJitter = 0;
+		overrunCount = 0;
+	}
+
+	// Public Getters/Setters
+
+	/**
+	 * Gets whether the scheduler has been started and not shut down, so that its task will run once the run loop is not suspended.
+	 *
+	 * @return Whether the scheduler is running.
+	 */
+	public boolean isRunning() {
+		return running && isAlive();
+	}
+
+	/**
+	 * Gets whether the run loop is suspended.
+	 *
+	 * @return Whether the run loop is suspended.
+	 */
+	public synchronized boolean isSuspended() {
+		return suspensionCount > 0;
+	}
+
+	/**
+	 * Gets the time between runs.
+	 *
+	 * @return The period (in nanoseconds).
+	 */
+	public long getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Sets the time between runs. The new period takes effect after the next run.
+	 *
+	 * @param period The period (in nanoseconds).
+	 */
+	public void setPeriod(long period) {
+		if (period <= 0) {
+			throw new IllegalArgumentException(String.format("The period of a FixedRateScheduler must be positive, but was %d.", period));
+		}
+		this.period = period;
+	}
+
+	/**
+	 * Gets the number of runs since the statistics were last reset.
+	 *
+	 * @return The number of runs.
+	 */
+	public long getRunCount() {
+		return runCount;
+	}
+
+	/**
+	 * Gets the mean lateness of the runs since the statistics were last reset.
+	 *
+	 * @return The mean lateness (in nanoseconds), or 0 if there have been no runs.
+	 */
+	public double getMeanJitter() {
+		var count = runCount;
+		return count == 0 ? 0 : totalJitter / (double)count;
+	}
+
+	/**
+	 * Gets the greatest lateness of a run since the statistics were last reset.
+	 *
+	 * @return The greatest lateness (in nanoseconds).
+	 */
+	public long getMaxJitter() {
+		return maxJitter;
+	}
+
+	/**
+	 * Gets the number of runs skipped because the previous run finished too late, since the statistics were last reset.
+	 *
+	 * @return The number of skipped runs.
+	 */
+	public long getOverrunCount() {
+		return overrunCount;
+	}
+
+	// Thread Override Methods
+
+	@Override
+	public void run() {
+		var deadline = System.nanoTime();
+		while (running) {
+			var delay = deadline - System.nanoTime();
+			if (delay > 0) {
+				LockSupport.parkNanos(this, delay);
+				continue; // Recheck, as `parkNanos` can return early.
+			}
+
+			synchronized (this) {
+				if (suspensionCount > 0) {
+					try {
+						while (suspensionCount > 0) {
+							wait();
+						}
+					} catch (InterruptedException e) {
+						continue; // Recheck whether the scheduler has been shut down.
+					}
+					deadline = System.nanoTime(); // Start a new schedule rather than counting the suspension as overruns.
+				}
+				var time = System.nanoTime();
+				recordJitter(time - deadline);
+				try {
+					task.run();
+				} catch (RuntimeException e) {
+					log.warn("{} task threw an exception; running it again next period.", getName(), e);
+				}
+			}
+
+			var period = this.period;
+			deadline += period;
+			var time = System.nanoTime();
+			if (deadline - time <= 0) {
+				// Skip the runs which were missed rather than running them all at once.
+				var missed = (time - deadline) / period + 1;
+				overrunCount += missed;
+				deadline += missed * period;
+			}
+		}
+	}
+}
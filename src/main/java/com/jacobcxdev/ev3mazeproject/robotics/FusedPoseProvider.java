@@ -0,0 +1,600 @@
+package com.jacobcxdev.ev3mazeproject.robotics;
+
+import com.jacobcxdev.ev3mazeproject.sensors.SampleRingBuffer;
+import lejos.robotics.localization.DynamicPoseProvider;
+import lejos.robotics.navigation.Pose;
+import lejos.utility.Matrix;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A class which implements LeJOS' {@code DynamicPoseProvider} interface by fusing the tacho counts of the wheels of a {@code GyroWheeledChassis} with the heading measured by its {@code BaseGyroSensor}, using a complementary filter run by a {@code FixedRateScheduler}.<br/><br/>
+ *
+ * Each period, the change in heading measured by the wheels is added to the heading, which is then pulled towards the gyro heading with a given time constant. The wheels respond immediately and are not noisy, but drift when they slip, whereas the gyro does not slip but is noisy and its samples are late; the filter follows the wheels over periods shorter than the time constant and the gyro over longer ones.
+ * Once the wheels have been still for a few time constants, the heading is held and the difference between it and the gyro heading is filtered into the gyro offset, so that the drift of the gyro is removed. The position is advanced by the distance measured by the wheels along the mean heading of the period.<br/><br/>
+ *
+ * The pose uses the same frame as LeJOS' odometer: headings are in degrees anticlockwise in the range [-180, 180], and speeds and accelerations are relative to the chassis. The state is published with a sequence lock, so readers never block the filter and updating it allocates nothing.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class FusedPoseProvider implements DynamicPoseProvider, Runnable {
+	// Private Static Fields
+
+	/**
+	 * The default time between updates, for a rate of 100 Hz (in nanoseconds).
+	 */
+	private static final long DEFAULT_PERIOD = TimeUnit.MILLISECONDS.toNanos(10);
+
+	/**
+	 * The default time constant of the complementary filter (in seconds).
+	 */
+	private static final double DEFAULT_TIME_CONSTANT = .25;
+
+	/**
+	 * The minimum number of poses kept in the history.
+	 */
+	private static final int HISTORY_CAPACITY = 256;
+
+	/**
+	 * The number of time constants the wheels must be still for before the heading is held, so that the heading has settled on the gyro heading at the end of a move first.
+	 */
+	private static final double STATIONARY_TIME_CONSTANTS = 4;
+
+	/**
+	 * The number of periods the heading is measured by the wheels alone after the {@code BaseGyroSensor} is reset, so that samples from before the reset are not used.
+	 */
+	private static final int GYRO_RESYNCHRONISATION_PERIODS = 5;
+
+	/**
+	 * The indices of the pose, speed and acceleration in the state.
+	 */
+	private static final int X = 0, Y = 1, HEADING = 2, SPEED_X = 3, SPEED_Y = 4, SPEED_ANGULAR = 5, ACCELERATION_X = 6, ACCELERATION_Y = 7, ACCELERATION_ANGULAR = 8;
+
+	// Private Fields
+
+	/**
+	 * The {@code GyroWheeledChassis} whose pose is provided.
+	 */
+	private final GyroWheeledChassis chassis;
+
+	/**
+	 * The {@code FixedRateScheduler} running the filter once per period.
+	 */
+	private final FixedRateScheduler scheduler;
+
+	/**
+	 * The forward distance per degree of rotation of each motor, from the reverse kinematics of the chassis.
+	 */
+	private final double[] xFactors;
+
+	/**
+	 * The sideways distance per degree of rotation of each motor, from the reverse kinematics of the chassis.
+	 */
+	private final double[] yFactors;
+
+	/**
+	 * The change in heading per degree of rotation of each motor, from the reverse kinematics of the chassis.
+	 */
+	private final double[] headingFactors;
+
+	/**
+	 * The tacho count of each motor at the last update.
+	 */
+	private final double[] lastTachoCounts;
+
+	/**
+	 * The tacho count of each motor, reused on every update.
+	 */
+	private final double[] tachoCounts;
+
+	/**
+	 * The pose, speed and acceleration, guarded by {@code sequence}.
+	 */
+	private final double[] state = new double[9];
+
+	/**
+	 * The recent poses, each holding the x, y and heading of the pose and timestamped with {@code System.nanoTime()}.
+	 */
+	private final SampleRingBuffer history = new SampleRingBuffer(HISTORY_CAPACITY, 3);
+
+	/**
+	 * The sample published to the history, reused on every update.
+	 */
+	private final float[] historySample = new float[3];
+
+	/**
+	 * The sequence number of the state, which is odd while the state is being written.
+	 */
+	private volatile long sequence;
+
+	/**
+	 * The fused heading, which is not wrapped so that it can be compared with the gyro heading (in degrees).
+	 */
+	private double heading;
+
+	/**
+	 * The difference between the fused heading and the gyro heading, which absorbs the starting heading and the drift of the {@code BaseGyroSensor} (in degrees).
+	 */
+	private double gyroOffset;
+
+	/**
+	 * The gyro heading at the last update, used to restart the gyro offset when the pose is set (in degrees).
+	 */
+	private double lastGyroAngle;
+
+	/**
+	 * The number of consecutive periods the wheels have been still for.
+	 */
+	private int stationaryPeriods;
+
+	/**
+	 * The number of periods left for which the heading is measured by the wheels alone.
+	 */
+	private int gyroResynchronisationPeriods;
+
+	/**
+	 * The time between updates, which is also the time step used by the filter (in nanoseconds).
+	 */
+	private volatile long period;
+
+	/**
+	 * The time constant of the complementary filter (in seconds).
+	 */
+	private volatile double timeConstant = DEFAULT_TIME_CONSTANT;
+
+	/**
+	 * The number of updates since the statistics were last reset.
+	 */
+	private volatile long updateCount;
+
+	/**
+	 * The total time taken by the updates since the statistics were last reset (in nanoseconds).
+	 */
+	private volatile long totalUpdateTime;
+
+	/**
+	 * The longest time taken by an update since the statistics were last reset (in nanoseconds).
+	 */
+	private volatile long maxUpdateTime;
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code FusedPoseProvider} object at the pose (0, 0, 0), and starts updating it.
+	 *
+	 * @param chassis The {@code GyroWheeledChassis} whose pose is provided.
+	 */
+	public FusedPoseProvider(GyroWheeledChassis chassis) {
+		this.chassis = chassis;
+
+		// Extract the kinematics of each wheel.
+		var wheelCount = chassis.getWheelCount();
+		var reverse = chassis.getReverse();
+		xFactors = new double[wheelCount];
+		yFactors = new double[wheelCount];
+		headingFactors = new double[wheelCount];
+		for (int i = 0; i < wheelCount; i++) {
+			xFactors[i] = reverse.get(0, i);
+			yFactors[i] = reverse.get(1, i);
+			headingFactors[i] = reverse.get(2, i);
+		}
+		lastTachoCounts = new double[wheelCount];
+		tachoCounts = new double[wheelCount];
+
+		// Start from the current tacho counts and gyro heading.
+		chassis.getTachoCounts(lastTachoCounts);
+		lastGyroAngle = chassis.getGyroAngle();
+		gyroOffset = -lastGyroAngle;
+		publishHistory(System.nanoTime());
+
+		period = DEFAULT_PERIOD;
+		scheduler = new FixedRateScheduler("FusedPoseProvider", period, this);
+		scheduler.start();
+	}
+
+	// Private Methods
+
+	/**
+	 * Updates the pose from the change in the tacho counts and the gyro heading since the last update. Only called by the {@code FixedRateScheduler}.
+	 *
+	 * @param time The time of the update (in nanoseconds).
+	 */
+	private synchronized void update(long time) {
+		chassis.getTachoCounts(tachoCounts);
+		var dx = 0d;
+		var dy = 0d;
+		var wheelHeadingChange = 0d;
+		var moving = false;
+		for (int i = 0; i < tachoCounts.length; i++) {
+			var delta = tachoCounts[i] - lastTachoCounts[i];
+			if (delta != 0) {
+				moving = true;
+			}
+			dx += xFactors[i] * delta;
+			dy += yFactors[i] * delta;
+			wheelHeadingChange += headingFactors[i] * delta;
+			lastTachoCounts[i] = tachoCounts[i];
+		}
+		var gyroAngle = chassis.getGyroAngle();
+		lastGyroAngle = gyroAngle;
+
+		// Fuse the heading.
+		var dt = period / 1e9;
+		var weight = timeConstant / (timeConstant + dt);
+		var lastHeading = heading;
+		var predictedHeading = heading + wheelHeadingChange;
+		if (moving) {
+			stationaryPeriods = 0;
+		} else if (stationaryPeriods < Integer.MAX_VALUE) {
+			stationaryPeriods++;
+		}
+		if (gyroResynchronisationPeriods > 0) {
+			heading = predictedHeading;
+			if (--gyroResynchronisationPeriods == 0) {
+				gyroOffset = heading - gyroAngle;
+			}
+		} else if (stationaryPeriods * dt >= STATIONARY_TIME_CONSTANTS * timeConstant) { // The chassis cannot be turning, so hold the heading and let the gyro offset absorb any drift.
+			heading = predictedHeading;
+			gyroOffset = weight * gyroOffset + (1 - weight) * (heading - gyroAngle);
+		} else {
+			heading = weight * predictedHeading + (1 - weight) * (gyroAngle + gyroOffset);
+		}
+
+		// Advance the position along the mean heading of the period.
+		var meanHeading = Math.toRadians((lastHeading + heading) / 2);
+		var sin = Math.sin(meanHeading);
+		var cos = Math.cos(meanHeading);
+		var speedX = dx / dt;
+		var speedY = dy / dt;
+		var speedAngular = (heading - lastHeading) / dt;
+
+		beginWrite();
+		state[X] += cos * dx - sin * dy;
+		state[Y] += sin * dx + cos * dy;
+		state[HEADING] = Math.IEEEremainder(heading, 360);
+		state[ACCELERATION_X] = (speedX - state[SPEED_X]) / dt;
+		state[ACCELERATION_Y] = (speedY - state[SPEED_Y]) / dt;
+		state[ACCELERATION_ANGULAR] = (speedAngular - state[SPEED_ANGULAR]) / dt;
+		state[SPEED_X] = speedX;
+		state[SPEED_Y] = speedY;
+		state[SPEED_ANGULAR] = speedAngular;
+		endWrite();
+		publishHistory(time);
+	}
+
+	/**
+	 * Records the time taken by an update. Only called by the {@code FixedRateScheduler}.
+	 *
+	 * @param time The time taken by the update (in nanoseconds).
+	 */
+	private void recordUpdateTime(long time) {
+		updateCount++;
+		totalUpdateTime += time;
+		if (time > maxUpdateTime) {
+			maxUpdateTime = time;
+		}
+	}
+
+	/**
+	 * Marks the start of a write to the state. Only called while holding the lock of the {@code FusedPoseProvider}.
+	 */
+	private void beginWrite() {
+		sequence++;
+		VarHandle.storeStoreFence();
+	}
+
+	/**
+	 * Marks the end of a write to the state. Only called while holding the lock of the {@code FusedPoseProvider}.
+	 */
+	private void endWrite() {
+		sequence++;
+	}
+
+	/**
+	 * Adds the current pose to the history. Only called while holding the lock of the {@code FusedPoseProvider}.
+	 *
+	 * @param time The time of the pose (in nanoseconds).
+	 */
+	private void publishHistory(long time) {
+		historySample[0] = (float)state[X];
+		historySample[1] = (float)state[Y];
+		historySample[2] = (float)state[HEADING];
+		history.publish(time, historySample, 0);
+	}
+
+	/**
+	 * Reads an element of the state without blocking.
+	 *
+	 * @param index The index of the element.
+	 * @return The value of the element.
+	 */
+	private double read(int index) {
+		while (true) {
+			var sequence = this.sequence;
+			if ((sequence & 1) == 0) {
+				var value = state[index];
+				VarHandle.loadLoadFence();
+				if (this.sequence == sequence) {
+					return value;
+				}
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * Reads the length of a vector in the state without blocking.
+	 *
+	 * @param xIndex The index of the x component.
+	 * @param yIndex The index of the y component.
+	 * @return The length of the vector.
+	 */
+	private double readLength(int xIndex, int yIndex) {
+		while (true) {
+			var sequence = this.sequence;
+			if ((sequence & 1) == 0) {
+				var x = state[xIndex];
+				var y = state[yIndex];
+				VarHandle.loadLoadFence();
+				if (this.sequence == sequence) {
+					return Math.hypot(x, y);
+				}
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * Reads the direction of a vector in the state without blocking.
+	 *
+	 * @param xIndex The index of the x component.
+	 * @param yIndex The index of the y component.
+	 * @return The direction of the vector (in degrees).
+	 */
+	private double readDirection(int xIndex, int yIndex) {
+		while (true) {
+			var sequence = this.sequence;
+			if ((sequence & 1) == 0) {
+				var x = state[xIndex];
+				var y = state[yIndex];
+				VarHandle.loadLoadFence();
+				if (this.sequence == sequence) {
+					return Math.toDegrees(Math.atan2(y, x));
+				}
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * Reads three consecutive elements of the state into a column {@code Matrix} without blocking.
+	 *
+	 * @param first The index of the first element.
+	 * @return The 3 x 1 {@code Matrix}.
+	 */
+	private Matrix readMatrix(int first) {
+		var matrix = new Matrix(3, 1);
+		while (true) {
+			var sequence = this.sequence;
+			if ((sequence & 1) == 0) {
+				for (int i = 0; i < 3; i++) {
+					matrix.set(i, 0, state[first + i]);
+				}
+				VarHandle.loadLoadFence();
+				if (this.sequence == sequence) {
+					return matrix;
+				}
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	// Public Methods
+
+	/**
+	 * Measures the heading with the wheels alone for a few periods, then restarts the gyro heading from the fused heading. Called when the {@code BaseGyroSensor} is reset, so that the pose does not jump.
+	 */
+	public synchronized void resynchroniseGyro() {
+		gyroResynchronisationPeriods = GYRO_RESYNCHRONISATION_PERIODS;
+	}
+
+	/**
+	 * Resets the update time statistics.
+	 */
+	public void resetStatistics() {
+		updateCount = 0;
+		totalUpdateTime = 0;
+		maxUpdateTime = 0;
+	}
+
+	// Public Getters/Setters
+
+	/**
+	 * Gets the recent poses, each holding the x, y and heading of the pose and timestamped with {@code System.nanoTime()}.
+	 *
+	 * @return The pose history.
+	 */
+	public SampleRingBuffer getHistory() {
+		return history;
+	}
+
+	/**
+	 * Gets the {@code FixedRateScheduler} running the filter, e.g. to read its jitter and overrun statistics.<br/><br/>
+	 *
+	 * The period of the scheduler can be changed without changing the period of the filter, e.g. to run the filter in simulated time, in which case the filter still uses its period as its time step.
+	 *
+	 * @return The {@code FixedRateScheduler}.
+	 */
+	public FixedRateScheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * Gets the time between updates.
+	 *
+	 * @return The period (in nanoseconds).
+	 */
+	public long getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Sets the time between updates, which is also the time step used by the filter.
+	 *
+	 * @param period The period (in nanoseconds).
+	 */
+	public void setPeriod(long period) {
+		if (period <= 0) {
+			throw new IllegalArgumentException(String.format("The period of a FusedPoseProvider must be positive, but was %d.", period));
+		}
+		this.period = period;
+		scheduler.setPeriod(period);
+	}
+
+	/**
+	 * Gets the time constant of the complementary filter.
+	 *
+	 * @return The time constant (in seconds).
+	 */
+	public double getTimeConstant() {
+		return timeConstant;
+	}
+
+	/**
+	 * Sets the time constant of the complementary filter. Changes in heading over periods shorter than this are measured by the wheels, and over longer periods by the gyro, so a longer time constant smooths more gyro noise but corrects wheel slip more slowly.
+	 *
+	 * @param timeConstant The time constant (in seconds), where 0 uses the gyro heading alone.
+	 */
+	public void setTimeConstant(double timeConstant) {
+		if (!(timeConstant >= 0)) {
+			throw new IllegalArgumentException(String.format("The time constant of a FusedPoseProvider must not be negative, but was %f.", timeConstant));
+		}
+		this.timeConstant = timeConstant;
+	}
+
+	/**
+	 * Gets the number of updates since the statistics were last reset.
+	 *
+	 * @return The number of updates.
+	 */
+	public long getUpdateCount() {
+		return updateCount;
+	}
+
+	/**
+	 * Gets the mean time taken by an update since the statistics were last reset.
+	 *
+	 * @return The mean time (in nanoseconds), or 0 if there have been no updates.
+	 */
+	public double getMeanUpdateTime() {
+		var count = updateCount;
+		return count == 0 ? 0 : totalUpdateTime / (double)count;
+	}
+
+	/**
+	 * Gets the longest time taken by an update since the statistics were last reset.
+	 *
+	 * @return The longest time (in nanoseconds).
+	 */
+	public long getMaxUpdateTime() {
+		return maxUpdateTime;
+	}
+
+	// PoseProvider Override Methods
+
+	@Override
+	public Pose getPose() {
+		while (true) {
+			var sequence = this.sequence;
+			if ((sequence & 1) == 0) {
+				var x = state[X];
+				var y = state[Y];
+				var heading = state[HEADING];
+				VarHandle.loadLoadFence();
+				if (this.sequence == sequence) {
+					return new Pose((float)x, (float)y, (float)heading);
+				}
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	@Override
+	public synchronized void setPose(Pose pose) {
+		heading = pose.getHeading();
+		gyroOffset = heading - lastGyroAngle;
+		beginWrite();
+		state[X] = pose.getX();
+		state[Y] = pose.getY();
+		state[HEADING] = Math.IEEEremainder(heading, 360);
+		endWrite();
+		publishHistory(System.nanoTime());
+	}
+
+	// DynamicPoseProvider Override Methods
+
+	@Override
+	public double getX() {
+		return read(X);
+	}
+
+	@Override
+	public double getY() {
+		return read(Y);
+	}
+
+	@Override
+	public double getHeading() {
+		return read(HEADING);
+	}
+
+	@Override
+	public double getLinearSpeed() {
+		return readLength(SPEED_X, SPEED_Y);
+	}
+
+	@Override
+	public double getDirectionOfLinearSpeed() {
+		return readDirection(SPEED_X, SPEED_Y);
+	}
+
+	@Override
+	public double getAngularSpeed() {
+		return read(SPEED_ANGULAR);
+	}
+
+	@Override
+	public Matrix getSpeed() {
+		return readMatrix(SPEED_X);
+	}
+
+	@Override
+	public double getLinearAcceleration() {
+		return readLength(ACCELERATION_X, ACCELERATION_Y);
+	}
+
+	@Override
+	public double getDirectionOfLinearAcceleration() {
+		return readDirection(ACCELERATION_X, ACCELERATION_Y);
+	}
+
+	@Override
+	public double getAngularAcceleration() {
+		return read(ACCELERATION_ANGULAR);
+	}
+
+	@Override
+	public Matrix getAcceleration() {
+		return readMatrix(ACCELERATION_X);
+	}
+
+	// Runnable Override Methods
+
+	@Override
+	public void run() {
+		var time = System.nanoTime();
+		update(time);
+		recordUpdateTime(System.nanoTime() - time);
+	}
+}
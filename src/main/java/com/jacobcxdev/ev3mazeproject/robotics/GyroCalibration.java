@@ -0,0 +1,136 @@
+package com.jacobcxdev.ev3mazeproject.robotics;
+
+import com.jacobcxdev.ev3mazeproject.hardware.BuildDescription;
+import lejos.hardware.port.Port;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * A class used to hold the calibration of a {@code BaseGyroSensor} made by {@code GyroWheeledChassis.calibrateGyroSensor()}, so that it can be saved and reused on later runs rather than calibrating again.<br/><br/>
+ *
+ * Calibrations are stored in a {@code Properties} file under a key made from the port of the sensor and the {@code BuildDescription} of the EV3, so that one file can hold the calibrations of several sensors and builds.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class GyroCalibration {
+	// Private Static Fields
+
+	/**
+	 * The suffix of the property holding the heading multiplier.
+	 */
+	private static final String MULTIPLIER_PROPERTY = ".multiplier";
+
+	/**
+	 * The suffix of the property holding the drift rate.
+	 */
+	private static final String DRIFT_RATE_PROPERTY = ".driftRate";
+
+	// Public Fields
+
+	/**
+	 * The multiplier which corrects the heading received from the {@code BaseGyroSensor}.
+	 */
+	public final double multiplier;
+
+	/**
+	 * The rate at which the heading received from the {@code BaseGyroSensor} changed while the EV3 was still, measured when it was calibrated (in degrees per second).
+	 */
+	public final double driftRate;
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code GyroCalibration} object.
+	 *
+	 * @param multiplier The multiplier which corrects the heading received from the {@code BaseGyroSensor}.
+	 * @param driftRate The rate at which the heading changed while the EV3 was still (in degrees per second).
+	 */
+	public GyroCalibration(double multiplier, double driftRate) {
+		if (!(multiplier > 0) || Double.isInfinite(multiplier)) {
+			throw new IllegalArgumentException(String.format("The multiplier of a GyroCalibration must be positive and finite, but was %f.", multiplier));
+		}
+		if (!Double.isFinite(driftRate)) {
+			throw new IllegalArgumentException(String.format("The drift rate of a GyroCalibration must be finite, but was %f.", driftRate));
+		}
+		this.multiplier = multiplier;
+		this.driftRate = driftRate;
+	}
+
+	// Private Static Methods
+
+	/**
+	 * Reads a {@code Properties} file.
+	 *
+	 * @param path The {@code Path} of the file.
+	 * @return The {@code Properties}, which are empty if the file does not exist.
+	 * @throws IOException If the file exists but could not be read.
+	 */
+	private static Properties readProperties(Path path) throws IOException {
+		var properties = new Properties();
+		if (Files.exists(path)) {
+			try (var reader = Files.newBufferedReader(path)) {
+				properties.load(reader);
+			}
+		}
+		return properties;
+	}
+
+	// Public Static Methods
+
+	/**
+	 * Creates the key a calibration is stored under.
+	 *
+	 * @param gyroSensorPort The {@code Port} which the {@code BaseGyroSensor} is connected to, or {@code null} if it is not known.
+	 * @param buildDescription The {@code BuildDescription} of the EV3.
+	 * @return The key.
+	 */
+	public static String key(Port gyroSensorPort, BuildDescription buildDescription) {
+		return String.format("%s/%s/%s/%s/%s", gyroSensorPort == null ? "unknown" : gyroSensorPort.getName(), buildDescription.ultrasonicSensorGap, buildDescription.wheelDiameter, buildDescription.wheelOffset, buildDescription.gyroOrientation);
+	}
+
+	/**
+	 * Loads a calibration from a {@code Properties} file.
+	 *
+	 * @param path The {@code Path} of the file.
+	 * @param key The key the calibration is stored under.
+	 * @return The {@code GyroCalibration}, or {@code null} if the file does not exist or does not hold a valid calibration under the key.
+	 * @throws IOException If the file exists but could not be read.
+	 */
+	public static GyroCalibration load(Path path, String key) throws IOException {
+		var properties = readProperties(path);
+		var multiplier = properties.getProperty(key + MULTIPLIER_PROPERTY);
+		var driftRate = properties.getProperty(key + DRIFT_RATE_PROPERTY);
+		if (multiplier == null || driftRate == null) {
+			return null;
+		}
+		try {
+			return new GyroCalibration(Double.parseDouble(multiplier), Double.parseDouble(driftRate));
+		} catch (IllegalArgumentException e) { // Includes NumberFormatException.
+			return null;
+		}
+	}
+
+	// Public Methods
+
+	/**
+	 * Saves the calibration to a {@code Properties} file, keeping the calibrations stored under other keys. The file is replaced in one step, so a run which stops while saving cannot leave it half written.
+	 *
+	 * @param path The {@code Path} of the file.
+	 * @param key The key to store the calibration under.
+	 * @throws IOException If the file could not be read or written.
+	 */
+	public void save(Path path, String key) throws IOException {
+		var properties = readProperties(path);
+		properties.setProperty(key + MULTIPLIER_PROPERTY, Double.toString(multiplier));
+		properties.setProperty(key + DRIFT_RATE_PROPERTY, Double.toString(driftRate));
+		var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		try (var writer = Files.newBufferedWriter(temporary)) {
+			properties.store(writer, "Gyro calibrations, keyed by sensor port and build");
+		}
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
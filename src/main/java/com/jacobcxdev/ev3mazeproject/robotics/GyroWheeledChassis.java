@@ -1,18 +1,23 @@
 package com.jacobcxdev.ev3mazeproject.robotics;
 
+import com.jacobcxdev.ev3mazeproject.hardware.SysfsAttribute;
 import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import com.jacobcxdev.ev3mazeproject.sensors.SampleRingBuffer;
+import com.jacobcxdev.ev3mazeproject.sensors.SensorHub;
 import ev3dev.actuators.Sound;
 import ev3dev.sensors.Button;
 import lejos.robotics.SampleProvider;
 import lejos.robotics.chassis.Wheel;
 import lejos.robotics.chassis.WheeledChassis;
+import lejos.robotics.localization.DynamicPoseProvider;
 import lejos.robotics.navigation.Move;
 import lejos.utility.Delay;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A subclass of LeJOS' {@code WheeledChassis} object which uses a {@code BaseGyroSensor} object to measure angles.
@@ -23,107 +28,177 @@ public class GyroWheeledChassis extends WheeledChassis {
 	// Private Classes
 	
 	/**
-	 * A {@code Thread} subclass which is used to monitor the heading of the associated {@code GyroWheeledChassis} object, adjusting {@code Wheel} speeds to correct it to match the desired heading if necessary.
+	 * A {@code Runnable} which is run by a {@code FixedRateScheduler} to monitor the heading of the associated {@code GyroWheeledChassis} object while it moves.<br/><br/>
+	 * 
+	 * While travelling, it adjusts the motor speeds with a {@code PIDController} to correct the heading to match the desired heading.
+	 * Each run is one control period. The error is measured by the {@code BaseGyroSensor}, and the rate at which the heading is changing is measured from the tacho counts of the wheels, which respond sooner and are less noisy than differentiating the gyro heading.
+	 * A motor's speed is only set when the speed calculated for it changes.<br/><br/>
+	 * 
+	 * While rotating, it brakes once the angle left to the desired heading is within the angle needed to stop at the angular speed measured by the motors, so that the rotation stops on the desired heading rather than overshooting it by the braking angle, then tells the rotating thread once the wheels have stopped.
 	 */
-	private class HeadingCorrectingMonitor extends Thread {
+	private class HeadingCorrectingMonitor implements Runnable {
 		// Private Fields
 		
 		/**
-		 * Whether the thread should be suspended.
+		 * The distance each wheel has left to travel, reused on every control period.
 		 */
-		private boolean suspended;
+		private final double[] remainingDistances = new double[motor.length];
 		
 		/**
-		 * Record the number of active suspensions;
+		 * The speed last set on each motor by the controller, or -1 if it has not set one during the current travel.
 		 */
-		private int suspensionCount;
+		private final int[] commandedSpeeds = new int[motor.length];
 		
-		// Public Constructors
+		/**
+		 * Whether the heading is being corrected during the current travel.
+		 */
+		private boolean correcting;
 		
 		/**
-		 * Creates a {@code HeadingCorrectingMonitor} thread.
+		 * Whether the current move is braking: for a travel, whether the motors have been retargeted to brake together, after which the heading is no longer corrected.
 		 */
-		public HeadingCorrectingMonitor() {
-			setDaemon(true);
-		}
+		private boolean braking;
+		
+		/**
+		 * The value of {@code travelCount} when the current travel started.
+		 */
+		private int travel;
+		
+		/**
+		 * The value of {@code rotationCount} when the current rotation started.
+		 */
+		private int rotation;
+		
+		/**
+		 * The number of control periods the current rotation has been braking for.
+		 */
+		private int brakingPeriods;
+		
+		/**
+		 * The heading measured from the tacho counts of the wheels in the last control period (in degrees).
+		 */
+		private double lastWheelHeading;
 		
 		// Private Methods
 		
 		/**
-		 * Sets given {@code Wheel}s' speeds to a given linear speed.
+		 * Adjusts the {@code GyroWheeledChassis}' motor speeds to correct the heading to match the desired heading.
 		 * 
-		 * @param wheels The {@code Wheel}s whose speeds are to be set.
-		 * @param speed The linear speed to set.
+		 * @param wheelHeadingChange The change in the heading measured from the tacho counts of the wheels since the last control period (in degrees).
 		 */
-		private void setLinearWheelSpeeds(List<Wheel> wheels, double speed) {
-//		    master.startSynchronization();
-			for (Wheel wheel : wheels) {
-				wheel.getMotor().setSpeed((int)(speed * Math.abs(wheel.getFactors().get(0, 0))));
+		private void adjustMotorSpeeds(double wheelHeadingChange) {
+			var dt = controlPeriod / 1e9;
+			var error = getGyroAngle() - desiredHeading;
+			var correction = -headingController.update(error, wheelHeadingChange / dt, dt); // The angular speed which turns the heading back towards the desired heading.
+			var linear = travelDirection * linearSpeed;
+			for (int i = 0; i < motor.length; i++) {
+				var speed = (int)Math.round(Math.abs(linearMotorFactors[i] * linear + angularMotorFactors[i] * correction));
+				if (speed != commandedSpeeds[i]) {
+					motor[i].setSpeed(speed);
+					commandedSpeeds[i] = speed;
+				}
 			}
-//		    master.endSynchronization();
 		}
 		
 		/**
-		 * Adjusts the {@code GyroWheeledChassis}' {@code Wheel}s' motor speeds to correct the heading to match the desired heading.
+		 * Calculates the distance each wheel has left to travel to reach the target of the current travel.
 		 * 
-		 * @param deviationDirection The direction of the deviation of the heading from the desired heading:
-		 * <ul>
-		 *     <li>< 0 if < the desired heading,</li>
-		 *     <li>> 0 if > the desired heading,</li>
-		 *     <li>otherwise 0.</li>
-		 * </ul>
+		 * @param remaining The array to store the remaining distance of each wheel in (in the units of the wheel diameter).
 		 */
-		private void adjustMotorSpeeds(int deviationDirection) {
-			if (deviationDirection != 0) {
-				setLinearWheelSpeeds(leftWheels, linearSpeed * (deviationDirection > 0 ? .8 : 1)); // Reduce left wheels' speeds if > 0, otherwise restore.
-				setLinearWheelSpeeds(rightWheels, linearSpeed * (deviationDirection < 0 ? .8 : 1)); // Reduce right wheels' speeds if < 0, otherwise restore.
-			} else {
-				setLinearWheelSpeeds(allWheels, linearSpeed); // Restore all wheels' original speeds.
+		private void getRemainingDistances(double[] remaining) {
+			var distance = Math.abs(travelDistance);
+			for (int i = 0; i < motor.length; i++) {
+				remaining[i] = distance - Math.abs((readTachoCount(i) - travelStartTachoCounts[i]) / linearMotorFactors[i]);
 			}
 		}
 		
-		// Public Methods
+		/**
+		 * Gets whether the wheel furthest along the current travel is within a control period of the distance it needs to brake.<br/><br/>
+		 * 
+		 * Each motor brakes towards its own target, so the wheels which the controller has sped up would otherwise brake first and turn the chassis.
+		 * 
+		 * @return Whether the leading wheel is about to brake, or {@code false} if the current travel has no target.
+		 */
+		private boolean isLeadingWheelNearTarget() {
+			if (Double.isInfinite(travelDistance)) {
+				return false;
+			}
+			getRemainingDistances(remainingDistances);
+			var leading = Double.POSITIVE_INFINITY;
+			for (var remaining : remainingDistances) {
+				leading = Math.min(leading, remaining);
+			}
+			var brakingDistance = linearSpeed * linearSpeed / (2 * linearAcceleration);
+			return leading <= brakingDistance + 2 * linearSpeed * controlPeriod / 1e9;
+		}
 		
 		/**
-		 * Suspends the run loop.
+		 * Sets the target of every motor to the mean distance the wheels have left to travel, at the linear speed, so that the wheels brake together and keep the current heading.
 		 */
-		public void suspendRunLoop() {
-			suspended = true;
-			suspensionCount++;
+		private void retargetMotors() {
+			getRemainingDistances(remainingDistances);
+			var remaining = 0d;
+			for (var distance : remainingDistances) {
+				remaining += distance;
+			}
+			remaining = Math.max(0, remaining / motor.length);
+			master.startSynchronization();
+			for (int i = 0; i < motor.length; i++) {
+				motor[i].setSpeed((int)Math.round(Math.abs(linearMotorFactors[i] * linearSpeed)));
+				motor[i].rotate((int)Math.round(linearMotorFactors[i] * travelDirection * remaining), true);
+			}
+			master.endSynchronization();
 		}
 		
 		/**
-		 * Resumes the run loop.
+		 * Runs one control period of the current rotation, braking when the angle left to the desired heading is within the braking angle, and finishing the rotation once the wheels have stopped.
 		 */
-		public void resumeRunLoop() {
-			if (suspensionCount > 0 && --suspensionCount == 0) {
-				synchronized (this) {
-					suspended = false;
-					notify();
+		private void stepRotation() {
+			if (rotation != rotationCount) { // Start each pass of a rotation unbraked.
+				rotation = rotationCount;
+				braking = false;
+				brakingPeriods = 0;
+			}
+			var rate = Math.abs(getWheelAngularSpeed());
+			if (!braking) {
+				var dt = controlPeriod / 1e9;
+				var remaining = (desiredHeading - getGyroAngle()) * rotationDirection;
+				var brakingAngle = rate * rate / (2 * angularAcceleration) + rate * (dt / 2 + brakingLatency / 1e9); // The angle turned while decelerating, plus while waiting for the next control period and for the motors to respond.
+				if (remaining <= brakingAngle || !isMoving()) {
+					setVelocity(0, 0);
+					braking = true;
 				}
+			} else if ((rate == 0 && !isMoving()) || ++brakingPeriods >= MAX_BRAKING_PERIODS) {
+				finishRotation();
 			}
 		}
-
-		// Override Methods
+		
+		// Runnable Override Methods
 		
 		@Override
 		public void run() {
-			while (true) {
-				try {
-					synchronized (this) {
-	                    while (suspended) {
-	                        wait();
-	                    }
-	                }
-				} catch (InterruptedException ignored) {}
-
-				var deviationDirection = Integer.compare(getGyroHeading(), desiredHeading);
-				if (currentMoveType == Move.MoveType.TRAVEL) { // Adjust the motor speeds if the chassis is moving…
-					if (isMoving()) {
-						adjustMotorSpeeds(deviationDirection);
-					}
-				}
+			if (rotating) {
+				stepRotation();
+				return;
 			}
+			if (currentMoveType != Move.MoveType.TRAVEL || !isMoving()) {
+				correcting = false;
+				return;
+			}
+			var wheelHeading = getWheelHeading();
+			if (!correcting || travel != travelCount) { // Start from a clean controller at the start of each travel…
+				headingController.reset();
+				Arrays.fill(commandedSpeeds, -1);
+				travel = travelCount;
+				correcting = true;
+				braking = false;
+			} else if (!braking && isLeadingWheelNearTarget()) { // …and hold the heading reached once the leading wheel is about to brake.
+				retargetMotors();
+				braking = true;
+			} else if (!braking) {
+				adjustMotorSpeeds(wheelHeading - lastWheelHeading);
+			}
+			lastWheelHeading = wheelHeading;
 		}
 	}
 
@@ -133,6 +208,86 @@ public class GyroWheeledChassis extends WheeledChassis {
 	 * The {@code Logger} for {@code GyroWheeledChassis} instances.
 	 */
 	private static final Logger log = LoggerFactory.getLogger(GyroWheeledChassis.class);
+
+	/**
+	 * The default control period of the {@code HeadingCorrectingMonitor}, for a rate of 100 Hz (in nanoseconds).
+	 */
+	private static final long DEFAULT_CONTROL_PERIOD = TimeUnit.MILLISECONDS.toNanos(10);
+
+	/**
+	 * The default proportional gain of the heading controller (in degrees per second per degree of error).
+	 */
+	private static final double DEFAULT_HEADING_KP = 8;
+
+	/**
+	 * The default integral gain of the heading controller (in degrees per second per degree-second of error).
+	 */
+	private static final double DEFAULT_HEADING_KI = 8;
+
+	/**
+	 * The default derivative gain of the heading controller (in degrees per second per degree per second of rotation).
+	 */
+	private static final double DEFAULT_HEADING_KD = .5;
+
+	/**
+	 * The default greatest angular speed the heading controller can add to a travel (in degrees per second).
+	 */
+	private static final double DEFAULT_MAX_HEADING_CORRECTION = 45;
+
+	/**
+	 * The default greatest difference between the heading and the desired heading at which a rotation is complete (in degrees).
+	 */
+	private static final double DEFAULT_ROTATION_TOLERANCE = 1;
+
+	/**
+	 * The default time between the {@code HeadingCorrectingMonitor} deciding to brake and the motors starting to brake, including the age of the gyro sample (in nanoseconds).
+	 */
+	private static final long DEFAULT_BRAKING_LATENCY = TimeUnit.MILLISECONDS.toNanos(5);
+
+	/**
+	 * The greatest number of passes at {@code CORRECTION_SPEED} after the first pass of a rotation, so that a rotation always finishes.
+	 */
+	private static final int MAX_CORRECTION_PASSES = 2;
+
+	/**
+	 * The greatest angular speed of a correction pass of a rotation (in degrees per second).
+	 */
+	private static final double CORRECTION_SPEED = 10;
+
+	/**
+	 * The greatest number of control periods a rotation can brake for before it is treated as stopped, in case the wheels are held still by an obstacle while their motors try to stop.
+	 */
+	private static final int MAX_BRAKING_PERIODS = 200;
+
+	/**
+	 * The time added to the timeout of each rotation pass, e.g. for the threads involved to be scheduled (in nanoseconds).
+	 */
+	private static final long ROTATION_PASS_TIMEOUT_MARGIN = TimeUnit.MILLISECONDS.toNanos(500);
+
+	/**
+	 * The longest the rotating thread waits before checking that the {@code FixedRateScheduler} of the {@code HeadingCorrectingMonitor} is still running (in nanoseconds).
+	 */
+	private static final long ROTATION_SCHEDULER_CHECK_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/**
+	 * The time the drift of the {@code BaseGyroSensor} is measured for while the EV3 is still (in milliseconds).
+	 */
+	private static final long GYRO_DRIFT_MEASUREMENT_DURATION = 1000;
+
+	/**
+	 * The time between the samples used to measure the drift of the {@code BaseGyroSensor} (in milliseconds).
+	 */
+	private static final long GYRO_DRIFT_SAMPLE_INTERVAL = 10;
+
+	/**
+	 * The greatest drift rate at which a saved {@code GyroCalibration} is reused (in degrees per second).
+	 */
+	private static final double MAX_GYRO_DRIFT_RATE = .5;
+
+	/**
+	 * The greatest difference between the drift rate measured and the drift rate of a saved {@code GyroCalibration} at which it is reused (in degrees per second).
+	 */
+	private static final double GYRO_DRIFT_RATE_TOLERANCE = .5;
 	
 	// Private Fields
 	
@@ -146,25 +301,55 @@ public class GyroWheeledChassis extends WheeledChassis {
 	 */
 	private final SampleProvider gyroAngleProvider;
 	
+	/**
+	 * The buffer the {@code BaseGyroSensor} is sampled into when it is read directly, which is locked while in use as the heading is read from several threads.
+	 */
+	private final float[] gyroSample = new float[1];
+	
+	/**
+	 * The {@code SensorHub} publishing the samples of the {@code BaseGyroSensor}, or {@code null} if the sensor is read directly.
+	 */
+	private final SensorHub sensorHub;
+	
 	/**
 	 * The {@code Thread} running the {@code HeadingCorrectingMonitor}.
 	 */
 	private final HeadingCorrectingMonitor headingCorrectingMonitor;
 	
 	/**
-	 * A list of all {@code Wheel}s on the chassis.
+	 * The {@code FixedRateScheduler} running the {@code HeadingCorrectingMonitor} once per control period.
+	 */
+	private final FixedRateScheduler headingControlScheduler;
+	
+	/**
+	 * The {@code PIDController} which calculates the angular speed needed to correct the heading while travelling.
+	 */
+	private final PIDController headingController = new PIDController(DEFAULT_HEADING_KP, DEFAULT_HEADING_KI, DEFAULT_HEADING_KD, DEFAULT_MAX_HEADING_CORRECTION);
+	
+	/**
+	 * The speed of each motor per unit of linear speed, from the forward kinematics of the chassis.
+	 */
+	private final double[] linearMotorFactors;
+	
+	/**
+	 * The speed of each motor per unit of angular speed, from the forward kinematics of the chassis.
 	 */
-	private final List<Wheel> allWheels = new ArrayList<>();
+	private final double[] angularMotorFactors;
 	
 	/**
-	 * A list of {@code Wheel}s on the left of the chassis.
+	 * The change in heading per degree of rotation of each motor, from the reverse kinematics of the chassis.
 	 */
-	private final List<Wheel> leftWheels = new ArrayList<>();
+	private final double[] wheelHeadingFactors;
 	
 	/**
-	 * A list of {@code Wheel}s on the right of the chassis.
+	 * The tacho count of each motor at the start of the current travel.
+	 */
+	private final int[] travelStartTachoCounts;
+
+	/**
+	 * The lock the rotating thread waits on until the {@code HeadingCorrectingMonitor} finishes a pass of a rotation.
 	 */
-	private final List<Wheel> rightWheels = new ArrayList<>();
+	private final Object rotationLock = new Object();
 
 	/**
 	 * The type of the current move.
@@ -172,14 +357,104 @@ public class GyroWheeledChassis extends WheeledChassis {
 	private Move.MoveType currentMoveType = Move.MoveType.STOP;
 
 	/**
-	 * The desired heading of the {@code BaseGyroSensor}.
+	 * The desired heading of the {@code BaseGyroSensor} (in degrees).
+	 */
+	private volatile double desiredHeading;
+
+	/**
+	 * The number of travels started, used by the {@code HeadingCorrectingMonitor} to notice a travel started while another was in progress.
+	 */
+	private volatile int travelCount;
+
+	/**
+	 * The distance of the current travel, which is infinite if the travel has no target.
+	 */
+	private volatile double travelDistance;
+
+	/**
+	 * The direction of the current travel: 1 if forwards, otherwise -1.
+	 */
+	private volatile int travelDirection = 1;
+
+	/**
+	 * The time between runs of the heading controller (in nanoseconds).
+	 */
+	private volatile long controlPeriod;
+
+	/**
+	 * Whether a pass of a rotation is in progress, during which the {@code HeadingCorrectingMonitor} decides when to brake.
+	 */
+	private volatile boolean rotating;
+
+	/**
+	 * The number of rotation passes started, used by the {@code HeadingCorrectingMonitor} to notice the start of each pass.
+	 */
+	private volatile int rotationCount;
+
+	/**
+	 * The direction of the current rotation pass: 1 if the heading is increasing, otherwise -1.
+	 */
+	private volatile int rotationDirection = 1;
+
+	/**
+	 * The greatest difference between the heading and the desired heading at which a rotation is complete (in degrees).
+	 */
+	private volatile double rotationTolerance = DEFAULT_ROTATION_TOLERANCE;
+
+	/**
+	 * The time between deciding to brake and the motors starting to brake, which is added to the braking angle of a rotation (in nanoseconds).
+	 */
+	private volatile long brakingLatency = DEFAULT_BRAKING_LATENCY;
+
+	/**
+	 * The number of rotations completed since the turn statistics were last reset.
+	 */
+	private long turnCount;
+
+	/**
+	 * The total time taken by the rotations since the turn statistics were last reset (in nanoseconds).
+	 */
+	private long totalTurnTime;
+
+	/**
+	 * The longest time taken by a rotation since the turn statistics were last reset (in nanoseconds).
+	 */
+	private long maxTurnTime;
+
+	/**
+	 * The total difference between the heading and the desired heading at the end of the rotations since the turn statistics were last reset (in degrees).
+	 */
+	private double totalTurnError;
+
+	/**
+	 * The greatest difference between the heading and the desired heading at the end of a rotation since the turn statistics were last reset (in degrees).
+	 */
+	private double maxTurnError;
+
+	/**
+	 * The number of correction passes made by the rotations since the turn statistics were last reset.
 	 */
-	private int desiredHeading;
+	private long correctionPassCount;
 
 	/**
 	 * A multiplier set when calling {@code calibrateGyroSensor()} which is used for correcting the heading received from the {@code BaseGyroSensor}.
 	 */
 	private double gyroHeadingCalibrationMultiplier = 1;
+
+	/**
+	 * The rate at which the heading received from the {@code BaseGyroSensor} changed while the EV3 was still, measured when calibrating it (in degrees per second).
+	 */
+	private double gyroDriftRate;
+
+	/**
+	 * The {@code SysfsAttribute} holding the tacho count of the motor of each wheel, or {@code null} if the tacho counts are read through the motors.
+	 */
+	private volatile SysfsAttribute[] tachoCountAttributes;
+
+	/**
+	 * The {@code FusedPoseProvider} of the chassis, which is created when it is first requested.
+	 */
+	private volatile FusedPoseProvider fusedPoseProvider;
 	
 	// Public Constructors
 
@@ -191,71 +466,177 @@ public class GyroWheeledChassis extends WheeledChassis {
 	 * @param gyro The {@code BaseGyroSensor} used to measure angles.
 	 */
 	public GyroWheeledChassis(Wheel[] wheels, int dim, BaseGyroSensor gyro) {
+		this(wheels, dim, gyro, null);
+	}
+
+	/**
+	 * Creates a {@code GyroWheeledChassis} object which reads the latest gyro samples published by a {@code SensorHub} rather than reading the sensor itself.
+	 * 
+	 * @param wheels The wheels associated with the chassis.
+	 * @param dim The chassis type.
+	 * @param gyro The {@code BaseGyroSensor} used to measure angles, which should read the samples published by the {@code SensorHub}.
+	 * @param sensorHub The {@code SensorHub} publishing the samples of the {@code BaseGyroSensor}, or {@code null} if the sensor is read directly.
+	 */
+	public GyroWheeledChassis(Wheel[] wheels, int dim, BaseGyroSensor gyro, SensorHub sensorHub) {
 		super(wheels, dim);
 		this.gyro = gyro;
+		this.sensorHub = sensorHub;
 		this.gyroAngleProvider = gyro.getAngleMode();
 
-		// Set up wheel lists.
-		for (Wheel wheel : wheels) {
-			var offsetSign = wheel.getFactors().get(0, 2) * -1;
-			if (offsetSign > 0) {
-				rightWheels.add(wheel);
-			} else if (offsetSign < 0) {
-				leftWheels.add(wheel);
-			}
-			allWheels.add(wheel);
+		// Extract the kinematics of each wheel used by the heading controller.
+		linearMotorFactors = new double[motor.length];
+		angularMotorFactors = new double[motor.length];
+		wheelHeadingFactors = new double[motor.length];
+		travelStartTachoCounts = new int[motor.length];
+		for (int i = 0; i < motor.length; i++) {
+			linearMotorFactors[i] = forward.get(i, 0);
+			angularMotorFactors[i] = forward.get(i, 2);
+			wheelHeadingFactors[i] = reverse.get(2, i);
 		}
 	    
 		// Set up heading and monitoring.
-		desiredHeading = getGyroHeading();
+		controlPeriod = DEFAULT_CONTROL_PERIOD;
+		desiredHeading = getGyroAngle();
 		headingCorrectingMonitor = this.new HeadingCorrectingMonitor();
-		headingCorrectingMonitor.start();
+		headingControlScheduler = new FixedRateScheduler("HeadingCorrectingMonitor", controlPeriod, headingCorrectingMonitor);
+		headingControlScheduler.start();
 	}
 	
 	// Private Methods
 
 	/**
-	 * Rotates the chassis a given angle with a given speed.
+	 * Rotates the chassis at a given angular velocity until the {@code HeadingCorrectingMonitor} has braked it on the desired heading.<br/><br/>
 	 * 
-	 * @param angle The angle to rotate.
-	 * @param speed The speed to rotate.
-	 * @param level The level of recursion.
+	 * If the pass takes longer than {@code getRotationPassTimeout()}, e.g. because the wheels are held still, or the {@code FixedRateScheduler} of the {@code HeadingCorrectingMonitor} stops running, the chassis is stopped and the pass returns, ending the rotation.
+	 * 
+	 * @param angularVelocity The angular velocity to rotate at (in degrees per second).
+	 * @param angle The angle left to rotate (in degrees).
 	 */
-	private void _rotate(double angle, double speed, int level) {
-	    setVelocity(0, Math.signum(angle) * (level > 0 ? Math.min(Math.abs(angle), 10) : speed));
-		if (Double.isInfinite(angle)) {
-			return;
-		}
-		int currentHeading;
-		while ((currentHeading = getGyroHeading()) != desiredHeading) {
-			if (Math.signum(angle) != Math.signum(Integer.compare(desiredHeading, currentHeading))) {
-				break;
+	private void rotatePass(double angularVelocity, double angle) {
+		synchronized (rotationLock) {
+			setVelocity(0, angularVelocity);
+			rotationDirection = angularVelocity < 0 ? -1 : 1;
+			rotationCount++; // Publishes the start of the pass to the HeadingCorrectingMonitor.
+			rotating = true;
+			var timeout = getRotationPassTimeout(angle, Math.abs(angularVelocity));
+			var startTime = System.nanoTime();
+			try {
+				while (rotating) {
+					if (!headingControlScheduler.isRunning()) { // Nothing will brake the rotation, so stop it here.
+						log.warn("The HeadingCorrectingMonitor is not running; stopping the rotation.");
+						stop();
+						finishRotation();
+						break;
+					}
+					var remaining = timeout - (System.nanoTime() - startTime);
+					if (remaining <= 0) {
+						log.warn("Rotation pass did not finish within {} ms; stopping the rotation.", TimeUnit.NANOSECONDS.toMillis(timeout));
+						stop();
+						finishRotation();
+						break;
+					}
+					TimeUnit.NANOSECONDS.timedWait(rotationLock, Math.min(remaining, ROTATION_SCHEDULER_CHECK_INTERVAL));
+				}
+			} catch (InterruptedException e) {
+				rotating = false;
+				super.stop();
+				Thread.currentThread().interrupt();
 			}
 		}
-		stop();
-		Delay.msDelay(level);
-		currentHeading = getGyroHeading();
-		var deviation = currentHeading - desiredHeading;
-		if (deviation != 0) {
-			_rotate(-deviation, speed, level + 1);
+	}
+	
+	/**
+	 * Calculates the longest a rotation pass should take: twice the time to turn the angle and to accelerate to and brake from the speed, plus the longest the {@code HeadingCorrectingMonitor} waits for the wheels to stop.
+	 * This is scaled by the period of its {@code FixedRateScheduler} relative to the control period, so that it holds when the controller is run in simulated time.
+	 * 
+	 * @param angle The angle to rotate (in degrees).
+	 * @param speed The angular speed to rotate at (in degrees per second).
+	 * @return The timeout (in nanoseconds), or {@code Long.MAX_VALUE} if the pass never turns the angle.
+	 */
+	private long getRotationPassTimeout(double angle, double speed) {
+		var controlPeriod = this.controlPeriod;
+		var seconds = 2 * (Math.abs(angle) / speed + 2 * speed / angularAcceleration) + MAX_BRAKING_PERIODS * controlPeriod / 1e9;
+		var timeout = seconds * 1e9 * headingControlScheduler.getPeriod() / controlPeriod + ROTATION_PASS_TIMEOUT_MARGIN;
+		return timeout < Long.MAX_VALUE ? (long)timeout : Long.MAX_VALUE;
+	}
+	
+	/**
+	 * Finishes the current rotation pass, waking the rotating thread. Called by the {@code HeadingCorrectingMonitor}, or by the rotating thread if the pass is stopped early.
+	 */
+	private void finishRotation() {
+		synchronized (rotationLock) {
+			rotating = false;
+			rotationLock.notifyAll();
 		}
 	}
 
 	/**
-	 * Rotates the chassis a given angle with a given speed.
+	 * Rotates the chassis a given angle with a given speed.<br/><br/>
+	 * 
+	 * The first pass brakes early enough to stop on the desired heading. If the heading is still further than the rotation tolerance from the desired heading, e.g. due to wheel slip, slower correction passes are made, up to {@code MAX_CORRECTION_PASSES}.
 	 * 
 	 * @param angle The angle to rotate.
 	 * @param speed The speed to rotate.
 	 */
-    private void rotate(double angle, double speed) {
-		headingCorrectingMonitor.suspendRunLoop();
-		
+	private void rotate(double angle, double speed) {
 		currentMoveType = Move.MoveType.ROTATE;
+		if (Double.isInfinite(angle)) { // An unbounded rotation has no desired heading to stop on.
+			setVelocity(0, Math.signum(angle) * speed);
+			return;
+		}
 		desiredHeading += angle;
-		_rotate(angle, speed, 0);
 		
-		headingCorrectingMonitor.resumeRunLoop();
-    }
+		var startTime = System.nanoTime();
+		var passes = 0;
+		double error;
+		while (Math.abs(error = desiredHeading - getGyroAngle()) > rotationTolerance && passes <= MAX_CORRECTION_PASSES && currentMoveType == Move.MoveType.ROTATE && !Thread.currentThread().isInterrupted()) {
+			rotatePass(Math.signum(error) * (passes == 0 ? speed : Math.min(speed, CORRECTION_SPEED)), error);
+			passes++;
+		}
+		recordTurn(System.nanoTime() - startTime, Math.abs(error), Math.max(0, passes - 1));
+	}
+
+	/**
+	 * Records the time taken and final error of a rotation in the turn statistics.
+	 * 
+	 * @param time The time taken by the rotation (in nanoseconds).
+	 * @param error The difference between the heading and the desired heading at the end of the rotation (in degrees).
+	 * @param correctionPasses The number of correction passes made by the rotation.
+	 */
+	private synchronized void recordTurn(long time, double error, int correctionPasses) {
+		turnCount++;
+		totalTurnTime += time;
+		maxTurnTime = Math.max(maxTurnTime, time);
+		totalTurnError += error;
+		maxTurnError = Math.max(maxTurnError, error);
+		correctionPassCount += correctionPasses;
+	}
+	
+	/**
+	 * Calculates the heading of the chassis from the tacho counts of its wheels.
+	 * 
+	 * @return The heading measured by the wheels since their tacho counts were last reset (in degrees).
+	 */
+	private double getWheelHeading() {
+		var heading = 0d;
+		for (int i = 0; i < motor.length; i++) {
+			heading += wheelHeadingFactors[i] * readTachoCount(i);
+		}
+		return heading;
+	}
+	
+	/**
+	 * Calculates the angular speed of the chassis from the rotation speeds measured by the motors of its wheels, which are smoother than differences in tacho counts at the low speeds of a rotation.
+	 * 
+	 * @return The angular speed (in degrees per second).
+	 */
+	private double getWheelAngularSpeed() {
+		var speed = 0d;
+		for (int i = 0; i < motor.length; i++) {
+			speed += wheelHeadingFactors[i] * motor[i].getRotationSpeed();
+		}
+		return speed;
+	}
 	
 	// Public Methods
 	
@@ -265,15 +646,16 @@ public class GyroWheeledChassis extends WheeledChassis {
 	 * <b>This method requires user interaction.</b>
 	 */
 	public void calibrateGyroSensor() {
-		headingCorrectingMonitor.suspendRunLoop();
-
 		Sound.getInstance().twoBeeps();
 		System.out.println("Please point the EV3 in the desired direction of 0 degrees, then press ENTER to begin gyro calibration.");
 		Button.ENTER.waitForPressAndRelease();
 
-		System.out.println("Rotating the EV3 720 degrees...");
+		System.out.println("Measuring gyro drift...");
 		resetGyroSensor();
 		gyroHeadingCalibrationMultiplier = 1;
+		gyroDriftRate = measureGyroDriftRate(GYRO_DRIFT_MEASUREMENT_DURATION);
+
+		System.out.println("Rotating the EV3 720 degrees...");
 		rotate(720, 30);
 
 		Sound.getInstance().twoBeeps();
@@ -284,18 +666,81 @@ public class GyroWheeledChassis extends WheeledChassis {
 		resetGyroSensor();
 
 		System.out.println("Calibrated gyro sensor.");
-		headingCorrectingMonitor.resumeRunLoop();
 	}
 	
 	/**
-	 * Fetches a sample from the {@code BaseGyroSensor}.
+	 * Resets the {@code BaseGyroSensor} and reuses a saved calibration if a static check passes, rather than calibrating it with {@code calibrateGyroSensor()}.<br/><br/>
+	 * 
+	 * The check measures the drift of the sensor while the EV3 is still, which must be small and close to the drift measured when the calibration was made; a sensor which drifts more needs calibrating again.
+	 * The EV3 must be still, and its heading when this method is called becomes 0.
+	 * 
+	 * @param calibration The saved {@code GyroCalibration}.
+	 * @return Whether the check passed and the calibration was applied.
+	 */
+	public boolean applyGyroCalibration(GyroCalibration calibration) {
+		resetGyroSensor();
+		gyroHeadingCalibrationMultiplier = 1;
+		var driftRate = measureGyroDriftRate(GYRO_DRIFT_MEASUREMENT_DURATION);
+		if (Math.abs(driftRate) > MAX_GYRO_DRIFT_RATE || Math.abs(driftRate - calibration.driftRate) > GYRO_DRIFT_RATE_TOLERANCE) {
+			log.info("Gyro drift of {} deg/s failed the check against the saved drift of {} deg/s.", driftRate, calibration.driftRate);
+			return false;
+		}
+		gyroHeadingCalibrationMultiplier = calibration.multiplier;
+		gyroDriftRate = driftRate;
+		desiredHeading = getGyroAngle(); // Keep the heading the EV3 drifted to during the check, rather than turning back.
+		return true;
+	}
+	
+	/**
+	 * Measures the rate at which the heading received from the {@code BaseGyroSensor} changes while the EV3 is still, as the slope of a least squares fit of samples taken over a given time. The EV3 must be still.
+	 * 
+	 * @param duration The time to measure for (in milliseconds).
+	 * @return The drift rate (in degrees per second).
+	 */
+	public double measureGyroDriftRate(long duration) {
+		var samples = (int)Math.max(2, duration / GYRO_DRIFT_SAMPLE_INTERVAL + 1);
+		var startTime = System.nanoTime();
+		double sumT = 0, sumA = 0, sumTT = 0, sumTA = 0;
+		for (int i = 0; i < samples; i++) {
+			if (i > 0) {
+				Delay.msDelay(GYRO_DRIFT_SAMPLE_INTERVAL);
+			}
+			var t = (System.nanoTime() - startTime) / 1e9;
+			var a = getGyroAngle();
+			sumT += t;
+			sumA += a;
+			sumTT += t * t;
+			sumTA += t * a;
+		}
+		var denominator = samples * sumTT - sumT * sumT;
+		return denominator == 0 ? 0 : (samples * sumTA - sumT * sumA) / denominator;
+	}
+	
+	/**
+	 * Fetches a sample from the {@code BaseGyroSensor}. If a {@code SensorHub} is used, the latest published sample is read without allocating.
 	 * 
 	 * @return The current heading of the {@code BaseGyroSensor}.
 	 */
 	public int getGyroHeading() {
-		var angle = new float[1];
-		gyroAngleProvider.fetchSample(angle, 0);
-		return (int)(gyro.getGyroOrientation().multiplier * gyroHeadingCalibrationMultiplier * (double)angle[0]);
+		return (int)getGyroAngle();
+	}
+	
+	/**
+	 * Fetches a sample from the {@code BaseGyroSensor} without truncating it to a whole number of degrees.
+	 * 
+	 * @return The current heading of the {@code BaseGyroSensor} (in degrees).
+	 */
+	public double getGyroAngle() {
+		float angle;
+		if (sensorHub != null) {
+			angle = sensorHub.getLatest(SensorHub.Channel.GYRO_ANGLE);
+		} else {
+			synchronized (gyroSample) {
+				gyroAngleProvider.fetchSample(gyroSample, 0);
+				angle = gyroSample[0];
+			}
+		}
+		return gyro.getGyroOrientation().multiplier * gyroHeadingCalibrationMultiplier * (double)angle;
 	}
     
 	/**
@@ -304,19 +749,268 @@ public class GyroWheeledChassis extends WheeledChassis {
     public void resetGyroSensor() {
 		gyro.reset();
 		desiredHeading = 0;
+		var poseProvider = fusedPoseProvider;
+		if (poseProvider != null) {
+			poseProvider.resynchroniseGyro();
+		}
     }
+
+	/**
+	 * Reads the tacho count of the motor of each wheel without allocating.
+	 * 
+	 * @param tachoCounts The array to store the tacho count of each wheel in, in the order the wheels were given.
+	 */
+	public void getTachoCounts(double[] tachoCounts) {
+		getAttribute(TACHOCOUNT, tachoCounts);
+	}
+
+	/**
+	 * Sets the {@code SysfsAttribute}s used to read the tacho count of the motor of each wheel, rather than reading them through the motors.
+	 * 
+	 * @param attributes The {@code SysfsAttribute} of each wheel, in the order the wheels were given, where a {@code null} element means the tacho count of that wheel is read through its motor.
+	 */
+	public void setTachoCountAttributes(SysfsAttribute... attributes) {
+		if (attributes.length != motor.length) {
+			throw new IllegalArgumentException(String.format("Expected %d tacho count attributes, but got %d.", motor.length, attributes.length));
+		}
+		tachoCountAttributes = attributes.clone();
+	}
+	
+	/**
+	 * Resets the turn statistics.
+	 */
+	public synchronized void resetTurnStatistics() {
+		turnCount = 0;
+		totalTurnTime = 0;
+		maxTurnTime = 0;
+		totalTurnError = 0;
+		maxTurnError = 0;
+		correctionPassCount = 0;
+	}
+
+	/**
+	 * Stops the chassis and shuts down the {@code FixedRateScheduler}s of the {@code HeadingCorrectingMonitor} and the {@code FusedPoseProvider}, if it has been created, so that their threads exit.
+	 */
+	public void shutdown() {
+		stop();
+		headingControlScheduler.shutdown();
+		var poseProvider = fusedPoseProvider;
+		if (poseProvider != null) {
+			poseProvider.getScheduler().shutdown();
+		}
+	}
+	
+	// Public Getters/Setters
+	
+	/**
+	 * Gets the number of motorised wheels of the chassis.
+	 * 
+	 * @return The number of wheels.
+	 */
+	public int getWheelCount() {
+		return motor.length;
+	}
+	
+	/**
+	 * Gets the {@code DynamicPoseProvider} which measures the pose from the tacho counts of the wheels alone, i.e. LeJOS' odometer.
+	 * 
+	 * @return The odometry {@code DynamicPoseProvider}.
+	 */
+	public DynamicPoseProvider getOdometryPoseProvider() {
+		return super.getPoseProvider();
+	}
+	
+	/**
+	 * Gets the current calibration of the {@code BaseGyroSensor}, e.g. to save it after calling {@code calibrateGyroSensor()}.
+	 * 
+	 * @return The {@code GyroCalibration}.
+	 */
+	public GyroCalibration getGyroCalibration() {
+		return new GyroCalibration(gyroHeadingCalibrationMultiplier, gyroDriftRate);
+	}
+	
+	/**
+	 * Gets the {@code PIDController} which corrects the heading while travelling, e.g. to tune its gains.<br/><br/>
+	 * 
+	 * Its error is measured in degrees and its output is an angular speed in degrees per second, which is added to each travel.
+	 * 
+	 * @return The heading {@code PIDController}.
+	 */
+	public PIDController getHeadingController() {
+		return headingController;
+	}
+	
+	/**
+	 * Gets the time between runs of the heading controller.
+	 * 
+	 * @return The control period (in nanoseconds).
+	 */
+	public long getControlPeriod() {
+		return controlPeriod;
+	}
+	
+	/**
+	 * Sets the time between runs of the heading controller, which is also the time step used by the controller.
+	 * 
+	 * @param controlPeriod The control period (in nanoseconds).
+	 */
+	public void setControlPeriod(long controlPeriod) {
+		if (controlPeriod <= 0) {
+			throw new IllegalArgumentException(String.format("The control period must be positive, but was %d.", controlPeriod));
+		}
+		this.controlPeriod = controlPeriod;
+		headingControlScheduler.setPeriod(controlPeriod);
+	}
+	
+	/**
+	 * Gets the {@code FixedRateScheduler} running the heading controller, e.g. to read its jitter and overrun statistics.<br/><br/>
+	 * 
+	 * The period of the scheduler can be changed without changing the control period, e.g. to run the controller in simulated time, in which case the controller still uses the control period as its time step.
+	 * 
+	 * @return The heading control {@code FixedRateScheduler}.
+	 */
+	public FixedRateScheduler getHeadingControlScheduler() {
+		return headingControlScheduler;
+	}
+	
+	/**
+	 * Gets the greatest difference between the heading and the desired heading at which a rotation is complete.
+	 * 
+	 * @return The rotation tolerance (in degrees).
+	 */
+	public double getRotationTolerance() {
+		return rotationTolerance;
+	}
+	
+	/**
+	 * Sets the greatest difference between the heading and the desired heading at which a rotation is complete. If the first pass of a rotation stops further than this from the desired heading, slower correction passes are made.
+	 * 
+	 * @param rotationTolerance The rotation tolerance (in degrees).
+	 */
+	public void setRotationTolerance(double rotationTolerance) {
+		if (!(rotationTolerance >= 0)) {
+			throw new IllegalArgumentException(String.format("The rotation tolerance must not be negative, but was %f.", rotationTolerance));
+		}
+		this.rotationTolerance = rotationTolerance;
+	}
+	
+	/**
+	 * Gets the time between deciding to brake a rotation and the motors starting to brake.
+	 * 
+	 * @return The braking latency (in nanoseconds).
+	 */
+	public long getBrakingLatency() {
+		return brakingLatency;
+	}
+	
+	/**
+	 * Sets the time between deciding to brake a rotation and the motors starting to brake, e.g. to account for the sample period of the gyro. Rotations which stop past the desired heading need a longer latency.
+	 * 
+	 * @param brakingLatency The braking latency (in nanoseconds).
+	 */
+	public void setBrakingLatency(long brakingLatency) {
+		if (brakingLatency < 0) {
+			throw new IllegalArgumentException(String.format("The braking latency must not be negative, but was %d.", brakingLatency));
+		}
+		this.brakingLatency = brakingLatency;
+	}
+	
+	/**
+	 * Gets the number of rotations completed since the turn statistics were last reset.
+	 * 
+	 * @return The number of rotations.
+	 */
+	public synchronized long getTurnCount() {
+		return turnCount;
+	}
+	
+	/**
+	 * Gets the mean time taken by the rotations since the turn statistics were last reset.
+	 * 
+	 * @return The mean time (in nanoseconds), or 0 if there have been no rotations.
+	 */
+	public synchronized double getMeanTurnTime() {
+		return turnCount == 0 ? 0 : totalTurnTime / (double)turnCount;
+	}
+	
+	/**
+	 * Gets the longest time taken by a rotation since the turn statistics were last reset.
+	 * 
+	 * @return The longest time (in nanoseconds).
+	 */
+	public synchronized long getMaxTurnTime() {
+		return maxTurnTime;
+	}
+	
+	/**
+	 * Gets the mean difference between the heading and the desired heading at the end of the rotations since the turn statistics were last reset.
+	 * 
+	 * @return The mean error (in degrees), or 0 if there have been no rotations.
+	 */
+	public synchronized double getMeanTurnError() {
+		return turnCount == 0 ? 0 : totalTurnError / turnCount;
+	}
+	
+	/**
+	 * Gets the greatest difference between the heading and the desired heading at the end of a rotation since the turn statistics were last reset.
+	 * 
+	 * @return The greatest error (in degrees).
+	 */
+	public synchronized double getMaxTurnError() {
+		return maxTurnError;
+	}
+	
+	/**
+	 * Gets the number of correction passes made by the rotations since the turn statistics were last reset.
+	 * 
+	 * @return The number of correction passes.
+	 */
+	public synchronized long getCorrectionPassCount() {
+		return correctionPassCount;
+	}
 	
 	// WheeledChassis Override Methods
+
+	/**
+	 * Gets the {@code FusedPoseProvider} of the chassis, which fuses the tacho counts of the wheels with the {@code BaseGyroSensor}, creating and starting it if needed.
+	 * 
+	 * @return The {@code FusedPoseProvider}.
+	 */
+	@Override
+	public synchronized FusedPoseProvider getPoseProvider() {
+		if (fusedPoseProvider == null) {
+			fusedPoseProvider = new FusedPoseProvider(this);
+		}
+		return fusedPoseProvider;
+	}
+	
+	/**
+	 * Gets the recent poses of the {@code FusedPoseProvider}, creating and starting it if needed.
+	 * 
+	 * @return The pose history.
+	 */
+	@Override
+	public SampleRingBuffer getPoseHistory() {
+		return getPoseProvider().getHistory();
+	}
+	
+	@Override
+	protected int readTachoCount(int wheel) {
+		var attributes = tachoCountAttributes;
+		if (attributes != null && attributes[wheel] != null) {
+			try {
+				return attributes[wheel].readInt();
+			} catch (IOException e) {
+				log.warn("Failed to read {}; reading the tacho count through the motor instead.", attributes[wheel].getPath(), e);
+				attributes[wheel] = null;
+			}
+		}
+		return super.readTachoCount(wheel);
+	}
 	
 	@Override
     public void rotate(double angle) {
-		headingCorrectingMonitor.suspendRunLoop();
-		
-		currentMoveType = Move.MoveType.ROTATE;
-		desiredHeading += angle;
-		_rotate(angle, angularSpeed, 0);
-		
-		headingCorrectingMonitor.resumeRunLoop();
+		rotate(angle, angularSpeed);
     }
 	
 	@Override
@@ -327,17 +1021,23 @@ public class GyroWheeledChassis extends WheeledChassis {
 	
 	@Override
 	public void travel(double distance) {
+		for (int i = 0; i < motor.length; i++) {
+			travelStartTachoCounts[i] = readTachoCount(i);
+		}
+		travelDirection = distance < 0 ? -1 : 1;
+		travelDistance = distance;
+		travelCount++; // Publishes the start of the travel to the HeadingCorrectingMonitor.
 		currentMoveType = Move.MoveType.TRAVEL;
 		super.travel(distance);
 	}
 	
 	@Override
     public void arc(double radius, double angle) {
-		headingCorrectingMonitor.suspendRunLoop();
+		headingControlScheduler.suspendRunLoop();
 		
 		currentMoveType = Move.MoveType.ARC;
 		if (angle == 0) {
-			headingCorrectingMonitor.resumeRunLoop();
+			headingControlScheduler.resumeRunLoop();
         	return;
         }
         var ratio = Math.abs(Math.PI * radius / 180); // The ratio between linear and angular speed that corresponds with the radius.
@@ -348,16 +1048,16 @@ public class GyroWheeledChassis extends WheeledChassis {
             } else {
                 setVelocity(Math.signum(angle) * angularSpeed * ratio, 0, Math.signum(radius) * angularSpeed);
             }
-    		headingCorrectingMonitor.resumeRunLoop();
+    		headingControlScheduler.resumeRunLoop();
             return;
         } else if (radius == 0) {
+    		headingControlScheduler.resumeRunLoop(); // The HeadingCorrectingMonitor brakes the rotation.
             rotate(angle);
-    		headingCorrectingMonitor.resumeRunLoop();
             return;
         }
 		log.warn("Warning: GyroWheeledChassis.arc(double radius, double angle) where radius ({}) != 0 is unimplemented; calling WheeledChassis.arc(radius, angle), which does not use an BaseGyroSensor.", radius);
         super.arc(radius, angle);
 		
-		headingCorrectingMonitor.resumeRunLoop();
+		headingControlScheduler.resumeRunLoop();
     }
 }
@@ -3,7 +3,10 @@ package com.jacobcxdev.ev3mazeproject.robotics;
 import com.jacobcxdev.ev3mazeproject.hardware.BuildDescription;
 import com.jacobcxdev.ev3mazeproject.hardware.PortConfiguration;
 import com.jacobcxdev.ev3mazeproject.mapping.MazeStore;
+import com.jacobcxdev.ev3mazeproject.sensors.SensorHub;
+import com.jacobcxdev.ev3mazeproject.subsumption.EventArbitrator;
 import com.jacobcxdev.ev3mazeproject.subsumption.MoveForward;
+import com.jacobcxdev.ev3mazeproject.subsumption.SensorEventMonitor;
 import com.jacobcxdev.ev3mazeproject.subsumption.TurnLeft;
 import com.jacobcxdev.ev3mazeproject.subsumption.TurnRight;
 import ev3dev.sensors.Button;
@@ -13,9 +16,14 @@ import lejos.robotics.chassis.Wheel;
 import lejos.robotics.chassis.WheeledChassis;
 import lejos.robotics.mapping.LineMap;
 import lejos.robotics.navigation.MovePilot;
-import lejos.robotics.subsumption.Arbitrator;
 import lejos.robotics.subsumption.Behavior;
 import lejos.utility.Delay;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A class used to control the movement of the EV3 through a maze.
@@ -34,6 +42,33 @@ public class MazeDriver {
 		STANDBY
 	}
 	
+	// Private Static Fields
+
+	/**
+	 * The {@code Logger} for {@code MazeDriver} instances.
+	 */
+	private static final Logger log = LoggerFactory.getLogger(MazeDriver.class);
+
+	/**
+	 * The {@code Path} of the file which the calibrations of the gyro sensor are saved to.
+	 */
+	private static final Path GYRO_CALIBRATION_FILE = Path.of("gyro.properties");
+
+	/**
+	 * The maximum linear speed used when navigating a mapped maze (in millimetres per second).
+	 */
+	private static final double NAVIGATION_MAX_LINEAR_SPEED = 400;
+
+	/**
+	 * The linear acceleration used when navigating a mapped maze (in millimetres per second squared).
+	 */
+	private static final double NAVIGATION_LINEAR_ACCELERATION = 300;
+
+	/**
+	 * The angular speed used when navigating a mapped maze (in degrees per second).
+	 */
+	private static final double NAVIGATION_ANGULAR_SPEED = 60;
+
 	// Private Fields
 	
 	/**
@@ -52,14 +87,34 @@ public class MazeDriver {
 	private final MazeStore store;
 	
 	/**
-	 * The {@code Arbitrator} used for managing behaviours.
+	 * The {@code SensorHub} which samples every sensor, so that the chassis and behaviours read its latest samples rather than the sensors themselves.
 	 */
-	private final Arbitrator arbitrator;
+	private final SensorHub sensorHub;
+
+	/**
+	 * The {@code EventArbitrator} used for managing behaviours.
+	 */
+	private final EventArbitrator arbitrator;
+
+	/**
+	 * The {@code SensorEventMonitor} used for sampling the sensors the behaviours take control on, which signals the {@code EventArbitrator} when they change.
+	 */
+	private final SensorEventMonitor sensorEventMonitor;
+
+	/**
+	 * The {@code RouteFollower} used for driving a mapped route when navigating.
+	 */
+	private final RouteFollower routeFollower;
 	
 	/**
 	 * The current {@code State} of the {@code MazeDriver}.
 	 */
-	private State state = State.STANDBY;
+	private volatile State state = State.STANDBY;
+
+	/**
+	 * The lock notified whenever the {@code State} of the {@code MazeDriver} changes.
+	 */
+	private final Object stateLock = new Object();
 	
 	// Public Constructors
 	
@@ -69,38 +124,94 @@ public class MazeDriver {
 	 * @param mazeStore The {@code MazeStore} used for storing the movements of the EV3 and constructing the maze digitally. 
 	 */
 	public MazeDriver(BuildDescription buildDescription, PortConfiguration portConfiguration, MazeStore mazeStore) {
+		this(buildDescription, portConfiguration, mazeStore, true);
+	}
+
+	/**
+	 * Creates a {@code MazeDriver} object, optionally without using the EV3's buttons.<br/><br/>
+	 *
+	 * A non-interactive {@code MazeDriver} does not listen for the ESCAPE button and does not calibrate the gyro sensor, so it can be run against simulated parts off the brick.
+	 *
+	 * @param mazeStore The {@code MazeStore} used for storing the movements of the EV3 and constructing the maze digitally.
+	 * @param interactive Whether to use the EV3's buttons to stop the {@code MazeDriver} and calibrate the gyro sensor.
+	 */
+	public MazeDriver(BuildDescription buildDescription, PortConfiguration portConfiguration, MazeStore mazeStore, boolean interactive) {
 		store = mazeStore;
+
+		// Set up the sensor hub, then use its sensors in place of the originals.
+		sensorHub = new SensorHub(portConfiguration);
+		sensorHub.start();
+		portConfiguration = sensorHub.createPortConfiguration();
 		
 		// Set up buttons.
-		Button.ESCAPE.addKeyListener(new KeyListener() {
-			public void keyPressed(Key k) {}
-			
-			public void keyReleased(Key k) {
-				if (state == State.MAPPING) {
-					stopMapping();
+		if (interactive) {
+			Button.ESCAPE.addKeyListener(new KeyListener() {
+				public void keyPressed(Key k) {}
+				
+				public void keyReleased(Key k) {
+					if (state == State.MAPPING) {
+						stopMapping();
+					} else if (state == State.NAVIGATING) {
+						stopNavigating();
+					}
+//					System.exit(0); // Exit.
 				}
-//				System.exit(0); // Exit.
-			}
-		});
+			});
+		}
 		
 		// Set up the chassis.
 		var leftWheel = WheeledChassis.modelWheel(portConfiguration.leftRegulatedMotor, buildDescription.wheelDiameter).offset(-buildDescription.wheelOffset);
 		var rightWheel = WheeledChassis.modelWheel(portConfiguration.rightRegulatedMotor, buildDescription.wheelDiameter).offset(buildDescription.wheelOffset);
 		portConfiguration.gyroSensor.setGyroOrientation(buildDescription.gyroOrientation);
-		chassis = new GyroWheeledChassis(new Wheel[] {leftWheel, rightWheel}, WheeledChassis.TYPE_DIFFERENTIAL, portConfiguration.gyroSensor);
-		chassis.calibrateGyroSensor();
+		chassis = new GyroWheeledChassis(new Wheel[] {leftWheel, rightWheel}, WheeledChassis.TYPE_DIFFERENTIAL, portConfiguration.gyroSensor, sensorHub);
+		chassis.setTachoCountAttributes(portConfiguration.leftTachoCount, portConfiguration.rightTachoCount);
+		if (interactive) {
+			calibrateGyroSensor(GyroCalibration.key(portConfiguration.gyroSensorPort, buildDescription));
+		}
 		
 		// Set up the pilot.
 		pilot = new MovePilot(chassis);
 		pilot.setAngularSpeed(30); // Set the angular speed to a low speed so that the angular momentum of the EV3 doesn't affect its ability to stop after rotating a desired angle too much.
 		pilot.setLinearSpeed(100); // Set the linear speed to a low speed so that the linear momentum of the EV3 doesn't affect its ability to stop, causing it to overshoot turns.
 
+		// Set up the route follower, which drives the chassis directly so that navigating does not record moves to the `MazeStore`.
+		routeFollower = new RouteFollower(chassis, NAVIGATION_MAX_LINEAR_SPEED, NAVIGATION_LINEAR_ACCELERATION, NAVIGATION_ANGULAR_SPEED);
+
 		// Set up behaviours and arbitrator.
-		arbitrator = new Arbitrator(new Behavior[] { // Create `Arbitrator` to manage behaviours.
-			new MoveForward(this, portConfiguration.leftUltrasonicSensor, portConfiguration.rightUltrasonicSensor, buildDescription.ultrasonicSensorGap), // Move forward.
-			new TurnRight(this, portConfiguration.touchSensor), // Turn right if needed.
-			new TurnLeft(this, portConfiguration.leftUltrasonicSensor) // Turn left if possible.
+		sensorEventMonitor = new SensorEventMonitor();
+		arbitrator = new EventArbitrator(new Behavior[] { // Create `EventArbitrator` to manage behaviours.
+			new MoveForward(this, sensorHub, buildDescription.ultrasonicSensorGap), // Move forward.
+			new TurnRight(this, portConfiguration.touchSensor, sensorEventMonitor), // Turn right if needed.
+			new TurnLeft(this, portConfiguration.leftUltrasonicSensor, sensorEventMonitor) // Turn left if possible.
 		}, true);
+		sensorEventMonitor.addTransitionListener(arbitrator);
+	}
+	
+	// Private Methods
+
+	/**
+	 * Calibrates the gyro sensor, reusing the calibration saved under a given key if it passes a static check, and otherwise calibrating it interactively and saving the new calibration.
+	 *
+	 * @param calibrationKey The key the calibration is saved under, made from the port of the gyro sensor and the {@code BuildDescription} of the EV3.
+	 */
+	private void calibrateGyroSensor(String calibrationKey) {
+		var startTime = System.nanoTime();
+		GyroCalibration calibration = null;
+		try {
+			calibration = GyroCalibration.load(GYRO_CALIBRATION_FILE, calibrationKey);
+		} catch (IOException e) {
+			log.warn("Failed to read {}; calibrating the gyro sensor instead.", GYRO_CALIBRATION_FILE, e);
+		}
+		var reused = calibration != null && chassis.applyGyroCalibration(calibration);
+		if (!reused) {
+			chassis.calibrateGyroSensor();
+			try {
+				chassis.getGyroCalibration().save(GYRO_CALIBRATION_FILE, calibrationKey);
+			} catch (IOException e) {
+				log.warn("Failed to save the gyro calibration to {}.", GYRO_CALIBRATION_FILE, e);
+			}
+		}
+		log.info("Gyro sensor ready after {}ms ({}).", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), reused ? "reused the saved calibration" : "calibrated");
 	}
 	
 	// Public Getters/Setters
@@ -115,16 +226,69 @@ public class MazeDriver {
 	}
 	
 	/**
-	 * Sets the current {@code State} of the {@code MazeDriver} to a given new {@code State}.
+	 * Sets the current {@code State} of the {@code MazeDriver} to a given new {@code State}, signalling the {@code EventArbitrator} so that behaviours can take or give up control.
 	 * 
 	 * @param state The new {@code State} of the {@code MazeDriver}.
 	 */
 	public void setState(State state) {
-		this.state = state;
+		synchronized (stateLock) {
+			this.state = state;
+			stateLock.notifyAll();
+		}
+		arbitrator.signal();
+	}
+
+	/**
+	 * Gets the {@code SensorHub} which samples every sensor.
+	 *
+	 * @return The {@code SensorHub}.
+	 */
+	public SensorHub getSensorHub() {
+		return sensorHub;
+	}
+
+	/**
+	 * Gets the {@code GyroWheeledChassis} used for controlling the wheels.
+	 *
+	 * @return The {@code GyroWheeledChassis}.
+	 */
+	public GyroWheeledChassis getChassis() {
+		return chassis;
+	}
+
+	/**
+	 * Gets the {@code EventArbitrator} used for managing behaviours.
+	 *
+	 * @return The {@code EventArbitrator}.
+	 */
+	public EventArbitrator getArbitrator() {
+		return arbitrator;
 	}
 	
 	// Public Methods
 
+	/**
+	 * Waits for the {@code MazeDriver} to be in a given {@code State}, e.g. for mapping started on another thread to begin.
+	 *
+	 * @param state The {@code State} to wait for.
+	 * @param timeout The longest time to wait (in milliseconds).
+	 * @return Whether the {@code MazeDriver} is in the {@code State}, rather than the timeout having passed.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public boolean awaitState(State state, long timeout) throws InterruptedException {
+		var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		synchronized (stateLock) {
+			while (this.state != state) {
+				var remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(stateLock, remaining);
+			}
+			return true;
+		}
+	}
+
 	/**
 	 * Records a given road width to the {@code MazeStore}.
 	 * 
@@ -133,9 +297,20 @@ public class MazeDriver {
 	public void recordRoadWidth(float roadWidth) {
 		store.recordRoadWidth(roadWidth);
 	}
+
+	/**
+	 * Records a pair of samples from the left and right {@code BaseUltrasonicSensor}s to the {@code MazeStore}.
+	 *
+	 * @param leftDistance The distance measured by the left sensor (in millimetres).
+	 * @param rightDistance The distance measured by the right sensor (in millimetres).
+	 * @param ultrasonicSensorGap The width between the two sensors (in millimetres).
+	 */
+	public void recordUltrasonicSample(float leftDistance, float rightDistance, float ultrasonicSensorGap) {
+		store.recordUltrasonicSample(leftDistance, rightDistance, ultrasonicSensorGap);
+	}
 	
 	/**
-	 * Starts mapping the maze by invoking the {@code Arbitrator}.<br/><br/>
+	 * Starts mapping the maze by invoking the {@code EventArbitrator}.<br/><br/>
 	 * 
 	 * @return The {@code LineMap} constructed from the moves made while mapping the maze.
 	 */
@@ -143,17 +318,19 @@ public class MazeDriver {
 		if (this.state == State.MAPPING) {
 			stopMapping();
 		}
-		this.state = State.MAPPING;
+		setState(State.MAPPING);
 		store.reset();
 		pilot.addMoveListener(store);
 		System.out.println("Started mapping...");
+		sensorEventMonitor.resumeRunLoop();
 		arbitrator.go();
+		sensorEventMonitor.suspendRunLoop();
 		System.out.println("Finished mapping.");
 		return store.constructLineMap();
 	}
 	
 	/**
-	 * Stops mapping the maze by stopping the {@code Arbitrator}.
+	 * Stops mapping the maze by stopping the {@code EventArbitrator}.
 	 */
 	public void stopMapping() {
 		System.out.println("Stopping mapping...");
@@ -162,10 +339,51 @@ public class MazeDriver {
 			notify();
 		}
 		moveStop();
-		while (pilot.isMoving()) {
-			Thread.yield();
+		chassis.waitComplete();
+		setState(State.STANDBY);
+	}
+	
+	/**
+	 * Starts navigating the maze by driving the shortest route from the start to the exit found while mapping.<br/><br/>
+	 *
+	 * The EV3 must be placed at the start of the maze, pointing in the direction it started mapping in. Dead ends are skipped, and straights are driven faster than while mapping.
+	 *
+	 * @return Whether the route was completed.
+	 */
+	public boolean startNavigating() {
+		if (this.state == State.MAPPING) {
+			stopMapping();
+		}
+		var route = store.constructShortestRoute();
+		setState(State.NAVIGATING);
+		chassis.resetGyroSensor();
+		System.out.printf("Started navigating (%d moves)...%n", route.size());
+		var completed = routeFollower.follow(route);
+		System.out.printf(completed ? "Finished navigating in %.1fs.%n" : "Stopped navigating after %.1fs.%n", routeFollower.getLastRunTime() / 1000d);
+		setState(State.STANDBY);
+		return completed;
+	}
+
+	/**
+	 * Stops navigating the maze once the current move has finished.
+	 */
+	public void stopNavigating() {
+		System.out.println("Stopping navigating...");
+		routeFollower.stop();
+	}
+	
+	/**
+	 * Stops the EV3 and shuts down the threads which sample the sensors and control the heading, so that the {@code MazeDriver} no longer runs in the background once it is finished with.
+	 */
+	public void shutdown() {
+		if (state == State.MAPPING) {
+			stopMapping();
+		} else if (state == State.NAVIGATING) {
+			stopNavigating();
 		}
-		this.state = State.STANDBY;
+		sensorEventMonitor.shutdown();
+		chassis.shutdown();
+		sensorHub.shutdown();
 	}
 	
 	// MovePilot Wrapper Methods
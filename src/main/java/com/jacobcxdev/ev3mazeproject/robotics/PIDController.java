@@ -0,0 +1,178 @@
+package com.jacobcxdev.ev3mazeproject.robotics;
+
+/**
+ * A class used to implement a proportional-integral-derivative controller, which calculates an output from an error and the rate at which the error is changing.<br/><br/>
+ *
+ * The rate is measured by the caller rather than calculated from successive errors, so that it can come from a different sensor to the error and does not jump when the setpoint changes.
+ * The output is limited to a given magnitude, and the integral is only accumulated while doing so would not push the output further past its limit, so that it does not wind up while the output is saturated.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class PIDController {
+	// Private Fields
+
+	/**
+	 * The proportional gain.
+	 */
+	private double kp;
+
+	/**
+	 * The integral gain.
+	 */
+	private double ki;
+
+	/**
+	 * The derivative gain.
+	 */
+	private double kd;
+
+	/**
+	 * The greatest magnitude of the output.
+	 */
+	private double outputLimit;
+
+	/**
+	 * The accumulated integral of the error.
+	 */
+	private double integral;
+
+	/**
+	 * The last output calculated.
+	 */
+	private double output;
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code PIDController} object.
+	 *
+	 * @param kp The proportional gain.
+	 * @param ki The integral gain.
+	 * @param kd The derivative gain.
+	 * @param outputLimit The greatest magnitude of the output.
+	 */
+	public PIDController(double kp, double ki, double kd, double outputLimit) {
+		setGains(kp, ki, kd);
+		setOutputLimit(outputLimit);
+	}
+
+	// Public Methods
+
+	/**
+	 * Calculates the output for a given error, accumulating the integral of the error.
+	 *
+	 * @param error The difference between the measured value and the setpoint.
+	 * @param rate The rate at which the measured value is changing (in units per second).
+	 * @param dt The time since the last update (in seconds).
+	 * @return The output, in the range [-{@code outputLimit}, {@code outputLimit}].
+	 */
+	public synchronized double update(double error, double rate, double dt) {
+		var unintegrated = kp * error + kd * rate;
+		var integrated = integral + error * dt;
+		var candidate = unintegrated + ki * integrated;
+		if (Math.abs(candidate) <= outputLimit || Math.signum(candidate) != Math.signum(error)) { // Only integrate while the output is within its limit, or when integrating brings it back towards its limit.
+			integral = integrated;
+		}
+		if (ki != 0) { // Keep the integral term alone within the limit, so that it can be unwound in a bounded time.
+			var integralLimit = outputLimit / Math.abs(ki);
+			integral = Math.max(-integralLimit, Math.min(integral, integralLimit));
+		}
+		output = Math.max(-outputLimit, Math.min(unintegrated + ki * integral, outputLimit));
+		return output;
+	}
+
+	/**
+	 * Resets the integral and the last output, e.g. when the setpoint changes.
+	 */
+	public synchronized void reset() {
+		integral = 0;
+		output = 0;
+	}
+
+	// Public Getters/Setters
+
+	/**
+	 * Gets the proportional gain.
+	 *
+	 * @return The proportional gain.
+	 */
+	public synchronized double getKp() {
+		return kp;
+	}
+
+	/**
+	 * Gets the integral gain.
+	 *
+	 * @return The integral gain.
+	 */
+	public synchronized double getKi() {
+		return ki;
+	}
+
+	/**
+	 * Gets the derivative gain.
+	 *
+	 * @return The derivative gain.
+	 */
+	public synchronized double getKd() {
+		return kd;
+	}
+
+	/**
+	 * Sets the gains of the controller.
+	 *
+	 * @param kp The proportional gain.
+	 * @param ki The integral gain.
+	 * @param kd The derivative gain.
+	 */
+	public synchronized void setGains(double kp, double ki, double kd) {
+		if (kp < 0 || ki < 0 || kd < 0) {
+			throw new IllegalArgumentException(String.format("The gains of a PIDController must not be negative, but were %f, %f and %f.", kp, ki, kd));
+		}
+		if (ki != this.ki && ki != 0) { // Keep the integral term continuous when the integral gain changes.
+			integral *= this.ki / ki;
+		}
+		this.kp = kp;
+		this.ki = ki;
+		this.kd = kd;
+	}
+
+	/**
+	 * Gets the greatest magnitude of the output.
+	 *
+	 * @return The output limit.
+	 */
+	public synchronized double getOutputLimit() {
+		return outputLimit;
+	}
+
+	/**
+	 * Sets the greatest magnitude of the output.
+	 *
+	 * @param outputLimit The output limit.
+	 */
+	public synchronized void setOutputLimit(double outputLimit) {
+		if (!(outputLimit > 0)) {
+			throw new IllegalArgumentException(String.format("The output limit of a PIDController must be positive, but was %f.", outputLimit));
+		}
+		this.outputLimit = outputLimit;
+	}
+
+	/**
+	 * Gets the accumulated integral of the error.
+	 *
+	 * @return The integral.
+	 */
+	public synchronized double getIntegral() {
+		return integral;
+	}
+
+	/**
+	 * Gets the last output calculated.
+	 *
+	 * @return The last output, or 0 if the controller has been reset since.
+	 */
+	public synchronized double getOutput() {
+		return output;
+	}
+}
@@ -0,0 +1,134 @@
+package com.jacobcxdev.ev3mazeproject.robotics;
+
+import com.jacobcxdev.ev3mazeproject.mapping.MoveLog;
+import lejos.robotics.chassis.Chassis;
+
+/**
+ * A class used to drive a precomputed route of {@code ROTATE} and {@code TRAVEL} moves directly with a {@code Chassis}, so that the moves are not recorded to a {@code MazeStore}.<br/><br/>
+ *
+ * Each travel is driven with a triangular or trapezoidal speed profile: the EV3 accelerates to the fastest speed from which it can still stop at the end of the travel, capped at a maximum speed, so long straights are driven quickly and the EV3 is slow before every turn.
+ * When driven by a {@code GyroWheeledChassis}, rotations are checked against the gyro sensor.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class RouteFollower {
+	// Private Fields
+
+	/**
+	 * The {@code Chassis} used to drive the route.
+	 */
+	private final Chassis chassis;
+
+	/**
+	 * The maximum linear speed (in millimetres per second).
+	 */
+	private final double maxLinearSpeed;
+
+	/**
+	 * The linear acceleration and deceleration (in millimetres per second squared).
+	 */
+	private final double linearAcceleration;
+
+	/**
+	 * The angular speed used for rotations (in degrees per second).
+	 */
+	private final double angularSpeed;
+
+	/**
+	 * Whether the route currently being followed should be abandoned.
+	 */
+	private volatile boolean stopped;
+
+	/**
+	 * The time taken to follow the most recent route (in milliseconds).
+	 */
+	private long lastRunTime;
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code RouteFollower} object.
+	 *
+	 * @param chassis The {@code Chassis} used to drive the route.
+	 * @param maxLinearSpeed The maximum linear speed (in millimetres per second), which is capped at the maximum linear speed of the {@code Chassis}.
+	 * @param linearAcceleration The linear acceleration and deceleration (in millimetres per second squared).
+	 * @param angularSpeed The angular speed used for rotations (in degrees per second).
+	 */
+	public RouteFollower(Chassis chassis, double maxLinearSpeed, double linearAcceleration, double angularSpeed) {
+		if (maxLinearSpeed <= 0 || linearAcceleration <= 0 || angularSpeed <= 0) {
+			throw new IllegalArgumentException("Speeds and acceleration must be greater than 0");
+		}
+		this.chassis = chassis;
+		this.maxLinearSpeed = Math.min(maxLinearSpeed, chassis.getMaxLinearSpeed());
+		this.linearAcceleration = linearAcceleration;
+		this.angularSpeed = angularSpeed;
+	}
+
+	// Public Methods
+
+	/**
+	 * Calculates the peak speed of a travel of a given distance, which is the speed reached halfway along the travel when accelerating from and decelerating to a standstill, capped at the maximum linear speed.
+	 *
+	 * @param distance The distance of the travel (in millimetres).
+	 * @return The peak speed of the travel (in millimetres per second).
+	 */
+	public double peakSpeed(double distance) {
+		return Math.min(maxLinearSpeed, Math.sqrt(linearAcceleration * Math.abs(distance)));
+	}
+
+	/**
+	 * Follows a given route, blocking until the route has been completed or {@code stop()} is called.<br/><br/>
+	 *
+	 * The speeds and accelerations of the {@code Chassis} are restored once the route has been followed.
+	 *
+	 * @param route The {@code MoveLog} of moves along the route.
+	 * @return Whether the route was completed.
+	 */
+	public boolean follow(MoveLog route) {
+		stopped = false;
+		var previousLinearSpeed = chassis.getLinearSpeed();
+		var previousAngularSpeed = chassis.getAngularSpeed();
+		var previousLinearAcceleration = chassis.getLinearAcceleration();
+		var startTime = System.currentTimeMillis();
+		try {
+			chassis.setLinearAcceleration(linearAcceleration);
+			chassis.setAngularSpeed(angularSpeed);
+			for (int i = 0; i < route.size() && !stopped; i++) {
+				switch (route.getType(i)) {
+					case ROTATE -> chassis.rotate(route.getAngle(i));
+					case TRAVEL -> {
+						chassis.setLinearSpeed(peakSpeed(route.getDistance(i)));
+						chassis.travel(route.getDistance(i));
+					}
+					default -> {}
+				}
+				chassis.waitComplete();
+			}
+		} finally {
+			chassis.stop();
+			chassis.setLinearSpeed(previousLinearSpeed);
+			chassis.setAngularSpeed(previousAngularSpeed);
+			chassis.setLinearAcceleration(previousLinearAcceleration);
+			lastRunTime = System.currentTimeMillis() - startTime;
+		}
+		return !stopped;
+	}
+
+	/**
+	 * Stops following the current route once the current move has finished.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	// Public Getters/Setters
+
+	/**
+	 * Gets the time taken to follow the most recent route.
+	 *
+	 * @return The time taken to follow the most recent route (in milliseconds).
+	 */
+	public long getLastRunTime() {
+		return lastRunTime;
+	}
+}
@@ -0,0 +1,155 @@
+package com.jacobcxdev.ev3mazeproject.sensors;
+
+import lejos.robotics.SampleProvider;
+
+/**
+ * A class used to wrap a {@code SampleProvider}, returning the last sample fetched from it while it is younger than a maximum age rather than reading the sensor again.<br/><br/>
+ *
+ * The maximum age should match the rate at which the sensor updates its value, so that a cached sample is never older than a sample read from the sensor could be.
+ * Concurrent fetches of a stale sample are serialised, so only one of them reads the sensor.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class CachingSampleProvider implements SampleProvider {
+    // Private Fields
+
+    /**
+     * The wrapped {@code SampleProvider}.
+     */
+    private final SampleProvider source;
+
+    /**
+     * The last sample fetched from the wrapped {@code SampleProvider}.
+     */
+    private final float[] cache;
+
+    /**
+     * The greatest age of a sample which can be returned from the cache (in nanoseconds).
+     */
+    private volatile long maxAge;
+
+    /**
+     * Whether the cache holds a sample.
+     */
+    private boolean valid;
+
+    /**
+     * The time the cached sample was fetched (in nanoseconds, from {@code System.nanoTime()}).
+     */
+    private long timestamp;
+
+    /**
+     * The number of fetches returned from the cache.
+     */
+    private long hitCount;
+
+    /**
+     * The number of fetches which read the wrapped {@code SampleProvider}.
+     */
+    private long missCount;
+
+    // Public Constructors
+
+    /**
+     * Creates a {@code CachingSampleProvider} object.
+     *
+     * @param source The {@code SampleProvider} to wrap.
+     * @param maxAge The greatest age of a sample which can be returned from the cache (in nanoseconds), or 0 to always read the wrapped {@code SampleProvider}.
+     */
+    public CachingSampleProvider(SampleProvider source, long maxAge) {
+        if (maxAge < 0) {
+            throw new IllegalArgumentException(String.format("The max age of a CachingSampleProvider must not be negative, but was %d.", maxAge));
+        }
+        this.source = source;
+        this.maxAge = maxAge;
+        cache = new float[source.sampleSize()];
+    }
+
+    // Public Methods
+
+    /**
+     * Discards the cached sample, so that the next fetch reads the wrapped {@code SampleProvider}, e.g. after the sensor has been reset.
+     */
+    public synchronized void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Resets the hit and miss counters.
+     */
+    public synchronized void resetStatistics() {
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    // Public Getters/Setters
+
+    /**
+     * Gets the wrapped {@code SampleProvider}, which reads the sensor on every fetch.
+     *
+     * @return The wrapped {@code SampleProvider}.
+     */
+    public SampleProvider getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the greatest age of a sample which can be returned from the cache.
+     *
+     * @return The max age (in nanoseconds).
+     */
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Sets the greatest age of a sample which can be returned from the cache.
+     *
+     * @param maxAge The max age (in nanoseconds), or 0 to always read the wrapped {@code SampleProvider}.
+     */
+    public void setMaxAge(long maxAge) {
+        if (maxAge < 0) {
+            throw new IllegalArgumentException(String.format("The max age of a CachingSampleProvider must not be negative, but was %d.", maxAge));
+        }
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Gets the number of fetches returned from the cache since the statistics were last reset.
+     *
+     * @return The number of hits.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of fetches which read the wrapped {@code SampleProvider} since the statistics were last reset.
+     *
+     * @return The number of misses.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    // SampleProvider Override Methods
+
+    @Override
+    public int sampleSize() {
+        return cache.length;
+    }
+
+    @Override
+    public synchronized void fetchSample(float[] sample, int offset) {
+        var now = System.nanoTime();
+        if (valid && now - timestamp < maxAge) {
+            hitCount++;
+        } else {
+            source.fetchSample(cache, 0);
+            timestamp = now;
+            valid = true;
+            missCount++;
+        }
+        System.arraycopy(cache, 0, sample, offset, cache.length);
+    }
+}
@@ -3,12 +3,21 @@ package com.jacobcxdev.ev3mazeproject.sensors;
 import ev3dev.sensors.ev3.EV3GyroSensor;
 import lejos.robotics.SampleProvider;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * A class used to adapt an {@code EV3GyroSensorAdapter} to a {@code BaseGyroSensor}.
  *
  * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
  */
 public class EV3GyroSensorAdapter implements BaseGyroSensor {
+    // Private Static Fields
+
+    /**
+     * The default greatest age of a cached sample (in milliseconds), which matches the rate at which the sensor updates its value.
+     */
+    private static final long DEFAULT_MAX_SAMPLE_AGE = 5;
+
     // Private Fields
 
     /**
@@ -16,6 +25,16 @@ public class EV3GyroSensorAdapter implements BaseGyroSensor {
      */
     private final EV3GyroSensor sensor;
 
+    /**
+     * The greatest age of a cached sample (in nanoseconds).
+     */
+    private final long maxSampleAge;
+
+    /**
+     * The shared {@code CachingSampleProvider} returned by {@code getAngleMode()}, which is created when first requested.
+     */
+    private CachingSampleProvider angleMode;
+
     /**
      * The orientation of the {@code EV3GyroSensor}.
      */
@@ -24,19 +43,33 @@ public class EV3GyroSensorAdapter implements BaseGyroSensor {
     // Public Constructors
 
     /**
-     * Creates a {@code EV3GyroSensorAdapter} object.
+     * Creates a {@code EV3GyroSensorAdapter} object which caches samples for the default max sample age.
      *
      * @param sensor The {@code EV3GyroSensor} to wrap.
      */
     public EV3GyroSensorAdapter(EV3GyroSensor sensor) {
+        this(sensor, TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_SAMPLE_AGE));
+    }
+
+    /**
+     * Creates a {@code EV3GyroSensorAdapter} object.
+     *
+     * @param sensor The {@code EV3GyroSensor} to wrap.
+     * @param maxSampleAge The greatest age of a cached sample (in nanoseconds), or 0 to always read the sensor.
+     */
+    public EV3GyroSensorAdapter(EV3GyroSensor sensor, long maxSampleAge) {
         this.sensor = sensor;
+        this.maxSampleAge = maxSampleAge;
     }
 
     // BaseGyroSensor Override Methods
 
     @Override
-    public SampleProvider getAngleMode() {
-        return sensor.getAngleMode();
+    public synchronized SampleProvider getAngleMode() {
+        if (angleMode == null) {
+            angleMode = new CachingSampleProvider(sensor.getAngleMode(), maxSampleAge);
+        }
+        return angleMode;
     }
 
     @Override
@@ -50,7 +83,10 @@ public class EV3GyroSensorAdapter implements BaseGyroSensor {
     }
 
     @Override
-    public void reset() {
+    public synchronized void reset() {
         sensor.reset();
+        if (angleMode != null) {
+            angleMode.invalidate(); // Discard the angle cached before the reset.
+        }
     }
 }
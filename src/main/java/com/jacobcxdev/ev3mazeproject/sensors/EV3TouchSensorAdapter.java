@@ -3,12 +3,21 @@ package com.jacobcxdev.ev3mazeproject.sensors;
 import ev3dev.sensors.ev3.EV3TouchSensor;
 import lejos.robotics.SampleProvider;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * A class used to adapt an {@code EV3TouchSensor} to a {@code BaseTouchSensor}.
  *
  * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
  */
 public class EV3TouchSensorAdapter implements BaseTouchSensor {
+    // Private Static Fields
+
+    /**
+     * The default greatest age of a cached sample (in milliseconds), which matches the rate at which the sensor updates its value.
+     */
+    private static final long DEFAULT_MAX_SAMPLE_AGE = 10;
+
     // Private Fields
 
     /**
@@ -16,22 +25,46 @@ public class EV3TouchSensorAdapter implements BaseTouchSensor {
      */
     private final EV3TouchSensor sensor;
 
+    /**
+     * The greatest age of a cached sample (in nanoseconds).
+     */
+    private final long maxSampleAge;
+
+    /**
+     * The shared {@code CachingSampleProvider} returned by {@code getTouchMode()}, which is created when first requested.
+     */
+    private CachingSampleProvider touchMode;
+
     // Public Constructors
 
     /**
-     * Creates a {@code EV3TouchSensorAdapter} object.
+     * Creates a {@code EV3TouchSensorAdapter} object which caches samples for the default max sample age.
      *
      * @param sensor The {@code EV3TouchSensor} to wrap.
      */
     public EV3TouchSensorAdapter(EV3TouchSensor sensor) {
+        this(sensor, TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_SAMPLE_AGE));
+    }
+
+    /**
+     * Creates a {@code EV3TouchSensorAdapter} object.
+     *
+     * @param sensor The {@code EV3TouchSensor} to wrap.
+     * @param maxSampleAge The greatest age of a cached sample (in nanoseconds), or 0 to always read the sensor.
+     */
+    public EV3TouchSensorAdapter(EV3TouchSensor sensor, long maxSampleAge) {
         this.sensor = sensor;
+        this.maxSampleAge = maxSampleAge;
     }
 
     // BaseTouchSensor Override Methods
 
     @Override
-    public SampleProvider getTouchMode() {
-        return sensor.getTouchMode();
+    public synchronized SampleProvider getTouchMode() {
+        if (touchMode == null) {
+            touchMode = new CachingSampleProvider(sensor.getTouchMode(), maxSampleAge);
+        }
+        return touchMode;
     }
 
     @Override
@@ -3,12 +3,21 @@ package com.jacobcxdev.ev3mazeproject.sensors;
 import ev3dev.sensors.ev3.EV3UltrasonicSensor;
 import lejos.robotics.SampleProvider;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * A class used to adapt an {@code EV3UltrasonicSensor} to a {@code BaseUltrasonicSensor}.
  * 
  * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
  */
 public class EV3UltrasonicSensorAdapter implements BaseUltrasonicSensor {
+	// Private Static Fields
+	
+	/**
+	 * The default greatest age of a cached sample (in milliseconds), which matches the rate at which the sensor updates its value.
+	 */
+	private static final long DEFAULT_MAX_SAMPLE_AGE = 20;
+	
 	// Private Fields
 	
 	/**
@@ -16,21 +25,45 @@ public class EV3UltrasonicSensorAdapter implements BaseUltrasonicSensor {
 	 */
 	private final EV3UltrasonicSensor sensor;
 	
+	/**
+	 * The greatest age of a cached sample (in nanoseconds).
+	 */
+	private final long maxSampleAge;
+	
+	/**
+	 * The shared {@code CachingSampleProvider} returned by {@code getDistanceMode()}, which is created when first requested.
+	 */
+	private CachingSampleProvider distanceMode;
+	
 	// Public Constructors
 	
 	/**
-	 * Creates a {@code EV3UltrasonicSensorAdapter} object.
+	 * Creates a {@code EV3UltrasonicSensorAdapter} object which caches samples for the default max sample age.
 	 * 
 	 * @param sensor The {@code EV3UltrasonicSensor} to wrap.
 	 */
 	public EV3UltrasonicSensorAdapter(EV3UltrasonicSensor sensor) {
+		this(sensor, TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_SAMPLE_AGE));
+	}
+	
+	/**
+	 * Creates a {@code EV3UltrasonicSensorAdapter} object.
+	 * 
+	 * @param sensor The {@code EV3UltrasonicSensor} to wrap.
+	 * @param maxSampleAge The greatest age of a cached sample (in nanoseconds), or 0 to always read the sensor.
+	 */
+	public EV3UltrasonicSensorAdapter(EV3UltrasonicSensor sensor, long maxSampleAge) {
 		this.sensor = sensor;
+		this.maxSampleAge = maxSampleAge;
 	}
 	
 	// BaseUltrasonicSensor Override Methods
 	
 	@Override
-	public SampleProvider getDistanceMode() {
-		return sensor.getDistanceMode();
+	public synchronized SampleProvider getDistanceMode() {
+		if (distanceMode == null) {
+			distanceMode = new CachingSampleProvider(sensor.getDistanceMode(), maxSampleAge);
+		}
+		return distanceMode;
 	}
 }
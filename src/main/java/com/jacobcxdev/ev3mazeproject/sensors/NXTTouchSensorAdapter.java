@@ -3,12 +3,21 @@ package com.jacobcxdev.ev3mazeproject.sensors;
 import ev3dev.sensors.nxt.NXTTouchSensor;
 import lejos.robotics.SampleProvider;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * A class used to adapt a {@code NXTTouchSensor} to a {@code BaseTouchSensor}.
  *
  * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
  */
 public class NXTTouchSensorAdapter implements BaseTouchSensor {
+    // Private Static Fields
+
+    /**
+     * The default greatest age of a cached sample (in milliseconds), which matches the rate at which the sensor updates its value.
+     */
+    private static final long DEFAULT_MAX_SAMPLE_AGE = 10;
+
     // Private Fields
 
     /**
@@ -16,22 +25,46 @@ public class NXTTouchSensorAdapter implements BaseTouchSensor {
      */
     private final NXTTouchSensor sensor;
 
+    /**
+     * The greatest age of a cached sample (in nanoseconds).
+     */
+    private final long maxSampleAge;
+
+    /**
+     * The shared {@code CachingSampleProvider} returned by {@code getTouchMode()}, which is created when first requested.
+     */
+    private CachingSampleProvider touchMode;
+
     // Public Constructors
 
     /**
-     * Creates a {@code NXTTouchSensorAdapter} object.
+     * Creates a {@code NXTTouchSensorAdapter} object which caches samples for the default max sample age.
      *
      * @param sensor The {@code NXTTouchSensor} to wrap.
      */
     public NXTTouchSensorAdapter(NXTTouchSensor sensor) {
+        this(sensor, TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_SAMPLE_AGE));
+    }
+
+    /**
+     * Creates a {@code NXTTouchSensorAdapter} object.
+     *
+     * @param sensor The {@code NXTTouchSensor} to wrap.
+     * @param maxSampleAge The greatest age of a cached sample (in nanoseconds), or 0 to always read the sensor.
+     */
+    public NXTTouchSensorAdapter(NXTTouchSensor sensor, long maxSampleAge) {
         this.sensor = sensor;
+        this.maxSampleAge = maxSampleAge;
     }
 
     // BaseTouchSensor Override Methods
 
     @Override
-    public SampleProvider getTouchMode() {
-        return sensor.getTouchMode();
+    public synchronized SampleProvider getTouchMode() {
+        if (touchMode == null) {
+            touchMode = new CachingSampleProvider(sensor.getTouchMode(), maxSampleAge);
+        }
+        return touchMode;
     }
 
     @Override
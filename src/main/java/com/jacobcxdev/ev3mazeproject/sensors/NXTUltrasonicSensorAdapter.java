@@ -3,12 +3,21 @@ package com.jacobcxdev.ev3mazeproject.sensors;
 import ev3dev.sensors.nxt.NXTUltrasonicSensor;
 import lejos.robotics.SampleProvider;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * A class used to adapt a {@code NXTUltrasonicSensor} to a {@code BaseUltrasonicSensor}.
  * 
  * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
  */
 public class NXTUltrasonicSensorAdapter implements BaseUltrasonicSensor {
+	// Private Static Fields
+	
+	/**
+	 * The default greatest age of a cached sample (in milliseconds), which matches the rate at which the sensor updates its value.
+	 */
+	private static final long DEFAULT_MAX_SAMPLE_AGE = 20;
+	
 	// Private Fields
 	
 	/**
@@ -16,21 +25,45 @@ public class NXTUltrasonicSensorAdapter implements BaseUltrasonicSensor {
 	 */
 	private final NXTUltrasonicSensor sensor;
 	
+	/**
+	 * The greatest age of a cached sample (in nanoseconds).
+	 */
+	private final long maxSampleAge;
+	
+	/**
+	 * The shared {@code CachingSampleProvider} returned by {@code getDistanceMode()}, which is created when first requested.
+	 */
+	private CachingSampleProvider distanceMode;
+	
 	// Public Constructors
 	
 	/**
-	 * Creates a {@code NXTUltrasonicSensorAdapter} object.
+	 * Creates a {@code NXTUltrasonicSensorAdapter} object which caches samples for the default max sample age.
 	 * 
 	 * @param sensor The {@code NXTUltrasonicSensor} to wrap.
 	 */
 	public NXTUltrasonicSensorAdapter(NXTUltrasonicSensor sensor) {
+		this(sensor, TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_SAMPLE_AGE));
+	}
+	
+	/**
+	 * Creates a {@code NXTUltrasonicSensorAdapter} object.
+	 * 
+	 * @param sensor The {@code NXTUltrasonicSensor} to wrap.
+	 * @param maxSampleAge The greatest age of a cached sample (in nanoseconds), or 0 to always read the sensor.
+	 */
+	public NXTUltrasonicSensorAdapter(NXTUltrasonicSensor sensor, long maxSampleAge) {
 		this.sensor = sensor;
+		this.maxSampleAge = maxSampleAge;
 	}
 	
 	// BaseUltrasonicSensor Override Methods
 	
 	@Override
-	public SampleProvider getDistanceMode() {
-		return sensor.getDistanceMode();
+	public synchronized SampleProvider getDistanceMode() {
+		if (distanceMode == null) {
+			distanceMode = new CachingSampleProvider(sensor.getDistanceMode(), maxSampleAge);
+		}
+		return distanceMode;
 	}
 }
@@ -0,0 +1,250 @@
+package com.jacobcxdev.ev3mazeproject.sensors;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * A class used to keep the most recent timestamped samples of a sensor in a fixed-size ring, written by a single producer and read by any number of consumers without locks or allocation.<br/><br/>
+ *
+ * Each sample is a timestamp and a fixed number of float values, stored in primitive arrays. The producer publishes a sample by writing it into the next slot and then advancing a volatile count.
+ * Readers copy the samples they want and then check that the producer has not started overwriting them in the meantime, retrying if it has. The slot being written is never valid, so at most {@code capacity - 1} samples can be read.<br/><br/>
+ *
+ * {@code publish()} must only be called by one thread at a time, e.g. while holding a lock shared by every producer.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class SampleRingBuffer {
+    // Private Fields
+
+    /**
+     * The number of slots, which is a power of two.
+     */
+    private final int capacity;
+
+    /**
+     * The mask used to convert a sample number to a slot.
+     */
+    private final int mask;
+
+    /**
+     * The number of values in each sample.
+     */
+    private final int width;
+
+    /**
+     * The timestamp of the sample in each slot.
+     */
+    private final long[] timestamps;
+
+    /**
+     * The values of the sample in each slot, {@code width} values per slot.
+     */
+    private final float[] values;
+
+    /**
+     * The number of samples published.
+     */
+    private volatile long count;
+
+    // Public Constructors
+
+    /**
+     * Creates a {@code SampleRingBuffer} object.
+     *
+     * @param capacity The minimum number of slots, which is rounded up to a power of two.
+     * @param width The number of values in each sample.
+     */
+    public SampleRingBuffer(int capacity, int width) {
+        if (capacity < 2 || capacity > 1 << 30) {
+            throw new IllegalArgumentException(String.format("The capacity of a SampleRingBuffer must be between 2 and 2^30, but was %d.", capacity));
+        }
+        if (width < 1) {
+            throw new IllegalArgumentException(String.format("The width of a SampleRingBuffer must be positive, but was %d.", width));
+        }
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.width = width;
+        mask = this.capacity - 1;
+        timestamps = new long[this.capacity];
+        values = new float[this.capacity * width];
+    }
+
+    // Private Methods
+
+    /**
+     * Gets whether a sample copied before the count was read again is still intact.
+     *
+     * @param sample The number of the sample.
+     * @return Whether the sample has not been overwritten, and is not being overwritten.
+     */
+    private boolean isIntact(long sample) {
+        VarHandle.loadLoadFence();
+        return sample > count - capacity;
+    }
+
+    // Public Methods
+
+    /**
+     * Publishes a sample, overwriting the oldest sample if the buffer is full.
+     *
+     * @param timestamp The timestamp of the sample.
+     * @param sample The array containing the values of the sample.
+     * @param offset The index of the first value in the array.
+     */
+    public void publish(long timestamp, float[] sample, int offset) {
+        var count = this.count;
+        var slot = (int)count & mask;
+        VarHandle.storeStoreFence(); // Keep the writes to the slot after the previous count was published.
+        timestamps[slot] = timestamp;
+        System.arraycopy(sample, offset, values, slot * width, width);
+        this.count = count + 1;
+    }
+
+    /**
+     * Publishes a sample with a single value, overwriting the oldest sample if the buffer is full.
+     *
+     * @param timestamp The timestamp of the sample.
+     * @param value The value of the sample.
+     */
+    public void publish(long timestamp, float value) {
+        var count = this.count;
+        var slot = (int)count & mask;
+        VarHandle.storeStoreFence();
+        timestamps[slot] = timestamp;
+        values[slot * width] = value;
+        this.count = count + 1;
+    }
+
+    /**
+     * Copies the latest sample.
+     *
+     * @param sample The array to copy the values of the sample into.
+     * @param offset The index in the array to copy the values to.
+     * @return The timestamp of the sample, or {@code Long.MIN_VALUE} if no sample has been published.
+     */
+    public long latest(float[] sample, int offset) {
+        while (true) {
+            var latest = count - 1;
+            if (latest < 0) {
+                return Long.MIN_VALUE;
+            }
+            var slot = (int)latest & mask;
+            var timestamp = timestamps[slot];
+            System.arraycopy(values, slot * width, sample, offset, width);
+            if (isIntact(latest)) {
+                return timestamp;
+            }
+        }
+    }
+
+    /**
+     * Gets the first value of the latest sample.
+     *
+     * @return The first value of the latest sample, or {@code NaN} if no sample has been published.
+     */
+    public float latestValue() {
+        while (true) {
+            var latest = count - 1;
+            if (latest < 0) {
+                return Float.NaN;
+            }
+            var value = values[((int)latest & mask) * width];
+            if (isIntact(latest)) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Gets the timestamp of the latest sample.
+     *
+     * @return The timestamp of the latest sample, or {@code Long.MIN_VALUE} if no sample has been published.
+     */
+    public long latestTimestamp() {
+        while (true) {
+            var latest = count - 1;
+            if (latest < 0) {
+                return Long.MIN_VALUE;
+            }
+            var timestamp = timestamps[(int)latest & mask];
+            if (isIntact(latest)) {
+                return timestamp;
+            }
+        }
+    }
+
+    /**
+     * Copies up to a given number of the most recent samples, oldest first.
+     *
+     * @param timestamps The array to copy the timestamps into, with room for at least {@code max} timestamps.
+     * @param values The array to copy the values into, with room for at least {@code max * width} values.
+     * @param max The greatest number of samples to copy.
+     * @return The number of samples copied.
+     */
+    public int read(long[] timestamps, float[] values, int max) {
+        while (true) {
+            var count = this.count;
+            var n = (int)Math.min(Math.min(max, capacity - 1), count);
+            var first = count - n;
+            for (int i = 0; i < n; i++) {
+                var slot = (int)(first + i) & mask;
+                timestamps[i] = this.timestamps[slot];
+                System.arraycopy(this.values, slot * width, values, i * width, width);
+            }
+            if (n == 0 || isIntact(first)) {
+                return n;
+            }
+        }
+    }
+
+    /**
+     * Calculates the mean of the first value of up to a given number of the most recent samples.
+     *
+     * @param max The greatest number of samples to average.
+     * @return The mean, or {@code NaN} if no sample has been published.
+     */
+    public double mean(int max) {
+        while (true) {
+            var count = this.count;
+            var n = (int)Math.min(Math.min(max, capacity - 1), count);
+            if (n == 0) {
+                return Double.NaN;
+            }
+            var first = count - n;
+            var sum = 0d;
+            for (int i = 0; i < n; i++) {
+                sum += this.values[((int)(first + i) & mask) * width];
+            }
+            if (isIntact(first)) {
+                return sum / n;
+            }
+        }
+    }
+
+    // Public Getters/Setters
+
+    /**
+     * Gets the number of slots in the buffer.
+     *
+     * @return The number of slots, one more than the greatest number of samples which can be read.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of values in each sample.
+     *
+     * @return The number of values in each sample.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the number of samples published since the buffer was created.
+     *
+     * @return The number of samples published.
+     */
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,535 @@
+package com.jacobcxdev.ev3mazeproject.sensors;
+
+import com.jacobcxdev.ev3mazeproject.hardware.PortConfiguration;
+import lejos.robotics.SampleProvider;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@code Thread} subclass which owns the sensors of a {@code PortConfiguration}, sampling each of them at its own rate on a single thread and publishing the latest sample of each for any number of consumers to read.<br/><br/>
+ *
+ * Reading the latest sample never blocks and never reads the sensor itself: each channel is published into a {@code SampleRingBuffer}, so readers simply retry in the rare case that a sample is overwritten while they are copying it.
+ * The ring also keeps the recent history of each channel, for windowed filters and post-hoc analysis.
+ * Consumers which need every sample rather than the latest one can block in {@code awaitSample()} until a newer sample is published.<br/><br/>
+ *
+ * The lateness of each sample relative to its schedule is recorded, so that the sampling jitter of each channel can be measured.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class SensorHub extends Thread {
+    // Public Enumerations
+
+    /**
+     * An enumeration to represent the different channels sampled by a {@code SensorHub}.
+     */
+    public enum Channel {
+        GYRO_ANGLE(5),
+        TOUCH(10),
+        LEFT_DISTANCE(20),
+        RIGHT_DISTANCE(20);
+
+        // Public Fields
+
+        /**
+         * The default time between samples of the channel (in nanoseconds).
+         */
+        public final long defaultPeriod;
+
+        // Constructors
+
+        /**
+         * Creates a {@code Channel} instance.
+         *
+         * @param defaultPeriod The default time between samples of the channel (in milliseconds).
+         */
+        Channel(long defaultPeriod) {
+            this.defaultPeriod = TimeUnit.MILLISECONDS.toNanos(defaultPeriod);
+        }
+    }
+
+    // Private Classes
+
+    /**
+     * A class used to hold the state of a single channel.<br/><br/>
+     *
+     * Samples are written while holding the lock of the {@code ChannelState}, so that a sample can be taken immediately from another thread, and published into a {@code SampleRingBuffer} which keeps the recent history of the channel.
+     */
+    private static class ChannelState {
+        // Private Fields
+
+        /**
+         * The {@code SampleProvider} of the sensor.
+         */
+        private final SampleProvider source;
+
+        /**
+         * The buffer the sensor is sampled into.
+         */
+        private final float[] buffer;
+
+        /**
+         * The published samples.
+         */
+        private final SampleRingBuffer history;
+
+        /**
+         * The time between samples (in nanoseconds).
+         */
+        private volatile long period;
+
+        /**
+         * The time the next sample is due (in nanoseconds, from {@code System.nanoTime()}). Only used by the {@code SensorHub} thread.
+         */
+        private long deadline;
+
+        /**
+         * The number of scheduled samples taken.
+         */
+        private volatile long sampleCount;
+
+        /**
+         * The total lateness of the scheduled samples taken (in nanoseconds).
+         */
+        private volatile long totalJitter;
+
+        /**
+         * The greatest lateness of a scheduled sample (in nanoseconds).
+         */
+        private volatile long maxJitter;
+
+        /**
+         * The number of scheduled samples skipped because the previous sample was taken too late.
+         */
+        private volatile long overrunCount;
+
+        // Public Constructors
+
+        /**
+         * Creates a {@code ChannelState} object.
+         *
+         * @param source The {@code SampleProvider} of the sensor.
+         * @param period The time between samples (in nanoseconds).
+         */
+        public ChannelState(SampleProvider source, long period) {
+            this.source = source;
+            this.period = period;
+            buffer = new float[source.sampleSize()];
+            history = new SampleRingBuffer(HISTORY_CAPACITY, buffer.length);
+        }
+
+        // Public Methods
+
+        /**
+         * Samples the sensor and publishes the sample.
+         *
+         * @return The time the sample was taken (in nanoseconds, from {@code System.nanoTime()}).
+         */
+        public synchronized long sample() {
+            var time = System.nanoTime();
+            source.fetchSample(buffer, 0);
+            history.publish(time, buffer, 0);
+            notifyAll();
+            return time;
+        }
+
+        /**
+         * Copies the latest published sample, without blocking. If no sample has been published yet, the sensor is sampled first.
+         *
+         * @param sample The array to copy the sample into.
+         * @param offset The index in the array to copy the sample to.
+         * @return The time the sample was taken (in nanoseconds, from {@code System.nanoTime()}).
+         */
+        public long read(float[] sample, int offset) {
+            if (history.getCount() == 0) {
+                sample();
+            }
+            return history.latest(sample, offset);
+        }
+
+        /**
+         * Gets the first value of the latest published sample, without blocking or allocating. If no sample has been published yet, the sensor is sampled first.
+         *
+         * @return The first value of the latest sample.
+         */
+        public float readFirst() {
+            if (history.getCount() == 0) {
+                sample();
+            }
+            return history.latestValue();
+        }
+
+        /**
+         * Blocks until a sample taken after a given time has been published.
+         *
+         * @param after The time the returned sample must have been taken after (in nanoseconds, from {@code System.nanoTime()}).
+         * @throws InterruptedException If the thread is interrupted while waiting.
+         */
+        public synchronized void await(long after) throws InterruptedException {
+            while (history.getCount() == 0 || history.latestTimestamp() - after <= 0) {
+                wait();
+            }
+        }
+
+        /**
+         * Records the lateness of a scheduled sample. Only called by the {@code SensorHub} thread.
+         *
+         * @param jitter The time between when the sample was due and when it was taken (in nanoseconds).
+         */
+        public void recordJitter(long jitter) {
+            sampleCount++;
+            totalJitter += jitter;
+            if (jitter > maxJitter) {
+                maxJitter = jitter;
+            }
+        }
+    }
+
+    /**
+     * A class used to provide the latest samples of a channel through LeJOS' {@code SampleProvider} interface.
+     */
+    private class ChannelProvider implements SampleProvider {
+        // Private Fields
+
+        /**
+         * The state of the channel.
+         */
+        private final ChannelState state;
+
+        // Public Constructors
+
+        /**
+         * Creates a {@code ChannelProvider} object.
+         *
+         * @param state The state of the channel.
+         */
+        public ChannelProvider(ChannelState state) {
+            this.state = state;
+        }
+
+        // SampleProvider Override Methods
+
+        @Override
+        public int sampleSize() {
+            return state.buffer.length;
+        }
+
+        @Override
+        public void fetchSample(float[] sample, int offset) {
+            state.read(sample, offset);
+        }
+    }
+
+    // Private Static Fields
+
+    /**
+     * The minimum number of samples kept in the history of each channel.
+     */
+    private static final int HISTORY_CAPACITY = 64;
+
+    // Private Fields
+
+    /**
+     * The sensors which the {@code SensorHub} samples.
+     */
+    private final PortConfiguration portConfiguration;
+
+    /**
+     * The state of each channel, indexed by the ordinal of its {@code Channel}.
+     */
+    private final ChannelState[] channels = new ChannelState[Channel.values().length];
+
+    /**
+     * The {@code SampleProvider} of each channel, indexed by the ordinal of its {@code Channel}.
+     */
+    private final SampleProvider[] providers = new SampleProvider[channels.length];
+
+    /**
+     * Whether the {@code SensorHub} should keep sampling.
+     */
+    private volatile boolean running = true;
+
+    // Public Constructors
+
+    /**
+     * Creates a {@code SensorHub} thread, which samples each channel at its default rate once started.
+     *
+     * @param portConfiguration The {@code PortConfiguration} whose sensors are to be sampled.
+     */
+    public SensorHub(PortConfiguration portConfiguration) {
+        super("SensorHub");
+        this.portConfiguration = portConfiguration;
+        setDaemon(true);
+        setPriority(Thread.MAX_PRIORITY);
+
+        var sources = new SampleProvider[channels.length];
+        sources[Channel.GYRO_ANGLE.ordinal()] = unwrap(portConfiguration.gyroSensor.getAngleMode());
+        sources[Channel.TOUCH.ordinal()] = unwrap(portConfiguration.touchSensor.getTouchMode());
+        sources[Channel.LEFT_DISTANCE.ordinal()] = unwrap(portConfiguration.leftUltrasonicSensor.getDistanceMode());
+        sources[Channel.RIGHT_DISTANCE.ordinal()] = unwrap(portConfiguration.rightUltrasonicSensor.getDistanceMode());
+        for (var channel : Channel.values()) {
+            channels[channel.ordinal()] = new ChannelState(sources[channel.ordinal()], channel.defaultPeriod);
+            providers[channel.ordinal()] = this.new ChannelProvider(channels[channel.ordinal()]);
+        }
+    }
+
+    // Private Static Methods
+
+    /**
+     * Gets the {@code SampleProvider} which reads a sensor directly, bypassing its {@code CachingSampleProvider} if it has one.<br/><br/>
+     *
+     * The cache of a sensor adapter is as old as the sample period of its channel, so a sample due soon after a late one would otherwise republish the late sample under a new timestamp.
+     *
+     * @param provider The {@code SampleProvider} of the sensor.
+     * @return The {@code SampleProvider} which reads the sensor on every fetch.
+     */
+    private static SampleProvider unwrap(SampleProvider provider) {
+        if (provider instanceof CachingSampleProvider) {
+            return ((CachingSampleProvider)provider).getSource();
+        }
+        return provider;
+    }
+
+    // Public Methods
+
+    /**
+     * Stops sampling. The latest samples can still be read, but are no longer updated.
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(this);
+    }
+
+    /**
+     * Samples a channel immediately, outside of its schedule, e.g. after its sensor has been reset.
+     *
+     * @param channel The {@code Channel} to sample.
+     * @return The time the sample was taken (in nanoseconds, from {@code System.nanoTime()}).
+     */
+    public long sampleNow(Channel channel) {
+        return channels[channel.ordinal()].sample();
+    }
+
+    /**
+     * Copies the latest sample of a channel, without blocking.
+     *
+     * @param channel The {@code Channel} to read.
+     * @param sample The array to copy the sample into.
+     * @param offset The index in the array to copy the sample to.
+     * @return The time the sample was taken (in nanoseconds, from {@code System.nanoTime()}).
+     */
+    public long fetch(Channel channel, float[] sample, int offset) {
+        return channels[channel.ordinal()].read(sample, offset);
+    }
+
+    /**
+     * Blocks until a sample of a channel taken after a given time has been published, then copies the latest sample.
+     *
+     * @param channel The {@code Channel} to read.
+     * @param after The time the sample must have been taken after (in nanoseconds, from {@code System.nanoTime()}), usually the timestamp of the last sample read.
+     * @param sample The array to copy the sample into.
+     * @param offset The index in the array to copy the sample to.
+     * @return The time the sample was taken (in nanoseconds, from {@code System.nanoTime()}).
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public long awaitSample(Channel channel, long after, float[] sample, int offset) throws InterruptedException {
+        var state = channels[channel.ordinal()];
+        state.await(after);
+        return state.read(sample, offset);
+    }
+
+    /**
+     * Resets the sampling statistics of every channel.
+     */
+    public void resetStatistics() {
+        for (var state : channels) {
+            synchronized (state) {
+                state.sampleCount = 0;
+                state.totalJitter = 0;
+                state.maxJitter = 0;
+                state.overrunCount = 0;
+            }
+        }
+    }
+
+    /**
+     * Creates a {@code PortConfiguration} whose sensors read the latest samples published by the {@code SensorHub}, and whose motors and tacho count attributes are those of the original {@code PortConfiguration}.
+     *
+     * @return The new {@code PortConfiguration}.
+     */
+    public PortConfiguration createPortConfiguration() {
+        var gyroSensor = new BaseGyroSensor() {
+            @Override
+            public SampleProvider getAngleMode() {
+                return getProvider(Channel.GYRO_ANGLE);
+            }
+
+            @Override
+            public GyroOrientation getGyroOrientation() {
+                return portConfiguration.gyroSensor.getGyroOrientation();
+            }
+
+            @Override
+            public void setGyroOrientation(GyroOrientation orientation) {
+                portConfiguration.gyroSensor.setGyroOrientation(orientation);
+            }
+
+            @Override
+            public void reset() {
+                portConfiguration.gyroSensor.reset();
+                sampleNow(Channel.GYRO_ANGLE); // Replace the sample taken before the reset.
+            }
+        };
+        var touchSensor = new BaseTouchSensor() {
+            @Override
+            public SampleProvider getTouchMode() {
+                return getProvider(Channel.TOUCH);
+            }
+
+            @Override
+            public boolean isPressed() {
+                return getLatest(Channel.TOUCH) == 1;
+            }
+        };
+        BaseUltrasonicSensor leftUltrasonicSensor = () -> getProvider(Channel.LEFT_DISTANCE);
+        BaseUltrasonicSensor rightUltrasonicSensor = () -> getProvider(Channel.RIGHT_DISTANCE);
+        return new PortConfiguration(gyroSensor, touchSensor, leftUltrasonicSensor, rightUltrasonicSensor, portConfiguration.leftRegulatedMotor, portConfiguration.rightRegulatedMotor, portConfiguration.clawRegulatedMotor, portConfiguration.leftTachoCount, portConfiguration.rightTachoCount, portConfiguration.gyroSensorPort);
+    }
+
+    // Public Getters/Setters
+
+    /**
+     * Gets a {@code SampleProvider} which provides the latest sample of a channel without reading the sensor.
+     *
+     * @param channel The {@code Channel} to provide.
+     * @return The {@code SampleProvider} of the channel.
+     */
+    public SampleProvider getProvider(Channel channel) {
+        return providers[channel.ordinal()];
+    }
+
+    /**
+     * Gets the first value of the latest sample of a channel, without blocking.
+     *
+     * @param channel The {@code Channel} to read.
+     * @return The first value of the latest sample.
+     */
+    public float getLatest(Channel channel) {
+        return channels[channel.ordinal()].readFirst();
+    }
+
+    /**
+     * Gets the {@code SampleRingBuffer} holding the recent samples of a channel, which can be read without blocking or allocating.
+     *
+     * @param channel The {@code Channel}.
+     * @return The history of the channel.
+     */
+    public SampleRingBuffer getHistory(Channel channel) {
+        return channels[channel.ordinal()].history;
+    }
+
+    /**
+     * Gets the time between samples of a channel.
+     *
+     * @param channel The {@code Channel}.
+     * @return The time between samples (in nanoseconds).
+     */
+    public long getSamplePeriod(Channel channel) {
+        return channels[channel.ordinal()].period;
+    }
+
+    /**
+     * Sets the time between samples of a channel. The new period takes effect after the next sample of the channel.
+     *
+     * @param channel The {@code Channel}.
+     * @param period The time between samples (in nanoseconds).
+     */
+    public void setSamplePeriod(Channel channel, long period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException(String.format("The sample period of %s must be positive, but was %d.", channel, period));
+        }
+        channels[channel.ordinal()].period = period;
+        LockSupport.unpark(this);
+    }
+
+    /**
+     * Gets the number of scheduled samples taken of a channel since the statistics were last reset.
+     *
+     * @param channel The {@code Channel}.
+     * @return The number of scheduled samples.
+     */
+    public long getSampleCount(Channel channel) {
+        return channels[channel.ordinal()].sampleCount;
+    }
+
+    /**
+     * Gets the mean lateness of the scheduled samples of a channel since the statistics were last reset.
+     *
+     * @param channel The {@code Channel}.
+     * @return The mean lateness (in nanoseconds), or 0 if no samples have been taken.
+     */
+    public double getMeanJitter(Channel channel) {
+        var state = channels[channel.ordinal()];
+        var count = state.sampleCount;
+        return count == 0 ? 0 : state.totalJitter / (double)count;
+    }
+
+    /**
+     * Gets the greatest lateness of a scheduled sample of a channel since the statistics were last reset.
+     *
+     * @param channel The {@code Channel}.
+     * @return The greatest lateness (in nanoseconds).
+     */
+    public long getMaxJitter(Channel channel) {
+        return channels[channel.ordinal()].maxJitter;
+    }
+
+    /**
+     * Gets the number of scheduled samples of a channel skipped because the previous sample was taken too late, since the statistics were last reset.
+     *
+     * @param channel The {@code Channel}.
+     * @return The number of skipped samples.
+     */
+    public long getOverrunCount(Channel channel) {
+        return channels[channel.ordinal()].overrunCount;
+    }
+
+    // Thread Override Methods
+
+    @Override
+    public void run() {
+        var start = System.nanoTime();
+        for (var state : channels) {
+            state.deadline = start;
+        }
+        while (running) {
+            // Sleep until the earliest deadline.
+            var next = Long.MAX_VALUE;
+            for (var state : channels) {
+                next = Math.min(next, state.deadline);
+            }
+            var delay = next - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(this, delay);
+                continue; // Recheck, as `parkNanos` can return early.
+            }
+
+            // Sample each channel which is due.
+            for (var state : channels) {
+                if (state.deadline - System.nanoTime() > 0) {
+                    continue;
+                }
+                var time = state.sample();
+                state.recordJitter(time - state.deadline);
+                var period = state.period;
+                state.deadline += period;
+                if (state.deadline - time <= 0) {
+                    // Skip the samples which were missed rather than taking them all at once.
+                    var missed = (time - state.deadline) / period + 1;
+                    state.overrunCount += missed;
+                    state.deadline += missed * period;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.jacobcxdev.ev3mazeproject.simulation;
+
+import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import lejos.robotics.SampleProvider;
+
+import java.util.Random;
+
+/**
+ * An implementation of the {@code BaseGyroSensor} interface used to simulate a gyro sensor in a {@code SimWorld}.<br/><br/>
+ *
+ * The angle measured is the heading of the EV3 since the sensor was last reset, signed so that it reads positive for clockwise turns when the sensor is in its {@code GyroOrientation}.
+ * Gaussian noise can be added to each sample, which defaults to 0.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class SimGyroSensor implements BaseGyroSensor {
+	// Private Fields
+
+	/**
+	 * The {@code SimWorld} the sensor is part of.
+	 */
+	private final SimWorld world;
+
+	/**
+	 * The {@code SampleProvider} which measures the angle of the sensor.
+	 */
+	private final SampleProvider angleMode = new SampleProvider() {
+		@Override
+		public int sampleSize() {
+			return 1;
+		}
+
+		@Override
+		public void fetchSample(float[] sample, int offset) {
+			var noise = SimGyroSensor.this.noise;
+			sample[offset] = (float)((world.getUnwrappedHeading() - zeroHeading + (noise > 0 ? noise * random.nextGaussian() : 0)) * gyroOrientation.multiplier);
+		}
+	};
+
+	/**
+	 * The {@code Random} used to generate the noise of each sample, seeded so that the noise is the same in every run.
+	 */
+	private final Random random = new Random(1);
+
+	/**
+	 * The heading of the EV3 when the sensor was last reset (in degrees).
+	 */
+	private volatile double zeroHeading;
+
+	/**
+	 * The orientation of the sensor.
+	 */
+	private volatile GyroOrientation gyroOrientation = GyroOrientation.GLYPH_TOP;
+
+	/**
+	 * The standard deviation of the noise added to each sample (in degrees).
+	 */
+	private volatile double noise;
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code SimGyroSensor} object.
+	 *
+	 * @param world The {@code SimWorld} the sensor is part of.
+	 */
+	public SimGyroSensor(SimWorld world) {
+		this.world = world;
+		zeroHeading = world.getUnwrappedHeading();
+	}
+
+	// Public Getters/Setters
+
+	/**
+	 * Gets the standard deviation of the noise added to each sample.
+	 *
+	 * @return The noise (in degrees).
+	 */
+	public double getNoise() {
+		return noise;
+	}
+
+	/**
+	 * Sets the standard deviation of the noise added to each sample.
+	 *
+	 * @param noise The noise (in degrees), or 0 for none.
+	 */
+	public void setNoise(double noise) {
+		if (noise < 0) {
+			throw new IllegalArgumentException("Noise must not be negative");
+		}
+		this.noise = noise;
+	}
+
+	// BaseGyroSensor Override Methods
+
+	@Override
+	public SampleProvider getAngleMode() {
+		return angleMode;
+	}
+
+	@Override
+	public GyroOrientation getGyroOrientation() {
+		return gyroOrientation;
+	}
+
+	@Override
+	public void setGyroOrientation(GyroOrientation orientation) {
+		gyroOrientation = orientation;
+	}
+
+	@Override
+	public void reset() {
+		zeroHeading = world.getUnwrappedHeading();
+	}
+}
@@ -0,0 +1,367 @@
+package com.jacobcxdev.ev3mazeproject.simulation;
+
+import lejos.robotics.RegulatedMotor;
+import lejos.robotics.RegulatedMotorListener;
+
+/**
+ * An implementation of LeJOS' {@code RegulatedMotor} interface used to simulate a regulated motor in a {@code SimWorld}.<br/><br/>
+ *
+ * The motor accelerates towards its target speed at its set acceleration, and rotations to a limit angle decelerate so that they stop on the limit. Tacho counts are in degrees.
+ * All state is guarded by the lock of the {@code SimWorld}, so {@code startSynchronization()} holds the world still until {@code endSynchronization()} is called. Blocking commands issued while synchronising return immediately, as they would on the EV3.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class SimRegulatedMotor implements RegulatedMotor {
+	// Private Enumerations
+
+	/**
+	 * An enumeration to represent the different possible modes of a {@code SimRegulatedMotor}.
+	 */
+	private enum Mode {
+		FORWARD,
+		BACKWARD,
+		ROTATE,
+		STOP,
+		FLOAT
+	}
+
+	// Private Static Fields
+
+	/**
+	 * The default acceleration (in degrees per second squared).
+	 */
+	private static final int DEFAULT_ACCELERATION = 6000;
+
+	/**
+	 * The distance from the limit angle within which a rotation is treated as complete (in degrees).
+	 */
+	private static final double LIMIT_TOLERANCE = .5;
+
+	// Private Fields
+
+	/**
+	 * The {@code SimWorld} the motor is part of.
+	 */
+	private final SimWorld world;
+
+	/**
+	 * The maximum speed of the motor (in degrees per second).
+	 */
+	private final float maxSpeed;
+
+	/**
+	 * The current {@code Mode} of the motor.
+	 */
+	private Mode mode = Mode.STOP;
+
+	/**
+	 * The angle of the motor (in degrees).
+	 */
+	private double position;
+
+	/**
+	 * The angle of the motor when its tacho count was last reset (in degrees).
+	 */
+	private double tachoZero;
+
+	/**
+	 * The signed velocity of the motor (in degrees per second).
+	 */
+	private double velocity;
+
+	/**
+	 * The target speed of the motor (in degrees per second).
+	 */
+	private int speed = 360;
+
+	/**
+	 * The acceleration of the motor (in degrees per second squared).
+	 */
+	private int acceleration = DEFAULT_ACCELERATION;
+
+	/**
+	 * The tacho count the current rotation will stop at.
+	 */
+	private int limitAngle;
+
+	/**
+	 * The {@code RegulatedMotorListener} notified when rotations start and stop, or {@code null} if there is none.
+	 */
+	private RegulatedMotorListener listener;
+
+	// Package-Private Constructors
+
+	/**
+	 * Creates a {@code SimRegulatedMotor} object.
+	 *
+	 * @param world The {@code SimWorld} the motor is part of.
+	 * @param maxSpeed The maximum speed of the motor (in degrees per second).
+	 */
+	SimRegulatedMotor(SimWorld world, float maxSpeed) {
+		this.world = world;
+		this.maxSpeed = maxSpeed;
+	}
+
+	// Package-Private Methods
+
+	/**
+	 * Steps the motor forward by a given amount of simulated time. This must be called while holding the lock of the {@code SimWorld}.
+	 *
+	 * @param dt The simulated time to step forward by (in seconds).
+	 * @return The angle the motor turned during the step (in degrees).
+	 */
+	double step(double dt) {
+		double target = switch (mode) {
+			case FORWARD -> speed;
+			case BACKWARD -> -speed;
+			case ROTATE -> {
+				// Decelerate once the remaining angle is within the braking distance.
+				var remaining = limitAngle + tachoZero - position;
+				var brakingSpeed = Math.sqrt(2 * acceleration * Math.abs(remaining));
+				yield Math.signum(remaining) * Math.min(speed, brakingSpeed);
+			}
+			case STOP, FLOAT -> 0;
+		};
+		var dv = acceleration * dt;
+		velocity = velocity < target ? Math.min(target, velocity + dv) : Math.max(target, velocity - dv);
+
+		var previous = position;
+		position += velocity * dt;
+		if (mode == Mode.ROTATE) {
+			var limit = limitAngle + tachoZero;
+			var overshot = (previous - limit) * (position - limit) <= 0;
+			if (overshot || (Math.abs(limit - position) < LIMIT_TOLERANCE && Math.abs(velocity) <= dv)) {
+				position = limit;
+				velocity = 0;
+				mode = Mode.STOP;
+				if (listener != null) {
+					listener.rotationStopped(this, getTachoCount(), false, System.currentTimeMillis());
+				}
+			}
+		}
+		return position - previous;
+	}
+
+	// Private Methods
+
+	/**
+	 * Sets the {@code Mode} of the motor.
+	 *
+	 * @param mode The new {@code Mode}.
+	 */
+	private void setMode(Mode mode) {
+		world.lock.lock();
+		try {
+			this.mode = mode;
+		} finally {
+			world.lock.unlock();
+		}
+	}
+
+	// BaseMotor Override Methods
+
+	@Override
+	public void forward() {
+		setMode(Mode.FORWARD);
+	}
+
+	@Override
+	public void backward() {
+		setMode(Mode.BACKWARD);
+	}
+
+	@Override
+	public void stop() {
+		stop(false);
+	}
+
+	@Override
+	public void flt() {
+		flt(false);
+	}
+
+	@Override
+	public boolean isMoving() {
+		world.lock.lock();
+		try {
+			return mode == Mode.FORWARD || mode == Mode.BACKWARD || mode == Mode.ROTATE;
+		} finally {
+			world.lock.unlock();
+		}
+	}
+
+	// Encoder Override Methods
+
+	@Override
+	public int getTachoCount() {
+		world.lock.lock();
+		try {
+			return (int)Math.round(position - tachoZero);
+		} finally {
+			world.lock.unlock();
+		}
+	}
+
+	@Override
+	public void resetTachoCount() {
+		world.lock.lock();
+		try {
+			tachoZero = position;
+		} finally {
+			world.lock.unlock();
+		}
+	}
+
+	// Tachometer Override Methods
+
+	@Override
+	public int getRotationSpeed() {
+		world.lock.lock();
+		try {
+			return (int)Math.round(velocity);
+		} finally {
+			world.lock.unlock();
+		}
+	}
+
+	// RegulatedMotor Override Methods
+
+	@Override
+	public void addListener(RegulatedMotorListener listener) {
+		this.listener = listener;
+	}
+
+	@Override
+	public RegulatedMotorListener removeListener() {
+		var listener = this.listener;
+		this.listener = null;
+		return listener;
+	}
+
+	@Override
+	public void stop(boolean immediateReturn) {
+		setMode(Mode.STOP);
+		if (!immediateReturn && !world.isSynchronizing()) {
+			waitComplete();
+		}
+	}
+
+	@Override
+	public void flt(boolean immediateReturn) {
+		setMode(Mode.FLOAT);
+		if (!immediateReturn && !world.isSynchronizing()) {
+			waitComplete();
+		}
+	}
+
+	@Override
+	public void waitComplete() {
+		world.lock.lock();
+		try {
+			while (mode == Mode.ROTATE || ((mode == Mode.STOP || mode == Mode.FLOAT) && velocity != 0)) {
+				world.stepped.awaitUninterruptibly();
+			}
+		} finally {
+			world.lock.unlock();
+		}
+	}
+
+	@Override
+	public void rotate(int angle, boolean immediateReturn) {
+		world.lock.lock();
+		try {
+			rotateTo(getTachoCount() + angle, true);
+		} finally {
+			world.lock.unlock();
+		}
+		if (!immediateReturn && !world.isSynchronizing()) {
+			waitComplete();
+		}
+	}
+
+	@Override
+	public void rotate(int angle) {
+		rotate(angle, false);
+	}
+
+	@Override
+	public void rotateTo(int limitAngle) {
+		rotateTo(limitAngle, false);
+	}
+
+	@Override
+	public void rotateTo(int limitAngle, boolean immediateReturn) {
+		world.lock.lock();
+		try {
+			this.limitAngle = limitAngle;
+			mode = Mode.ROTATE;
+			if (listener != null) {
+				listener.rotationStarted(this, getTachoCount(), false, System.currentTimeMillis());
+			}
+		} finally {
+			world.lock.unlock();
+		}
+		if (!immediateReturn && !world.isSynchronizing()) {
+			waitComplete();
+		}
+	}
+
+	@Override
+	public int getLimitAngle() {
+		return limitAngle;
+	}
+
+	@Override
+	public void setSpeed(int speed) {
+		world.lock.lock();
+		try {
+			this.speed = (int)Math.min(Math.abs(speed), maxSpeed);
+		} finally {
+			world.lock.unlock();
+		}
+	}
+
+	@Override
+	public int getSpeed() {
+		return speed;
+	}
+
+	@Override
+	public float getMaxSpeed() {
+		return maxSpeed;
+	}
+
+	@Override
+	public boolean isStalled() {
+		return false;
+	}
+
+	@Override
+	public void setStallThreshold(int error, int time) {}
+
+	@Override
+	public void setAcceleration(int acceleration) {
+		world.lock.lock();
+		try {
+			this.acceleration = Math.max(1, Math.abs(acceleration));
+		} finally {
+			world.lock.unlock();
+		}
+	}
+
+	@Override
+	public void synchronizeWith(RegulatedMotor[] syncList) {}
+
+	@Override
+	public void startSynchronization() {
+		world.startSynchronization();
+	}
+
+	@Override
+	public void endSynchronization() {
+		world.endSynchronization();
+	}
+
+	@Override
+	public void close() {}
+}
@@ -0,0 +1,58 @@
+package com.jacobcxdev.ev3mazeproject.simulation;
+
+import com.jacobcxdev.ev3mazeproject.sensors.BaseTouchSensor;
+import lejos.robotics.SampleProvider;
+
+/**
+ * An implementation of the {@code BaseTouchSensor} interface used to simulate a touch sensor on the front of the EV3 in a {@code SimWorld}.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class SimTouchSensor implements BaseTouchSensor {
+	// Private Fields
+
+	/**
+	 * The {@code SimWorld} the sensor is part of.
+	 */
+	private final SimWorld world;
+
+	/**
+	 * The {@code SampleProvider} which indicates whether the sensor is pressed.
+	 */
+	private final SampleProvider touchMode = new SampleProvider() {
+		@Override
+		public int sampleSize() {
+			return 1;
+		}
+
+		@Override
+		public void fetchSample(float[] sample, int offset) {
+			sample[offset] = world.isBumperPressed() ? 1 : 0;
+		}
+	};
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code SimTouchSensor} object.
+	 *
+	 * @param world The {@code SimWorld} the sensor is part of.
+	 */
+	public SimTouchSensor(SimWorld world) {
+		this.world = world;
+	}
+
+	// BaseTouchSensor Override Methods
+
+	@Override
+	public SampleProvider getTouchMode() {
+		return touchMode;
+	}
+
+	// Touch Override Methods
+
+	@Override
+	public boolean isPressed() {
+		return world.isBumperPressed();
+	}
+}
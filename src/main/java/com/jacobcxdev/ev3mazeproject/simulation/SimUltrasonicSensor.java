@@ -0,0 +1,82 @@
+package com.jacobcxdev.ev3mazeproject.simulation;
+
+import com.jacobcxdev.ev3mazeproject.sensors.BaseUltrasonicSensor;
+import lejos.robotics.SampleProvider;
+
+/**
+ * An implementation of the {@code BaseUltrasonicSensor} interface used to simulate an ultrasonic sensor in a {@code SimWorld}.<br/><br/>
+ *
+ * The distance measured is the distance to the nearest wall along the direction the sensor faces, or {@code Float.POSITIVE_INFINITY} if it is beyond the range of the sensor.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class SimUltrasonicSensor implements BaseUltrasonicSensor {
+	// Private Static Fields
+
+	/**
+	 * The furthest distance the sensor can measure (in millimetres).
+	 */
+	private static final float MAX_RANGE = 2550;
+
+	// Private Fields
+
+	/**
+	 * The {@code SimWorld} the sensor is part of.
+	 */
+	private final SimWorld world;
+
+	/**
+	 * The offset of the sensor to the right of the centre of the EV3 (in millimetres).
+	 */
+	private final float right;
+
+	/**
+	 * The offset of the sensor in front of the centre of the EV3 (in millimetres).
+	 */
+	private final float forward;
+
+	/**
+	 * The direction the sensor faces (in degrees clockwise from the heading of the EV3).
+	 */
+	private final float bearing;
+
+	/**
+	 * The {@code SampleProvider} which measures the distance to the nearest wall (in metres).
+	 */
+	private final SampleProvider distanceMode = new SampleProvider() {
+		@Override
+		public int sampleSize() {
+			return 1;
+		}
+
+		@Override
+		public void fetchSample(float[] sample, int offset) {
+			var distance = world.measure(right, forward, bearing);
+			sample[offset] = distance <= MAX_RANGE ? distance / 1000 : Float.POSITIVE_INFINITY;
+		}
+	};
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code SimUltrasonicSensor} object.
+	 *
+	 * @param world The {@code SimWorld} the sensor is part of.
+	 * @param right The offset of the sensor to the right of the centre of the EV3 (in millimetres).
+	 * @param forward The offset of the sensor in front of the centre of the EV3 (in millimetres).
+	 * @param bearing The direction the sensor faces (in degrees clockwise from the heading of the EV3).
+	 */
+	public SimUltrasonicSensor(SimWorld world, float right, float forward, float bearing) {
+		this.world = world;
+		this.right = right;
+		this.forward = forward;
+		this.bearing = bearing;
+	}
+
+	// BaseUltrasonicSensor Override Methods
+
+	@Override
+	public SampleProvider getDistanceMode() {
+		return distanceMode;
+	}
+}
@@ -0,0 +1,578 @@
+package com.jacobcxdev.ev3mazeproject.simulation;
+
+import com.jacobcxdev.ev3mazeproject.hardware.BuildDescription;
+import com.jacobcxdev.ev3mazeproject.hardware.PortConfiguration;
+import com.jacobcxdev.ev3mazeproject.mapping.IndexedLineMap;
+import com.jacobcxdev.ev3mazeproject.robotics.GyroWheeledChassis;
+import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import lejos.robotics.chassis.Wheel;
+import lejos.robotics.chassis.WheeledChassis;
+import lejos.robotics.mapping.LineMap;
+import lejos.robotics.navigation.Pose;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A class used to simulate an EV3 driving through a maze, so that the {@code MazeDriver} and its behaviours can be run without a brick.<br/><br/>
+ *
+ * The world is a kinematic model of a differential drive over the walls of a {@code LineMap}: the left and right {@code SimRegulatedMotor}s are stepped forward in time, and the change in their tacho counts moves the EV3.
+ * The EV3 cannot drive through the wall in front of it, but can always rotate. Positions and headings use the same frame as {@code MazeStore}: headings are in degrees clockwise from the positive y axis.<br/><br/>
+ *
+ * The wheels can be given noise: a fixed bias, which makes the right wheel travel further than the left as a worn tyre or uneven load would, and random slip in every step. Both default to 0.<br/><br/>
+ *
+ * The world is stepped by a daemon thread in fixed steps of simulated time, running {@code timeScale} times faster than real time. All simulated parts share the world's lock, so commands issued between {@code startSynchronization()} and {@code endSynchronization()} take effect in the same step.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class SimWorld {
+	// Private Static Fields
+
+	/**
+	 * The length of each step of simulated time (in nanoseconds).
+	 */
+	private static final long STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * The furthest distance a ray is traced when measuring distances to walls (in millimetres).
+	 */
+	private static final float MAX_RANGE = 100000;
+
+	/**
+	 * The maximum speed of the large motors driving the wheels (in degrees per second).
+	 */
+	private static final float LARGE_MOTOR_MAX_SPEED = 1050;
+
+	/**
+	 * The maximum speed of the medium motor driving the claw (in degrees per second).
+	 */
+	private static final float MEDIUM_MOTOR_MAX_SPEED = 1560;
+
+	// Package-Private Fields
+
+	/**
+	 * The lock shared by the world and every simulated part.
+	 */
+	final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * The {@code Condition} signalled after every step.
+	 */
+	final Condition stepped = lock.newCondition();
+
+	/**
+	 * The {@code Thread} which has started synchronising the simulated motors, or {@code null} if none has.
+	 */
+	volatile Thread synchronizingThread;
+
+	/**
+	 * The number of nested calls to {@code startSynchronization()} made by {@code synchronizingThread}.
+	 */
+	int synchronizationDepth;
+
+	// Private Fields
+
+	/**
+	 * The walls of the maze.
+	 */
+	private final IndexedLineMap walls;
+
+	/**
+	 * The {@code BuildDescription} of the simulated EV3.
+	 */
+	private final BuildDescription buildDescription;
+
+	/**
+	 * The distance from the centre of the EV3 to its touch sensor (in millimetres).
+	 */
+	private final float bumperOffset;
+
+	/**
+	 * The {@code SimRegulatedMotor} driving the left wheel.
+	 */
+	private final SimRegulatedMotor leftMotor;
+
+	/**
+	 * The {@code SimRegulatedMotor} driving the right wheel.
+	 */
+	private final SimRegulatedMotor rightMotor;
+
+	/**
+	 * The {@code SimRegulatedMotor} driving the claw.
+	 */
+	private final SimRegulatedMotor clawMotor;
+
+	/**
+	 * The {@code Random} used to generate the slip of the wheels, seeded so that the noise is the same in every run.
+	 */
+	private final Random random = new Random(0);
+
+	/**
+	 * The {@code Thread} stepping the world, or {@code null} if the world is not running.
+	 */
+	private Thread thread;
+
+	/**
+	 * The number of simulated seconds which pass per real second.
+	 */
+	private volatile double timeScale;
+
+	/**
+	 * The simulated time which has passed since the world was created (in nanoseconds).
+	 */
+	private long time;
+
+	/**
+	 * The x coordinate of the centre of the EV3 (in millimetres).
+	 */
+	private double x;
+
+	/**
+	 * The y coordinate of the centre of the EV3 (in millimetres).
+	 */
+	private double y;
+
+	/**
+	 * The heading of the EV3 (in degrees clockwise from the positive y axis), which is not wrapped so that the gyro sensor can measure multiple turns.
+	 */
+	private double heading;
+
+	/**
+	 * Whether the EV3 is pressed against the wall in front of it.
+	 */
+	private boolean blocked;
+
+	/**
+	 * The fraction by which the right wheel travels further than the left wheel for the same rotation.
+	 */
+	private double wheelBias;
+
+	/**
+	 * The standard deviation of the fraction by which each wheel slips in each step.
+	 */
+	private double wheelSlip;
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code SimWorld} object, with the EV3 at (0, 0) and a heading of 0.
+	 *
+	 * @param maze The {@code LineMap} of the walls of the maze (in millimetres).
+	 * @param buildDescription The {@code BuildDescription} of the simulated EV3.
+	 * @param bumperOffset The distance from the centre of the EV3 to its touch sensor (in millimetres).
+	 * @param timeScale The number of simulated seconds which pass per real second.
+	 */
+	public SimWorld(LineMap maze, BuildDescription buildDescription, float bumperOffset, double timeScale) {
+		if (timeScale <= 0) {
+			throw new IllegalArgumentException("Time scale must be greater than 0");
+		}
+		var lines = maze.getLines();
+		var bounds = maze.getBoundingRect();
+		walls = new IndexedLineMap(lines, bounds, MAX_RANGE, Math.max(1, (float)Math.sqrt(bounds.getWidth() * bounds.getHeight() / Math.max(lines.length, 1))));
+		this.buildDescription = buildDescription;
+		this.bumperOffset = bumperOffset;
+		this.timeScale = timeScale;
+		leftMotor = new SimRegulatedMotor(this, LARGE_MOTOR_MAX_SPEED);
+		rightMotor = new SimRegulatedMotor(this, LARGE_MOTOR_MAX_SPEED);
+		clawMotor = new SimRegulatedMotor(this, MEDIUM_MOTOR_MAX_SPEED);
+	}
+
+	// Package-Private Methods
+
+	/**
+	 * Measures the distance from a point on the EV3 to the nearest wall in a given direction.
+	 *
+	 * @param right The offset of the point to the right of the centre of the EV3 (in millimetres).
+	 * @param forward The offset of the point in front of the centre of the EV3 (in millimetres).
+	 * @param bearing The direction to measure in (in degrees clockwise from the heading of the EV3).
+	 * @return The distance to the nearest wall (in millimetres), or {@code Float.POSITIVE_INFINITY} if there is no wall within range.
+	 */
+	float measure(float right, float forward, float bearing) {
+		lock.lock();
+		try {
+			var radians = Math.toRadians(heading);
+			var sin = Math.sin(radians);
+			var cos = Math.cos(radians);
+			var px = x + forward * sin + right * cos;
+			var py = y + forward * cos - right * sin;
+			var range = walls.range(new Pose((float)px, (float)py, (float)(90 - heading - bearing))); // LineMap measures angles anticlockwise from the positive x axis.
+			return range < 0 ? Float.POSITIVE_INFINITY : range;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets whether the touch sensor of the EV3 is pressed against a wall.
+	 *
+	 * @return Whether the touch sensor is pressed.
+	 */
+	boolean isBumperPressed() {
+		lock.lock();
+		try {
+			return blocked || measure(0, 0, 0) <= bumperOffset;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the unwrapped heading of the EV3.
+	 *
+	 * @return The heading of the EV3 (in degrees clockwise from the positive y axis).
+	 */
+	double getUnwrappedHeading() {
+		lock.lock();
+		try {
+			return heading;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Starts synchronising the simulated motors, holding the world still so that commands issued by the current thread take effect in the same step.
+	 */
+	void startSynchronization() {
+		lock.lock();
+		synchronizingThread = Thread.currentThread();
+		synchronizationDepth++;
+	}
+
+	/**
+	 * Stops synchronising the simulated motors, letting the world step again.
+	 */
+	void endSynchronization() {
+		if (--synchronizationDepth == 0) {
+			synchronizingThread = null;
+		}
+		lock.unlock();
+	}
+
+	/**
+	 * Gets whether the current thread is synchronising the simulated motors, in which case blocking motor commands return immediately as they would on the EV3.
+	 *
+	 * @return Whether the current thread is synchronising the simulated motors.
+	 */
+	boolean isSynchronizing() {
+		return synchronizingThread == Thread.currentThread();
+	}
+
+	// Private Methods
+
+	/**
+	 * Runs the world, stepping it in fixed steps of simulated time and sleeping so that it runs {@code timeScale} times faster than real time.
+	 */
+	private void run() {
+		var start = System.nanoTime();
+		var elapsed = 0L;
+		while (!Thread.currentThread().isInterrupted()) {
+			step(STEP_NANOS);
+			elapsed += STEP_NANOS;
+			var sleep = start + (long)(elapsed / timeScale) - System.nanoTime();
+			if (sleep > 0) {
+				LockSupport.parkNanos(sleep);
+			}
+		}
+	}
+
+	// Public Methods
+
+	/**
+	 * Starts the thread stepping the world.
+	 */
+	public synchronized void start() {
+		if (thread != null) {
+			return;
+		}
+		thread = new Thread(this::run, "SimWorld");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the thread stepping the world.
+	 */
+	public synchronized void stop() {
+		if (thread == null) {
+			return;
+		}
+		thread.interrupt();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		thread = null;
+	}
+
+	/**
+	 * Steps the world forward by a given amount of simulated time, moving the EV3 according to the rotation of its wheels.
+	 *
+	 * @param nanos The simulated time to step forward by (in nanoseconds).
+	 */
+	public void step(long nanos) {
+		lock.lock();
+		try {
+			var dt = nanos / 1e9;
+			var left = leftMotor.step(dt);
+			var right = rightMotor.step(dt);
+			clawMotor.step(dt);
+
+			// Convert the rotation of each wheel (in degrees) to the distance it travelled.
+			var circumference = Math.PI * buildDescription.wheelDiameter;
+			var dl = left * circumference / 360 * (1 + wheelSlip * random.nextGaussian());
+			var dr = right * circumference / 360 * (1 + wheelBias + wheelSlip * random.nextGaussian());
+			var forward = (dl + dr) / 2;
+			var turn = Math.toDegrees((dl - dr) / (2 * buildDescription.wheelOffset));
+
+			// Move along the average heading of the step, stopping at the wall in front of the EV3.
+			var radians = Math.toRadians(heading + turn / 2);
+			blocked = false;
+			if (forward > 0) {
+				var clearance = measure(0, 0, (float)(turn / 2)) - bumperOffset;
+				if (forward > clearance) {
+					forward = Math.max(0, clearance);
+					blocked = true;
+				}
+			}
+			x += forward * Math.sin(radians);
+			y += forward * Math.cos(radians);
+			heading += turn;
+			time += nanos;
+			stepped.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Moves the EV3 to a given pose without moving its wheels.
+	 *
+	 * @param x The x coordinate of the centre of the EV3 (in millimetres).
+	 * @param y The y coordinate of the centre of the EV3 (in millimetres).
+	 * @param heading The heading of the EV3 (in degrees clockwise from the positive y axis).
+	 */
+	public void setPose(double x, double y, double heading) {
+		lock.lock();
+		try {
+			this.x = x;
+			this.y = y;
+			this.heading = heading;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Creates a {@code PortConfiguration} of the simulated parts of the EV3, with ultrasonic sensors facing left and right either side of its centre, and a touch sensor in front of it.
+	 *
+	 * @return A {@code PortConfiguration} of the simulated parts.
+	 */
+	public PortConfiguration createPortConfiguration() {
+		var gap = buildDescription.ultrasonicSensorGap;
+		return new PortConfiguration(
+			new SimGyroSensor(this),
+			new SimTouchSensor(this),
+			new SimUltrasonicSensor(this, -gap / 2, 0, -90),
+			new SimUltrasonicSensor(this, gap / 2, 0, 90),
+			leftMotor,
+			rightMotor,
+			clawMotor
+		);
+	}
+
+	/**
+	 * Creates a {@code GyroWheeledChassis} on the wheel motors of the simulated EV3, reading a {@code BaseGyroSensor} directly, with its heading controller running at its usual rate in simulated time.<br/><br/>
+	 *
+	 * The orientation of the gyro sensor is set from the {@code BuildDescription}. The {@code FusedPoseProvider} of the chassis is created when first requested, so its scheduler should be scaled with {@code scalePeriod()} by whoever requests it.
+	 *
+	 * @param gyro The {@code BaseGyroSensor} of the chassis, e.g. the gyro sensor of a {@code PortConfiguration} created by the world.
+	 * @param linearSpeed The linear speed of the chassis (in millimetres per second).
+	 * @param angularSpeed The angular speed of the chassis (in degrees per second).
+	 * @return The {@code GyroWheeledChassis}.
+	 */
+	public GyroWheeledChassis createChassis(BaseGyroSensor gyro, double linearSpeed, double angularSpeed) {
+		gyro.setGyroOrientation(buildDescription.gyroOrientation);
+		var leftWheel = WheeledChassis.modelWheel(leftMotor, buildDescription.wheelDiameter).offset(-buildDescription.wheelOffset);
+		var rightWheel = WheeledChassis.modelWheel(rightMotor, buildDescription.wheelDiameter).offset(buildDescription.wheelOffset);
+		var chassis = new GyroWheeledChassis(new Wheel[] {leftWheel, rightWheel}, WheeledChassis.TYPE_DIFFERENTIAL, gyro);
+		chassis.getHeadingControlScheduler().setPeriod(scalePeriod(chassis.getControlPeriod()));
+		chassis.setSpeed(linearSpeed, angularSpeed);
+		return chassis;
+	}
+
+	/**
+	 * Converts a period of simulated time into the period of real time in which it passes, so that a {@code FixedRateScheduler} runs at its usual rate in simulated time.
+	 *
+	 * @param period The period of simulated time (in nanoseconds).
+	 * @return The period of real time, of at least 1 nanosecond (in nanoseconds).
+	 */
+	public long scalePeriod(long period) {
+		return Math.max(1, (long)(period / timeScale));
+	}
+
+	// Public Getters/Setters
+
+	/**
+	 * Gets the walls of the maze.
+	 *
+	 * @return An {@code IndexedLineMap} of the walls of the maze.
+	 */
+	public IndexedLineMap getWalls() {
+		return walls;
+	}
+
+	/**
+	 * Gets the x coordinate of the centre of the EV3.
+	 *
+	 * @return The x coordinate (in millimetres).
+	 */
+	public double getX() {
+		lock.lock();
+		try {
+			return x;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the y coordinate of the centre of the EV3.
+	 *
+	 * @return The y coordinate (in millimetres).
+	 */
+	public double getY() {
+		lock.lock();
+		try {
+			return y;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the heading of the EV3.
+	 *
+	 * @return The heading (in degrees clockwise from the positive y axis, in the range [0, 360)).
+	 */
+	public double getHeading() {
+		var heading = getUnwrappedHeading() % 360;
+		return heading < 0 ? heading + 360 : heading;
+	}
+
+	/**
+	 * Gets the simulated time which has passed since the world was created.
+	 *
+	 * @return The simulated time (in nanoseconds).
+	 */
+	public long getTime() {
+		lock.lock();
+		try {
+			return time;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of simulated seconds which pass per real second.
+	 *
+	 * @return The time scale.
+	 */
+	public double getTimeScale() {
+		return timeScale;
+	}
+
+	/**
+	 * Sets the number of simulated seconds which pass per real second.
+	 *
+	 * @param timeScale The new time scale.
+	 */
+	public void setTimeScale(double timeScale) {
+		if (timeScale <= 0) {
+			throw new IllegalArgumentException("Time scale must be greater than 0");
+		}
+		this.timeScale = timeScale;
+	}
+
+	/**
+	 * Gets the fraction by which the right wheel travels further than the left wheel for the same rotation.
+	 *
+	 * @return The wheel bias.
+	 */
+	public double getWheelBias() {
+		lock.lock();
+		try {
+			return wheelBias;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the standard deviation of the fraction by which each wheel slips in each step.
+	 *
+	 * @return The wheel slip.
+	 */
+	public double getWheelSlip() {
+		lock.lock();
+		try {
+			return wheelSlip;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sets the noise of the wheels, which makes the EV3 drift from a straight line unless its heading is corrected.
+	 *
+	 * @param bias The fraction by which the right wheel travels further than the left wheel for the same rotation, e.g. 0.02 for 2% further.
+	 * @param slip The standard deviation of the fraction by which each wheel slips in each step.
+	 */
+	public void setWheelNoise(double bias, double slip) {
+		if (bias <= -1) {
+			throw new IllegalArgumentException("Wheel bias must be greater than -1");
+		}
+		if (slip < 0) {
+			throw new IllegalArgumentException("Wheel slip must not be negative");
+		}
+		lock.lock();
+		try {
+			wheelBias = bias;
+			wheelSlip = slip;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the {@code SimRegulatedMotor} driving the left wheel.
+	 *
+	 * @return The left {@code SimRegulatedMotor}.
+	 */
+	public SimRegulatedMotor getLeftMotor() {
+		return leftMotor;
+	}
+
+	/**
+	 * Gets the {@code SimRegulatedMotor} driving the right wheel.
+	 *
+	 * @return The right {@code SimRegulatedMotor}.
+	 */
+	public SimRegulatedMotor getRightMotor() {
+		return rightMotor;
+	}
+
+	/**
+	 * Gets the {@code SimRegulatedMotor} driving the claw.
+	 *
+	 * @return The claw {@code SimRegulatedMotor}.
+	 */
+	public SimRegulatedMotor getClawMotor() {
+		return clawMotor;
+	}
+}
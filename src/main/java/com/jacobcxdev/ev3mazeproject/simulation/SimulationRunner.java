@@ -0,0 +1,583 @@
+package com.jacobcxdev.ev3mazeproject.simulation;
+
+import com.jacobcxdev.ev3mazeproject.hardware.BuildDescription;
+import com.jacobcxdev.ev3mazeproject.mapping.MazeFile;
+import com.jacobcxdev.ev3mazeproject.mapping.MazeStore;
+import com.jacobcxdev.ev3mazeproject.robotics.MazeDriver;
+import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import com.jacobcxdev.ev3mazeproject.sensors.SensorHub;
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.mapping.LineMap;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * A class used to run the {@code MazeDriver}, with its {@code Arbitrator} and behaviours, headlessly against a {@code SimWorld}, reporting how long the mapping run took, how accurate the map is and how much CPU time and memory it used.<br/><br/>
+ *
+ * The run ends when the EV3 leaves the bounding box of the maze or the simulated time limit is reached. The simulated world runs {@code timeScale} times faster than real time, so a 10 minute run at a time scale of 100 completes in 6 seconds.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class SimulationRunner {
+	// Public Static Classes
+
+	/**
+	 * A class used to hold the results of a simulated mapping run.
+	 */
+	public static class Report {
+		// Public Fields
+
+		/**
+		 * The simulated time taken by the run (in nanoseconds).
+		 */
+		public final long simulatedTime;
+
+		/**
+		 * The real time taken by the run (in nanoseconds).
+		 */
+		public final long realTime;
+
+		/**
+		 * Whether the EV3 left the maze before the time limit was reached.
+		 */
+		public final boolean exited;
+
+		/**
+		 * The number of moves recorded by the {@code MazeStore}.
+		 */
+		public final int moveCount;
+
+		/**
+		 * The number of walls in the constructed {@code LineMap}.
+		 */
+		public final int wallCount;
+
+		/**
+		 * The mean distance from points along the constructed walls to the nearest real wall (in millimetres).
+		 */
+		public final double meanMapError;
+
+		/**
+		 * The greatest distance from a point along the constructed walls to the nearest real wall (in millimetres).
+		 */
+		public final double maxMapError;
+
+		/**
+		 * The number of times the {@code EventArbitrator} called {@code takeControl()}.
+		 */
+		public final long evaluationCount;
+
+		/**
+		 * The greatest lateness of a scheduled sample taken by the {@code SensorHub} (in nanoseconds).
+		 */
+		public final long maxSampleJitter;
+
+		/**
+		 * The greatest lateness of a run of the heading controller (in nanoseconds).
+		 */
+		public final long maxControlJitter;
+
+		/**
+		 * The number of runs of the heading controller skipped because the previous run finished too late.
+		 */
+		public final long controlOverrunCount;
+
+		/**
+		 * The number of rotations made by the {@code GyroWheeledChassis}.
+		 */
+		public final long turnCount;
+
+		/**
+		 * The mean simulated time taken by a rotation (in nanoseconds).
+		 */
+		public final double meanTurnTime;
+
+		/**
+		 * The longest simulated time taken by a rotation (in nanoseconds).
+		 */
+		public final long maxTurnTime;
+
+		/**
+		 * The mean difference between the heading and the desired heading at the end of a rotation (in degrees).
+		 */
+		public final double meanTurnError;
+
+		/**
+		 * The greatest difference between the heading and the desired heading at the end of a rotation (in degrees).
+		 */
+		public final double maxTurnError;
+
+		/**
+		 * The number of correction passes made by the rotations.
+		 */
+		public final long correctionPassCount;
+
+		/**
+		 * The CPU time used by the process during the run (in nanoseconds).
+		 */
+		public final long cpuTime;
+
+		/**
+		 * The memory allocated during the run by threads which were still alive at the end of it (in bytes).
+		 */
+		public final long allocatedBytes;
+
+		/**
+		 * The number of garbage collections during the run.
+		 */
+		public final long gcCount;
+
+		// Public Constructors
+
+		/**
+		 * Creates a {@code Report} object.
+		 *
+		 * @param simulatedTime The simulated time taken by the run (in nanoseconds).
+		 * @param realTime The real time taken by the run (in nanoseconds).
+		 * @param exited Whether the EV3 left the maze before the time limit was reached.
+		 * @param moveCount The number of moves recorded by the {@code MazeStore}.
+		 * @param wallCount The number of walls in the constructed {@code LineMap}.
+		 * @param meanMapError The mean distance from points along the constructed walls to the nearest real wall (in millimetres).
+		 * @param maxMapError The greatest distance from a point along the constructed walls to the nearest real wall (in millimetres).
+		 * @param evaluationCount The number of times the {@code EventArbitrator} called {@code takeControl()}.
+		 * @param maxSampleJitter The greatest lateness of a scheduled sample taken by the {@code SensorHub} (in nanoseconds).
+		 * @param maxControlJitter The greatest lateness of a run of the heading controller (in nanoseconds).
+		 * @param controlOverrunCount The number of runs of the heading controller skipped because the previous run finished too late.
+		 * @param turnCount The number of rotations made by the {@code GyroWheeledChassis}.
+		 * @param meanTurnTime The mean simulated time taken by a rotation (in nanoseconds).
+		 * @param maxTurnTime The longest simulated time taken by a rotation (in nanoseconds).
+		 * @param meanTurnError The mean difference between the heading and the desired heading at the end of a rotation (in degrees).
+		 * @param maxTurnError The greatest difference between the heading and the desired heading at the end of a rotation (in degrees).
+		 * @param correctionPassCount The number of correction passes made by the rotations.
+		 * @param cpuTime The CPU time used by the process during the run (in nanoseconds).
+		 * @param allocatedBytes The memory allocated during the run by threads which were still alive at the end of it (in bytes).
+		 * @param gcCount The number of garbage collections during the run.
+		 */
+		public Report(long simulatedTime, long realTime, boolean exited, int moveCount, int wallCount, double meanMapError, double maxMapError, long evaluationCount, long maxSampleJitter, long maxControlJitter, long controlOverrunCount, long turnCount, double meanTurnTime, long maxTurnTime, double meanTurnError, double maxTurnError, long correctionPassCount, long cpuTime, long allocatedBytes, long gcCount) {
+			this.simulatedTime = simulatedTime;
+			this.realTime = realTime;
+			this.exited = exited;
+			this.moveCount = moveCount;
+			this.wallCount = wallCount;
+			this.meanMapError = meanMapError;
+			this.maxMapError = maxMapError;
+			this.evaluationCount = evaluationCount;
+			this.maxSampleJitter = maxSampleJitter;
+			this.maxControlJitter = maxControlJitter;
+			this.controlOverrunCount = controlOverrunCount;
+			this.turnCount = turnCount;
+			this.meanTurnTime = meanTurnTime;
+			this.maxTurnTime = maxTurnTime;
+			this.meanTurnError = meanTurnError;
+			this.maxTurnError = maxTurnError;
+			this.correctionPassCount = correctionPassCount;
+			this.cpuTime = cpuTime;
+			this.allocatedBytes = allocatedBytes;
+			this.gcCount = gcCount;
+		}
+
+		// Object Override Methods
+
+		@Override
+		public String toString() {
+			return String.format(
+				"Simulated time: %.1fs%nReal time: %.1fs%nExited: %b%nMoves: %d%nWalls: %d%nMap error: %.1fmm mean, %.1fmm max%nBehaviour evaluations: %d%nMax sample jitter: %.2fms%nMax control jitter: %.2fms, %d overruns%nTurns: %d, %.2fs mean, %.2fs max, %d correction passes%nTurn error: %.2fdeg mean, %.2fdeg max%nCPU time: %.1fs%nAllocated: %.1f MB%nGCs: %d",
+				simulatedTime / 1e9, realTime / 1e9, exited, moveCount, wallCount, meanMapError, maxMapError, evaluationCount, maxSampleJitter / 1e6, maxControlJitter / 1e6, controlOverrunCount, turnCount, meanTurnTime / 1e9, maxTurnTime / 1e9, correctionPassCount, meanTurnError, maxTurnError, cpuTime / 1e9, allocatedBytes / 1e6, gcCount
+			);
+		}
+	}
+
+	// Private Static Fields
+
+	/**
+	 * The distance between the points along each constructed wall which are compared with the real walls (in millimetres).
+	 */
+	private static final float MAP_ERROR_STEP = 10;
+
+	/**
+	 * The time between checks of whether the run should end (in milliseconds).
+	 */
+	private static final long WATCHDOG_INTERVAL = 10;
+
+	/**
+	 * The longest time to wait for the mapping thread to finish once mapping has been stopped (in milliseconds).
+	 */
+	private static final long MAPPING_STOP_TIMEOUT = 1000;
+
+	/**
+	 * The longest time to wait for the mapping thread to start mapping (in milliseconds).
+	 */
+	private static final long MAPPING_START_TIMEOUT = 5000;
+
+	/**
+	 * The {@code Pattern} used to read the coordinates of a wall from a line of newline-delimited JSON.
+	 */
+	private static final Pattern JSON_COORDINATE = Pattern.compile("\"(x1|y1|x2|y2)\"\\s*:\\s*(-?[0-9.]+(?:[eE][-+]?[0-9]+)?)");
+
+	// Private Fields
+
+	/**
+	 * The walls of the maze.
+	 */
+	private final LineMap maze;
+
+	/**
+	 * The {@code BuildDescription} of the simulated EV3.
+	 */
+	private final BuildDescription buildDescription;
+
+	/**
+	 * The distance from the centre of the EV3 to its touch sensor (in millimetres).
+	 */
+	private final float bumperOffset;
+
+	/**
+	 * The number of simulated seconds which pass per real second.
+	 */
+	private final double timeScale;
+
+	/**
+	 * The longest simulated time the run may take (in nanoseconds).
+	 */
+	private final long timeLimit;
+
+	/**
+	 * The x coordinate the EV3 starts at (in millimetres).
+	 */
+	private double startX;
+
+	/**
+	 * The y coordinate the EV3 starts at (in millimetres).
+	 */
+	private double startY;
+
+	/**
+	 * The heading the EV3 starts with (in degrees clockwise from the positive y axis).
+	 */
+	private double startHeading;
+
+	/**
+	 * The fraction by which the right wheel travels further than the left wheel for the same rotation.
+	 */
+	private double wheelBias;
+
+	/**
+	 * The standard deviation of the fraction by which each wheel slips in each step.
+	 */
+	private double wheelSlip;
+
+	/**
+	 * The standard deviation of the noise added to each gyro sample (in degrees).
+	 */
+	private double gyroNoise;
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code SimulationRunner} object, with the EV3 starting at (0, 0) with a heading of 0.
+	 *
+	 * @param maze The walls of the maze (in millimetres).
+	 * @param buildDescription The {@code BuildDescription} of the simulated EV3.
+	 * @param bumperOffset The distance from the centre of the EV3 to its touch sensor (in millimetres).
+	 * @param timeScale The number of simulated seconds which pass per real second.
+	 * @param timeLimit The longest simulated time the run may take (in seconds).
+	 */
+	public SimulationRunner(LineMap maze, BuildDescription buildDescription, float bumperOffset, double timeScale, double timeLimit) {
+		this.maze = maze;
+		this.buildDescription = buildDescription;
+		this.bumperOffset = bumperOffset;
+		this.timeScale = timeScale;
+		this.timeLimit = (long)(timeLimit * 1e9);
+	}
+
+	// Private Static Methods
+
+	/**
+	 * Gets the total number of garbage collections since the JVM started.
+	 *
+	 * @return The total number of garbage collections.
+	 */
+	private static long getGcCount() {
+		var count = 0L;
+		for (var gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the memory allocated by each live thread.
+	 *
+	 * @param threads The {@code ThreadMXBean} to query.
+	 * @return A map from the ID of each live thread to the memory it has allocated (in bytes).
+	 */
+	private static HashMap<Long, Long> getAllocatedBytes(com.sun.management.ThreadMXBean threads) {
+		var ids = threads.getAllThreadIds();
+		var bytes = threads.getThreadAllocatedBytes(ids);
+		var allocated = new HashMap<Long, Long>();
+		for (int i = 0; i < ids.length; i++) {
+			if (bytes[i] >= 0) {
+				allocated.put(ids[i], bytes[i]);
+			}
+		}
+		return allocated;
+	}
+
+	// Private Methods
+
+	/**
+	 * Measures the error of a constructed {@code LineMap} against the real walls, after moving it from the frame of the {@code MazeStore} into the frame of the maze.
+	 *
+	 * @param map The constructed {@code LineMap}.
+	 * @param world The {@code SimWorld} holding the real walls.
+	 * @return The mean and greatest distance from points along the constructed walls to the nearest real wall (in millimetres).
+	 */
+	private double[] measureMapError(LineMap map, SimWorld world) {
+		var radians = Math.toRadians(startHeading);
+		var sin = Math.sin(radians);
+		var cos = Math.cos(radians);
+		var sum = 0d;
+		var max = 0d;
+		var count = 0;
+		for (var line : map.getLines()) {
+			var length = Math.hypot(line.x2 - line.x1, line.y2 - line.y1);
+			var steps = Math.max(1, (int)Math.ceil(length / MAP_ERROR_STEP));
+			for (int i = 0; i <= steps; i++) {
+				var t = i / (double)steps;
+				var mx = line.x1 + t * (line.x2 - line.x1);
+				var my = line.y1 + t * (line.y2 - line.y1);
+				var x = startX + mx * cos + my * sin;
+				var y = startY - mx * sin + my * cos;
+				var error = world.getWalls().distanceToNearestWall((float)x, (float)y);
+				sum += error;
+				max = Math.max(max, error);
+				count++;
+			}
+		}
+		return new double[] {count > 0 ? sum / count : 0, max};
+	}
+
+	/**
+	 * Waits for a {@code MazeDriver} to start mapping on a given thread.
+	 *
+	 * @param driver The {@code MazeDriver}.
+	 * @param mapping The thread the {@code MazeDriver} is mapping on.
+	 * @throws IllegalStateException If the thread finished, or the timeout passed, before mapping started.
+	 */
+	private static void awaitMapping(MazeDriver driver, Thread mapping) {
+		var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAPPING_START_TIMEOUT);
+		try {
+			while (!driver.awaitState(MazeDriver.State.MAPPING, WATCHDOG_INTERVAL)) {
+				if (!mapping.isAlive()) {
+					throw new IllegalStateException("The mapping thread finished before mapping started.");
+				}
+				if (System.nanoTime() - deadline > 0) {
+					throw new IllegalStateException(String.format("Mapping did not start within %dms.", MAPPING_START_TIMEOUT));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Public Static Methods
+
+	/**
+	 * Loads the walls of a maze from either a maze file written by {@code MazeStore.save}, if its name ends in {@code .bin}, or newline-delimited JSON written by {@code MapExporter}.
+	 *
+	 * @param path The {@code Path} of the file to load.
+	 * @return A {@code LineMap} of the walls of the maze.
+	 * @throws IOException If the file could not be read.
+	 */
+	public static LineMap loadMaze(Path path) throws IOException {
+		if (path.toString().endsWith(".bin")) {
+			return MazeFile.read(path).getLineMap();
+		}
+
+		List<Line> lines = new ArrayList<>();
+		var minX = Float.POSITIVE_INFINITY;
+		var minY = Float.POSITIVE_INFINITY;
+		var maxX = Float.NEGATIVE_INFINITY;
+		var maxY = Float.NEGATIVE_INFINITY;
+		for (var json : Files.readAllLines(path)) {
+			var matcher = JSON_COORDINATE.matcher(json);
+			var coordinates = new float[4];
+			var found = 0;
+			while (matcher.find()) {
+				var index = switch (matcher.group(1)) {
+					case "x1" -> 0;
+					case "y1" -> 1;
+					case "x2" -> 2;
+					default -> 3;
+				};
+				coordinates[index] = Float.parseFloat(matcher.group(2));
+				found |= 1 << index;
+			}
+			if (found != 0b1111) {
+				continue; // Skip blank or malformed lines.
+			}
+			lines.add(new Line(coordinates[0], coordinates[1], coordinates[2], coordinates[3]));
+			minX = Math.min(minX, Math.min(coordinates[0], coordinates[2]));
+			minY = Math.min(minY, Math.min(coordinates[1], coordinates[3]));
+			maxX = Math.max(maxX, Math.max(coordinates[0], coordinates[2]));
+			maxY = Math.max(maxY, Math.max(coordinates[1], coordinates[3]));
+		}
+		if (lines.isEmpty()) {
+			throw new IOException(String.format("%s contains no walls.", path));
+		}
+		return new LineMap(lines.toArray(new Line[0]), new Rectangle(minX, minY, maxX - minX, maxY - minY));
+	}
+
+	/**
+	 * Runs a simulated mapping run from the command line.
+	 *
+	 * @param args The {@code Path} of the maze to load, followed optionally by the time scale, the time limit (in seconds), the x, y and heading the EV3 starts with, and the wheel bias, wheel slip and gyro noise.
+	 * @throws IOException If the maze could not be loaded.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: SimulationRunner <maze file> [time scale] [time limit] [start x] [start y] [start heading] [wheel bias] [wheel slip] [gyro noise]");
+			return;
+		}
+		var timeScale = args.length > 1 ? Double.parseDouble(args[1]) : 50;
+		var timeLimit = args.length > 2 ? Double.parseDouble(args[2]) : 600;
+		var buildDescription = new BuildDescription(150, 45, 80, BaseGyroSensor.GyroOrientation.GLYPH_TOP);
+		var runner = new SimulationRunner(loadMaze(Path.of(args[0])), buildDescription, 100, timeScale, timeLimit);
+		if (args.length > 5) {
+			runner.setStartPose(Double.parseDouble(args[3]), Double.parseDouble(args[4]), Double.parseDouble(args[5]));
+		}
+		if (args.length > 8) {
+			runner.setNoise(Double.parseDouble(args[6]), Double.parseDouble(args[7]), Double.parseDouble(args[8]));
+		}
+		System.out.println(runner.run());
+	}
+
+	// Public Methods
+
+	/**
+	 * Sets the pose the EV3 starts with.
+	 *
+	 * @param x The x coordinate the EV3 starts at (in millimetres).
+	 * @param y The y coordinate the EV3 starts at (in millimetres).
+	 * @param heading The heading the EV3 starts with (in degrees clockwise from the positive y axis).
+	 */
+	public void setStartPose(double x, double y, double heading) {
+		startX = x;
+		startY = y;
+		startHeading = heading;
+	}
+
+	/**
+	 * Sets the noise of the simulated EV3, which makes it drift from a straight line unless its heading is corrected.
+	 *
+	 * @param wheelBias The fraction by which the right wheel travels further than the left wheel for the same rotation.
+	 * @param wheelSlip The standard deviation of the fraction by which each wheel slips in each step.
+	 * @param gyroNoise The standard deviation of the noise added to each gyro sample (in degrees).
+	 */
+	public void setNoise(double wheelBias, double wheelSlip, double gyroNoise) {
+		this.wheelBias = wheelBias;
+		this.wheelSlip = wheelSlip;
+		this.gyroNoise = gyroNoise;
+	}
+
+	/**
+	 * Runs a simulated mapping run, blocking until the EV3 leaves the maze or the time limit is reached.<br/><br/>
+	 *
+	 * The threads of the {@code MazeDriver} and {@code SimWorld} are shut down before this returns, so a runner can be run repeatedly in the same process.
+	 *
+	 * @return A {@code Report} of the run.
+	 * @throws IllegalStateException If mapping did not start.
+	 */
+	public Report run() {
+		var world = new SimWorld(maze, buildDescription, bumperOffset, timeScale);
+		world.setPose(startX, startY, startHeading);
+		world.setWheelNoise(wheelBias, wheelSlip);
+		var portConfiguration = world.createPortConfiguration();
+		((SimGyroSensor)portConfiguration.gyroSensor).setNoise(gyroNoise);
+		var store = new MazeStore();
+		var driver = new MazeDriver(buildDescription, portConfiguration, store, false);
+		var bounds = maze.getBoundingRect();
+
+		// Sample the sensors at their usual rates in simulated time.
+		var sensorHub = driver.getSensorHub();
+		for (var channel : SensorHub.Channel.values()) {
+			sensorHub.setSamplePeriod(channel, world.scalePeriod(channel.defaultPeriod));
+		}
+		sensorHub.resetStatistics();
+
+		// Run the heading controller at its usual rate in simulated time.
+		var chassis = driver.getChassis();
+		var controlScheduler = chassis.getHeadingControlScheduler();
+		controlScheduler.setPeriod(world.scalePeriod(chassis.getControlPeriod()));
+		controlScheduler.resetStatistics();
+		chassis.resetTurnStatistics();
+
+		var threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		var os = (com.sun.management.OperatingSystemMXBean)ManagementFactory.getOperatingSystemMXBean();
+		var startAllocated = getAllocatedBytes(threads);
+		var startCpuTime = os.getProcessCpuTime();
+		var startGcCount = getGcCount();
+		var startRealTime = System.nanoTime();
+		var startTime = world.getTime();
+
+		// Map on a separate thread, so that a behaviour which does not return when the Arbitrator is stopped cannot hang the run.
+		var mapping = new Thread(driver::startMapping, "SimulationMapping");
+		mapping.setDaemon(true);
+		var exited = false;
+		long simulatedTime;
+		long realTime;
+		world.start();
+		mapping.start();
+		try {
+			awaitMapping(driver, mapping);
+
+			// Stop mapping once the EV3 leaves the maze or runs out of time.
+			while (world.getTime() - startTime < timeLimit) {
+				if (!bounds.contains(world.getX(), world.getY())) {
+					exited = true;
+					break;
+				}
+				try {
+					TimeUnit.MILLISECONDS.sleep(WATCHDOG_INTERVAL);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			simulatedTime = world.getTime() - startTime;
+			realTime = System.nanoTime() - startRealTime;
+			driver.stopMapping();
+			try {
+				mapping.join(MAPPING_STOP_TIMEOUT);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		} finally {
+			driver.shutdown(); // Stop the sensor, event and control threads, so that they do not outlive the run.
+			world.stop();
+		}
+
+		var cpuTime = os.getProcessCpuTime() - startCpuTime;
+		var gcCount = getGcCount() - startGcCount;
+		var allocatedBytes = 0L;
+		for (var entry : getAllocatedBytes(threads).entrySet()) {
+			allocatedBytes += entry.getValue() - startAllocated.getOrDefault(entry.getKey(), 0L);
+		}
+		var maxSampleJitter = 0L;
+		for (var channel : SensorHub.Channel.values()) {
+			maxSampleJitter = Math.max(maxSampleJitter, sensorHub.getMaxJitter(channel));
+		}
+		var map = store.constructLineMap();
+		var error = measureMapError(map, world);
+		return new Report(simulatedTime, realTime, exited, store.getMoveCount(), map.getLines().length, error[0], error[1], driver.getArbitrator().getEvaluationCount(), maxSampleJitter, controlScheduler.getMaxJitter(), controlScheduler.getOverrunCount(), chassis.getTurnCount(), chassis.getMeanTurnTime() * timeScale, (long)(chassis.getMaxTurnTime() * timeScale), chassis.getMeanTurnError(), chassis.getMaxTurnError(), chassis.getCorrectionPassCount(), cpuTime, allocatedBytes, gcCount);
+	}
+}
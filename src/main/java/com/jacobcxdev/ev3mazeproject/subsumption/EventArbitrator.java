@@ -0,0 +1,253 @@
+package com.jacobcxdev.ev3mazeproject.subsumption;
+
+import lejos.robotics.subsumption.Behavior;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class used to manage a set of {@code Behavior}s like LeJOS' {@code Arbitrator}, but which only checks {@code takeControl()} when it is signalled rather than polling it continuously.<br/><br/>
+ *
+ * The arbitrator is signalled when a {@code SensorCondition} of a {@code SensorEventMonitor} it listens to changes, when {@code signal()} is called (e.g. when the state of the {@code MazeDriver} changes), and when an action finishes.
+ * Behaviours must therefore base {@code takeControl()} only on {@code SensorCondition}s and state changes which signal the arbitrator.<br/><br/>
+ *
+ * As with LeJOS' {@code Arbitrator}, behaviours later in the array have higher priority, and a running action is suppressed when a higher priority behaviour wants control.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class EventArbitrator implements SensorEventMonitor.TransitionListener {
+	// Private Classes
+
+	/**
+	 * A class used to suppress the running action when a higher priority behaviour wants control.
+	 */
+	private class Monitor extends Thread {
+		// Public Constructors
+
+		/**
+		 * Creates a {@code Monitor} object.
+		 */
+		public Monitor() {
+			super("EventArbitratorMonitor");
+			setDaemon(true);
+		}
+
+		// Thread Override Methods
+
+		@Override
+		public void run() {
+			while (running) {
+				synchronized (lock) {
+					while (running && !monitorSignalled) {
+						try {
+							lock.wait();
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+					monitorSignalled = false;
+				}
+				var active = EventArbitrator.this.active;
+				if (active != NONE && findHighestPriority(active + 1) != NONE) {
+					behaviors[active].suppress();
+				}
+			}
+		}
+	}
+
+	// Private Static Fields
+
+	/**
+	 * The index used when no behaviour is active or wants control.
+	 */
+	private static final int NONE = -1;
+
+	// Private Fields
+
+	/**
+	 * The {@code Behavior}s managed by the arbitrator, in increasing order of priority.
+	 */
+	private final Behavior[] behaviors;
+
+	/**
+	 * Whether {@code go()} should return when no behaviour wants control.
+	 */
+	private final boolean returnWhenInactive;
+
+	/**
+	 * The lock guarding the signal flags.
+	 */
+	private final Object lock = new Object();
+
+	/**
+	 * The {@code Monitor} started by the current call to {@code go()}.
+	 */
+	private Monitor monitor;
+
+	/**
+	 * Whether the arbitrator is running.
+	 */
+	private volatile boolean running;
+
+	/**
+	 * The index of the behaviour whose action is running, or {@code NONE}.
+	 */
+	private volatile int active = NONE;
+
+	/**
+	 * Whether the arbitrator has been signalled since {@code go()} last checked which behaviour wants control.
+	 */
+	private boolean signalled;
+
+	/**
+	 * Whether the arbitrator has been signalled since the {@code Monitor} last checked whether to suppress the running action.
+	 */
+	private boolean monitorSignalled;
+
+	/**
+	 * The number of times {@code takeControl()} has been called.
+	 */
+	private final AtomicLong evaluationCount = new AtomicLong();
+
+	// Public Constructors
+
+	/**
+	 * Creates an {@code EventArbitrator} object which keeps running when no behaviour wants control.
+	 *
+	 * @param behaviors The {@code Behavior}s to manage, in increasing order of priority.
+	 */
+	public EventArbitrator(Behavior[] behaviors) {
+		this(behaviors, false);
+	}
+
+	/**
+	 * Creates an {@code EventArbitrator} object.
+	 *
+	 * @param behaviors The {@code Behavior}s to manage, in increasing order of priority.
+	 * @param returnWhenInactive Whether {@code go()} should return when no behaviour wants control.
+	 */
+	public EventArbitrator(Behavior[] behaviors, boolean returnWhenInactive) {
+		this.behaviors = behaviors;
+		this.returnWhenInactive = returnWhenInactive;
+	}
+
+	// Private Methods
+
+	/**
+	 * Finds the highest priority behaviour which wants control, checking behaviours in decreasing order of priority.
+	 *
+	 * @param lowest The index of the lowest priority behaviour to check.
+	 * @return The index of the highest priority behaviour which wants control, or {@code NONE}.
+	 */
+	private int findHighestPriority(int lowest) {
+		for (int i = behaviors.length - 1; i >= lowest; i--) {
+			evaluationCount.incrementAndGet();
+			if (behaviors[i].takeControl()) {
+				return i;
+			}
+		}
+		return NONE;
+	}
+
+	// Public Methods
+
+	/**
+	 * Runs the actions of the behaviours which want control until {@code stop()} is called or, if {@code returnWhenInactive} is set, no behaviour wants control.
+	 */
+	public void go() {
+		running = true;
+		synchronized (lock) {
+			signalled = false;
+			monitorSignalled = false;
+		}
+		monitor = new Monitor();
+		monitor.start();
+		try {
+			while (running) {
+				var next = findHighestPriority(0);
+				if (next == NONE) {
+					if (returnWhenInactive) {
+						break;
+					}
+					synchronized (lock) {
+						while (running && !signalled) {
+							try {
+								lock.wait();
+							} catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+								return;
+							}
+						}
+						signalled = false;
+					}
+					continue;
+				}
+				active = next;
+				synchronized (lock) {
+					// Make the `Monitor` check once more, in case a transition was signalled before the action became active.
+					monitorSignalled = true;
+					lock.notifyAll();
+				}
+				behaviors[next].action();
+				active = NONE;
+			}
+		} finally {
+			running = false;
+			signal();
+			try {
+				monitor.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Stops the arbitrator, suppressing the running action. {@code go()} returns once the action has returned.
+	 */
+	public void stop() {
+		running = false;
+		var active = this.active;
+		if (active != NONE) {
+			behaviors[active].suppress();
+		}
+		signal();
+	}
+
+	/**
+	 * Signals the arbitrator to check which behaviour wants control.
+	 */
+	public void signal() {
+		synchronized (lock) {
+			signalled = true;
+			monitorSignalled = true;
+			lock.notifyAll();
+		}
+	}
+
+	// Public Getters/Setters
+
+	/**
+	 * Gets whether the arbitrator is running.
+	 *
+	 * @return Whether the arbitrator is running.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Gets the number of times {@code takeControl()} has been called, which can be compared with the number of polls made by LeJOS' {@code Arbitrator}.
+	 *
+	 * @return The number of calls to {@code takeControl()}.
+	 */
+	public long getEvaluationCount() {
+		return evaluationCount.get();
+	}
+
+	// TransitionListener Override Methods
+
+	@Override
+	public void conditionChanged(SensorCondition condition) {
+		signal();
+	}
+}
@@ -1,8 +1,7 @@
 package com.jacobcxdev.ev3mazeproject.subsumption;
 
 import com.jacobcxdev.ev3mazeproject.robotics.MazeDriver;
-import com.jacobcxdev.ev3mazeproject.sensors.BaseUltrasonicSensor;
-import lejos.robotics.SampleProvider;
+import com.jacobcxdev.ev3mazeproject.sensors.SensorHub;
 import lejos.robotics.subsumption.Behavior;
 import org.slf4j.LoggerFactory;
 
@@ -15,20 +14,17 @@ public class MoveForward implements Behavior {
 	// Private Classes
 	
 	/**
-	 * A {@code Thread} subclass which is used to monitor the width of the road using two {@code BaseUltrasonicSensor}s, keeping track of the narrowest width measured.
+	 * A {@code Thread} subclass which is used to monitor the width of the road using two {@code BaseUltrasonicSensor}s, keeping track of the narrowest width measured.<br/><br/>
+	 *
+	 * Each pair of samples published by the {@code SensorHub} is recorded once, rather than recording the same samples repeatedly in between.
 	 */
 	private class RoadWidthMonitor extends Thread {
 		// Private Fields
 		
 		/**
-		 * The {@code SampleProvider} used for measuring the distance with the left {@code BaseUltrasonicSensor}.
+		 * The {@code SensorHub} used for sampling the left and right {@code BaseUltrasonicSensor}s.
 		 */
-		private final SampleProvider leftUltrasonic;
-		
-		/**
-		 * The {@code SampleProvider} used for measuring the distance with the right {@code BaseUltrasonicSensor}.
-		 */
-		private final SampleProvider rightUltrasonic;
+		private final SensorHub sensorHub;
 		
 		/**
 		 * The width between the two {@code BaseUltrasonicSensor}s (in millimetres).
@@ -50,13 +46,11 @@ public class MoveForward implements Behavior {
 		/**
 		 * Creates a {@code RoadWidthMonitor} thread.
 		 * 
-		 * @param leftUltrasonicSensor The {@code BaseUltrasonicSensor} used to measure the distance between the EV3 and the nearest object on its left.
-		 * @param rightUltrasonicSensor The {@code BaseUltrasonicSensor} used to measure the distance between the EV3 and the nearest object on its right.
+		 * @param sensorHub The {@code SensorHub} used for sampling the left and right {@code BaseUltrasonicSensor}s.
 		 * @param ultrasonicSensorGap The width between the two {@code BaseUltrasonicSensor}s (in millimetres).
 		 */
-		public RoadWidthMonitor(BaseUltrasonicSensor leftUltrasonicSensor, BaseUltrasonicSensor rightUltrasonicSensor, float ultrasonicSensorGap) {
-			leftUltrasonic = leftUltrasonicSensor.getDistanceMode();
-			rightUltrasonic = rightUltrasonicSensor.getDistanceMode();
+		public RoadWidthMonitor(SensorHub sensorHub, float ultrasonicSensorGap) {
+			this.sensorHub = sensorHub;
 			this.ultrasonicSensorGap = ultrasonicSensorGap;
 			setDaemon(true);
 		}
@@ -87,6 +81,8 @@ public class MoveForward implements Behavior {
 		
 		@Override
 		public void run() {
+			var distance = new float[2];
+			var timestamp = System.nanoTime();
 			while (true) {
 				try {
 					synchronized (this) {
@@ -94,12 +90,15 @@ public class MoveForward implements Behavior {
 	                        wait();
 	                    }
 	                }
-				} catch (InterruptedException ignored) {}
+					// The right sensor is sampled after the left in each round, so wait for it.
+					timestamp = sensorHub.awaitSample(SensorHub.Channel.RIGHT_DISTANCE, timestamp, distance, 1);
+				} catch (InterruptedException ignored) {
+					continue;
+				}
 				
-				var distance = new float[2];
-				leftUltrasonic.fetchSample(distance, 0);
-				rightUltrasonic.fetchSample(distance, 1);
+				sensorHub.fetch(SensorHub.Channel.LEFT_DISTANCE, distance, 0);
 				driver.recordRoadWidth(distance[0] * 1000 + distance[1] * 1000 + ultrasonicSensorGap);
+				driver.recordUltrasonicSample(distance[0] * 1000, distance[1] * 1000, ultrasonicSensorGap);
 			}
 		}
 	}
@@ -131,35 +130,44 @@ public class MoveForward implements Behavior {
 	 * This behaviour is suppressible.
 	 * 
 	 * @param driver The {@code MazeDriver} used for controlling the EV3.
-	 * @param leftUltrasonicSensor The {@code BaseUltrasonicSensor} used to measure the distance between the EV3 and the nearest object on its left.
-	 * @param rightUltrasonicSensor The {@code BaseUltrasonicSensor} used to measure the distance between the EV3 and the nearest object on its right.
+	 * @param sensorHub The {@code SensorHub} used for sampling the left and right {@code BaseUltrasonicSensor}s.
 	 * @param ultrasonicSensorGap The width between the two {@code BaseUltrasonicSensor}s (in millimetres).
 	 */
-	public MoveForward(MazeDriver driver, BaseUltrasonicSensor leftUltrasonicSensor, BaseUltrasonicSensor rightUltrasonicSensor, float ultrasonicSensorGap) {
+	public MoveForward(MazeDriver driver, SensorHub sensorHub, float ultrasonicSensorGap) {
 		this.driver = driver;
-		roadWidthMonitor = this.new RoadWidthMonitor(leftUltrasonicSensor, rightUltrasonicSensor, ultrasonicSensorGap);
+		roadWidthMonitor = this.new RoadWidthMonitor(sensorHub, ultrasonicSensorGap);
 	}
 	
 	// Behavior Override Methods
 
 	@Override
 	public void action() {
-		shouldSuppress = false;
+		synchronized (this) {
+			shouldSuppress = false;
+		}
 		driver.moveForward();
 		if (!roadWidthMonitor.isAlive()) {
 			roadWidthMonitor.start();
 		}
 		roadWidthMonitor.resumeRunLoop();
-		while (!shouldSuppress) {
-			Thread.yield();
+		synchronized (this) {
+			while (!shouldSuppress) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
 		}
 		roadWidthMonitor.suspendRunLoop();
 		driver.moveStop();
 	}
 
 	@Override
-	public void suppress() {
+	public synchronized void suppress() {
 		shouldSuppress = true;
+		notifyAll();
 	}
 
 	@Override
@@ -0,0 +1,134 @@
+package com.jacobcxdev.ev3mazeproject.subsumption;
+
+import lejos.robotics.SampleProvider;
+
+/**
+ * A class used to represent a threshold condition on the first value of a {@code SampleProvider}, such as the touch sensor being pressed or the distance on the left being within 30 cm.<br/><br/>
+ *
+ * The condition is only sampled by a {@code SensorEventMonitor}, which notifies its listeners when the condition changes, so behaviours can read its cached state from {@code takeControl()} without fetching a sample themselves.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class SensorCondition {
+	// Public Enumerations
+
+	/**
+	 * An enumeration to represent the different possible comparisons between a sample and the threshold of a {@code SensorCondition}.
+	 */
+	public enum Comparison {
+		AT_MOST,
+		AT_LEAST
+	}
+
+	// Private Fields
+
+	/**
+	 * The {@code SampleProvider} sampled by the condition.
+	 */
+	private final SampleProvider provider;
+
+	/**
+	 * The buffer reused for every sample.
+	 */
+	private final float[] sample;
+
+	/**
+	 * The {@code Comparison} between the sample and the threshold.
+	 */
+	private final Comparison comparison;
+
+	/**
+	 * The threshold the sample is compared with.
+	 */
+	private final float threshold;
+
+	/**
+	 * Whether the condition was met when it was last sampled.
+	 */
+	private volatile boolean met;
+
+	/**
+	 * Whether the condition has become met since its activation was last consumed.
+	 */
+	private boolean activated;
+
+	/**
+	 * The number of times the condition has changed.
+	 */
+	private int transitionCount;
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code SensorCondition} object.
+	 *
+	 * @param provider The {@code SampleProvider} to sample.
+	 * @param comparison The {@code Comparison} between the sample and the threshold.
+	 * @param threshold The threshold the sample is compared with.
+	 */
+	public SensorCondition(SampleProvider provider, Comparison comparison, float threshold) {
+		this.provider = provider;
+		this.comparison = comparison;
+		this.threshold = threshold;
+		sample = new float[provider.sampleSize()];
+	}
+
+	// Package-Private Methods
+
+	/**
+	 * Fetches a sample and updates whether the condition is met.
+	 *
+	 * @return Whether the condition changed.
+	 */
+	boolean update() {
+		provider.fetchSample(sample, 0);
+		var met = switch (comparison) {
+			case AT_MOST -> sample[0] <= threshold;
+			case AT_LEAST -> sample[0] >= threshold;
+		};
+		if (met == this.met) {
+			return false;
+		}
+		synchronized (this) {
+			this.met = met;
+			activated |= met;
+			transitionCount++;
+		}
+		return true;
+	}
+
+	// Public Methods
+
+	/**
+	 * Gets whether the condition has become met since this method last returned {@code true}, clearing the activation.<br/><br/>
+	 *
+	 * Unlike {@code isMet()}, this does not miss a condition which became met and then stopped being met again before it was checked, such as a brief touch.
+	 *
+	 * @return Whether the condition has become met since its activation was last consumed.
+	 */
+	public synchronized boolean consumeActivation() {
+		var activated = this.activated;
+		this.activated = false;
+		return activated;
+	}
+
+	// Public Getters/Setters
+
+	/**
+	 * Gets whether the condition was met when it was last sampled.
+	 *
+	 * @return Whether the condition is met.
+	 */
+	public boolean isMet() {
+		return met;
+	}
+
+	/**
+	 * Gets the number of times the condition has changed.
+	 *
+	 * @return The number of transitions.
+	 */
+	public synchronized int getTransitionCount() {
+		return transitionCount;
+	}
+}
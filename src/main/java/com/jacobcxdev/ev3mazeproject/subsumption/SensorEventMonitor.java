@@ -0,0 +1,178 @@
+package com.jacobcxdev.ev3mazeproject.subsumption;
+
+import lejos.robotics.SampleProvider;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A class used to sample a set of {@code SensorCondition}s on a single thread at a fixed interval, notifying its listeners only when a condition changes.<br/><br/>
+ *
+ * This replaces each behaviour fetching its own samples every time the {@code Arbitrator} polls {@code takeControl()}, so the sensors are read at a bounded rate however often the conditions are checked.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+public class SensorEventMonitor extends Thread {
+	// Public Interfaces
+
+	/**
+	 * An interface used to receive the {@code SensorCondition}s of a {@code SensorEventMonitor} as they change.
+	 */
+	public interface TransitionListener {
+		/**
+		 * Called on the thread of the {@code SensorEventMonitor} when a {@code SensorCondition} changes.
+		 *
+		 * @param condition The {@code SensorCondition} which changed.
+		 */
+		void conditionChanged(SensorCondition condition);
+	}
+
+	// Private Static Fields
+
+	/**
+	 * The default time between samples (in milliseconds).
+	 */
+	private static final long DEFAULT_POLL_INTERVAL = 20;
+
+	// Private Fields
+
+	/**
+	 * The {@code SensorCondition}s sampled by the monitor, which is replaced rather than modified when a condition is added.
+	 */
+	private volatile SensorCondition[] conditions = new SensorCondition[0];
+
+	/**
+	 * The {@code TransitionListener}s notified when a {@code SensorCondition} changes.
+	 */
+	private final List<TransitionListener> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * The time between samples (in milliseconds).
+	 */
+	private final long pollInterval;
+
+	/**
+	 * Whether the run loop is suspended.
+	 */
+	private boolean suspended = true;
+
+	/**
+	 * Whether the monitor has been shut down, after which it is not started again.
+	 */
+	private boolean shutDown;
+
+	// Public Constructors
+
+	/**
+	 * Creates a {@code SensorEventMonitor} object with the default poll interval, which is suspended until {@code resumeRunLoop()} is called.
+	 */
+	public SensorEventMonitor() {
+		this(DEFAULT_POLL_INTERVAL);
+	}
+
+	/**
+	 * Creates a {@code SensorEventMonitor} object, which is suspended until {@code resumeRunLoop()} is called.
+	 *
+	 * @param pollInterval The time between samples (in milliseconds).
+	 */
+	public SensorEventMonitor(long pollInterval) {
+		super("SensorEventMonitor");
+		this.pollInterval = pollInterval;
+		setDaemon(true);
+	}
+
+	// Public Methods
+
+	/**
+	 * Creates a {@code SensorCondition} and adds it to the conditions sampled by the monitor.
+	 *
+	 * @param provider The {@code SampleProvider} to sample.
+	 * @param comparison The {@code Comparison} between the sample and the threshold.
+	 * @param threshold The threshold the sample is compared with.
+	 * @return The new {@code SensorCondition}.
+	 */
+	public synchronized SensorCondition watch(SampleProvider provider, SensorCondition.Comparison comparison, float threshold) {
+		var condition = new SensorCondition(provider, comparison, threshold);
+		conditions = Arrays.copyOf(conditions, conditions.length + 1);
+		conditions[conditions.length - 1] = condition;
+		return condition;
+	}
+
+	/**
+	 * Adds a {@code TransitionListener} to be notified when a {@code SensorCondition} changes.
+	 *
+	 * @param listener The {@code TransitionListener} to add.
+	 */
+	public void addTransitionListener(TransitionListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes a {@code TransitionListener} previously added with {@code addTransitionListener}.
+	 *
+	 * @param listener The {@code TransitionListener} to remove.
+	 */
+	public void removeTransitionListener(TransitionListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Suspends sampling until {@code resumeRunLoop()} is called.
+	 */
+	public synchronized void suspendRunLoop() {
+		suspended = true;
+	}
+
+	/**
+	 * Resumes sampling, starting the monitor if it has not been started yet. Each condition is sampled immediately.
+	 */
+	public synchronized void resumeRunLoop() {
+		suspended = false;
+		notify();
+		if (getState() == State.NEW && !shutDown) {
+			start();
+		}
+	}
+
+	/**
+	 * Stops sampling permanently, interrupting the monitor so that its thread exits.
+	 */
+	public synchronized void shutdown() {
+		shutDown = true;
+		interrupt();
+	}
+
+	// Thread Override Methods
+
+	@Override
+	public void run() {
+		while (true) {
+			synchronized (this) {
+				while (suspended) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+			for (var condition : conditions) {
+				if (condition.update()) {
+					for (var listener : listeners) {
+						listener.conditionChanged(condition);
+					}
+				}
+			}
+			try {
+				synchronized (this) {
+					if (!suspended) {
+						wait(pollInterval);
+					}
+				}
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+}
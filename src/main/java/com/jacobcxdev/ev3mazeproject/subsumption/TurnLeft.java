@@ -2,7 +2,6 @@ package com.jacobcxdev.ev3mazeproject.subsumption;
 
 import com.jacobcxdev.ev3mazeproject.robotics.MazeDriver;
 import com.jacobcxdev.ev3mazeproject.sensors.BaseUltrasonicSensor;
-import lejos.robotics.SampleProvider;
 import lejos.robotics.subsumption.Behavior;
 import org.slf4j.LoggerFactory;
 
@@ -20,9 +19,9 @@ public class TurnLeft implements Behavior {
 	private final MazeDriver driver;
 	
 	/**
-	 * The {@code SampleProvider} used for measuring the distance with the {@code BaseUltrasonicSensor}.
+	 * The {@code SensorCondition} met when the distance measured by the {@code BaseUltrasonicSensor} is at most 30 cm.
 	 */
-	private final SampleProvider ultrasonic;
+	private final SensorCondition ultrasonic;
 	
 	/**
 	 * Whether this behaviour is currently locked.
@@ -40,10 +39,11 @@ public class TurnLeft implements Behavior {
 	 * 
 	 * @param driver The {@code MazeDriver} used for controlling the EV3.
 	 * @param leftUltrasonicSensor The {@code BaseUltrasonicSensor} used to measure the distance between the EV3 and the nearest object on its left.
+	 * @param monitor The {@code SensorEventMonitor} used to sample the {@code BaseUltrasonicSensor}.
 	 */
-	public TurnLeft(MazeDriver driver, BaseUltrasonicSensor leftUltrasonicSensor) {
+	public TurnLeft(MazeDriver driver, BaseUltrasonicSensor leftUltrasonicSensor, SensorEventMonitor monitor) {
 		this.driver = driver;
-		ultrasonic = leftUltrasonicSensor.getDistanceMode();
+		ultrasonic = monitor.watch(leftUltrasonicSensor.getDistanceMode(), SensorCondition.Comparison.AT_MOST, .3f);
 	}
 
 	// Behavior Override Methods
@@ -62,9 +62,7 @@ public class TurnLeft implements Behavior {
 		if (driver.getState() != MazeDriver.State.MAPPING) {
 			return false;
 		}
-		var distance = new float[1];
-		ultrasonic.fetchSample(distance, 0);
-		var canTurn = distance[0] <= .3;
+		var canTurn = ultrasonic.isMet();
 		if (!canTurn) {
 			locked = false;
 		}
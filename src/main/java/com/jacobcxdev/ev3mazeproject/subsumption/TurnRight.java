@@ -2,7 +2,6 @@ package com.jacobcxdev.ev3mazeproject.subsumption;
 
 import com.jacobcxdev.ev3mazeproject.robotics.MazeDriver;
 import com.jacobcxdev.ev3mazeproject.sensors.BaseTouchSensor;
-import lejos.robotics.SampleProvider;
 import lejos.robotics.subsumption.Behavior;
 import org.slf4j.LoggerFactory;
 
@@ -20,9 +19,9 @@ public class TurnRight implements Behavior {
 	private final MazeDriver driver;
 	
 	/**
-	 * The {@code SampleProvider} used for detecting touches from the {@code EV3TouchSensor}.
+	 * The {@code SensorCondition} met when the {@code EV3TouchSensor} is pressed.
 	 */
-	private final SampleProvider touch;
+	private final SensorCondition touch;
 	
 	/**
 	 * Whether the action needs calling.
@@ -39,10 +38,11 @@ public class TurnRight implements Behavior {
 	 * This behaviour is not suppressible.
 	 *  @param driver The {@code MazeDriver} used for controlling the EV3.
 	 * @param touchSensor The {@code EV3TouchSensor} used to detect when an object is in front of the EV3.
+	 * @param monitor The {@code SensorEventMonitor} used to sample the {@code EV3TouchSensor}.
      */
-	public TurnRight(MazeDriver driver, BaseTouchSensor touchSensor) {
+	public TurnRight(MazeDriver driver, BaseTouchSensor touchSensor, SensorEventMonitor monitor) {
 		this.driver = driver;
-		touch = touchSensor.getTouchMode();
+		touch = monitor.watch(touchSensor.getTouchMode(), SensorCondition.Comparison.AT_LEAST, 1);
 	}
 
 	// Behavior Override Methods
@@ -61,9 +61,7 @@ public class TurnRight implements Behavior {
 		if (driver.getState() != MazeDriver.State.MAPPING) {
 			return false;
 		}
-		var distance = new float[1];
-		touch.fetchSample(distance, 0);
-		actionNeeded = actionNeeded || distance[0] == 1;
+		actionNeeded = actionNeeded || touch.consumeActivation() || touch.isMet();
 		return actionNeeded;
 	}
 }
@@ -1,7 +1,7 @@
 package ev3dev.sensors.nxt;
 
+import com.jacobcxdev.ev3mazeproject.hardware.SysfsSensorMode;
 import ev3dev.sensors.BaseSensor;
-import ev3dev.sensors.GenericMode;
 import lejos.hardware.port.Port;
 import lejos.hardware.sensor.SensorMode;
 import lejos.robotics.Touch;
@@ -16,7 +16,7 @@ public class NXTTouchSensor extends BaseSensor implements Touch {
     public NXTTouchSensor(final Port port) {
         super(port, LEGO_NXT_ANALOG_SENSOR);
         setModes(new SensorMode[] {
-            new GenericMode(this.PATH_DEVICE, 1, "Touch")}
+            new SysfsSensorMode(this.PATH_DEVICE.toPath(), 1, "Touch")}
         );
     }
 
@@ -1,17 +1,54 @@
 package ev3dev.sensors.nxt;
 
+import com.jacobcxdev.ev3mazeproject.hardware.SysfsSensorMode;
 import ev3dev.sensors.BaseSensor;
-import ev3dev.sensors.GenericMode;
 import lejos.hardware.port.Port;
 import lejos.hardware.sensor.SensorMode;
 import lejos.robotics.SampleProvider;
 
 /**
- * An implementation of LeJOS' {@code NXTUltrasonicSensor} within the EV3Dev context.
+ * An implementation of LeJOS' {@code NXTUltrasonicSensor} within the EV3Dev context.<br/><br/>
+ *
+ * The mode of the sensor is tracked, so that it is only switched when a sample is fetched in a different mode to the current one, rather than every time a mode is requested.
+ * Consecutive samples fetched in the same mode therefore share a single mode switch.
  *
  * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
  */
 public class NXTUltrasonicSensor extends BaseSensor {
+    // Private Classes
+
+    /**
+     * A class used to provide the samples of one mode of the sensor, switching to that mode only when needed.
+     */
+    private class ModeProvider implements SampleProvider {
+        // Private Fields
+
+        private final String systemMode;
+        private final SensorMode mode;
+
+        // Public Constructors
+
+        public ModeProvider(String systemMode, SensorMode mode) {
+            this.systemMode = systemMode;
+            this.mode = mode;
+        }
+
+        // SampleProvider Override Methods
+
+        @Override
+        public int sampleSize() {
+            return mode.sampleSize();
+        }
+
+        @Override
+        public void fetchSample(float[] sample, int offset) {
+            synchronized (NXTUltrasonicSensor.this) {
+                ensureMode(systemMode);
+                mode.fetchSample(sample, offset);
+            }
+        }
+    }
+
     // Private Static Fields
 
     private static final String LEGO_NXT_US = "lego-nxt-us";
@@ -24,38 +61,59 @@ public class NXTUltrasonicSensor extends BaseSensor {
     public static float MIN_RANGE = 5f;
     public static float MAX_RANGE = 255f;
 
+    // Private Fields
+
+    private final SampleProvider distanceMode;
+    private final SampleProvider pingMode;
+    private String currentMode; // `null` until the first switch, as the sensor may have been left in any mode.
+    private int modeSwitchCount;
+
     // Public Constructors
 
     public NXTUltrasonicSensor(final Port port) {
         super(port, LEGO_I2C, LEGO_NXT_US);
 
         setModes(new SensorMode[] {
-            new GenericMode(this.PATH_DEVICE, 1, "Distance", MIN_RANGE, MAX_RANGE, 1f),
-            new GenericMode(this.PATH_DEVICE, 1, "Ping", MIN_RANGE, MAX_RANGE, 1f)
+            new SysfsSensorMode(this.PATH_DEVICE.toPath(), 1, "Distance", MIN_RANGE, MAX_RANGE, 1f),
+            new SysfsSensorMode(this.PATH_DEVICE.toPath(), 1, "Ping", MIN_RANGE, MAX_RANGE, 1f)
         });
+        distanceMode = new ModeProvider(MODE_DISTANCE, getMode(0));
+        pingMode = new ModeProvider(MODE_PING, getMode(1));
+    }
+
+    // Private Methods
+
+    private synchronized void ensureMode(String mode) {
+        if (!mode.equals(currentMode)) {
+            switchMode(mode, SWITCH_DELAY);
+            currentMode = mode;
+            modeSwitchCount++;
+        }
     }
 
     // Public Methods
 
     public void enable() {
-        switchMode(MODE_DISTANCE, SWITCH_DELAY);
+        ensureMode(MODE_DISTANCE);
     }
 
     public void disable() {
-        switchMode(MODE_SINGLE_MEASURE, SWITCH_DELAY);
+        ensureMode(MODE_SINGLE_MEASURE);
     }
 
     public SampleProvider getDistanceMode() {
-        switchMode(MODE_DISTANCE, SWITCH_DELAY);
-        return getMode(0);
+        return distanceMode;
     }
 
     public SampleProvider getPingMode() {
-        switchMode(MODE_PING, SWITCH_DELAY);
-        return getMode(1);
+        return pingMode;
+    }
+
+    public synchronized boolean isEnabled() {
+        return !(currentMode != null ? currentMode : getSystemMode()).equals(MODE_SINGLE_MEASURE);
     }
 
-    public boolean isEnabled() {
-        return !getSystemMode().equals(MODE_SINGLE_MEASURE);
+    public synchronized int getModeSwitchCount() {
+        return modeSwitchCount;
     }
 }
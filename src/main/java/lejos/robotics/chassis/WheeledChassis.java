@@ -1,6 +1,7 @@
 package lejos.robotics.chassis;
 
 
+import com.jacobcxdev.ev3mazeproject.sensors.SampleRingBuffer;
 import lejos.robotics.RegulatedMotor;
 import lejos.robotics.localization.DynamicPoseProvider;
 import lejos.robotics.navigation.Move;
@@ -8,6 +9,8 @@ import lejos.robotics.navigation.Pose;
 import lejos.utility.Delay;
 import lejos.utility.Matrix;
 
+import java.lang.invoke.VarHandle;
+
 
 /** Represents the chassis of a wheeled robot. 
  * <p>The WheeledChassis provides a control system for driving a mobile robot with motorized wheels. 
@@ -50,6 +53,8 @@ public class WheeledChassis implements Chassis {
   
   public static final int TYPE_DIFFERENTIAL = 2;
   public static final int TYPE_HOLONOMIC = 3;
+  /** The minimum number of poses kept in the history of the odometer */
+  protected static final int POSE_HISTORY_CAPACITY = 256;
   final int              nWheels;
   /**
    * The program adds a dummy wheel to a differential chassis. 
@@ -69,9 +74,32 @@ public class WheeledChassis implements Chassis {
   final protected Matrix reverseAbs;
   protected Odometer odometer;
 
+  /**
+   * True for a chassis with two wheels and a dummy wheel. Its kinematics are calculated 
+   * from the primitive factors below, without allocating any matrices.
+   */
+  protected final boolean twoWheelDifferential;
+  /** The x, y and angular columns of the forward matrix, per wheel. */
+  private final double[] forwardX, forwardY, forwardAngular;
+  /** The x, y and angular rows of the reverse matrix, per wheel (the dummy wheel is always zero). */
+  private final double[] reverseX, reverseY, reverseAngular;
+  /** Scratch arrays for motor attributes and target motor speeds, guarded by this chassis. */
+  private final double[] motorValues, targetValues;
+
 
   
   public WheeledChassis(Wheel[] wheels, int dim) {
+    this(wheels, dim, true);
+  }
+
+  /**
+   * Creates a WheeledChassis, optionally calculating the kinematics of a two wheel differential chassis 
+   * with matrices like any other chassis, so that both ways can be compared.
+   * @param wheels
+   * @param dim
+   * @param fastDifferential false to use matrices for a two wheel differential chassis
+   */
+  WheeledChassis(Wheel[] wheels, int dim, boolean fastDifferential) {
     nWheels = wheels.length;
     if (nWheels < dim ) throw new  IllegalArgumentException(String.format("The chassis must have at least %d motorized wheels", dim));
     if (dim == TYPE_DIFFERENTIAL) dummyWheels =1;
@@ -110,6 +138,25 @@ public class WheeledChassis implements Chassis {
     forwardAbs = this.copyAbsolute(forward);
     reverseAbs = this.copyAbsolute(reverse);
 
+    // extract the factors used by the two wheel differential fast path and the odometer
+    twoWheelDifferential = fastDifferential && nWheels == 2 && dummyWheels == 1;
+    forwardX = new double[nWheels];
+    forwardY = new double[nWheels];
+    forwardAngular = new double[nWheels];
+    reverseX = new double[nWheels];
+    reverseY = new double[nWheels];
+    reverseAngular = new double[nWheels];
+    for (int i = 0; i < nWheels; i++) {
+      forwardX[i] = forward.get(i, 0);
+      forwardY[i] = forward.get(i, 1);
+      forwardAngular[i] = forward.get(i, 2);
+      reverseX[i] = reverse.get(0, i);
+      reverseY[i] = reverse.get(1, i);
+      reverseAngular[i] = reverse.get(2, i);
+    }
+    motorValues = new double[nWheels];
+    targetValues = new double[nWheels];
+
     // Give speed and acceleration some default values
     double s = this.getMaxLinearSpeed();
     double a = this.getMaxAngularSpeed();
@@ -247,6 +294,10 @@ public class WheeledChassis implements Chassis {
     if (Double.isNaN(linearSpeed)) throw new RuntimeException("Linear speed is not a number");
     if (Double.isNaN(direction)) throw new RuntimeException("Direction is not a number"); 
     if (Double.isNaN(angularSpeed)) throw new RuntimeException("Angular speed is not a number");
+    if (twoWheelDifferential) {
+      setVelocityDifferential(linearSpeed, direction, angularSpeed);
+      return;
+    }
     // create matrices with speed and acceleration components using direction;
     Matrix targetSpeed = toCartesianMatrix(linearSpeed, Math.toRadians(direction), angularSpeed);
     Matrix targetMotorSpeed = forward.times(targetSpeed);
@@ -279,6 +330,49 @@ public class WheeledChassis implements Chassis {
 
   }
   
+  /**
+   * Allocation free version of setVelocity for a two wheel differential chassis
+   */
+  private void setVelocityDifferential(double linearSpeed, double direction, double angularSpeed) {
+    double radians = Math.toRadians(direction);
+    double targetX = Math.cos(radians) * linearSpeed;
+    double targetY = Math.sin(radians) * linearSpeed;
+    getAttribute(ROTATIONSPEED, motorValues);
+    double currentX = 0, currentY = 0, currentAngular = 0;
+    for (int i = 0; i < nWheels; i++) {
+      currentX += reverseX[i] * motorValues[i];
+      currentY += reverseY[i] * motorValues[i];
+      currentAngular += reverseAngular[i] * motorValues[i];
+      targetValues[i] = forwardX[i] * targetX + forwardY[i] * targetY + forwardAngular[i] * angularSpeed;
+    }
+
+    // calculate acceleration time
+    double dx = currentX - targetX;
+    double dy = currentY - targetY;
+    double duration = Math.max(Math.sqrt(dx * dx + dy * dy) / linearAcceleration, Math.abs(currentAngular - angularSpeed) / angularAcceleration);
+    master.startSynchronization();
+
+    // Calculate and apply acceleration
+    if (duration != 0) {
+      for (int i = 0; i < nWheels; i++) {
+        int accel = (int) (Math.abs((targetValues[i] - motorValues[i]) / duration));
+        if (accel != 0)
+          motor[i].setAcceleration(accel);
+      }
+    }
+    // apply speed
+    for (int i = 0; i < nWheels; i++) {
+      double speed = targetValues[i];
+      motor[i].setSpeed((int) Math.abs(speed));
+      switch ((int) Math.signum(speed)) {
+      case -1: motor[i].backward(); break;
+      case 0: motor[i].stop(); break;
+      case 1: motor[i].forward(); break;
+      }
+    }
+    master.endSynchronization();
+  }
+
   private double getDuration(Matrix current, Matrix target) {
     Matrix dif =current.minus(target);
     double lDifference = Math.sqrt((dif.get(0, 0) * dif.get(0, 0) + dif.get(1, 0) * dif.get(1, 0)));
@@ -293,6 +387,9 @@ public class WheeledChassis implements Chassis {
     if (Double.isInfinite(linear) ) {
       setVelocity(Math.signum(linear) * linearSpeed,0);
     }
+    else if (twoWheelDifferential) {
+      setMotors(linear, 0, linearSpeed, 0, linearAcceleration, 0);
+    }
     else {
       Matrix motorDelta = forward.times(toMatrix(linear, 0, 0));
       Matrix motorSpeed = forwardAbs.times(toMatrix(linearSpeed, 0, 0 ));
@@ -306,6 +403,9 @@ public class WheeledChassis implements Chassis {
     if (Double.isInfinite(angular) ) {
       setVelocity(0, Math.signum(angular) * angularSpeed);
     }
+    else if (twoWheelDifferential) {
+      setMotors(0, angular, 0, angularSpeed, 0, angularAcceleration);
+    }
     else {
       Matrix motorDelta = forward.times(toMatrix(0, 0, angular));
       Matrix motorSpeed = forwardAbs.times(toMatrix(0, 0, angularSpeed ));
@@ -381,6 +481,27 @@ public class WheeledChassis implements Chassis {
     master.endSynchronization();
   }
 
+  /** Utility method to set distance, speed and acceleration for each motor from linear and angular components,
+   * without allocating any matrices. Only valid for a chassis without a y component.
+   * @param linear the linear distance
+   * @param angular the angular distance
+   * @param linearSpeed
+   * @param angularSpeed
+   * @param linearAcceleration
+   * @param angularAcceleration
+   */
+  protected synchronized void setMotors(double linear, double angular, double linearSpeed, double angularSpeed, double linearAcceleration, double angularAcceleration) {
+    master.startSynchronization();
+    for (int i = 0; i < nWheels; i++) {
+      double x = Math.abs(forwardX[i]);
+      double a = Math.abs(forwardAngular[i]);
+      motor[i].setAcceleration((int) (x * linearAcceleration + a * angularAcceleration));
+      motor[i].setSpeed((int) (x * linearSpeed + a * angularSpeed));
+      motor[i].rotate((int) (forwardX[i] * linear + forwardAngular[i] * angular));
+    }
+    master.endSynchronization();
+  }
+
 
   // Dynamics
   @Override
@@ -425,17 +546,43 @@ public class WheeledChassis implements Chassis {
   // Support for move reconstruction for move based pilots
   
   public void moveStart() {
+    if (twoWheelDifferential) {
+      synchronized (this) {
+        getAttribute(TACHOCOUNT, motorValues);
+        for (int i = 0; i < nWheels; i++) {
+          tachoAtMoveStart.set(i, 0, motorValues[i]);
+        }
+      }
+      return;
+    }
     tachoAtMoveStart = getAttribute(TACHOCOUNT);
   }
   
   @Override
   public Move getDisplacement(Move move) {
-    Matrix currentTacho = getAttribute(TACHOCOUNT);
-    Matrix delta = currentTacho.minus(tachoAtMoveStart);
+    double distance, rotation;
+    if (twoWheelDifferential) {
+      double x = 0, y = 0, a = 0;
+      synchronized (this) {
+        getAttribute(TACHOCOUNT, motorValues);
+        for (int i = 0; i < nWheels; i++) {
+          double delta = motorValues[i] - tachoAtMoveStart.get(i, 0);
+          x += reverseX[i] * delta;
+          y += reverseY[i] * delta;
+          a += reverseAngular[i] * delta;
+        }
+      }
+      distance = Math.sqrt(x * x + y * y);
+      rotation = a;
+    }
+    else {
+      Matrix currentTacho = getAttribute(TACHOCOUNT);
+      Matrix delta = currentTacho.minus(tachoAtMoveStart);
 
-    delta = reverse.times(delta);
-    double distance = Math.sqrt(delta.get(0, 0) * delta.get(0, 0) + delta.get(1, 0) * delta.get(1, 0));
-    double rotation = delta.get(2, 0);
+      delta = reverse.times(delta);
+      distance = Math.sqrt(delta.get(0, 0) * delta.get(0, 0) + delta.get(1, 0) * delta.get(1, 0));
+      rotation = delta.get(2, 0);
+    }
     if (distance == 0 && rotation == 0  )
       move.setValues(Move.MoveType.STOP, (float) distance, (float) rotation, isMoving());
     else if (Math.abs(rotation) < 1 )
@@ -656,78 +803,202 @@ public class WheeledChassis implements Chassis {
   
   
   @Override
-  public DynamicPoseProvider getPoseProvider() {
+  public synchronized DynamicPoseProvider getPoseProvider() {
     if (odometer == null) odometer = new Odometer();
     return  odometer;
   }
+
+  /** Returns the recent poses of the odometer, starting the odometer if needed.
+   * Each sample holds the x, y and heading of the pose and is timestamped with System.nanoTime().
+   * @return the pose history
+   */
+  public SampleRingBuffer getPoseHistory() {
+    getPoseProvider();
+    return odometer.history;
+  }
+
+  /** Updates the pose of the odometer once, besides the updates of its tracker thread, starting the odometer if needed.
+   * Used to test and measure the odometer.
+   */
+  void updatePose() {
+    getPoseProvider();
+    odometer.updatePose();
+  }
   
   /** The odometer keeps track of the robot pose based on odometry using the encoders of the regulated motors of the wheels.
+   * <p>The state is kept in primitive fields and published with a sequence lock, so updating the pose allocates nothing
+   * and readers never block the tracker: they retry in the rare case that the pose is updated while they read it.
+   * Writers are serialized by the lock of the odometer.</p>
    * @author Aswin Bouwmeester
    *
    */
   private class Odometer implements DynamicPoseProvider {
-    Matrix lastTacho, speed, lastSpeed, accel;
-    double xPose, yPose, aPose;
+    // indices into the state array
+    private static final int X = 0, Y = 1, HEADING = 2, SPEED_X = 3, SPEED_Y = 4, SPEED_ANGULAR = 5, ACCEL_X = 6, ACCEL_Y = 7, ACCEL_ANGULAR = 8;
+
+    final double[] lastTacho = new double[nWheels];
+    final double[] currentTacho = new double[nWheels];
+    /** pose, speed and acceleration, guarded by the sequence number */
+    final double[] state = new double[9];
+    /** odd while the state is being written */
+    volatile long sequence;
     long lastTime;
+    final SampleRingBuffer history = new SampleRingBuffer(POSE_HISTORY_CAPACITY, 3);
+    final float[] historySample = new float[3];
     
 
     int    interval = 64;
 
     private Odometer() {
-      lastTacho = getAttribute(TACHOCOUNT);
-      lastTime = System.currentTimeMillis();
+      getAttribute(TACHOCOUNT, lastTacho);
+      lastTime = System.nanoTime();
+      publishHistory(lastTime);
       PoseTracker tracker = new PoseTracker();
       tracker.setDaemon(true);
       tracker.start();
     }
 
+    /** Reads one element of the state without blocking */
+    private double read(int index) {
+      while (true) {
+        long seq = sequence;
+        if ((seq & 1) == 0) {
+          double value = state[index];
+          VarHandle.loadLoadFence();
+          if (sequence == seq) return value;
+        }
+        Thread.onSpinWait();
+      }
+    }
+
+    /** Reads the length of a vector in the state without blocking */
+    private double readLength(int xIndex, int yIndex) {
+      while (true) {
+        long seq = sequence;
+        if ((seq & 1) == 0) {
+          double x = state[xIndex];
+          double y = state[yIndex];
+          VarHandle.loadLoadFence();
+          if (sequence == seq) return Math.sqrt(x * x + y * y);
+        }
+        Thread.onSpinWait();
+      }
+    }
+
+    /** Reads the direction of a vector in the state without blocking */
+    private double readDirection(int xIndex, int yIndex) {
+      while (true) {
+        long seq = sequence;
+        if ((seq & 1) == 0) {
+          double x = state[xIndex];
+          double y = state[yIndex];
+          VarHandle.loadLoadFence();
+          if (sequence == seq) return Math.toDegrees(Math.atan2(y, x));
+        }
+        Thread.onSpinWait();
+      }
+    }
+
+    /** Reads three consecutive elements of the state into a column matrix without blocking */
+    private Matrix readMatrix(int first) {
+      Matrix m = new Matrix(3, 1);
+      while (true) {
+        long seq = sequence;
+        if ((seq & 1) == 0) {
+          for (int i = 0; i < 3; i++) m.set(i, 0, state[first + i]);
+          VarHandle.loadLoadFence();
+          if (sequence == seq) return m;
+        }
+        Thread.onSpinWait();
+      }
+    }
+
+    private void beginWrite() {
+      sequence++;
+      VarHandle.storeStoreFence();
+    }
+
+    private void endWrite() {
+      sequence++;
+    }
+
+    /** Adds the current pose to the history. Only called by writers. */
+    private void publishHistory(long time) {
+      historySample[0] = (float) state[X];
+      historySample[1] = (float) state[Y];
+      historySample[2] = (float) state[HEADING];
+      history.publish(time, historySample, 0);
+    }
+
     @Override
     public Pose getPose() {
-      return new Pose((float) xPose, (float) yPose, (float) aPose);
+      while (true) {
+        long seq = sequence;
+        if ((seq & 1) == 0) {
+          double x = state[X];
+          double y = state[Y];
+          double a = state[HEADING];
+          VarHandle.loadLoadFence();
+          if (sequence == seq) return new Pose((float) x, (float) y, (float) a);
+        }
+        Thread.onSpinWait();
+      }
     }
 
     @Override
     public synchronized void setPose(Pose pose) {
-      xPose = pose.getX();
-      yPose = pose.getY();
-      aPose = pose.getHeading();
+      beginWrite();
+      state[X] = pose.getX();
+      state[Y] = pose.getY();
+      state[HEADING] = pose.getHeading();
+      endWrite();
+      publishHistory(System.nanoTime());
     }
 
     private synchronized void updatePose() {
-      long thisTime;
-      Matrix currentTacho = getAttribute(TACHOCOUNT);
-      thisTime = System.currentTimeMillis();
-      Matrix delta = currentTacho.minus(lastTacho);
-
-      int max = (int) getMax(delta);
+      getAttribute(TACHOCOUNT, currentTacho);
+      long thisTime = System.nanoTime();
+      double dx = 0, dy = 0, da = 0, max = 0;
+      for (int i = 0; i < nWheels; i++) {
+        double delta = currentTacho[i] - lastTacho[i];
+        max = Math.max(max, Math.abs(delta));
+        dx += reverseX[i] * delta;
+        dy += reverseY[i] * delta;
+        da += reverseAngular[i] * delta;
+        lastTacho[i] = currentTacho[i];
+      }
+      double dt = (thisTime - lastTime) / 1e9;
 
-      delta = reverse.times(delta);
+      beginWrite();
       // update position
-      double sin = Math.sin(Math.toRadians(aPose));
-      double cos = Math.cos(Math.toRadians(aPose));
-      double x = delta.get(0, 0);
-      double y = delta.get(1, 0);
-      
-      xPose += cos * x - sin * y;
-      yPose += sin * x + cos * y;
-      aPose += delta.get(2, 0);
-      while (aPose < -180)
-        aPose += 360;
-      while (aPose > 180)
-        aPose -= 360;
-      
-      // calculate speed
-      speed = delta.times(1000 / (thisTime - lastTime));
-      
-      // calculate acceleration 
-      accel = speed.minus(lastSpeed).times(1000 / (thisTime - lastTime));
+      double sin = Math.sin(Math.toRadians(state[HEADING]));
+      double cos = Math.cos(Math.toRadians(state[HEADING]));
+      state[X] += cos * dx - sin * dy;
+      state[Y] += sin * dx + cos * dy;
+      double a = state[HEADING] + da;
+      while (a < -180)
+        a += 360;
+      while (a > 180)
+        a -= 360;
+      state[HEADING] = a;
+
+      if (dt > 0) {
+        // calculate speed and acceleration
+        double speedX = dx / dt, speedY = dy / dt, speedAngular = da / dt;
+        state[ACCEL_X] = (speedX - state[SPEED_X]) / dt;
+        state[ACCEL_Y] = (speedY - state[SPEED_Y]) / dt;
+        state[ACCEL_ANGULAR] = (speedAngular - state[SPEED_ANGULAR]) / dt;
+        state[SPEED_X] = speedX;
+        state[SPEED_Y] = speedY;
+        state[SPEED_ANGULAR] = speedAngular;
+      }
+      endWrite();
+      publishHistory(thisTime);
 
       // adjust loop speed (between 4 and 64 msec);
       if (max > 10) interval=interval / 2;
       if (max < 10) interval=interval * 2;
       interval = Math.max(Math.min(interval, 64), 4);
-      lastTacho = currentTacho;
-      lastSpeed = speed;
       lastTime = thisTime;
     }
 
@@ -742,61 +1013,57 @@ public class WheeledChassis implements Chassis {
 
     @Override
     public double getX() {
-      return xPose;
+      return read(X);
     }
 
     @Override
     public double getY() {
-      return yPose;
+      return read(Y);
     }
 
     @Override
     public double getHeading() {
-      return aPose;
+      return read(HEADING);
     }
 
     @Override
     public double getLinearSpeed() {
-      double x = speed.get(0, 0);
-      double y = speed.get(1, 0);
-      return Math.sqrt(x*x + y* y);
+      return readLength(SPEED_X, SPEED_Y);
     }
 
     @Override
     public double getDirectionOfLinearSpeed() {
-      return Math.toDegrees(Math.atan2(speed.get(1,0), speed.get(0,0)));
+      return readDirection(SPEED_X, SPEED_Y);
     }
 
     @Override
     public double getAngularSpeed() {
-      return speed.get(2, 0);
+      return read(SPEED_ANGULAR);
     }
 
     @Override
     public Matrix getSpeed() {
-      return speed.copy();
+      return readMatrix(SPEED_X);
     }
 
     @Override
     public double getLinearAcceleration() {
-      double x = accel.get(0, 0);
-      double y = accel.get(1, 0);
-      return Math.sqrt(x*x + y* y);
+      return readLength(ACCEL_X, ACCEL_Y);
     }
 
     @Override
     public double getAngularAcceleration() {
-      return accel.get(2, 0);
+      return read(ACCEL_ANGULAR);
     }
 
     @Override
     public double getDirectionOfLinearAcceleration() {
-      return Math.toDegrees(Math.atan2(accel.get(1,0), accel.get(0,0)));
+      return readDirection(ACCEL_X, ACCEL_Y);
     }
 
     @Override
     public Matrix getAcceleration() {
-      return accel.copy();
+      return readMatrix(ACCEL_X);
     }
   }
   
@@ -844,23 +1111,56 @@ protected synchronized Matrix getAttribute(int attribute) {
   Matrix x = new Matrix(nWheels+dummyWheels, 1);
   master.startSynchronization();
   for (int i = 0; i < nWheels; i++) {
-    switch (attribute) {
-    case TACHOCOUNT:
-      x.set(i, 0, motor[i].getTachoCount());
-      break;
-    case MAXSPEED:
-      x.set(i, 0, motor[i].getMaxSpeed());
-      break;
-    case ROTATIONSPEED:
-      x.set(i, 0, motor[i].getRotationSpeed());
-      break;
-    }
+    x.set(i, 0, readAttribute(i, attribute));
   }
   if (dummyWheels==1) x.set(nWheels, 0, 0);
   master.endSynchronization();
   return x;
 }
 
+/**
+ * Helper method to get some dynamic attributes from each motor into an array, without allocating
+ * 
+ * @param attribute
+ * @param values the array to store the attribute of each wheel in
+ */
+protected synchronized void getAttribute(int attribute, double[] values) {
+  master.startSynchronization();
+  for (int i = 0; i < nWheels; i++) {
+    values[i] = readAttribute(i, attribute);
+  }
+  master.endSynchronization();
+}
+
+/**
+ * Reads a dynamic attribute from the motor of a wheel
+ * 
+ * @param wheel the index of the wheel
+ * @param attribute
+ * @return the value of the attribute
+ */
+private double readAttribute(int wheel, int attribute) {
+  switch (attribute) {
+  case TACHOCOUNT:
+    return readTachoCount(wheel);
+  case MAXSPEED:
+    return motor[wheel].getMaxSpeed();
+  case ROTATIONSPEED:
+    return motor[wheel].getRotationSpeed();
+  }
+  return 0;
+}
+
+/**
+ * Reads the tacho count of the motor of a wheel. Subclasses can override this to read the tacho count more cheaply than through the motor.
+ * 
+ * @param wheel the index of the wheel
+ * @return the tacho count of the motor of the wheel
+ */
+protected int readTachoCount(int wheel) {
+  return motor[wheel].getTachoCount();
+}
+
 /**
  * Gets the biggest value from a matrix
  * 
@@ -63,7 +63,7 @@ public class MovePilot implements ArcRotateMoveController {
   private double                  angularAcceleration;
   private double                  angularSpeed;
   private Monitor                 _monitor;
-  private boolean                 _moveActive = false;
+  private volatile boolean        _moveActive = false;
   private Move                    move = null;
   private boolean                 _replaceMove = false;
 
@@ -339,7 +339,7 @@ public class MovePilot implements ArcRotateMoveController {
   public void stop() {
     // This method must be blocking
     chassis.stop();
-    while (_moveActive) Thread.yield();
+    waitMoveStopped();
   }
   
   // State
@@ -359,7 +359,26 @@ public class MovePilot implements ArcRotateMoveController {
       _monitor.notifyAll();
     }
     if (immediateReturn) return;
-    while (_moveActive) Thread.yield();
+    waitMoveStopped();
+  }
+
+  /**
+   * Blocks until the monitor has dealt with the end of the current move.
+   * Returns at once when called from the monitor itself (e.g. from a move
+   * listener), as the move can only end once the monitor carries on.
+   */
+  private void waitMoveStopped() {
+    if (Thread.currentThread() == _monitor) return;
+    synchronized (_monitor) {
+      while (_moveActive) {
+        try {
+          _monitor.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
   }
 
   private void movementStop() {
@@ -408,6 +427,8 @@ public class MovePilot implements ArcRotateMoveController {
             movementStop();
             _moveActive = false;
             _replaceMove = false;
+            // wake threads blocked in waitMoveStopped()
+            notifyAll();
           }
         }
         // wait for an event
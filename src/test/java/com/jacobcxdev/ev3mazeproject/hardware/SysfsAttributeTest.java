@@ -0,0 +1,138 @@
+package com.jacobcxdev.ev3mazeproject.hardware;
+
+import lejos.hardware.port.MotorPort;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests that {@code SysfsAttribute} finds tacho motors in a fake sysfs tree and parses their attributes each time they are rewritten.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class SysfsAttributeTest {
+    // Private Fields
+
+    /**
+     * The root of the fake sysfs tree.
+     */
+    @TempDir
+    Path sysfs;
+
+    /**
+     * The root of the device classes before the test, restored after it.
+     */
+    private Path previousRoot;
+
+    // Private Methods
+
+    /**
+     * Creates a fake tacho motor in the sysfs tree.
+     *
+     * @param name The name of the directory of the motor, e.g. {@code motor0}.
+     * @param address The {@code address} of the motor.
+     * @param position The {@code position} of the motor.
+     * @return The {@code Path} of the directory of the motor.
+     * @throws IOException If the motor could not be created.
+     */
+    private Path createMotor(String name, String address, String position) throws IOException {
+        var motor = Files.createDirectories(sysfs.resolve("tacho-motor").resolve(name));
+        Files.writeString(motor.resolve("address"), address + "\n");
+        Files.writeString(motor.resolve("position"), position + "\n");
+        return motor;
+    }
+
+    // Test Methods
+
+    @BeforeEach
+    void setRoot() {
+        previousRoot = SysfsAttribute.getRoot();
+        SysfsAttribute.setRoot(sysfs);
+    }
+
+    @AfterEach
+    void restoreRoot() {
+        SysfsAttribute.setRoot(previousRoot);
+    }
+
+    @Test
+    void findsOutputDeviceByAddress() throws IOException {
+        assertNull(SysfsAttribute.findOutputDevice("tacho-motor", MotorPort.A), "A missing device class should not be an error.");
+
+        var motorB = createMotor("motor0", "ev3-ports:outB", "0");
+        var motorA = createMotor("motor1", "ev3-ports:outA", "0");
+        Files.createDirectories(sysfs.resolve("tacho-motor/motor2")); // A device without an address is skipped.
+        assertEquals(motorA, SysfsAttribute.findOutputDevice("tacho-motor", MotorPort.A));
+        assertEquals(motorB, SysfsAttribute.findOutputDevice("tacho-motor", MotorPort.B));
+        assertNull(SysfsAttribute.findOutputDevice("tacho-motor", MotorPort.C));
+        assertNull(SysfsAttribute.findOutputDevice("dc-motor", MotorPort.A));
+    }
+
+    @Test
+    void opensMotorAttribute() throws IOException {
+        createMotor("motor0", "ev3-ports:outA", "360");
+        try (var position = SysfsAttribute.openMotorAttribute(MotorPort.A, "position")) {
+            assertNotNull(position);
+            assertEquals(sysfs.resolve("tacho-motor/motor0/position"), position.getPath());
+            assertEquals(360, position.readInt());
+        }
+        assertNull(SysfsAttribute.openMotorAttribute(MotorPort.B, "position"), "A port without a motor should give no attribute.");
+        assertNull(SysfsAttribute.openMotorAttribute(MotorPort.A, "speed"), "A missing attribute should give no attribute.");
+    }
+
+    @Test
+    void rereadsRewrittenValues() throws IOException {
+        var motor = createMotor("motor0", "ev3-ports:outA", "123456");
+        var path = motor.resolve("position");
+        try (var position = new SysfsAttribute(path)) {
+            assertEquals(123456, position.readInt());
+            assertEquals(123456, position.readInt(), "Reading again should start from the beginning of the file.");
+
+            // A shorter value must not be followed by the digits of the longer one it replaced.
+            Files.writeString(path, "78\n");
+            assertEquals(78, position.readInt());
+            Files.writeString(path, "-90\n");
+            assertEquals(-90, position.readInt());
+            Files.writeString(path, "0\n");
+            assertEquals(0, position.readInt());
+        }
+    }
+
+    @Test
+    void parsesNegativeNumbers() throws IOException {
+        var path = Files.writeString(sysfs.resolve("position"), "-2147483647\n");
+        try (var position = new SysfsAttribute(path)) {
+            assertEquals(-2147483647, position.readInt());
+            Files.writeString(path, "  -5\n");
+            assertEquals(-5, position.readInt(), "Leading spaces should be skipped.");
+            Files.writeString(path, "2147483647");
+            assertEquals(Integer.MAX_VALUE, position.readInt(), "A value without a trailing newline should be read.");
+        }
+    }
+
+    @Test
+    void rejectsNonIntegers() throws IOException {
+        var path = sysfs.resolve("mode");
+        for (var value : new String[] {"", "\n", "-", "-\n", "run-forever\n", "US-DIST-CM\n", "+5\n"}) {
+            Files.writeString(path, value);
+            try (var attribute = new SysfsAttribute(path)) {
+                assertThrows(IOException.class, attribute::readInt, String.format("\"%s\" should not be read as an integer.", value.strip()));
+            }
+        }
+    }
+
+    @Test
+    void rejectsMissingFile() {
+        assertThrows(IOException.class, () -> new SysfsAttribute(sysfs.resolve("missing")));
+    }
+}
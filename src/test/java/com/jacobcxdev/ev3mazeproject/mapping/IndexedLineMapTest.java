@@ -0,0 +1,248 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.mapping.LineMap;
+import lejos.robotics.navigation.Pose;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that {@code IndexedLineMap} answers range queries exactly as {@code LineMap} does, whatever its cell size, and that its nearest-wall queries match a scan of every wall.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class IndexedLineMapTest {
+	// Private Static Fields
+
+	/**
+	 * The width and height of the random maps, which is a few times the maximum range of {@code LineMap}.
+	 */
+	private static final float SIDE = 800;
+
+	/**
+	 * The cell sizes tested, from much smaller than a wall to larger than the map, with 0 choosing one from the number of walls.
+	 */
+	private static final float[] CELL_SIZES = {0, 3, 25, 160, 2000};
+
+	/**
+	 * The largest difference allowed between the ranges of the two maps, relative to the range.
+	 */
+	private static final float RELATIVE_TOLERANCE = 1e-4f;
+
+	// Private Static Methods
+
+	/**
+	 * Creates random walls, most of them axis-aligned on a coarse grid as {@code MazeStore} produces, with some diagonal walls among them.
+	 *
+	 * @param random The {@code Random} to use.
+	 * @param count The number of walls.
+	 * @return The walls.
+	 */
+	private static Line[] randomWalls(Random random, int count) {
+		var walls = new Line[count];
+		for (int i = 0; i < count; i++) {
+			var x = Math.round(random.nextFloat() * SIDE / 10) * 10f;
+			var y = Math.round(random.nextFloat() * SIDE / 10) * 10f;
+			var length = 10 + Math.round(random.nextFloat() * 15) * 10f;
+			switch (i % 5) {
+			case 0:
+			case 1:
+				walls[i] = new Line(x, y, x + length, y);
+				break;
+			case 2:
+			case 3:
+				walls[i] = new Line(x, y, x, y + length);
+				break;
+			default:
+				walls[i] = new Line(x, y, x + length * (random.nextFloat() - .5f), y + length * (random.nextFloat() - .5f));
+			}
+		}
+		return walls;
+	}
+
+	/**
+	 * Creates the {@code Pose}s queried from: random origins inside and around the map, and origins on walls, each with a random heading or a heading parallel to an axis.
+	 *
+	 * @param random The {@code Random} to use.
+	 * @param walls The walls of the map.
+	 * @param count The number of {@code Pose}s.
+	 * @return The {@code Pose}s.
+	 */
+	private static Pose[] randomPoses(Random random, Line[] walls, int count) {
+		var poses = new Pose[count];
+		for (int i = 0; i < count; i++) {
+			float x;
+			float y;
+			if (i % 3 == 0) { // On a wall, including its ends.
+				var wall = walls[random.nextInt(walls.length)];
+				var t = random.nextInt(5) / 4f;
+				x = wall.x1 + t * (wall.x2 - wall.x1);
+				y = wall.y1 + t * (wall.y2 - wall.y1);
+			} else { // Anywhere, including outside the extent of the walls.
+				x = random.nextFloat() * SIDE * 1.5f - SIDE / 4;
+				y = random.nextFloat() * SIDE * 1.5f - SIDE / 4;
+			}
+			var heading = i % 2 == 0 ? random.nextInt(8) * 45f : random.nextFloat() * 360 - 180;
+			poses[i] = new Pose(x, y, heading);
+		}
+		return poses;
+	}
+
+	/**
+	 * Asserts that an {@code IndexedLineMap} and a {@code LineMap} measure the same range from a {@code Pose}.
+	 *
+	 * @param expected The {@code LineMap}.
+	 * @param actual The {@code IndexedLineMap}.
+	 * @param pose The {@code Pose}.
+	 * @param cellSize The cell size of the {@code IndexedLineMap}, for the failure message.
+	 */
+	private static void assertSameRange(LineMap expected, IndexedLineMap actual, Pose pose, float cellSize) {
+		var expectedRange = expected.range(pose);
+		var actualRange = actual.range(pose);
+		var message = String.format("Range from (%s, %s) heading %s with cell size %s", pose.getX(), pose.getY(), pose.getHeading(), cellSize);
+		if (expectedRange < 0) {
+			assertEquals(-1, actualRange, message);
+		} else {
+			assertEquals(expectedRange, actualRange, Math.max(1, expectedRange) * RELATIVE_TOLERANCE, message);
+		}
+	}
+
+	/**
+	 * Gets the distance from a point to the nearest of some walls by testing every wall.
+	 *
+	 * @param walls The walls.
+	 * @param x The x coordinate of the point.
+	 * @param y The y coordinate of the point.
+	 * @return The distance to the nearest wall.
+	 */
+	private static double scanNearestDistance(Line[] walls, float x, float y) {
+		var best = Double.POSITIVE_INFINITY;
+		for (var wall : walls) {
+			best = Math.min(best, wall.ptSegDist(x, y));
+		}
+		return best;
+	}
+
+	// Test Methods
+
+	@Test
+	void rangeMatchesLineMapOnRandomMaps() {
+		var random = new Random(1);
+		for (var wallCount : new int[] {1, 20, 300}) {
+			var walls = randomWalls(random, wallCount);
+			var bounds = new Rectangle(0, 0, SIDE, SIDE);
+			var lineMap = new LineMap(walls, bounds);
+			var poses = randomPoses(random, walls, 3000);
+			for (var cellSize : CELL_SIZES) {
+				var indexed = new IndexedLineMap(walls, bounds, 254, cellSize);
+				for (var pose : poses) {
+					assertSameRange(lineMap, indexed, pose, cellSize);
+				}
+			}
+		}
+	}
+
+	@Test
+	void rangeIgnoresParallelWallsAndHitsWallsItStartsOn() {
+		var walls = new Line[] {
+			new Line(0, 0, 200, 0),
+			new Line(0, 50, 200, 50),
+			new Line(100, -100, 100, 100),
+			new Line(300, -100, 300, 100)
+		};
+		var bounds = new Rectangle(-100, -200, 500, 400);
+		var lineMap = new LineMap(walls, bounds);
+		var poses = new ArrayList<Pose>();
+		for (var heading : new float[] {0, 90, 180, -90, 45, -135}) {
+			poses.add(new Pose(50, 0, heading)); // On a horizontal wall.
+			poses.add(new Pose(100, 20, heading)); // On a vertical wall.
+			poses.add(new Pose(100, 0, heading)); // Where two walls cross.
+			poses.add(new Pose(0, 50, heading)); // On the end of a wall.
+			poses.add(new Pose(150, 25, heading)); // Between two parallel walls.
+			poses.add(new Pose(-50, 0, heading)); // In line with a wall, outside the walls.
+		}
+		for (var cellSize : CELL_SIZES) {
+			var indexed = new IndexedLineMap(walls, bounds, 254, cellSize);
+			for (var pose : poses) {
+				assertSameRange(lineMap, indexed, pose, cellSize);
+			}
+		}
+
+		// A ray along a wall passes it and hits the next wall across its path.
+		var indexed = new IndexedLineMap(walls, bounds);
+		assertEquals(50, indexed.range(new Pose(50, 0, 0)), 1e-3);
+		assertEquals(0, indexed.range(new Pose(50, 0, 90)), 1e-3);
+	}
+
+	@Test
+	void rangeMissesReturnNegativeOne() {
+		var walls = new Line[] {new Line(0, 0, 100, 0), new Line(0, 100, 100, 100)};
+		var bounds = new Rectangle(0, 0, 100, 100);
+		for (var cellSize : CELL_SIZES) {
+			var indexed = new IndexedLineMap(walls, bounds, 254, cellSize);
+			assertEquals(-1, indexed.range(new Pose(50, 50, 0)), "Between the walls, along them.");
+			assertEquals(-1, indexed.range(new Pose(200, 50, 90)), "Beside the walls.");
+			assertEquals(-1, indexed.range(new Pose(50, -10, -90)), "Facing away from the walls.");
+			assertEquals(-1, indexed.range(new Pose(-500, -500, 225)), "Outside the grid, facing away from it.");
+			assertEquals(-1, indexed.range(new Pose(150, 50, 180)), "In line with the gap between the walls.");
+		}
+		assertEquals(-1, new IndexedLineMap(new Line[0], bounds).range(new Pose(0, 0, 0)), "An empty map.");
+	}
+
+	@Test
+	void rangeIsCutOffAtMaxRange() {
+		var walls = new Line[] {new Line(250, -10, 250, 10), new Line(-258, -10, -258, 10), new Line(-10, 2549, 10, 2549), new Line(-10, -2551, 10, -2551)};
+		var bounds = new Rectangle(-300, -2600, 600, 5200);
+		var lineMap = new LineMap(walls, bounds);
+		for (var cellSize : CELL_SIZES) {
+			var indexed = new IndexedLineMap(walls, bounds, 254, cellSize);
+			assertEquals(250, indexed.range(new Pose(0, 0, 0)), 1e-3);
+			assertEquals(-1, indexed.range(new Pose(0, 0, 180)));
+			assertSameRange(lineMap, indexed, new Pose(0, 0, 0), cellSize);
+			assertSameRange(lineMap, indexed, new Pose(0, 0, 180), cellSize);
+
+			// The maximum range of the ultrasonic sensors, with a wall just within it and one just beyond it.
+			var longRange = new IndexedLineMap(walls, bounds, 2550, cellSize);
+			assertEquals(2549, longRange.range(new Pose(0, 0, 90)), 1e-2);
+			assertEquals(-1, longRange.range(new Pose(0, 0, -90)));
+			assertEquals(2550, longRange.getMaxRange());
+		}
+	}
+
+	@Test
+	void nearestWallMatchesScan() {
+		var random = new Random(2);
+		for (var wallCount : new int[] {1, 20, 300}) {
+			var walls = randomWalls(random, wallCount);
+			var bounds = new Rectangle(0, 0, SIDE, SIDE);
+			for (var cellSize : CELL_SIZES) {
+				var indexed = new IndexedLineMap(walls, bounds, 254, cellSize);
+				for (var pose : randomPoses(random, walls, 1000)) {
+					var expected = scanNearestDistance(walls, pose.getX(), pose.getY());
+					var message = String.format("Nearest wall to (%s, %s) with cell size %s", pose.getX(), pose.getY(), cellSize);
+					assertEquals(expected, indexed.distanceToNearestWall(pose.getX(), pose.getY()), 1e-3, message);
+					assertEquals(expected, indexed.nearestWall(pose.getX(), pose.getY()).ptSegDist(pose.getX(), pose.getY()), 1e-3, message);
+				}
+			}
+		}
+	}
+
+	@Test
+	void nearestWallOfEmptyMapIsNull() {
+		var indexed = new IndexedLineMap(new Line[0], new Rectangle(0, 0, 100, 100));
+		assertNull(indexed.nearestWall(50, 50));
+		assertEquals(Float.POSITIVE_INFINITY, indexed.distanceToNearestWall(50, 50));
+		var wall = new Line(0, 0, 100, 0);
+		var single = new IndexedLineMap(new Line[] {wall}, new Rectangle(0, 0, 100, 100));
+		assertSame(wall, single.nearestWall(1000, 1000));
+		assertTrue(single.distanceToNearestWall(50, 30) == 30);
+	}
+}
@@ -0,0 +1,148 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.navigation.Move.MoveType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@code JunctionGraph} on synthetic mazes.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class JunctionGraphTest {
+	// Private Static Fields
+
+	/**
+	 * The distance within which coordinates are snapped to the same grid line (in millimetres).
+	 */
+	private static final float TOLERANCE = 100;
+
+	// Private Static Methods
+
+	/**
+	 * Creates a {@code MoveLog} from alternating rotations and travels.
+	 *
+	 * @param moves The moves, as pairs of the angle to rotate by and the distance to travel afterwards.
+	 * @return The {@code MoveLog}.
+	 */
+	private static MoveLog moves(float... moves) {
+		var log = new MoveLog();
+		for (int i = 0; i < moves.length; i += 2) {
+			if (moves[i] != 0) {
+				log.append(MoveType.ROTATE, 0, moves[i], 0);
+			}
+			log.append(MoveType.TRAVEL, moves[i + 1], 0, 0);
+		}
+		return log;
+	}
+
+	/**
+	 * Asserts that a {@code MoveLog} holds a given sequence of moves.
+	 *
+	 * @param expected The expected moves, as pairs of the angle of a rotation (or 0 for a travel) and the distance of a travel.
+	 * @param route The {@code MoveLog}.
+	 */
+	private static void assertRoute(float[] expected, MoveLog route) {
+		assertEquals(expected.length / 2, route.size(), "Route length");
+		for (int i = 0; i < route.size(); i++) {
+			if (expected[2 * i] != 0) {
+				assertEquals(MoveType.ROTATE, route.getType(i));
+				assertEquals(expected[2 * i], route.getAngle(i), 1e-3f);
+			} else {
+				assertEquals(MoveType.TRAVEL, route.getType(i));
+				assertEquals(expected[2 * i + 1], route.getDistance(i), TOLERANCE);
+			}
+		}
+	}
+
+	/**
+	 * Asserts that every corridor of a {@code JunctionGraph} is axis-aligned and every rotation of its shortest route is a right angle.
+	 *
+	 * @param graph The {@code JunctionGraph}.
+	 */
+	private static void assertAxisAligned(JunctionGraph graph) {
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			var from = graph.getEdgeFrom(e);
+			var to = graph.getEdgeTo(e);
+			assertTrue(graph.getNodeX(from) == graph.getNodeX(to) || graph.getNodeY(from) == graph.getNodeY(to), String.format("Corridor %d is not axis-aligned.", e));
+			assertEquals(0, graph.getEdgeHeading(e) % 90, 1e-3, String.format("Heading of corridor %d", e));
+		}
+		var route = graph.shortestRoute();
+		for (int i = 0; i < route.size(); i++) {
+			if (route.getType(i) == MoveType.ROTATE) {
+				assertEquals(0, route.getAngle(i) % 90, 1e-3, String.format("Rotation %d", i));
+			}
+		}
+	}
+
+	// Test Methods
+
+	@Test
+	void deadEndIsPruned() {
+		// North, into a dead end to the east and back, then on to the exit to the north.
+		var graph = new JunctionGraph(moves(0, 1000, 90, 500, 180, 500, 90, 1000), TOLERANCE);
+		assertRoute(new float[] {0, 2000}, graph.shortestRoute());
+		assertEquals(3, graph.getNodeCount(), "The dead end should be pruned.");
+		assertEquals(2, graph.getEdgeCount(), "The corridor to the dead end should be pruned.");
+		assertAxisAligned(graph);
+	}
+
+	@Test
+	void shortestRouteSkipsLongWayRoundLoop() {
+		// The long way round a square back to the start, then past the corner reached first on the short way to the exit.
+		var graph = new JunctionGraph(moves(0, 1000, 90, 1000, 90, 1000, 90, 1000, 180, 2000), TOLERANCE);
+		assertRoute(new float[] {90, 0, 0, 2000}, graph.shortestRoute());
+		assertAxisAligned(graph);
+	}
+
+	@Test
+	void noisyLoopStaysAxisAligned() {
+		// The same loop with distances that do not quite close it, which used to merge junctions off the grid.
+		var graph = new JunctionGraph(moves(0, 1040, 90, 970, 90, 1060, 90, 930, 180, 1975), TOLERANCE);
+		assertEquals(2, graph.shortestRoute().size());
+		assertAxisAligned(graph);
+	}
+
+	@Test
+	void unreachableExitGivesEmptyRoute() {
+		assertEquals(0, new JunctionGraph(new MoveLog(), TOLERANCE).shortestRoute().size());
+		var graph = new JunctionGraph(new float[] {0, 0, 1000}, new float[] {0, 1000, 1000}, new int[] {0}, new int[] {1}, 0, 2);
+		assertEquals(0, graph.shortestPath().length);
+		assertEquals(0, graph.shortestRoute().size());
+	}
+
+	@Test
+	void randomLatticeWalkSnapsToLattice() {
+		// A long random walk between the junctions of a lattice, with noisy distances.
+		var random = new Random(1);
+		var pitch = 600;
+		var size = 10;
+		var log = new MoveLog();
+		var x = 0;
+		var y = 0;
+		var heading = 0;
+		for (int i = 0; i < 20000; i++) {
+			var turn = (random.nextInt(3) - 1) * 90;
+			var newHeading = Math.floorMod(heading + turn, 360);
+			var nx = x + (newHeading == 90 ? 1 : newHeading == 270 ? -1 : 0);
+			var ny = y + (newHeading == 0 ? 1 : newHeading == 180 ? -1 : 0);
+			if (nx < 0 || ny < 0 || nx >= size || ny >= size) {
+				continue;
+			}
+			if (turn != 0) {
+				log.append(MoveType.ROTATE, 0, turn, 0);
+			}
+			log.append(MoveType.TRAVEL, pitch + (random.nextFloat() - .5f) * TOLERANCE / 2, 0, 0);
+			heading = newHeading;
+			x = nx;
+			y = ny;
+		}
+		var graph = new JunctionGraph(log, TOLERANCE);
+		assertTrue(graph.getNodeCount() <= size * size, String.format("%d junctions for a %d by %d lattice.", graph.getNodeCount(), size, size));
+		assertAxisAligned(graph);
+	}
+}
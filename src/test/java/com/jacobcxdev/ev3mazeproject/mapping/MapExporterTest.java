@@ -0,0 +1,288 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import com.jacobcxdev.ev3mazeproject.simulation.SimulationRunner;
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.navigation.Move;
+import lejos.robotics.navigation.Move.MoveType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Tests that {@code MapExporter} leaves a complete SVG document and whole lines of JSON on disk each time it flushes, whether or not it is flushed explicitly, that the JSON can be loaded back by {@code SimulationRunner}, and that it exports the compacted walls at the end of a run or from a saved maze.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class MapExporterTest {
+	// Private Static Fields
+
+	/**
+	 * The margin around the walls in the {@code viewBox} (in millimetres).
+	 */
+	private static final int VIEW_BOX_MARGIN = 20;
+
+	// Private Fields
+
+	/**
+	 * The temporary directory to write the files to.
+	 */
+	@TempDir
+	Path directory;
+
+	/**
+	 * The {@code Path} of the SVG file.
+	 */
+	private Path svgPath;
+
+	/**
+	 * The {@code Path} of the newline-delimited JSON file.
+	 */
+	private Path jsonPath;
+
+	/**
+	 * The length of the SVG file before its closing tags when it holds no walls, which rewriting the {@code viewBox} in place must not change.
+	 */
+	private int headerLength;
+
+	// Private Static Methods
+
+	/**
+	 * Reports a random walk of {@code TRAVEL} and right-angled {@code ROTATE} moves to a {@code MazeStore} the way a {@code MovePilot} does.
+	 *
+	 * @param store The {@code MazeStore}.
+	 * @param random The {@code Random} of the walk.
+	 * @param count The number of moves.
+	 */
+	private static void walk(MazeStore store, Random random, int count) {
+		for (int i = 0; i < count; i++) {
+			var move = i % 2 == 0
+				? new Move(MoveType.TRAVEL, 1 + random.nextFloat() * 600, 0, 0, 0, false)
+				: new Move(MoveType.ROTATE, 0, (1 + random.nextInt(3)) * 90 * (random.nextBoolean() ? 1 : -1), 0, 0, false);
+			store.moveStarted(move, null);
+			store.moveStopped(move, null);
+		}
+	}
+
+	/**
+	 * Waits until a {@code MapExporter} has written a given number of walls to its buffers.
+	 *
+	 * @param exporter The {@code MapExporter}.
+	 * @param count The number of walls.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	private static void awaitWallCount(MapExporter exporter, int count) throws InterruptedException {
+		while (exporter.getWallCount() < count) {
+			TimeUnit.MILLISECONDS.sleep(1);
+		}
+	}
+
+	/**
+	 * Asserts that two arrays of walls are equal, in order.<br/><br/>
+	 *
+	 * Coordinates are exported exactly, so they are compared with a tolerance of 0, which also treats 0 and -0 as equal, as they are exported the same.
+	 *
+	 * @param expected The expected walls.
+	 * @param actual The actual walls.
+	 * @param message The message to fail with.
+	 */
+	private static void assertWallsEqual(Line[] expected, Line[] actual, String message) {
+		assertEquals(expected.length, actual.length, message);
+		for (int i = 0; i < expected.length; i++) {
+			var wallMessage = String.format("%s Wall %d", message, i);
+			assertEquals(expected[i].x1, actual[i].x1, 0, wallMessage);
+			assertEquals(expected[i].y1, actual[i].y1, 0, wallMessage);
+			assertEquals(expected[i].x2, actual[i].x2, 0, wallMessage);
+			assertEquals(expected[i].y2, actual[i].y2, 0, wallMessage);
+		}
+	}
+
+	/**
+	 * Parses an SVG file as XML, failing if it is not a complete document.
+	 *
+	 * @param path The {@code Path} of the SVG file.
+	 * @return The root {@code svg} element.
+	 * @throws IOException If the file could not be read.
+	 */
+	private static Element parseSvg(Path path) throws IOException {
+		try {
+			return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(path.toFile()).getDocumentElement();
+		} catch (ParserConfigurationException | SAXException e) {
+			return fail(String.format("%s is not a complete SVG document.", path), e);
+		}
+	}
+
+	/**
+	 * Reads the walls of a parsed SVG file, flipping their y axis back.
+	 *
+	 * @param svg The root {@code svg} element.
+	 * @return The walls.
+	 */
+	private static Line[] readSvgWalls(Element svg) {
+		var elements = svg.getElementsByTagName("line");
+		var walls = new Line[elements.getLength()];
+		for (int i = 0; i < walls.length; i++) {
+			var element = (Element)elements.item(i);
+			walls[i] = new Line(Float.parseFloat(element.getAttribute("x1")), -Float.parseFloat(element.getAttribute("y1")), Float.parseFloat(element.getAttribute("x2")), -Float.parseFloat(element.getAttribute("y2")));
+		}
+		return walls;
+	}
+
+	// Private Methods
+
+	/**
+	 * Asserts that the SVG and JSON files on disk hold exactly a given list of walls, in order, that the SVG is a complete document whose {@code viewBox} frames the walls, and that the JSON loads back through {@code SimulationRunner}.
+	 *
+	 * @param expected The walls.
+	 * @throws IOException If either file could not be read.
+	 */
+	private void assertExported(Line[] expected) throws IOException {
+		var message = String.format("After exporting %d walls.", expected.length);
+		var svg = parseSvg(svgPath);
+		assertWallsEqual(expected, readSvgWalls(svg), message);
+		assertEquals(headerLength, Files.readString(svgPath).indexOf("<line"), message);
+
+		var minX = Float.POSITIVE_INFINITY;
+		var minY = Float.POSITIVE_INFINITY;
+		var maxX = Float.NEGATIVE_INFINITY;
+		var maxY = Float.NEGATIVE_INFINITY;
+		for (var wall : expected) {
+			minX = Math.min(minX, Math.min(wall.x1, wall.x2));
+			minY = Math.min(minY, Math.min(wall.y1, wall.y2));
+			maxX = Math.max(maxX, Math.max(wall.x1, wall.x2));
+			maxY = Math.max(maxY, Math.max(wall.y1, wall.y2));
+		}
+		var viewBox = Arrays.stream(svg.getAttribute("viewBox").trim().split("\\s+")).mapToInt(Integer::parseInt).toArray();
+		var expectedViewBox = new int[] {
+			(int)Math.floor(minX) - VIEW_BOX_MARGIN,
+			(int)Math.floor(-maxY) - VIEW_BOX_MARGIN,
+			(int)Math.ceil(maxX - minX) + VIEW_BOX_MARGIN * 2,
+			(int)Math.ceil(maxY - minY) + VIEW_BOX_MARGIN * 2
+		};
+		assertArrayEquals(expectedViewBox, viewBox, message);
+
+		var lineMap = SimulationRunner.loadMaze(jsonPath);
+		assertWallsEqual(expected, lineMap.getLines(), message);
+		assertEquals(new Rectangle(minX, minY, maxX - minX, maxY - minY), lineMap.getBoundingRect(), message);
+	}
+
+	/**
+	 * Sets the paths of the files and creates a {@code MapExporter} writing to them, measuring the length of the header of the empty SVG document it writes.
+	 *
+	 * @return The {@code MapExporter}.
+	 * @throws IOException If either file could not be opened or read.
+	 */
+	private MapExporter createExporter() throws IOException {
+		svgPath = directory.resolve("maze.svg");
+		jsonPath = directory.resolve("maze.ndjson");
+		var exporter = new MapExporter(svgPath, jsonPath);
+		headerLength = Files.readString(svgPath).indexOf("</g>");
+		return exporter;
+	}
+
+	// Test Methods
+
+	@Test
+	@Timeout(30)
+	void flushLeavesCompleteDocuments() throws IOException, InterruptedException {
+		var store = new MazeStore();
+		var committed = new ArrayList<Line>();
+		store.addWallListener(committed::add);
+		try (var exporter = createExporter()) {
+			// Before any walls are committed, the SVG is already a complete, empty document.
+			assertEquals(0, readSvgWalls(parseSvg(svgPath)).length);
+			assertThrows(IOException.class, () -> SimulationRunner.loadMaze(jsonPath));
+
+			// Batches of walls, the last of which overflows the buffers several times before being flushed.
+			store.addWallListener(exporter);
+			var random = new Random(1);
+			for (var moves : new int[] {3, 40, 2000}) {
+				walk(store, random, moves);
+				awaitWallCount(exporter, committed.size());
+				exporter.flush();
+				assertExported(committed.toArray(new Line[0]));
+			}
+		}
+	}
+
+	@Test
+	@Timeout(30)
+	void unflushedWallsSurviveCrash() throws IOException, InterruptedException {
+		var store = new MazeStore();
+		var committed = new ArrayList<Line>();
+		store.addWallListener(committed::add);
+		try (var exporter = createExporter()) {
+			store.addWallListener(exporter);
+			walk(store, new Random(2), 60);
+			var expected = committed.toArray(new Line[0]);
+
+			// Without being flushed or closed, as if the EV3 crashed, the walls reach the files within the flush interval.
+			List<String> lines;
+			do {
+				TimeUnit.MILLISECONDS.sleep(50);
+				lines = Files.readAllLines(jsonPath);
+			} while (lines.size() < expected.length);
+			assertExported(expected);
+
+			// A line torn by a crash while writing is skipped when the JSON is loaded.
+			Files.writeString(jsonPath, "{\"x1\":1,\"y1\":", StandardOpenOption.APPEND);
+			assertWallsEqual(expected, SimulationRunner.loadMaze(jsonPath).getLines(), "After tearing the last line.");
+		}
+	}
+
+	@Test
+	@Timeout(30)
+	void finishRewritesCompactedWalls() throws IOException, InterruptedException {
+		var store = new MazeStore();
+		var exporter = createExporter();
+		store.addWallListener(exporter);
+		walk(store, new Random(3), 500);
+
+		// The streamed walls overlap, whereas the finished files hold the compacted walls, including those closing the maze.
+		exporter.finish(store);
+		var walls = store.constructLineMap().getLines();
+		assertEquals(walls.length, exporter.getWallCount());
+		assertExported(walls);
+
+		// Further walls are not exported once finished, and closing again does nothing.
+		walk(store, new Random(4), 10);
+		exporter.close();
+		assertExported(walls);
+	}
+
+	@Test
+	void exportsSavedMazeOffline() throws IOException {
+		var store = new MazeStore();
+		store.recordRoadWidth(150);
+		walk(store, new Random(5), 500);
+		var mazePath = directory.resolve("maze.bin");
+		store.save(mazePath);
+
+		// An exporter closed before any walls are committed leaves an empty document.
+		createExporter().close();
+		assertEquals(0, readSvgWalls(parseSvg(svgPath)).length);
+
+		// Exporting over it, the walls derived from the saved moves are the walls saved alongside them.
+		MapExporter.export(MazeFile.read(mazePath), svgPath, jsonPath);
+		assertExported(SimulationRunner.loadMaze(mazePath).getLines());
+	}
+}
@@ -0,0 +1,206 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.navigation.Move;
+import lejos.robotics.navigation.Move.MoveType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests that {@code MazeFile} round-trips the contents of a {@code MazeStore}, and rejects files which are truncated or corrupt.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class MazeFileTest {
+	// Private Static Fields
+
+	/**
+	 * The offset of the number of moves in the header (in bytes).
+	 */
+	private static final int MOVE_COUNT_OFFSET = 12;
+
+	/**
+	 * The offset of the first move type, i.e. the size of the header (in bytes).
+	 */
+	private static final int FIRST_TYPE_OFFSET = 32;
+
+	// Private Fields
+
+	/**
+	 * The temporary directory to write maze files to.
+	 */
+	@TempDir
+	Path directory;
+
+	// Private Static Methods
+
+	/**
+	 * Creates a {@code MazeStore} which has recorded a small maze with a loop.
+	 *
+	 * @return The {@code MazeStore}.
+	 */
+	private static MazeStore createStore() {
+		var store = new MazeStore();
+		store.recordRoadWidth(120);
+		float[] moves = {1000, 90, 500, 90, 1000, 90, 500, 90, 1000, -90, 800};
+		for (int i = 0; i < moves.length; i++) {
+			var move = i % 2 == 0
+				? new Move(MoveType.TRAVEL, moves[i], 0, 0, 0, false)
+				: new Move(MoveType.ROTATE, 0, moves[i], 0, 0, false);
+			store.moveStarted(move, null);
+			store.moveStopped(move, null);
+		}
+		return store;
+	}
+
+	/**
+	 * Formats the walls of a {@code IndexedLineMap} so that they can be compared.
+	 *
+	 * @param lineMap The {@code IndexedLineMap}.
+	 * @return The walls, formatted.
+	 */
+	private static String walls(IndexedLineMap lineMap) {
+		var walls = new StringBuilder();
+		for (var line : lineMap.getLines()) {
+			walls.append(String.format("(%s, %s)-(%s, %s) ", line.x1, line.y1, line.x2, line.y2));
+		}
+		return walls.toString();
+	}
+
+	// Private Methods
+
+	/**
+	 * Saves a {@code MazeStore} to a maze file, then overwrites part of the file.
+	 *
+	 * @param offset The offset to overwrite at (in bytes).
+	 * @param bytes The bytes to write.
+	 * @return The {@code Path} of the file.
+	 * @throws IOException If the file could not be written.
+	 */
+	private Path corrupt(int offset, byte[] bytes) throws IOException {
+		var path = directory.resolve("maze.bin");
+		createStore().save(path);
+		var contents = Files.readAllBytes(path);
+		System.arraycopy(bytes, 0, contents, offset, bytes.length);
+		Files.write(path, contents);
+		return path;
+	}
+
+	// Test Methods
+
+	/**
+	 * Tests that reading a saved maze file gives back the moves, walls and junction graph of the {@code MazeStore}.
+	 */
+	@Test
+	void roundTripPreservesContents() throws IOException {
+		var store = createStore();
+		var path = directory.resolve("maze.bin");
+		store.save(path);
+		var file = MazeFile.read(path);
+
+		assertEquals(120f, file.getRoadWidth());
+		var moves = new StringBuilder();
+		store.forEachMove((type, distance, angle, timestamp) -> moves.append(String.format("%s %s %s %d, ", type, distance, angle, timestamp)));
+		var readMoves = new StringBuilder();
+		file.getMoveLog().forEach((type, distance, angle, timestamp) -> readMoves.append(String.format("%s %s %s %d, ", type, distance, angle, timestamp)));
+		assertEquals(moves.toString(), readMoves.toString());
+
+		var lineMap = store.constructLineMap();
+		assertEquals(walls(lineMap), walls(file.getLineMap()));
+		assertEquals(lineMap.getBoundingRect(), file.getLineMap().getBoundingRect());
+
+		var graph = store.constructJunctionGraph();
+		var readGraph = file.getJunctionGraph();
+		assertEquals(graph.getNodeCount(), readGraph.getNodeCount());
+		for (int n = 0; n < graph.getNodeCount(); n++) {
+			assertEquals(graph.getNodeX(n), readGraph.getNodeX(n));
+			assertEquals(graph.getNodeY(n), readGraph.getNodeY(n));
+		}
+		assertEquals(graph.getEdgeCount(), readGraph.getEdgeCount());
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			assertEquals(graph.getEdgeFrom(e), readGraph.getEdgeFrom(e));
+			assertEquals(graph.getEdgeTo(e), readGraph.getEdgeTo(e));
+		}
+		assertEquals(graph.getStartNode(), readGraph.getStartNode());
+		assertEquals(graph.getExitNode(), readGraph.getExitNode());
+
+		var restored = new MazeStore();
+		restored.load(path);
+		assertEquals(store.getMoveCount(), restored.getMoveCount());
+		assertEquals(walls(lineMap), walls(restored.constructLineMap()));
+	}
+
+	/**
+	 * Tests that saving over an existing maze file replaces it, without leaving the temporary file behind.
+	 */
+	@Test
+	void saveReplacesExistingFile() throws IOException {
+		var path = directory.resolve("maze.bin");
+		new MazeStore().save(path);
+		createStore().save(path);
+
+		assertEquals(createStore().getMoveCount(), MazeFile.read(path).getMoveLog().size());
+		assertFalse(Files.exists(directory.resolve("maze.bin.tmp")));
+	}
+
+	/**
+	 * Tests that a maze file which has lost its end is rejected.
+	 */
+	@Test
+	void truncatedFileIsRejected() throws IOException {
+		var path = directory.resolve("maze.bin");
+		createStore().save(path);
+		var contents = Files.readAllBytes(path);
+		for (var length : new int[] {0, 16, FIRST_TYPE_OFFSET, contents.length / 2, contents.length - 8}) {
+			Files.write(path, Arrays.copyOf(contents, length));
+			assertThrows(IOException.class, () -> MazeFile.read(path), String.format("Truncated to %d bytes", length));
+		}
+	}
+
+	/**
+	 * Tests that a maze file whose header counts do not match its size is rejected.
+	 */
+	@Test
+	void mismatchedCountsAreRejected() throws IOException {
+		for (var count : new int[] {-1, 1000, Integer.MAX_VALUE}) {
+			var bytes = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(count).array();
+			var path = corrupt(MOVE_COUNT_OFFSET, bytes);
+			assertThrows(IOException.class, () -> MazeFile.read(path), String.format("Move count %d", count));
+		}
+	}
+
+	/**
+	 * Tests that a maze file with an unknown move type is rejected.
+	 */
+	@Test
+	void unknownMoveTypeIsRejected() throws IOException {
+		for (var type : new byte[] {-1, (byte)MoveType.values().length}) {
+			var path = corrupt(FIRST_TYPE_OFFSET, new byte[] {type});
+			assertThrows(IOException.class, () -> MazeFile.read(path), String.format("Move type %d", type));
+		}
+	}
+
+	/**
+	 * Tests that a maze file whose junction graph refers to a junction it does not have is rejected.
+	 */
+	@Test
+	void outOfRangeJunctionIsRejected() throws IOException {
+		var path = directory.resolve("maze.bin");
+		var lineMap = new IndexedLineMap(new Line[0], new Rectangle(0, 0, 1, 1));
+		var graph = new JunctionGraph(new float[] {0, 0}, new float[] {0, 1000}, new int[] {0}, new int[] {1}, 0, 2);
+		MazeFile.write(path, Float.NaN, new MoveLog(), lineMap, graph);
+		assertThrows(IOException.class, () -> MazeFile.read(path));
+	}
+}
@@ -0,0 +1,313 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.navigation.Move;
+import lejos.robotics.navigation.Move.MoveType;
+import lejos.robotics.navigation.MoveListener;
+import lejos.robotics.navigation.MoveProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the walls {@code MazeStore} builds incrementally match those built from the whole run at once.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class MazeStoreTest {
+	// Private Static Fields
+
+	/**
+	 * The distance within which walls are merged by the {@code MazeStore} under test (in millimetres).
+	 */
+	private static final float COMPACTION_TOLERANCE = 10;
+
+	/**
+	 * The width between the two ultrasonic sensors (in millimetres).
+	 */
+	private static final float ULTRASONIC_SENSOR_GAP = 100;
+
+	// Private Static Methods
+
+	/**
+	 * Creates a {@code MazeStore} with a 6 m x 6 m {@code OccupancyGrid} of 1 cm cells centred on the start.
+	 *
+	 * @return The {@code MazeStore}.
+	 */
+	private static MazeStore createStoreWithGrid() {
+		return new MazeStore(COMPACTION_TOLERANCE, new OccupancyGrid(-3000, -3000, 6000, 6000, 10));
+	}
+
+	/**
+	 * Creates a {@code MoveProvider} which reports the progress of a {@code TRAVEL} move in progress, running an action first as though it raced the read.
+	 *
+	 * @param progress The distance travelled so far (in millimetres).
+	 * @param beforeRead The action to run before the progress is read.
+	 * @return The {@code MoveProvider}.
+	 */
+	private static MoveProvider travelInProgress(float progress, Runnable beforeRead) {
+		return new MoveProvider() {
+			@Override
+			public Move getMovement() {
+				beforeRead.run();
+				return new Move(MoveType.TRAVEL, progress, 0, 0, 0, true);
+			}
+
+			@Override
+			public void addMoveListener(MoveListener listener) {}
+		};
+	}
+
+	/**
+	 * Generates a random walk of alternating {@code TRAVEL} and right-angled {@code ROTATE} moves.
+	 *
+	 * @param seed The seed of the walk.
+	 * @param count The number of moves.
+	 * @return The moves.
+	 */
+	private static List<Move> randomWalk(long seed, int count) {
+		var random = new Random(seed);
+		var moves = new ArrayList<Move>(count);
+		for (int i = 0; i < count; i++) {
+			if (i % 2 == 0 || random.nextInt(4) == 0) { // Occasionally travel twice in a row.
+				moves.add(new Move(MoveType.TRAVEL, 1 + random.nextFloat() * 600, 0, 0, 0, false));
+			} else {
+				var angle = (1 + random.nextInt(3)) * 90 * (random.nextBoolean() ? 1 : -1);
+				moves.add(new Move(MoveType.ROTATE, 0, angle, 0, 0, false));
+			}
+		}
+		return moves;
+	}
+
+	/**
+	 * Reports a move to a {@code MazeStore} the way a {@code MovePilot} does.
+	 *
+	 * @param store The {@code MazeStore}.
+	 * @param move The move.
+	 */
+	private static void report(MazeStore store, Move move) {
+		store.moveStarted(move, null);
+		store.moveStopped(move, null);
+	}
+
+	/**
+	 * Builds the walls of a maze from the whole run at once, in the same way {@code MazeStore} did before it built them incrementally.
+	 *
+	 * @param moves The moves made.
+	 * @param r The road width (in millimetres).
+	 * @param bounds The array to store the bounding box in, as {minX, minY, maxX, maxY}.
+	 * @return The walls, before compaction.
+	 */
+	private static Line[] batchWalls(List<Move> moves, int r, int[] bounds) {
+		var x = 0;
+		var y = 0;
+		var heading = 0;
+		var lines = new ArrayList<Line>();
+		Line firstLine1 = null, firstLine2 = null, lastLine1 = null, lastLine2 = null;
+		for (int i = 0; i < moves.size(); i++) {
+			var move = moves.get(i);
+			var previous = i > 0 ? moves.get(i - 1) : null;
+			var next = i < moves.size() - 1 ? moves.get(i + 1) : null;
+			var previousRotation = previous != null && previous.getMoveType() == MoveType.ROTATE ? (int)previous.getAngleTurned() : 0;
+			var nextRotation = next != null && next.getMoveType() == MoveType.ROTATE ? (int)next.getAngleTurned() : 0;
+			if (move.getMoveType() == MoveType.ROTATE) {
+				heading += (int)move.getAngleTurned();
+				heading = Math.floorMod(heading, 360);
+				continue;
+			}
+			var x2 = x;
+			var y2 = y;
+			var delta = (int)move.getDistanceTraveled();
+			var startStretch = (int)Math.signum(previousRotation) * r;
+			var endStretch = (int)Math.signum(nextRotation) * r;
+			Line line1, line2;
+			switch (heading) {
+				case 0 -> y2 += delta;
+				case 90 -> x2 += delta;
+				case 180 -> y2 -= delta;
+				default -> x2 -= delta;
+			}
+			if (heading == 90 || heading == 270) {
+				line1 = new Line(x + startStretch, y - r, x2 - endStretch, y2 - r);
+				line2 = new Line(x - startStretch, y + r, x2 + endStretch, y2 + r);
+			} else {
+				line1 = new Line(x - r, y - startStretch, x2 - r, y2 + endStretch);
+				line2 = new Line(x + r, y + startStretch, x2 + r, y2 - endStretch);
+			}
+			lines.add(line1);
+			lines.add(line2);
+			if (firstLine1 == null) {
+				firstLine1 = line1;
+				firstLine2 = line2;
+			}
+			lastLine1 = line1;
+			lastLine2 = line2;
+			x = x2;
+			y = y2;
+			bounds[0] = (int)Math.min(bounds[0], Math.min(line1.x1, line2.x1));
+			bounds[1] = (int)Math.min(bounds[1], Math.min(line1.y1, line2.y1));
+			bounds[2] = (int)Math.max(bounds[2], Math.max(line1.x1, line2.x1));
+			bounds[3] = (int)Math.max(bounds[3], Math.max(line1.y1, line2.y1));
+		}
+		if (lines.size() > 2) {
+			lines.add(new Line(firstLine1.x1, firstLine1.y1, lastLine1.x2, lastLine1.y2));
+			lines.add(new Line(firstLine2.x1, firstLine2.y1, lastLine2.x2, lastLine2.y2));
+		}
+		return lines.toArray(new Line[0]);
+	}
+
+	/**
+	 * Converts walls to strings in the order they are given, so that sequences of walls can be compared.
+	 *
+	 * @param lines The walls.
+	 * @return The strings.
+	 */
+	private static String[] describeInOrder(Line[] lines) {
+		return Arrays.stream(lines).map(l -> String.format("(%.1f, %.1f)-(%.1f, %.1f)", l.x1, l.y1, l.x2, l.y2)).toArray(String[]::new);
+	}
+
+	/**
+	 * Converts walls to sorted strings, so that sets of walls can be compared regardless of order.
+	 *
+	 * @param lines The walls.
+	 * @return The sorted strings.
+	 */
+	private static String[] describe(Line[] lines) {
+		return Arrays.stream(describeInOrder(lines)).sorted().toArray(String[]::new);
+	}
+
+	/**
+	 * Asserts that the walls of a {@code MazeStore} match the walls built from a given prefix of the moves at once, both before compaction, where the order and splits of the walls must match, and in its {@code LineMap}.
+	 *
+	 * @param store The {@code MazeStore}.
+	 * @param moves The moves reported to the store.
+	 * @param r The narrowest road width reported to the store (in millimetres).
+	 */
+	private static void assertMatchesBatch(MazeStore store, List<Move> moves, int r) {
+		var bounds = new int[4];
+		var walls = batchWalls(moves, r, bounds);
+		assertArrayEquals(describeInOrder(walls), describeInOrder(store.constructWalls()), String.format("Uncompacted walls differ after %d moves.", moves.size()));
+		var expected = new WallCompactor(COMPACTION_TOLERANCE).compact(walls);
+		var lineMap = store.constructLineMap();
+		assertArrayEquals(describe(expected), describe(lineMap.getLines()), String.format("Walls differ after %d moves.", moves.size()));
+		assertEquals(new Rectangle(bounds[0], bounds[1], bounds[2] - bounds[0], bounds[3] - bounds[1]), lineMap.getBoundingRect(), String.format("Bounds differ after %d moves.", moves.size()));
+	}
+
+	// Test Methods
+
+	@Test
+	void incrementalWallsMatchBatchWalls() {
+		var moves = randomWalk(1, 5000);
+		var store = new MazeStore(COMPACTION_TOLERANCE);
+		for (int i = 0; i < moves.size(); i++) {
+			report(store, moves.get(i));
+			if ((i + 1) % 250 == 0) { // Take snapshots during the run as well as at the end.
+				assertMatchesBatch(store, moves.subList(0, i + 1), 200);
+			}
+		}
+		assertMatchesBatch(store, moves, 200);
+	}
+
+	@Test
+	void narrowerRoadWidthRebuildsWalls() {
+		var moves = randomWalk(2, 3000);
+		var store = new MazeStore(COMPACTION_TOLERANCE);
+		var r = 200;
+		for (int i = 0; i < moves.size(); i++) {
+			if (i % 1000 == 500) {
+				r -= 30;
+				store.recordRoadWidth(r + .5f);
+				store.recordRoadWidth(r + 40); // Wider road widths are ignored.
+			}
+			report(store, moves.get(i));
+			if ((i + 1) % 300 == 0) {
+				assertMatchesBatch(store, moves.subList(0, i + 1), r);
+			}
+		}
+		assertMatchesBatch(store, moves, r);
+	}
+
+	@Test
+	void replayMatchesReportedMoves() {
+		var moves = randomWalk(3, 2000);
+		var reported = new MazeStore(COMPACTION_TOLERANCE);
+		moves.forEach(move -> report(reported, move));
+		var log = new MoveLog();
+		moves.forEach(move -> log.append(move.getMoveType(), move.getDistanceTraveled(), move.getAngleTurned(), move.getTimeStamp()));
+		var replayed = new MazeStore(COMPACTION_TOLERANCE);
+		replayed.replay(log);
+		assertArrayEquals(describe(reported.constructLineMap().getLines()), describe(replayed.constructLineMap().getLines()));
+		assertEquals(reported.getMoveCount(), replayed.getMoveCount());
+	}
+
+	@Test
+	void ultrasonicSamplesAreClampedToMaximumRange() {
+		var store = createStoreWithGrid();
+		var grid = store.getOccupancyGrid();
+
+		// Facing along the y axis from (0, 0), the left sensor faces -x and the right sensor faces +x, each 50 mm from the centre.
+		store.recordUltrasonicSample(2549, 3000, ULTRASONIC_SENSOR_GAP);
+		assertEquals(10, grid.get(-2595, 5), "A sample just within the maximum range should be a hit.");
+		assertEquals(7, grid.get(-1000, 5));
+		assertEquals(7, grid.get(-55, 5));
+		assertEquals(OccupancyGrid.UNKNOWN, grid.get(-2605, 5));
+		assertEquals(7, grid.get(2605, 5), "A sample beyond the maximum range should be a miss, clamped to the maximum range.");
+		assertEquals(7, grid.get(1000, 5));
+		assertEquals(OccupancyGrid.UNKNOWN, grid.get(2615, 5));
+
+		// A sample at the maximum range is a miss, and missing samples are ignored.
+		store.recordUltrasonicSample(Float.NaN, 2550, ULTRASONIC_SENSOR_GAP);
+		assertEquals(6, grid.get(2605, 5));
+		store.recordUltrasonicSample(Float.NaN, 0, ULTRASONIC_SENSOR_GAP);
+		assertEquals(10, grid.get(-2595, 5));
+		assertEquals(6, grid.get(1000, 5));
+	}
+
+	@Test
+	void ultrasonicSamplesArePlacedAtProgressOfTravel() {
+		var store = createStoreWithGrid();
+		var grid = store.getOccupancyGrid();
+		var travel = new Move(MoveType.TRAVEL, 1000, 0, 0, 0, false);
+
+		// Halfway through a travel, samples are placed at the position the EV3 has reached.
+		store.moveStarted(travel, travelInProgress(500, () -> {}));
+		store.recordUltrasonicSample(300, 300, ULTRASONIC_SENSOR_GAP);
+		assertEquals(10, grid.get(-345, 505));
+		assertEquals(10, grid.get(355, 505));
+		assertEquals(7, grid.get(-100, 505));
+
+		// A travel committed while its progress is read would place the samples at its end plus the progress, so they are dropped.
+		store.moveStarted(travel, travelInProgress(500, () -> store.moveStopped(travel, null)));
+		store.recordUltrasonicSample(300, 300, ULTRASONIC_SENSOR_GAP);
+		assertEquals(1, store.getMoveCount());
+		assertEquals(OccupancyGrid.UNKNOWN, grid.get(-345, 1505));
+		assertEquals(OccupancyGrid.UNKNOWN, grid.get(-345, 1005));
+		assertEquals(10, grid.get(-345, 505));
+
+		// So are samples raced by a travel which was committed and followed by another.
+		var next = new Move(MoveType.TRAVEL, 200, 0, 0, 0, false);
+		var provider = new MoveProvider[1];
+		provider[0] = travelInProgress(100, () -> {
+			store.moveStopped(next, null);
+			store.moveStarted(next, provider[0]);
+		});
+		store.moveStarted(next, provider[0]);
+		store.recordUltrasonicSample(300, 300, ULTRASONIC_SENSOR_GAP);
+		assertEquals(2, store.getMoveCount());
+		assertEquals(OccupancyGrid.UNKNOWN, grid.get(-345, 1305));
+		assertEquals(OccupancyGrid.UNKNOWN, grid.get(-345, 1105));
+
+		// Once the race is over, samples are recorded again.
+		store.moveStopped(next, null);
+		store.recordUltrasonicSample(300, 300, ULTRASONIC_SENSOR_GAP);
+		assertTrue(grid.isOccupied(-345, 1405));
+	}
+}
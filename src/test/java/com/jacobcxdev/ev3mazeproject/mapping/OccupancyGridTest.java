@@ -0,0 +1,247 @@
+package com.jacobcxdev.ev3mazeproject.mapping;
+
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that {@code OccupancyGrid} packs its cells independently, saturates their values, traces rays along the cells Bresenham's line algorithm visits, and joins occupied cells into walls.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class OccupancyGridTest {
+	// Private Static Fields
+
+	/**
+	 * The width and height of each cell of the grids tested (in millimetres).
+	 */
+	private static final float RESOLUTION = 10;
+
+	// Private Static Methods
+
+	/**
+	 * Sets the value of the cell containing a given point by saturating it at {@code MAX_VALUE} and then marking it free.
+	 *
+	 * @param grid The {@code OccupancyGrid}.
+	 * @param x The x coordinate of the point (in millimetres).
+	 * @param y The y coordinate of the point (in millimetres).
+	 * @param value The value to set.
+	 */
+	private static void setCell(OccupancyGrid grid, float x, float y, int value) {
+		for (int i = 0; i < OccupancyGrid.MAX_VALUE; i++) {
+			grid.markOccupied(x, y);
+		}
+		for (int i = value; i < OccupancyGrid.MAX_VALUE; i++) {
+			grid.markFree(x, y);
+		}
+	}
+
+	/**
+	 * Gets the value of a cell of a grid whose origin is (0, 0).
+	 *
+	 * @param grid The {@code OccupancyGrid}.
+	 * @param col The column of the cell.
+	 * @param row The row of the cell.
+	 * @return The value of the cell.
+	 */
+	private static int cell(OccupancyGrid grid, int col, int row) {
+		return grid.get((col + .5f) * RESOLUTION, (row + .5f) * RESOLUTION);
+	}
+
+	/**
+	 * Asserts that the cells of a grid whose origin is (0, 0) hold given values, and that every other cell is {@code UNKNOWN}.
+	 *
+	 * @param grid The {@code OccupancyGrid}.
+	 * @param cells The expected cells, as triples of column, row and value.
+	 */
+	private static void assertCells(OccupancyGrid grid, int... cells) {
+		for (int row = 0; row < grid.getRows(); row++) {
+			for (int col = 0; col < grid.getCols(); col++) {
+				var expected = OccupancyGrid.UNKNOWN;
+				for (int i = 0; i < cells.length; i += 3) {
+					if (cells[i] == col && cells[i + 1] == row) {
+						expected = cells[i + 2];
+					}
+				}
+				assertEquals(expected, cell(grid, col, row), String.format("Cell (%d, %d)", col, row));
+			}
+		}
+	}
+
+	/**
+	 * Converts walls to sorted strings, so that sets of walls can be compared regardless of order.
+	 *
+	 * @param lines The walls.
+	 * @return The sorted strings.
+	 */
+	private static String[] describe(Line[] lines) {
+		return Arrays.stream(lines).map(l -> String.format("(%.1f, %.1f)-(%.1f, %.1f)", l.x1, l.y1, l.x2, l.y2)).sorted().toArray(String[]::new);
+	}
+
+	// Test Methods
+
+	@Test
+	void rejectsNonPositiveSizes() {
+		assertThrows(IllegalArgumentException.class, () -> new OccupancyGrid(0, 0, 0, 100, RESOLUTION));
+		assertThrows(IllegalArgumentException.class, () -> new OccupancyGrid(0, 0, 100, -100, RESOLUTION));
+		assertThrows(IllegalArgumentException.class, () -> new OccupancyGrid(0, 0, 100, 100, 0));
+	}
+
+	@Test
+	void packsCellsIndependently() {
+		// Seventeen cells in one row, so the last cell is the first of the second long.
+		var grid = new OccupancyGrid(0, 0, 165, 5, RESOLUTION);
+		assertEquals(17, grid.getCols());
+		assertEquals(1, grid.getRows());
+		assertEquals(2 * Long.BYTES, grid.getSizeInBytes());
+		assertEquals(80000, new OccupancyGrid(0, 0, 4000, 4000, RESOLUTION).getSizeInBytes(), "A 4 m x 4 m grid of 1 cm cells takes 80 KB.");
+
+		// Every value in every nibble, including the top nibble of the first long and the bottom nibble of the second.
+		for (int col = 0; col < 17; col++) {
+			setCell(grid, (col + .5f) * RESOLUTION, 5, (col * 7) % 16);
+		}
+		for (int col = 0; col < 17; col++) {
+			assertEquals((col * 7) % 16, cell(grid, col, 0), String.format("Cell %d", col));
+		}
+
+		// Changing a cell leaves its neighbours in both longs alone.
+		grid.markFree(155, 5);
+		assertEquals((14 * 7) % 16, cell(grid, 14, 0));
+		assertEquals((15 * 7) % 16 - 1, cell(grid, 15, 0));
+		assertEquals((16 * 7) % 16, cell(grid, 16, 0));
+
+		grid.clear();
+		assertCells(grid);
+	}
+
+	@Test
+	void saturatesAtZeroAndFifteen() {
+		var grid = new OccupancyGrid(0, 0, 20, 20, RESOLUTION);
+		assertFalse(grid.isFree(5, 5));
+		assertFalse(grid.isOccupied(5, 5));
+
+		// Each hit adds two, up to 15.
+		for (var expected : new int[] {10, 12, 14, 15, 15}) {
+			grid.markOccupied(5, 5);
+			assertEquals(expected, grid.get(5, 5));
+		}
+		assertTrue(grid.isOccupied(5, 5));
+
+		// Each miss takes one, down to 0, and a hit after saturating at 0 counts in full.
+		for (int expected = 14; expected >= 0; expected--) {
+			grid.markFree(5, 5);
+			assertEquals(expected, grid.get(5, 5));
+		}
+		grid.markFree(5, 5);
+		assertEquals(0, grid.get(5, 5));
+		assertTrue(grid.isFree(5, 5));
+		grid.markOccupied(5, 5);
+		assertEquals(2, grid.get(5, 5));
+		assertCells(grid, 0, 0, 2);
+
+		// Points outside the grid are ignored and read as unknown.
+		grid.markOccupied(-5, 5);
+		grid.markFree(25, 5);
+		assertEquals(OccupancyGrid.UNKNOWN, grid.get(-5, 5));
+		assertEquals(OccupancyGrid.UNKNOWN, grid.get(5, 25));
+		assertCells(grid, 0, 0, 2);
+	}
+
+	@Test
+	void traceRayMarksPathFreeAndEndByHit() {
+		var grid = new OccupancyGrid(0, 0, 100, 100, RESOLUTION);
+
+		// Horizontal and vertical rays, one hitting and one missing.
+		grid.traceRay(5, 5, 55, 5, true);
+		assertCells(grid, 0, 0, 7, 1, 0, 7, 2, 0, 7, 3, 0, 7, 4, 0, 7, 5, 0, 10);
+		grid.traceRay(95, 95, 95, 62, false);
+		assertCells(grid, 0, 0, 7, 1, 0, 7, 2, 0, 7, 3, 0, 7, 4, 0, 7, 5, 0, 10, 9, 9, 7, 9, 8, 7, 9, 7, 7, 9, 6, 7);
+		grid.clear();
+
+		// A shallow diagonal steps diagonally where the error allows and straight otherwise.
+		grid.traceRay(5, 5, 45, 25, true);
+		assertCells(grid, 0, 0, 7, 1, 1, 7, 2, 1, 7, 3, 2, 7, 4, 2, 10);
+		grid.clear();
+
+		// A ray in the opposite direction, ending in its own cell.
+		grid.traceRay(45, 25, 5, 5, false);
+		grid.traceRay(33, 33, 37, 36, true);
+		assertEquals(10, cell(grid, 3, 3));
+		assertEquals(7, cell(grid, 4, 2));
+		assertEquals(7, cell(grid, 0, 0));
+		grid.clear();
+
+		// Rays which cross the edge of the grid mark only the cells inside it.
+		grid.traceRay(-45, 5, 25, 5, true);
+		assertCells(grid, 0, 0, 7, 1, 0, 7, 2, 0, 10);
+		grid.traceRay(75, 55, 250, 55, true);
+		assertCells(grid, 0, 0, 7, 1, 0, 7, 2, 0, 10, 7, 5, 7, 8, 5, 7, 9, 5, 7);
+	}
+
+	@Test
+	void traceRayReachesUltrasonicLimit() {
+		// The longest reading of the ultrasonic sensors is 2.55 m, so a ray from one edge of the grid must reach a cell 255 cells away.
+		var grid = new OccupancyGrid(0, 0, 2600, 20, RESOLUTION);
+		grid.traceRay(5, 5, 2555, 5, true);
+		assertEquals(10, grid.get(2555, 5));
+		assertEquals(OccupancyGrid.UNKNOWN, grid.get(2565, 5));
+		for (var x = 5f; x < 2550; x += RESOLUTION) {
+			assertEquals(7, grid.get(x, 5), String.format("Cell at x = %s", x));
+			assertEquals(OccupancyGrid.UNKNOWN, grid.get(x, 15), String.format("Cell at x = %s", x));
+		}
+
+		// A diagonal ray of the same length ends in the cell containing its end.
+		grid = new OccupancyGrid(0, 0, 2600, 2600, RESOLUTION);
+		var end = (float)(5 + 2550 / Math.sqrt(2));
+		grid.traceRay(5, 5, end, end, true);
+		assertEquals(10, grid.get(end, end));
+		assertEquals(7, grid.get(5, 5));
+		assertEquals(7, grid.get(end - RESOLUTION, end - RESOLUTION));
+		assertEquals(OccupancyGrid.UNKNOWN, grid.get(end + RESOLUTION, end + RESOLUTION));
+	}
+
+	@Test
+	void toLineMapJoinsRunsThroughCellCentres() {
+		var grid = new OccupancyGrid(-50, -50, 100, 100, RESOLUTION);
+
+		// A horizontal run of four cells, a vertical run of three, an L shape, an isolated cell, and a cell only observed as free.
+		for (var x = -45f; x < -5; x += RESOLUTION) {
+			grid.markOccupied(x, -45);
+		}
+		for (var y = -25f; y < 5; y += RESOLUTION) {
+			grid.markOccupied(25, y);
+		}
+		grid.markOccupied(-45, 25);
+		grid.markOccupied(-35, 25);
+		grid.markOccupied(-45, 35);
+		grid.markOccupied(45, 45);
+		grid.markFree(5, 5);
+
+		var lineMap = grid.toLineMap();
+		var expected = new Line[] {
+			new Line(-45, -45, -15, -45),
+			new Line(25, -25, 25, -5),
+			new Line(-45, 25, -35, 25),
+			new Line(-45, 25, -45, 35),
+			new Line(40, 45, 50, 45)
+		};
+		assertArrayEquals(describe(expected), describe(lineMap.getLines()));
+		assertEquals(new Rectangle(-50, -50, 100, 100), lineMap.getBoundingRect());
+
+		// A cell which is no longer occupied splits a run, leaving a one-cell wall.
+		grid.markFree(-25, -45);
+		grid.markFree(-25, -45);
+		expected[0] = new Line(-45, -45, -35, -45);
+		var split = Arrays.copyOf(expected, expected.length + 1);
+		split[expected.length] = new Line(-20, -45, -10, -45);
+		assertArrayEquals(describe(split), describe(grid.toLineMap().getLines()));
+	}
+}
@@ -0,0 +1,266 @@
+package com.jacobcxdev.ev3mazeproject.robotics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a {@code FixedRateScheduler} keeps its runs on a fixed schedule, skips and counts the runs missed by an overrun, only runs once every suspension has been resumed, and keeps running a task which throws.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class FixedRateSchedulerTest {
+	// Private Static Fields
+
+	/**
+	 * The period of the schedulers tested (in nanoseconds).
+	 */
+	private static final long PERIOD = TimeUnit.MILLISECONDS.toNanos(10);
+
+	/**
+	 * The longest a run may start after its deadline and still count as on schedule, allowing for the scheduling of threads on a busy machine (in nanoseconds).
+	 */
+	private static final long LATENESS_TOLERANCE = TimeUnit.MILLISECONDS.toNanos(4);
+
+	/**
+	 * The longest a run may appear to start before its deadline, as the deadlines are measured from the start of the first run rather than its deadline (in nanoseconds).
+	 */
+	private static final long EARLINESS_TOLERANCE = TimeUnit.MILLISECONDS.toNanos(1);
+
+	// Private Fields
+
+	/**
+	 * The {@code FixedRateScheduler} of the test, which is shut down after it.
+	 */
+	private FixedRateScheduler scheduler;
+
+	/**
+	 * The times at which each run of the task started (in nanoseconds).
+	 */
+	private final List<Long> runTimes = new ArrayList<>();
+
+	// Private Methods
+
+	/**
+	 * Records the time at which a run of the task started.
+	 */
+	private void recordRun() {
+		synchronized (runTimes) {
+			runTimes.add(System.nanoTime());
+			runTimes.notifyAll();
+		}
+	}
+
+	/**
+	 * Waits until the task has run a given number of times.
+	 *
+	 * @param runs The number of runs to wait for.
+	 * @return A copy of the times at which each run started.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	private List<Long> awaitRuns(int runs) throws InterruptedException {
+		synchronized (runTimes) {
+			while (runTimes.size() < runs) {
+				runTimes.wait();
+			}
+			return new ArrayList<>(runTimes);
+		}
+	}
+
+	/**
+	 * Gets the number of times the task has run.
+	 *
+	 * @return The number of runs.
+	 */
+	private int getRunCount() {
+		synchronized (runTimes) {
+			return runTimes.size();
+		}
+	}
+
+	/**
+	 * Creates and starts a {@code FixedRateScheduler} as the scheduler of the test.
+	 *
+	 * @param task The task to run once per period.
+	 */
+	private void startScheduler(Runnable task) {
+		scheduler = new FixedRateScheduler("TestScheduler", PERIOD, task);
+		scheduler.start();
+	}
+
+	/**
+	 * Shuts down the scheduler of the test and waits for it to finish.
+	 *
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	private void stopScheduler() throws InterruptedException {
+		scheduler.shutdown();
+		scheduler.join(TimeUnit.SECONDS.toMillis(5));
+	}
+
+	/**
+	 * Gets the index of the deadline, counted from the first run, which a run followed.
+	 *
+	 * @param times The times at which each run started.
+	 * @param run The index of the run.
+	 * @return The index of the deadline.
+	 */
+	private static long getDeadlineIndex(List<Long> times, int run) {
+		return Math.floorDiv(times.get(run) - times.get(0) + EARLINESS_TOLERANCE, PERIOD);
+	}
+
+	/**
+	 * Asserts that every run of the stopped scheduler started shortly after a deadline on the schedule set by the first run, that no two runs followed the same deadline, and that every deadline passed was either run or counted as an overrun.<br/><br/>
+	 *
+	 * A machine which stalls the scheduler for more than a period makes it overrun even though its task is quick, so only most runs, rather than all of them, need to be on time.
+	 *
+	 * @param times The times at which each run started.
+	 */
+	private void assertOnSchedule(List<Long> times) {
+		var late = 0;
+		for (int i = 1; i < times.size(); i++) {
+			var deadline = getDeadlineIndex(times, i);
+			assertTrue(deadline > getDeadlineIndex(times, i - 1), String.format("Runs %d and %d followed the same deadline.", i - 1, i));
+			var lateness = times.get(i) - times.get(0) - deadline * PERIOD;
+			if (lateness > LATENESS_TOLERANCE) {
+				late++;
+			}
+		}
+		assertTrue(late <= times.size() / 10, String.format("%d of %d runs were late.", late, times.size()));
+		var deadlines = getDeadlineIndex(times, times.size() - 1) + 1;
+		assertEquals(deadlines, times.size() + scheduler.getOverrunCount(), String.format("The runs passed %d deadlines, but ran %d times and counted %d overruns.", deadlines, times.size(), scheduler.getOverrunCount()));
+	}
+
+	// Test Methods
+
+	@AfterEach
+	void shutdownScheduler() throws InterruptedException {
+		if (scheduler != null) {
+			stopScheduler();
+		}
+	}
+
+	@Test
+	@Timeout(30)
+	void compensatesDriftInDeadlines() throws InterruptedException {
+		// Each run takes a different part of the period, which would accumulate as drift if each run were scheduled a period after the last one finished.
+		var runs = new AtomicInteger();
+		startScheduler(() -> {
+			recordRun();
+			var busy = TimeUnit.MILLISECONDS.toNanos(runs.getAndIncrement() % 4 * 2);
+			var start = System.nanoTime();
+			while (System.nanoTime() - start < busy) {
+				Thread.onSpinWait();
+			}
+		});
+		awaitRuns(100);
+		stopScheduler();
+
+		// Every run starts on the schedule set by the first, however long the runs before it took.
+		assertOnSchedule(awaitRuns(0));
+		assertTrue(scheduler.getMeanJitter() < LATENESS_TOLERANCE, String.format("The mean jitter was %.2f ms.", scheduler.getMeanJitter() / 1e6));
+	}
+
+	@Test
+	@Timeout(30)
+	void skipsAndCountsOverruns() throws InterruptedException {
+		// The tenth run takes 3.5 periods, so the deadlines of the next three runs pass while it runs.
+		var runs = new AtomicInteger();
+		startScheduler(() -> {
+			recordRun();
+			if (runs.incrementAndGet() == 10) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(PERIOD * 7 / 2);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		awaitRuns(20);
+		stopScheduler();
+
+		// The missed runs are skipped and counted rather than run back to back, and the run after the overrun is back on the original schedule.
+		var times = awaitRuns(0);
+		assertTrue(scheduler.getOverrunCount() >= 3, String.format("Only %d overruns were counted.", scheduler.getOverrunCount()));
+		assertTrue(getDeadlineIndex(times, 10) - getDeadlineIndex(times, 9) >= 4, "The run after the overrun should follow the first deadline after it.");
+		assertOnSchedule(times);
+
+		scheduler.resetStatistics();
+		assertEquals(0, scheduler.getOverrunCount());
+		assertEquals(0, scheduler.getRunCount());
+	}
+
+	@Test
+	@Timeout(30)
+	void resumesOnlyOnceEverySuspensionIsResumed() throws InterruptedException {
+		var inTask = new AtomicBoolean();
+		startScheduler(() -> {
+			inTask.set(true);
+			recordRun();
+			try {
+				TimeUnit.MILLISECONDS.sleep(5);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			inTask.set(false);
+		});
+		awaitRuns(1);
+
+		// Suspending waits for a run in progress to finish.
+		scheduler.suspendRunLoop();
+		assertFalse(inTask.get(), "suspendRunLoop() returned while the task was running.");
+		scheduler.suspendRunLoop();
+		assertTrue(scheduler.isSuspended());
+		var runs = getRunCount();
+
+		// One resume is not enough after two suspensions.
+		scheduler.resumeRunLoop();
+		assertTrue(scheduler.isSuspended());
+		TimeUnit.NANOSECONDS.sleep(PERIOD * 5);
+		assertEquals(runs, getRunCount(), "The task ran while a suspension was still in place.");
+
+		// The second resume restarts the schedule from now, without counting the suspension as overruns.
+		var overruns = scheduler.getOverrunCount();
+		var resumeTime = System.nanoTime();
+		scheduler.resumeRunLoop();
+		assertFalse(scheduler.isSuspended());
+		var times = awaitRuns(runs + 3);
+		assertTrue(times.get(runs) - resumeTime < PERIOD, "The task should run as soon as the scheduler is resumed.");
+		assertTrue(scheduler.getOverrunCount() - overruns < 5, "The suspension should not be counted as overruns.");
+
+		// An unmatched resume does nothing, so a later suspension still suspends.
+		scheduler.resumeRunLoop();
+		scheduler.suspendRunLoop();
+		assertTrue(scheduler.isSuspended());
+		scheduler.resumeRunLoop();
+		assertFalse(scheduler.isSuspended());
+	}
+
+	@Test
+	@Timeout(30)
+	void rerunsThrowingTask() throws InterruptedException {
+		startScheduler(() -> {
+			recordRun();
+			throw new IllegalStateException("Test exception");
+		});
+		awaitRuns(30);
+		assertTrue(scheduler.isRunning());
+
+		// A task which threw is run again next period, not at once.
+		stopScheduler();
+		assertFalse(scheduler.isRunning());
+		var times = awaitRuns(0);
+		assertEquals(times.size(), scheduler.getRunCount());
+		assertOnSchedule(times);
+	}
+}
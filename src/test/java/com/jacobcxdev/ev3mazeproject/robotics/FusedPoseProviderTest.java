@@ -0,0 +1,191 @@
+package com.jacobcxdev.ev3mazeproject.robotics;
+
+import com.jacobcxdev.ev3mazeproject.hardware.BuildDescription;
+import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import com.jacobcxdev.ev3mazeproject.simulation.SimGyroSensor;
+import com.jacobcxdev.ev3mazeproject.simulation.SimWorld;
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.localization.PoseProvider;
+import lejos.robotics.mapping.LineMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the {@code FusedPoseProvider} of a {@code GyroWheeledChassis} in a {@code SimWorld} tracks the pose of the EV3 on noisy wheels with a noisy gyro more closely than the wheels alone, and that its heading does not jump when the {@code BaseGyroSensor} is reset.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class FusedPoseProviderTest {
+	// Private Static Fields
+
+	/**
+	 * The number of simulated seconds which pass per real second.
+	 */
+	private static final double TIME_SCALE = 20;
+
+	/**
+	 * The {@code BuildDescription} of the simulated EV3.
+	 */
+	private static final BuildDescription BUILD_DESCRIPTION = new BuildDescription(150, 45, 80, BaseGyroSensor.GyroOrientation.GLYPH_TOP);
+
+	/**
+	 * An open room, with walls far enough from the EV3 that it never reaches them.
+	 */
+	private static final LineMap ROOM = new LineMap(new Line[] {
+		new Line(-3000, -3000, 3000, -3000),
+		new Line(-3000, 3000, 3000, 3000),
+		new Line(-3000, -3000, -3000, 3000),
+		new Line(3000, -3000, 3000, 3000)
+	}, new Rectangle(-3000, -3000, 6000, 6000));
+
+	/**
+	 * The length of each side of the square driven (in millimetres).
+	 */
+	private static final double SIDE_LENGTH = 1000;
+
+	// Private Fields
+
+	/**
+	 * The {@code SimWorld} of the test, which is stopped after it.
+	 */
+	private SimWorld world;
+
+	/**
+	 * The {@code SimGyroSensor} of the EV3.
+	 */
+	private SimGyroSensor gyro;
+
+	/**
+	 * The {@code GyroWheeledChassis} of the test, which is shut down after it.
+	 */
+	private GyroWheeledChassis chassis;
+
+	/**
+	 * The {@code FusedPoseProvider} of the chassis.
+	 */
+	private FusedPoseProvider poseProvider;
+
+	// Private Methods
+
+	/**
+	 * Creates a {@code GyroWheeledChassis} for a simulated EV3 at (0, 0) in the room, reading its gyro directly, with its heading controller and {@code FusedPoseProvider} running at their usual rates in simulated time.
+	 */
+	private void createChassis() {
+		world = new SimWorld(ROOM, BUILD_DESCRIPTION, 100, TIME_SCALE);
+		gyro = (SimGyroSensor)world.createPortConfiguration().gyroSensor;
+		chassis = world.createChassis(gyro, 150, 60);
+		poseProvider = chassis.getPoseProvider();
+		poseProvider.getScheduler().setPeriod(world.scalePeriod(poseProvider.getPeriod()));
+		world.start();
+	}
+
+	/**
+	 * Waits for an amount of simulated time to pass.
+	 *
+	 * @param time The amount of simulated time (in nanoseconds).
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	private void awaitSimulatedTime(long time) throws InterruptedException {
+		var endTime = world.getTime() + time;
+		while (world.getTime() < endTime) {
+			TimeUnit.MILLISECONDS.sleep(1);
+		}
+	}
+
+	/**
+	 * Calculates the difference between the heading of a {@code PoseProvider} and the heading of the EV3 in the world.<br/><br/>
+	 *
+	 * The pose starts at (0, 0, 0) facing along its positive x axis with headings anticlockwise, whereas the world faces along its positive y axis with headings clockwise, so the frames are reflections of each other: the x and y axes are swapped and headings are equal.
+	 *
+	 * @param poseProvider The {@code PoseProvider}.
+	 * @return The heading error (in degrees, in the range [-180, 180]).
+	 */
+	private double getHeadingError(PoseProvider poseProvider) {
+		return Math.IEEEremainder(poseProvider.getPose().getHeading() - world.getHeading(), 360);
+	}
+
+	/**
+	 * Calculates the distance between the position of a {@code PoseProvider} and the position of the EV3 in the world, whose x and y axes are swapped.
+	 *
+	 * @param poseProvider The {@code PoseProvider}.
+	 * @return The position error (in millimetres).
+	 */
+	private double getPositionError(PoseProvider poseProvider) {
+		var pose = poseProvider.getPose();
+		return Math.hypot(pose.getX() - world.getY(), pose.getY() - world.getX());
+	}
+
+	// Test Methods
+
+	@AfterEach
+	void stopWorld() {
+		if (chassis != null) {
+			chassis.shutdown();
+		}
+		if (world != null) {
+			world.stop();
+		}
+	}
+
+	@Test
+	@Timeout(60)
+	void tracksWorldMoreCloselyThanWheelsOnNoisySquare() throws InterruptedException {
+		createChassis();
+		var odometer = chassis.getOdometryPoseProvider();
+		world.setWheelNoise(.03, .02);
+		gyro.setNoise(.5);
+
+		var maxHeadingError = 0d;
+		var maxPositionError = 0d;
+		for (int i = 0; i < 4; i++) {
+			chassis.travel(SIDE_LENGTH);
+			chassis.waitComplete();
+			chassis.rotate(90);
+			chassis.waitComplete();
+			awaitSimulatedTime(TimeUnit.SECONDS.toNanos(1));
+			maxHeadingError = Math.max(maxHeadingError, Math.abs(getHeadingError(poseProvider)));
+			maxPositionError = Math.max(maxPositionError, getPositionError(poseProvider));
+		}
+
+		// Around the square, the fused heading stays within a couple of degrees of the world, whereas the wheels alone accumulate the 3% bias of the right wheel over each turn and straight.
+		var odometerHeadingError = Math.abs(getHeadingError(odometer));
+		var odometerPositionError = getPositionError(odometer);
+		var stats = String.format("Fused heading/position error max %.2f deg/%.0f mm; wheels alone %.2f deg/%.0f mm after the square.", maxHeadingError, maxPositionError, odometerHeadingError, odometerPositionError);
+		assertTrue(maxHeadingError < 2, stats);
+		assertTrue(maxPositionError < 60, stats);
+		assertTrue(odometerHeadingError > 2 * maxHeadingError, stats);
+		assertTrue(odometerPositionError > getPositionError(poseProvider), stats);
+	}
+
+	@Test
+	@Timeout(60)
+	void resynchronisesGyroAfterResetWhileMoving() throws InterruptedException {
+		createChassis();
+		gyro.setNoise(.5);
+		chassis.rotate(90);
+		chassis.waitComplete();
+		awaitSimulatedTime(TimeUnit.SECONDS.toNanos(1));
+		assertTrue(Math.abs(getHeadingError(poseProvider)) < 2, String.format("The heading error before the reset was %.2f deg.", getHeadingError(poseProvider)));
+
+		// The gyro reads 0 after the reset while the EV3 faces 90 deg. While the EV3 is moving, the filter would pull its heading towards 0 if it were not resynchronised; while it is still, the gyro offset would absorb the reset anyway.
+		chassis.travel(SIDE_LENGTH);
+		awaitSimulatedTime(TimeUnit.SECONDS.toNanos(2));
+		chassis.resetGyroSensor();
+		chassis.waitComplete();
+		assertTrue(Math.abs(getHeadingError(poseProvider)) < 2, String.format("The heading error after the reset was %.2f deg.", getHeadingError(poseProvider)));
+		assertTrue(getPositionError(poseProvider) < 30, String.format("The position error after the reset was %.0f mm.", getPositionError(poseProvider)));
+
+		// Turning after the reset is tracked from the resynchronised gyro heading.
+		chassis.rotate(-90);
+		chassis.waitComplete();
+		awaitSimulatedTime(TimeUnit.SECONDS.toNanos(1));
+		assertTrue(Math.abs(getHeadingError(poseProvider)) < 2, String.format("The heading error after turning back was %.2f deg.", getHeadingError(poseProvider)));
+		assertTrue(Math.abs(poseProvider.getPose().getHeading()) < 2, String.format("The heading after turning back was %.2f deg.", poseProvider.getPose().getHeading()));
+	}
+}
@@ -0,0 +1,241 @@
+package com.jacobcxdev.ev3mazeproject.robotics;
+
+import com.jacobcxdev.ev3mazeproject.hardware.BuildDescription;
+import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import com.jacobcxdev.ev3mazeproject.simulation.SimWorld;
+import lejos.robotics.SampleProvider;
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.mapping.LineMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a {@code GyroCalibration} round-trips through a {@code Properties} file under its key, that invalid entries are not loaded, and that a {@code GyroWheeledChassis} only reuses a saved calibration when the drift of its gyro matches it.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class GyroCalibrationTest {
+	// Private Static Classes
+
+	/**
+	 * A class used to stand in for a gyro sensor which drifts at a fixed rate while the EV3 is still.
+	 */
+	private static class DriftingGyroSensor implements BaseGyroSensor {
+		// Public Fields
+
+		/**
+		 * The rate at which the angle drifts (in degrees per second).
+		 */
+		public volatile double driftRate;
+
+		// Private Fields
+
+		/**
+		 * The time the sensor was last reset (in nanoseconds, from {@code System.nanoTime()}).
+		 */
+		private volatile long resetTime = System.nanoTime();
+
+		/**
+		 * The {@code SampleProvider} which measures the angle drifted since the sensor was last reset.
+		 */
+		private final SampleProvider angleMode = new SampleProvider() {
+			@Override
+			public int sampleSize() {
+				return 1;
+			}
+
+			@Override
+			public void fetchSample(float[] sample, int offset) {
+				sample[offset] = (float)(driftRate * (System.nanoTime() - resetTime) / 1e9);
+			}
+		};
+
+		// BaseGyroSensor Override Methods
+
+		@Override
+		public SampleProvider getAngleMode() {
+			return angleMode;
+		}
+
+		@Override
+		public GyroOrientation getGyroOrientation() {
+			return GyroOrientation.GLYPH_TOP;
+		}
+
+		@Override
+		public void setGyroOrientation(GyroOrientation orientation) {}
+
+		@Override
+		public void reset() {
+			resetTime = System.nanoTime();
+		}
+	}
+
+	// Private Static Fields
+
+	/**
+	 * The {@code BuildDescription} of the EV3.
+	 */
+	private static final BuildDescription BUILD_DESCRIPTION = new BuildDescription(150, 45, 80, BaseGyroSensor.GyroOrientation.GLYPH_TOP);
+
+	/**
+	 * The largest difference between a value saved and the value loaded, or between a drift rate and the drift rate measured.
+	 */
+	private static final double TOLERANCE = 1e-3;
+
+	// Private Fields
+
+	/**
+	 * The temporary directory to write calibration files to.
+	 */
+	@TempDir
+	Path directory;
+
+	/**
+	 * The {@code SimWorld} providing the motors of the chassis, which is stopped after the test.
+	 */
+	private SimWorld world;
+
+	/**
+	 * The {@code GyroWheeledChassis} of the test, which is shut down after it.
+	 */
+	private GyroWheeledChassis chassis;
+
+	// Private Methods
+
+	/**
+	 * Creates a {@code GyroWheeledChassis} on the motors of a simulated EV3, reading a {@code DriftingGyroSensor}.
+	 *
+	 * @param gyro The {@code DriftingGyroSensor}.
+	 */
+	private void createChassis(DriftingGyroSensor gyro) {
+		var room = new LineMap(new Line[] {new Line(-1000, -1000, 1000, -1000)}, new Rectangle(-1000, -1000, 2000, 2000));
+		world = new SimWorld(room, BUILD_DESCRIPTION, 100, 1);
+		chassis = world.createChassis(gyro, 150, 60);
+		world.start();
+	}
+
+	/**
+	 * Writes entries to a {@code Properties} file.
+	 *
+	 * @param path The {@code Path} of the file.
+	 * @param entries The keys and values of the entries, alternating.
+	 * @throws IOException If the file could not be written.
+	 */
+	private static void writeProperties(Path path, String... entries) throws IOException {
+		var properties = new Properties();
+		for (int i = 0; i < entries.length; i += 2) {
+			properties.setProperty(entries[i], entries[i + 1]);
+		}
+		try (var writer = Files.newBufferedWriter(path)) {
+			properties.store(writer, null);
+		}
+	}
+
+	// Test Methods
+
+	@AfterEach
+	void stopWorld() {
+		if (chassis != null) {
+			chassis.shutdown();
+		}
+		if (world != null) {
+			world.stop();
+		}
+	}
+
+	@Test
+	void roundTripsCalibrationsUnderTheirKeys() throws IOException {
+		var path = directory.resolve("gyro.properties");
+		var key = GyroCalibration.key(null, BUILD_DESCRIPTION);
+		var otherKey = GyroCalibration.key(null, new BuildDescription(150, 56, 61.5f, BaseGyroSensor.GyroOrientation.GLYPH_BOTTOM));
+		assertNotEquals(key, otherKey);
+		assertNull(GyroCalibration.load(path, key), "A file which does not exist holds no calibrations.");
+
+		new GyroCalibration(1.0123, -.0456).save(path, key);
+		new GyroCalibration(.987, .2).save(path, otherKey);
+		var calibration = GyroCalibration.load(path, key);
+		assertEquals(1.0123, calibration.multiplier, TOLERANCE);
+		assertEquals(-.0456, calibration.driftRate, TOLERANCE);
+
+		// Saving under one key replaces its calibration, keeps the others, and leaves no temporary file behind.
+		new GyroCalibration(1.5, .1).save(path, key);
+		calibration = GyroCalibration.load(path, key);
+		assertEquals(1.5, calibration.multiplier, TOLERANCE);
+		assertEquals(.1, calibration.driftRate, TOLERANCE);
+		var otherCalibration = GyroCalibration.load(path, otherKey);
+		assertEquals(.987, otherCalibration.multiplier, TOLERANCE);
+		assertEquals(.2, otherCalibration.driftRate, TOLERANCE);
+		assertFalse(Files.exists(directory.resolve("gyro.properties.tmp")));
+		assertNull(GyroCalibration.load(path, GyroCalibration.key(null, new BuildDescription(100, 45, 80, BaseGyroSensor.GyroOrientation.GLYPH_TOP))));
+	}
+
+	@Test
+	void ignoresInvalidEntries() throws IOException {
+		var path = directory.resolve("gyro.properties");
+		var key = GyroCalibration.key(null, BUILD_DESCRIPTION);
+		String[][] invalidEntries = {
+			{key + ".multiplier", "1.01"},
+			{key + ".driftRate", "0.01"},
+			{key + ".multiplier", "fast", key + ".driftRate", "0.01"},
+			{key + ".multiplier", "1.01", key + ".driftRate", ""},
+			{key + ".multiplier", "0", key + ".driftRate", "0.01"},
+			{key + ".multiplier", "-1.01", key + ".driftRate", "0.01"},
+			{key + ".multiplier", "Infinity", key + ".driftRate", "0.01"},
+			{key + ".multiplier", "NaN", key + ".driftRate", "0.01"},
+			{key + ".multiplier", "1.01", key + ".driftRate", "NaN"},
+			{key + ".multiplier", "1.01", key + ".driftRate", "-Infinity"}
+		};
+		for (var entries : invalidEntries) {
+			writeProperties(path, entries);
+			assertNull(GyroCalibration.load(path, key), String.format("Loaded a calibration from %s.", String.join(", ", entries)));
+		}
+
+		// Valid entries are loaded, even when stored alongside invalid ones under other keys.
+		writeProperties(path, key + ".multiplier", "1.01", key + ".driftRate", "0.01", "other.multiplier", "fast");
+		assertEquals(1.01, GyroCalibration.load(path, key).multiplier, TOLERANCE);
+
+		assertThrows(IllegalArgumentException.class, () -> new GyroCalibration(0, 0));
+		assertThrows(IllegalArgumentException.class, () -> new GyroCalibration(Double.POSITIVE_INFINITY, 0));
+		assertThrows(IllegalArgumentException.class, () -> new GyroCalibration(1, Double.NaN));
+	}
+
+	@Test
+	@Timeout(30)
+	void reusesCalibrationOnlyWhenDriftMatches() {
+		var gyro = new DriftingGyroSensor();
+		createChassis(gyro);
+
+		// A sensor which drifts by more than the tolerance of the saved drift needs calibrating again.
+		gyro.driftRate = .05;
+		assertFalse(chassis.applyGyroCalibration(new GyroCalibration(1.05, .9)));
+		assertEquals(1, chassis.getGyroCalibration().multiplier, "A calibration which failed the check should not be applied.");
+
+		// So does a sensor which drifts too fast, even if the saved calibration drifted as fast.
+		gyro.driftRate = .9;
+		assertFalse(chassis.applyGyroCalibration(new GyroCalibration(1.05, .9)));
+		assertEquals(1, chassis.getGyroCalibration().multiplier);
+
+		// A sensor which drifts slowly and close to the saved drift reuses the calibration, keeping the drift measured by the check.
+		gyro.driftRate = .05;
+		assertTrue(chassis.applyGyroCalibration(new GyroCalibration(1.05, .1)));
+		var calibration = chassis.getGyroCalibration();
+		assertEquals(1.05, calibration.multiplier);
+		assertEquals(.05, calibration.driftRate, .01);
+	}
+}
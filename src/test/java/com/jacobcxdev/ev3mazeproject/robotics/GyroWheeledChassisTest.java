@@ -0,0 +1,191 @@
+package com.jacobcxdev.ev3mazeproject.robotics;
+
+import com.jacobcxdev.ev3mazeproject.hardware.BuildDescription;
+import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import com.jacobcxdev.ev3mazeproject.simulation.SimGyroSensor;
+import com.jacobcxdev.ev3mazeproject.simulation.SimWorld;
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.mapping.LineMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a {@code GyroWheeledChassis} in a {@code SimWorld} holds its heading while travelling on noisy wheels with a noisy gyro, that its rotations stop within their tolerance on noisy wheels and record their time and error in its turn statistics, and that a rotation always returns, even when nothing brakes it.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class GyroWheeledChassisTest {
+	// Private Static Fields
+
+	/**
+	 * The number of simulated seconds which pass per real second.
+	 */
+	private static final double TIME_SCALE = 20;
+
+	/**
+	 * The {@code BuildDescription} of the simulated EV3.
+	 */
+	private static final BuildDescription BUILD_DESCRIPTION = new BuildDescription(150, 45, 80, BaseGyroSensor.GyroOrientation.GLYPH_TOP);
+
+	/**
+	 * An open room, with walls far enough from the EV3 that it never reaches them.
+	 */
+	private static final LineMap ROOM = new LineMap(new Line[] {
+		new Line(-2000, -1000, 2000, -1000),
+		new Line(-2000, 6000, 2000, 6000),
+		new Line(-2000, -1000, -2000, 6000),
+		new Line(2000, -1000, 2000, 6000)
+	}, new Rectangle(-2000, -1000, 4000, 7000));
+
+	/**
+	 * The length of the straight travelled (in millimetres).
+	 */
+	private static final double STRAIGHT_LENGTH = 4000;
+
+	/**
+	 * The linear speed of the straight (in millimetres per second).
+	 */
+	private static final double LINEAR_SPEED = 150;
+
+	/**
+	 * The angular speed of rotations (in degrees per second).
+	 */
+	private static final double ANGULAR_SPEED = 60;
+
+	/**
+	 * The number of rotations made to measure the turn statistics.
+	 */
+	private static final int TURNS = 20;
+
+	// Private Fields
+
+	/**
+	 * The {@code SimWorld} of the test, which is stopped after it.
+	 */
+	private SimWorld world;
+
+	/**
+	 * The {@code SimGyroSensor} of the EV3.
+	 */
+	private SimGyroSensor gyro;
+
+	/**
+	 * The {@code GyroWheeledChassis} of the test, which is shut down after it.
+	 */
+	private GyroWheeledChassis chassis;
+
+	// Private Methods
+
+	/**
+	 * Creates a {@code GyroWheeledChassis} for a simulated EV3 at (0, 0) in the room, reading its gyro directly, with its heading controller running at its usual rate in simulated time.
+	 */
+	private void createChassis() {
+		world = new SimWorld(ROOM, BUILD_DESCRIPTION, 100, TIME_SCALE);
+		gyro = (SimGyroSensor)world.createPortConfiguration().gyroSensor;
+		chassis = world.createChassis(gyro, LINEAR_SPEED, ANGULAR_SPEED);
+		world.start();
+	}
+
+	// Test Methods
+
+	@AfterEach
+	void stopWorld() {
+		if (chassis != null) {
+			chassis.shutdown();
+		}
+		if (world != null) {
+			world.stop();
+		}
+	}
+
+	@Test
+	@Timeout(60)
+	void holdsHeadingOnNoisyStraight() {
+		createChassis();
+		world.setWheelNoise(.02, .02); // The right wheel travels 2% further, which alone would turn the EV3 by about 29 deg over the straight.
+		gyro.setNoise(.5);
+
+		chassis.travel(STRAIGHT_LENGTH);
+		chassis.waitComplete();
+
+		// The EV3 starts heading along the positive y axis, so its lateral error is its x coordinate.
+		assertEquals(STRAIGHT_LENGTH, world.getY(), 100, "The EV3 did not travel the length of the straight.");
+		assertTrue(Math.abs(world.getX()) < 20, String.format("The lateral error was %.1fmm.", world.getX()));
+		var heading = Math.IEEEremainder(world.getHeading(), 360);
+		assertTrue(Math.abs(heading) < 2, String.format("The heading at the end of the straight was %.2f deg.", heading));
+	}
+
+	@Test
+	@Timeout(60)
+	void turnsStopWithinToleranceOnNoisyWheels() {
+		createChassis();
+		world.setWheelNoise(.03, .02);
+		gyro.setNoise(.5);
+		chassis.resetTurnStatistics();
+
+		// Alternate between 0 and 90 deg, so that any error left by a rotation would accumulate in the heading of the world.
+		for (int i = 0; i < TURNS; i++) {
+			chassis.rotate(i % 2 == 0 ? 90 : -90);
+			chassis.waitComplete();
+		}
+
+		// The turn times are measured in real time, so are scaled to simulated time.
+		var meanTurnTime = chassis.getMeanTurnTime() * TIME_SCALE / 1e9;
+		var maxTurnTime = chassis.getMaxTurnTime() * TIME_SCALE / 1e9;
+		var stats = String.format("%d turns at %.0f deg/s: time mean/max %.2f/%.2f s, |error| mean/max %.2f/%.2f deg, %d correction passes.", chassis.getTurnCount(), ANGULAR_SPEED, meanTurnTime, maxTurnTime, chassis.getMeanTurnError(), chassis.getMaxTurnError(), chassis.getCorrectionPassCount());
+
+		assertEquals(TURNS, chassis.getTurnCount());
+		assertTrue(chassis.getMeanTurnError() <= chassis.getRotationTolerance(), stats);
+		assertTrue(chassis.getMaxTurnError() < 2 * chassis.getRotationTolerance(), stats);
+		assertTrue(chassis.getCorrectionPassCount() <= TURNS, stats);
+
+		// A 90 deg turn takes 1.5 s at the angular speed, plus the time to accelerate and brake.
+		assertTrue(meanTurnTime > 90 / ANGULAR_SPEED, stats);
+		assertTrue(maxTurnTime < 2 * 90 / ANGULAR_SPEED, stats);
+		var heading = Math.IEEEremainder(world.getHeading(), 360);
+		assertTrue(Math.abs(heading) < 5, String.format("The heading after the turns was %.2f deg.", heading));
+	}
+
+	@Test
+	@Timeout(30)
+	void rotationStopsWhenNothingBrakesIt() {
+		createChassis();
+		chassis.getHeadingControlScheduler().suspendRunLoop();
+
+		var startTime = System.nanoTime();
+		chassis.rotate(90);
+		var time = System.nanoTime() - startTime;
+		assertTrue(time < TimeUnit.SECONDS.toNanos(5), String.format("The rotation took %d ms to time out.", TimeUnit.NANOSECONDS.toMillis(time)));
+		assertEquals(1, chassis.getTurnCount());
+		assertEquals(0, chassis.getCorrectionPassCount(), "A rotation which timed out should not make correction passes.");
+		chassis.waitComplete();
+		assertFalse(chassis.isMoving(), "The chassis should be stopped once the rotation times out.");
+		chassis.getHeadingControlScheduler().resumeRunLoop();
+	}
+
+	@Test
+	@Timeout(30)
+	void rotationStopsWhenControllerIsShutDown() throws InterruptedException {
+		createChassis();
+		var scheduler = chassis.getHeadingControlScheduler();
+		scheduler.shutdown();
+		scheduler.join(TimeUnit.SECONDS.toMillis(5));
+		assertFalse(scheduler.isRunning());
+
+		var startTime = System.nanoTime();
+		chassis.rotate(90);
+		var time = System.nanoTime() - startTime;
+		assertTrue(time < TimeUnit.SECONDS.toNanos(1), String.format("The rotation took %d ms to stop.", TimeUnit.NANOSECONDS.toMillis(time)));
+		chassis.waitComplete();
+		assertFalse(chassis.isMoving());
+		assertTrue(Math.abs(Math.IEEEremainder(world.getHeading(), 360)) < 45, "The rotation should stop rather than wait for the controller.");
+	}
+}
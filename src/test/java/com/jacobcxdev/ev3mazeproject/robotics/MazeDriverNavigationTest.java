@@ -0,0 +1,222 @@
+package com.jacobcxdev.ev3mazeproject.robotics;
+
+import com.jacobcxdev.ev3mazeproject.hardware.BuildDescription;
+import com.jacobcxdev.ev3mazeproject.mapping.MazeStore;
+import com.jacobcxdev.ev3mazeproject.mapping.MoveLog;
+import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import com.jacobcxdev.ev3mazeproject.sensors.SensorHub;
+import com.jacobcxdev.ev3mazeproject.simulation.SimWorld;
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.mapping.LineMap;
+import lejos.robotics.navigation.Move.MoveType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a {@code MazeDriver} drives the mapped shortest route out of a simulated maze.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class MazeDriverNavigationTest {
+	// Private Static Fields
+
+	/**
+	 * The number of simulated seconds which pass per real second.
+	 */
+	private static final double TIME_SCALE = 20;
+
+	/**
+	 * The longest simulated time a mapping run may take (in nanoseconds).
+	 */
+	private static final long MAPPING_TIME_LIMIT = TimeUnit.SECONDS.toNanos(300);
+
+	/**
+	 * The longest simulated time navigating past the dead end may take (in nanoseconds), which is under the 29s its 2900mm of straights take at the mapping speed of 100mm/s alone.
+	 */
+	private static final long NAVIGATION_TIME_LIMIT = TimeUnit.SECONDS.toNanos(20);
+
+	/**
+	 * The distance from the centre of the EV3 to its touch sensor (in millimetres).
+	 */
+	private static final float BUMPER_OFFSET = 100;
+
+	/**
+	 * The {@code BuildDescription} of the simulated EV3.
+	 */
+	private static final BuildDescription BUILD_DESCRIPTION = new BuildDescription(150, 45, 80, BaseGyroSensor.GyroOrientation.GLYPH_TOP);
+
+	/**
+	 * An L-shaped corridor, which turns right to an exit on the east.
+	 */
+	private static final LineMap L_MAZE = maze(
+		new Line(-150, -200, -150, 1350),
+		new Line(150, -200, 150, 1050),
+		new Line(-150, -200, 150, -200),
+		new Line(-150, 1350, 1200, 1350),
+		new Line(150, 1050, 1200, 1050)
+	);
+
+	/**
+	 * A corridor north with a dead end branching west, which turns right at the top to an exit on the east.
+	 */
+	private static final LineMap DEAD_END_MAZE = maze(
+		new Line(-150, -200, 150, -200),
+		new Line(-150, -200, -150, 600),
+		new Line(-900, 600, -150, 600),
+		new Line(-900, 900, -150, 900),
+		new Line(-900, 600, -900, 900),
+		new Line(-150, 900, -150, 1650),
+		new Line(-150, 1650, 1200, 1650),
+		new Line(150, -200, 150, 1350),
+		new Line(150, 1350, 1200, 1350)
+	);
+
+	// Private Fields
+
+	/**
+	 * The {@code SimWorld} of the test, which is stopped after it.
+	 */
+	private SimWorld world;
+
+	/**
+	 * The {@code MazeDriver} of the test, which is shut down after it.
+	 */
+	private MazeDriver driver;
+
+	// Private Static Methods
+
+	/**
+	 * Creates a {@code LineMap} bounded by its walls.
+	 *
+	 * @param walls The walls of the maze.
+	 * @return The {@code LineMap}.
+	 */
+	private static LineMap maze(Line... walls) {
+		var minX = Float.POSITIVE_INFINITY;
+		var minY = Float.POSITIVE_INFINITY;
+		var maxX = Float.NEGATIVE_INFINITY;
+		var maxY = Float.NEGATIVE_INFINITY;
+		for (var wall : walls) {
+			minX = Math.min(minX, Math.min(wall.x1, wall.x2));
+			minY = Math.min(minY, Math.min(wall.y1, wall.y2));
+			maxX = Math.max(maxX, Math.max(wall.x1, wall.x2));
+			maxY = Math.max(maxY, Math.max(wall.y1, wall.y2));
+		}
+		return new LineMap(walls, new Rectangle(minX, minY, maxX - minX, maxY - minY));
+	}
+
+	// Private Methods
+
+	/**
+	 * Creates a {@code MazeDriver} for a simulated EV3 at (0, 0) in a given maze, with its sensors and heading controller running at their usual rates in simulated time, as the {@code MazeDriver} of the test.
+	 *
+	 * @param maze The maze.
+	 * @param store The {@code MazeStore} of the {@code MazeDriver}.
+	 */
+	private void createDriver(LineMap maze, MazeStore store) {
+		world = new SimWorld(maze, BUILD_DESCRIPTION, BUMPER_OFFSET, TIME_SCALE);
+		driver = new MazeDriver(BUILD_DESCRIPTION, world.createPortConfiguration(), store, false);
+		for (var channel : SensorHub.Channel.values()) {
+			driver.getSensorHub().setSamplePeriod(channel, world.scalePeriod(channel.defaultPeriod));
+		}
+		var chassis = driver.getChassis();
+		chassis.getHeadingControlScheduler().setPeriod(world.scalePeriod(chassis.getControlPeriod()));
+		world.start();
+	}
+
+	/**
+	 * Maps a maze with the wall-following behaviours until the EV3 leaves it.
+	 *
+	 * @param driver The {@code MazeDriver}.
+	 * @param maze The maze.
+	 * @throws InterruptedException If interrupted while waiting for the EV3 to leave the maze.
+	 */
+	private void map(MazeDriver driver, LineMap maze) throws InterruptedException {
+		var mapping = new Thread(driver::startMapping, "TestMapping");
+		mapping.setDaemon(true);
+		mapping.start();
+		var startTime = world.getTime();
+		while (maze.getBoundingRect().contains(world.getX(), world.getY())) {
+			assertTrue(world.getTime() - startTime < MAPPING_TIME_LIMIT, "The EV3 did not leave the maze while mapping.");
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		driver.stopMapping();
+		mapping.join(TimeUnit.SECONDS.toMillis(5));
+		assertFalse(mapping.isAlive(), "Mapping did not stop.");
+	}
+
+	/**
+	 * Asserts that the EV3 has left a maze at a given exit.
+	 *
+	 * @param maze The maze.
+	 * @param x The x coordinate the EV3 should be at (in millimetres).
+	 * @param y The y coordinate the EV3 should be at (in millimetres).
+	 * @param tolerance The distance the EV3 may be from the exit (in millimetres).
+	 */
+	private void assertAtExit(LineMap maze, double x, double y, double tolerance) {
+		assertFalse(maze.getBoundingRect().contains(world.getX(), world.getY()), String.format("The EV3 is still in the maze at (%.0f, %.0f).", world.getX(), world.getY()));
+		assertTrue(Math.hypot(world.getX() - x, world.getY() - y) <= tolerance, String.format("The EV3 is at (%.0f, %.0f), not (%.0f, %.0f).", world.getX(), world.getY(), x, y));
+	}
+
+	// Test Methods
+
+	@AfterEach
+	void stopWorld() {
+		if (driver != null) {
+			driver.shutdown();
+		}
+		if (world != null) {
+			world.stop();
+		}
+	}
+
+	@Test
+	@Timeout(60)
+	void navigatesMappedRoute() throws InterruptedException {
+		var store = new MazeStore();
+		createDriver(L_MAZE, store);
+		map(driver, L_MAZE);
+		var exitX = world.getX();
+		var exitY = world.getY();
+
+		// Put the EV3 back at the start, then drive the mapped route out again.
+		world.setPose(0, 0, 0);
+		assertTrue(driver.startNavigating(), "The route was not completed.");
+		assertEquals(MazeDriver.State.STANDBY, driver.getState());
+		assertAtExit(L_MAZE, exitX, exitY, 150);
+	}
+
+	@Test
+	@Timeout(60)
+	void navigatesPastDeadEnd() {
+		// Record a mapping run which explores the dead end before leaving the maze.
+		var store = new MazeStore();
+		var moves = new MoveLog();
+		moves.append(MoveType.TRAVEL, 750, 0, 0);
+		moves.append(MoveType.ROTATE, 0, -90, 0);
+		moves.append(MoveType.TRAVEL, 600, 0, 0);
+		moves.append(MoveType.ROTATE, 0, 180, 0);
+		moves.append(MoveType.TRAVEL, 600, 0, 0);
+		moves.append(MoveType.ROTATE, 0, -90, 0);
+		moves.append(MoveType.TRAVEL, 750, 0, 0);
+		moves.append(MoveType.ROTATE, 0, 90, 0);
+		moves.append(MoveType.TRAVEL, 1400, 0, 0);
+		store.replay(moves);
+		assertEquals(3, store.constructShortestRoute().size(), "The dead end should be pruned from the route.");
+
+		createDriver(DEAD_END_MAZE, store);
+		var startTime = world.getTime();
+		assertTrue(driver.startNavigating(), "The route was not completed.");
+		assertAtExit(DEAD_END_MAZE, 1400, 1500, 100);
+		var navigationTime = world.getTime() - startTime;
+		assertTrue(navigationTime < NAVIGATION_TIME_LIMIT, String.format("Navigating past the dead end took %.1fs of simulated time.", navigationTime / 1e9));
+	}
+}
@@ -0,0 +1,115 @@
+package com.jacobcxdev.ev3mazeproject.robotics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests that a {@code PIDController} limits its output, does not wind up its integral while the output is saturated, and keeps its integral term within the output limit.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class PIDControllerTest {
+	// Private Static Fields
+
+	/**
+	 * The tolerance of the outputs compared.
+	 */
+	private static final double TOLERANCE = 1e-9;
+
+	// Test Methods
+
+	@Test
+	void sumsProportionalIntegralAndDerivativeTerms() {
+		var controller = new PIDController(4, 2, .5, 100);
+		assertEquals(4 * 2 + 2 * 2 * .1 + .5 * 3, controller.update(2, 3, .1), TOLERANCE);
+		assertEquals(.2, controller.getIntegral(), TOLERANCE);
+		assertEquals(4 * -1 + 2 * (.2 - .1) + .5 * -6, controller.update(-1, -6, .1), TOLERANCE);
+		assertEquals(4 * -1 + 2 * .1 + .5 * -6, controller.getOutput(), TOLERANCE);
+
+		controller.reset();
+		assertEquals(0, controller.getIntegral());
+		assertEquals(0, controller.getOutput());
+	}
+
+	@Test
+	void limitsOutput() {
+		var controller = new PIDController(10, 0, 0, 45);
+		assertEquals(45, controller.update(100, 0, .01));
+		assertEquals(-45, controller.update(-100, 0, .01));
+		assertEquals(20, controller.update(2, 0, .01), TOLERANCE);
+	}
+
+	@Test
+	void doesNotWindUpWhileSaturated() {
+		var controller = new PIDController(1, 1, 0, 10);
+
+		// A large error saturates the output from the first update, so none of it should be integrated.
+		for (int i = 0; i < 100; i++) {
+			assertEquals(10, controller.update(100, 0, .1));
+		}
+		assertEquals(0, controller.getIntegral(), TOLERANCE);
+
+		// Once the error reverses, the output follows it at once rather than unwinding 100 updates of integral first.
+		assertEquals(-1 - .1, controller.update(-1, 0, .1), TOLERANCE);
+
+		// An error which leaves room below the limit is integrated until the output reaches it, then no further.
+		controller.reset();
+		for (int i = 0; i < 100; i++) {
+			controller.update(5, 0, .1);
+		}
+		assertEquals(5, controller.getIntegral(), TOLERANCE);
+		assertEquals(10, controller.getOutput(), TOLERANCE);
+	}
+
+	@Test
+	void integratesTowardsLimitWhenOutputIsSaturatedAgainstError() {
+		var controller = new PIDController(1, 1, 1, 10);
+
+		// The derivative term saturates the output against the error, so integrating brings the output back towards its limit.
+		controller.update(1, -100, .1);
+		assertEquals(.1, controller.getIntegral(), TOLERANCE);
+		assertEquals(-10, controller.getOutput());
+	}
+
+	@Test
+	void clampsIntegralTermToOutputLimit() {
+		var controller = new PIDController(1, 2, 1, 10);
+
+		// While the derivative term holds the output against the error, the integral keeps accumulating, but only until the integral term alone reaches the limit.
+		for (int i = 0; i < 100; i++) {
+			assertEquals(-10, controller.update(1, -100, 1));
+		}
+		assertEquals(10 / 2d, controller.getIntegral(), TOLERANCE);
+
+		// Once the derivative term goes, the clamped integral can be unwound in a bounded number of updates.
+		assertEquals(10, controller.update(0, 0, 1), TOLERANCE);
+		var updates = 0;
+		while (controller.update(-1, 0, 1) > 0) {
+			updates++;
+		}
+		assertEquals(4, updates);
+	}
+
+	@Test
+	void keepsIntegralTermWhenIntegralGainChanges() {
+		var controller = new PIDController(0, 2, 0, 100);
+		controller.update(3, 0, 1);
+		assertEquals(6, controller.getOutput(), TOLERANCE);
+		controller.setGains(0, 4, 0);
+		assertEquals(1.5, controller.getIntegral(), TOLERANCE);
+		assertEquals(6, controller.update(0, 0, 1), TOLERANCE);
+	}
+
+	@Test
+	void rejectsInvalidParameters() {
+		assertThrows(IllegalArgumentException.class, () -> new PIDController(-1, 0, 0, 1));
+		assertThrows(IllegalArgumentException.class, () -> new PIDController(0, -1, 0, 1));
+		assertThrows(IllegalArgumentException.class, () -> new PIDController(0, 0, -1, 1));
+		assertThrows(IllegalArgumentException.class, () -> new PIDController(0, 0, 0, 0));
+		assertThrows(IllegalArgumentException.class, () -> new PIDController(0, 0, 0, Double.NaN));
+		var controller = new PIDController(1, 1, 1, 1);
+		assertThrows(IllegalArgumentException.class, () -> controller.setOutputLimit(-1));
+	}
+}
@@ -0,0 +1,220 @@
+package com.jacobcxdev.ev3mazeproject.sensors;
+
+import lejos.robotics.SampleProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests that a {@code CachingSampleProvider} only reads the wrapped {@code SampleProvider} once its cached sample is older than the max age or has been invalidated, and counts its hits and misses.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class CachingSampleProviderTest {
+    // Private Static Classes
+
+    /**
+     * A class used to stand in for a sensor, which returns the number of samples fetched from it so far in every value of each sample.
+     */
+    private static class CountingSampleProvider implements SampleProvider {
+        // Private Fields
+
+        /**
+         * The number of values in each sample.
+         */
+        private final int sampleSize;
+
+        /**
+         * The time taken to fetch each sample (in milliseconds).
+         */
+        private final long fetchTime;
+
+        /**
+         * The number of samples fetched.
+         */
+        private int fetchCount;
+
+        // Public Constructors
+
+        /**
+         * Creates a {@code CountingSampleProvider} object.
+         *
+         * @param sampleSize The number of values in each sample.
+         * @param fetchTime The time taken to fetch each sample (in milliseconds).
+         */
+        public CountingSampleProvider(int sampleSize, long fetchTime) {
+            this.sampleSize = sampleSize;
+            this.fetchTime = fetchTime;
+        }
+
+        // Public Getters/Setters
+
+        /**
+         * Gets the number of samples fetched.
+         *
+         * @return The number of samples fetched.
+         */
+        public synchronized int getFetchCount() {
+            return fetchCount;
+        }
+
+        // SampleProvider Override Methods
+
+        @Override
+        public int sampleSize() {
+            return sampleSize;
+        }
+
+        @Override
+        public void fetchSample(float[] sample, int offset) {
+            int count;
+            synchronized (this) {
+                count = ++fetchCount;
+            }
+            if (fetchTime > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(fetchTime);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (int i = 0; i < sampleSize; i++) {
+                sample[offset + i] = count;
+            }
+        }
+    }
+
+    // Private Static Fields
+
+    /**
+     * A max age which no test outlives (in nanoseconds).
+     */
+    private static final long FOREVER = TimeUnit.HOURS.toNanos(1);
+
+    /**
+     * A max age short enough for a test to wait out (in nanoseconds).
+     */
+    private static final long SHORT_MAX_AGE = TimeUnit.MILLISECONDS.toNanos(20);
+
+    // Private Static Methods
+
+    /**
+     * Fetches the first value of a sample.
+     *
+     * @param provider The {@code SampleProvider} to fetch from.
+     * @return The first value of the sample.
+     */
+    private static float fetch(SampleProvider provider) {
+        var sample = new float[provider.sampleSize()];
+        provider.fetchSample(sample, 0);
+        return sample[0];
+    }
+
+    // Test Methods
+
+    @Test
+    void returnsCachedSampleUntilMaxAge() throws InterruptedException {
+        var source = new CountingSampleProvider(1, 0);
+        var provider = new CachingSampleProvider(source, SHORT_MAX_AGE);
+        assertEquals(1, fetch(provider));
+        assertEquals(1, fetch(provider), "A sample younger than the max age should come from the cache.");
+        assertEquals(1, source.getFetchCount());
+
+        TimeUnit.NANOSECONDS.sleep(SHORT_MAX_AGE * 2);
+        assertEquals(2, fetch(provider), "A sample older than the max age should be read again.");
+        assertEquals(2, source.getFetchCount());
+    }
+
+    @Test
+    void zeroMaxAgeAlwaysReadsSource() {
+        var source = new CountingSampleProvider(1, 0);
+        var provider = new CachingSampleProvider(source, 0);
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(i, fetch(provider));
+        }
+        assertEquals(0, provider.getHitCount());
+        assertEquals(10, provider.getMissCount());
+
+        // Raising the max age lets the last sample read be returned from the cache.
+        provider.setMaxAge(FOREVER);
+        assertEquals(FOREVER, provider.getMaxAge());
+        assertEquals(10, fetch(provider));
+        assertEquals(10, source.getFetchCount());
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        var provider = new CachingSampleProvider(new CountingSampleProvider(1, 0), FOREVER);
+        for (int i = 0; i < 100; i++) {
+            fetch(provider);
+        }
+        assertEquals(99, provider.getHitCount());
+        assertEquals(1, provider.getMissCount());
+
+        provider.resetStatistics();
+        assertEquals(0, provider.getHitCount());
+        assertEquals(0, provider.getMissCount());
+        fetch(provider);
+        assertEquals(1, provider.getHitCount(), "Resetting the statistics should not discard the cached sample.");
+    }
+
+    @Test
+    void invalidateForcesNextFetchToReadSource() {
+        var source = new CountingSampleProvider(1, 0);
+        var provider = new CachingSampleProvider(source, FOREVER);
+        assertEquals(1, fetch(provider));
+        provider.invalidate();
+        assertEquals(2, fetch(provider), "A fetch after invalidate() should not return the discarded sample.");
+        assertEquals(2, fetch(provider));
+        assertEquals(2, source.getFetchCount());
+        assertEquals(1, provider.getHitCount());
+        assertEquals(2, provider.getMissCount());
+    }
+
+    @Test
+    void copiesWholeSampleToOffset() {
+        var provider = new CachingSampleProvider(new CountingSampleProvider(3, 0), FOREVER);
+        assertEquals(3, provider.sampleSize());
+        var sample = new float[5];
+        provider.fetchSample(sample, 1);
+        provider.fetchSample(sample, 2);
+        assertArrayEquals(new float[] {0, 1, 1, 1, 1}, sample);
+    }
+
+    @Test
+    @Timeout(10)
+    void concurrentStaleFetchesReadSourceOnce() throws InterruptedException {
+        // Each read takes long enough for every thread to find the cache stale at once.
+        var source = new CountingSampleProvider(1, 50);
+        var provider = new CachingSampleProvider(source, FOREVER);
+        var threads = new Thread[8];
+        var values = new float[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            var index = i;
+            threads[i] = new Thread(() -> values[index] = fetch(provider), "TestFetch" + i);
+            threads[i].start();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, source.getFetchCount());
+        assertEquals(1, provider.getMissCount());
+        assertEquals(threads.length - 1, provider.getHitCount());
+        for (var value : values) {
+            assertEquals(1, value);
+        }
+    }
+
+    @Test
+    void rejectsNegativeMaxAge() {
+        var source = new CountingSampleProvider(1, 0);
+        assertThrows(IllegalArgumentException.class, () -> new CachingSampleProvider(source, -1));
+        var provider = new CachingSampleProvider(source, 0);
+        assertThrows(IllegalArgumentException.class, () -> provider.setMaxAge(-1));
+    }
+}
@@ -0,0 +1,170 @@
+package com.jacobcxdev.ev3mazeproject.sensors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a {@code SampleRingBuffer} keeps the most recent samples in order, and that readers never see a sample which is being overwritten while one producer publishes.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class SampleRingBufferTest {
+    // Private Static Fields
+
+    /**
+     * The number of values in each sample published by the stress test.
+     */
+    private static final int WIDTH = 3;
+
+    /**
+     * The number of samples averaged by the stress test, which does not divide the capacity, so that a torn average is never a whole number away from a valid one.
+     */
+    private static final int MEAN_WINDOW = 7;
+
+    /**
+     * The number of samples published by the stress test, which is few enough for each to be held exactly in a {@code float}.
+     */
+    private static final int SAMPLES = 2_000_000;
+
+    /**
+     * The number of readers in the stress test.
+     */
+    private static final int READERS = 3;
+
+    // Private Static Methods
+
+    /**
+     * Checks that a copied window of samples is consecutive, with every value of each sample equal to its timestamp, as published by the stress test.
+     *
+     * @param timestamps The timestamps of the samples.
+     * @param values The values of the samples.
+     * @param n The number of samples.
+     * @return A description of the first torn sample, or {@code null} if there is none.
+     */
+    private static String checkWindow(long[] timestamps, float[] values, int n) {
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && timestamps[i] != timestamps[i - 1] + 1) {
+                return String.format("read() returned timestamp %d after %d.", timestamps[i], timestamps[i - 1]);
+            }
+            for (int j = 0; j < WIDTH; j++) {
+                if (values[i * WIDTH + j] != timestamps[i]) {
+                    return String.format("read() returned value %.0f for timestamp %d.", values[i * WIDTH + j], timestamps[i]);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Test Methods
+
+    @Test
+    void readsRecentSamplesOldestFirst() {
+        var ring = new SampleRingBuffer(5, 2);
+        assertEquals(8, ring.getCapacity(), "The capacity should be rounded up to a power of two.");
+        assertEquals(Long.MIN_VALUE, ring.latest(new float[2], 0));
+        assertTrue(Float.isNaN(ring.latestValue()));
+        assertTrue(Double.isNaN(ring.mean(4)));
+
+        for (int i = 1; i <= 10; i++) {
+            ring.publish(i * 100, new float[] {i, -i}, 0);
+        }
+        var sample = new float[3];
+        assertEquals(1000, ring.latest(sample, 1));
+        assertArrayEquals(new float[] {0, 10, -10}, sample);
+        assertEquals(10, ring.latestValue());
+        assertEquals(1000, ring.latestTimestamp());
+        assertEquals(8.5, ring.mean(4));
+
+        // Only capacity - 1 samples can be read, as the next slot may be being written.
+        var timestamps = new long[10];
+        var values = new float[20];
+        assertEquals(7, ring.read(timestamps, values, 10));
+        for (int i = 0; i < 7; i++) {
+            assertEquals((i + 4) * 100, timestamps[i]);
+            assertEquals(i + 4, values[i * 2]);
+            assertEquals(-(i + 4), values[i * 2 + 1]);
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    void concurrentReadersNeverSeeTornSamples() throws InterruptedException {
+        // A small ring, so that the producer laps the readers often.
+        var ring = new SampleRingBuffer(16, WIDTH);
+        var failure = new AtomicReference<String>();
+        var checkedReads = new AtomicLong();
+        var done = new AtomicBoolean();
+
+        var producer = new Thread(() -> {
+            var sample = new float[WIDTH];
+            for (int i = 1; i <= SAMPLES && failure.get() == null; i++) {
+                for (int j = 0; j < WIDTH; j++) {
+                    sample[j] = i;
+                }
+                ring.publish(i, sample, 0);
+            }
+        }, "TestProducer");
+        var readers = new Thread[READERS];
+        for (int r = 0; r < READERS; r++) {
+            readers[r] = new Thread(() -> {
+                var sample = new float[WIDTH];
+                var timestamps = new long[ring.getCapacity()];
+                var values = new float[ring.getCapacity() * WIDTH];
+                var reads = 0L;
+                while (failure.get() == null && !done.get()) {
+                    // The latest sample must have every value equal to its timestamp.
+                    var timestamp = ring.latest(sample, 0);
+                    if (timestamp != Long.MIN_VALUE) {
+                        for (var value : sample) {
+                            if (value != timestamp) {
+                                failure.compareAndSet(null, String.format("latest() returned value %.0f for timestamp %d.", value, timestamp));
+                            }
+                        }
+                    }
+
+                    // A window of samples must be consecutive and intact.
+                    var n = ring.read(timestamps, values, timestamps.length);
+                    var torn = checkWindow(timestamps, values, n);
+                    if (torn != null) {
+                        failure.compareAndSet(null, torn);
+                    }
+
+                    // The mean of consecutive samples numbered k to k + n - 1 is k + (n - 1) / 2.
+                    if (ring.getCount() >= MEAN_WINDOW) {
+                        var mean = ring.mean(MEAN_WINDOW);
+                        var first = mean - (MEAN_WINDOW - 1) / 2.0;
+                        if (first != Math.rint(first) || first < 1) {
+                            failure.compareAndSet(null, String.format("mean() returned %.4f, which is not the mean of %d consecutive samples.", mean, MEAN_WINDOW));
+                        }
+                    }
+                    reads++;
+                }
+                checkedReads.addAndGet(reads);
+            }, "TestReader" + r);
+        }
+
+        for (var reader : readers) {
+            reader.start();
+        }
+        producer.start();
+        producer.join();
+        done.set(true);
+        for (var reader : readers) {
+            reader.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        assertNull(failure.get());
+        assertEquals(SAMPLES, ring.getCount());
+        assertTrue(checkedReads.get() > 0, "The readers did not read anything.");
+    }
+}
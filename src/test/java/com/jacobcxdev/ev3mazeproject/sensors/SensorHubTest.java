@@ -0,0 +1,312 @@
+package com.jacobcxdev.ev3mazeproject.sensors;
+
+import com.jacobcxdev.ev3mazeproject.hardware.PortConfiguration;
+import lejos.robotics.SampleProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the scheduling of a {@code SensorHub}, and its accounting of jitter and overruns, with fake sensors.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class SensorHubTest {
+    // Private Static Classes
+
+    /**
+     * A class used to stand in for a sensor, which counts its samples and can take a fixed time to fetch each one, or number them so that samples from different reads differ.
+     */
+    private static class FakeSampleProvider implements SampleProvider {
+        // Public Fields
+
+        /**
+         * The value of each sample.
+         */
+        public volatile float value;
+
+        /**
+         * The time taken to fetch each sample (in milliseconds).
+         */
+        public volatile long fetchTime;
+
+        /**
+         * Whether the value of each sample is the number of samples fetched before it, rather than {@code value}.
+         */
+        public volatile boolean numbered;
+
+        // Private Fields
+
+        /**
+         * The number of samples fetched.
+         */
+        private long fetchCount;
+
+        /**
+         * The time the first sample was fetched (in nanoseconds, from {@code System.nanoTime()}).
+         */
+        private long firstFetchTime;
+
+        // Public Getters/Setters
+
+        /**
+         * Gets the number of samples fetched.
+         *
+         * @return The number of samples fetched.
+         */
+        public synchronized long getFetchCount() {
+            return fetchCount;
+        }
+
+        /**
+         * Gets the time the first sample was fetched.
+         *
+         * @return The time the first sample was fetched (in nanoseconds, from {@code System.nanoTime()}).
+         */
+        public synchronized long getFirstFetchTime() {
+            return firstFetchTime;
+        }
+
+        // SampleProvider Override Methods
+
+        @Override
+        public int sampleSize() {
+            return 1;
+        }
+
+        @Override
+        public void fetchSample(float[] sample, int offset) {
+            long number;
+            synchronized (this) {
+                number = fetchCount++;
+                if (number == 0) {
+                    firstFetchTime = System.nanoTime();
+                }
+            }
+            if (fetchTime > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(fetchTime);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            sample[offset] = numbered ? number : value;
+        }
+    }
+
+    // Private Static Fields
+
+    /**
+     * The time each test lets the {@code SensorHub} sample for (in milliseconds).
+     */
+    private static final long RUN_TIME = 500;
+
+    // Private Fields
+
+    /**
+     * The fake sensor of each channel, indexed by the ordinal of its {@code Channel}.
+     */
+    private final FakeSampleProvider[] sensors = new FakeSampleProvider[SensorHub.Channel.values().length];
+
+    /**
+     * The {@code SensorHub} of the test, which is shut down after it.
+     */
+    private SensorHub hub;
+
+    // Private Methods
+
+    /**
+     * Creates a {@code SensorHub} sampling a fake sensor on each channel, as the {@code SensorHub} of the test.
+     */
+    private void createHub() {
+        createHub(false);
+    }
+
+    /**
+     * Creates a {@code SensorHub} sampling a fake sensor on each channel, as the {@code SensorHub} of the test.
+     *
+     * @param cached Whether each fake sensor is provided through a {@code CachingSampleProvider} whose max age is the default period of its channel, as the sensor adapters provide the real sensors.
+     */
+    private void createHub(boolean cached) {
+        var sources = new SampleProvider[sensors.length];
+        for (var channel : SensorHub.Channel.values()) {
+            var sensor = new FakeSampleProvider();
+            sensors[channel.ordinal()] = sensor;
+            sources[channel.ordinal()] = cached ? new CachingSampleProvider(sensor, channel.defaultPeriod) : sensor;
+        }
+        var gyroSensor = new BaseGyroSensor() {
+            @Override
+            public SampleProvider getAngleMode() {
+                return sources[SensorHub.Channel.GYRO_ANGLE.ordinal()];
+            }
+
+            @Override
+            public GyroOrientation getGyroOrientation() {
+                return GyroOrientation.GLYPH_TOP;
+            }
+
+            @Override
+            public void setGyroOrientation(GyroOrientation orientation) {}
+
+            @Override
+            public void reset() {}
+        };
+        var touchSensor = new BaseTouchSensor() {
+            @Override
+            public SampleProvider getTouchMode() {
+                return sources[SensorHub.Channel.TOUCH.ordinal()];
+            }
+
+            @Override
+            public boolean isPressed() {
+                return sensors[SensorHub.Channel.TOUCH.ordinal()].value == 1;
+            }
+        };
+        BaseUltrasonicSensor leftUltrasonicSensor = () -> sources[SensorHub.Channel.LEFT_DISTANCE.ordinal()];
+        BaseUltrasonicSensor rightUltrasonicSensor = () -> sources[SensorHub.Channel.RIGHT_DISTANCE.ordinal()];
+        hub = new SensorHub(new PortConfiguration(gyroSensor, touchSensor, leftUltrasonicSensor, rightUltrasonicSensor, null, null, null));
+    }
+
+    /**
+     * Gets the fake sensor of a channel.
+     *
+     * @param channel The {@code Channel}.
+     * @return The fake sensor.
+     */
+    private FakeSampleProvider sensor(SensorHub.Channel channel) {
+        return sensors[channel.ordinal()];
+    }
+
+    /**
+     * Lets the {@code SensorHub} sample for {@code RUN_TIME}, then shuts it down and waits for it to stop.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private void runHub() throws InterruptedException {
+        hub.start();
+        TimeUnit.MILLISECONDS.sleep(RUN_TIME);
+        hub.shutdown();
+        hub.join();
+    }
+
+    /**
+     * Asserts that every deadline of a channel from its first sample to its last was either sampled or counted as an overrun.
+     *
+     * @param channel The {@code Channel}.
+     */
+    private void assertEveryDeadlineAccountedFor(SensorHub.Channel channel) {
+        var period = hub.getSamplePeriod(channel);
+        var deadlines = (hub.getHistory(channel).latestTimestamp() - sensor(channel).getFirstFetchTime()) / period + 1;
+        var accounted = hub.getSampleCount(channel) + hub.getOverrunCount(channel);
+        assertTrue(Math.abs(accounted - deadlines) <= 1, String.format("%s passed %d deadlines, but took %d samples and counted %d overruns.", channel, deadlines, hub.getSampleCount(channel), hub.getOverrunCount(channel)));
+    }
+
+    // Test Methods
+
+    @AfterEach
+    void shutdownHub() throws InterruptedException {
+        if (hub != null) {
+            hub.shutdown();
+            hub.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void samplesEachChannelAtItsOwnRate() throws InterruptedException {
+        createHub();
+        hub.start();
+        sensor(SensorHub.Channel.LEFT_DISTANCE).value = .25f;
+        var after = System.nanoTime();
+        var sample = new float[1];
+        hub.awaitSample(SensorHub.Channel.LEFT_DISTANCE, after, sample, 0);
+        assertEquals(.25f, sample[0], "awaitSample() should return a sample taken after the time given.");
+
+        // Reading the latest samples must not read the sensors.
+        for (int i = 0; i < 1000; i++) {
+            hub.getLatest(SensorHub.Channel.GYRO_ANGLE);
+            hub.getProvider(SensorHub.Channel.TOUCH).fetchSample(sample, 0);
+        }
+        TimeUnit.MILLISECONDS.sleep(RUN_TIME);
+        hub.shutdown();
+        hub.join();
+
+        for (var channel : SensorHub.Channel.values()) {
+            var expected = (double)TimeUnit.MILLISECONDS.toNanos(RUN_TIME) / channel.defaultPeriod;
+            assertEquals(hub.getSampleCount(channel), sensor(channel).getFetchCount(), String.format("%s should only be read on its schedule.", channel));
+            assertTrue(hub.getSampleCount(channel) >= expected * .8, String.format("%s took %d samples in %dms, but should take one every %dms.", channel, hub.getSampleCount(channel), RUN_TIME, TimeUnit.NANOSECONDS.toMillis(channel.defaultPeriod)));
+            assertTrue(hub.getMeanJitter(channel) <= hub.getMaxJitter(channel));
+            assertTrue(hub.getMeanJitter(channel) < channel.defaultPeriod / 2.0, String.format("%s was sampled %.1fms late on average.", channel, hub.getMeanJitter(channel) / 1e6));
+            assertEveryDeadlineAccountedFor(channel);
+        }
+        assertTrue(hub.getSampleCount(SensorHub.Channel.GYRO_ANGLE) > hub.getSampleCount(SensorHub.Channel.LEFT_DISTANCE), "The gyro should be sampled more often than the ultrasonic sensors.");
+    }
+
+    @Test
+    @Timeout(10)
+    void slowSensorDelaysOtherChannels() throws InterruptedException {
+        createHub();
+        sensor(SensorHub.Channel.LEFT_DISTANCE).fetchTime = 15;
+        runHub();
+
+        // The gyro is due every 5ms, so it is sampled at least 10ms late whenever the left sensor blocks the thread for 15ms.
+        var gyro = SensorHub.Channel.GYRO_ANGLE;
+        assertTrue(hub.getMaxJitter(gyro) >= TimeUnit.MILLISECONDS.toNanos(10), String.format("The gyro was at most %.1fms late.", hub.getMaxJitter(gyro) / 1e6));
+        assertTrue(hub.getMeanJitter(gyro) > 0);
+        assertTrue(hub.getOverrunCount(gyro) > 0, "The gyro deadlines missed while the left sensor was read should be counted as overruns.");
+        for (var channel : SensorHub.Channel.values()) {
+            assertEveryDeadlineAccountedFor(channel);
+        }
+
+        hub.resetStatistics();
+        assertEquals(0, hub.getSampleCount(gyro));
+        assertEquals(0, hub.getMaxJitter(gyro));
+        assertEquals(0, hub.getOverrunCount(gyro));
+        assertEquals(0, hub.getMeanJitter(gyro), 0);
+    }
+
+    @Test
+    @Timeout(10)
+    void skipsAndCountsOverruns() throws InterruptedException {
+        createHub();
+        var gyro = SensorHub.Channel.GYRO_ANGLE;
+        sensor(gyro).fetchTime = 12;
+        runHub();
+
+        // Each 12ms fetch misses at least one 5ms deadline, which is skipped rather than sampled late.
+        var samples = hub.getSampleCount(gyro);
+        var overruns = hub.getOverrunCount(gyro);
+        assertTrue(samples <= RUN_TIME / 12 + 1, String.format("%d samples were taken, but each takes 12ms.", samples));
+        assertTrue(overruns >= samples - 1, String.format("Only %d overruns were counted for %d samples.", overruns, samples));
+        assertEveryDeadlineAccountedFor(gyro);
+    }
+
+    @Test
+    @Timeout(10)
+    void publishesFreshReadsThroughCachingAdapters() throws InterruptedException {
+        createHub(true);
+        for (var sensor : sensors) {
+            sensor.numbered = true;
+        }
+        // A slow left sensor makes the other channels late, so that their next deadlines fall within the max age of their caches.
+        sensor(SensorHub.Channel.LEFT_DISTANCE).fetchTime = 15;
+        runHub();
+
+        for (var channel : SensorHub.Channel.values()) {
+            var history = hub.getHistory(channel);
+            var timestamps = new long[history.getCapacity()];
+            var values = new float[history.getCapacity()];
+            var count = history.read(timestamps, values, timestamps.length);
+            assertTrue(count > 1, String.format("%s published %d samples.", channel, count));
+            for (int i = 1; i < count; i++) {
+                assertTrue(values[i] > values[i - 1], String.format("%s published read %.0f again %.1fms after it was first published, so the sample was republished from the cache.", channel, values[i], (timestamps[i] - timestamps[i - 1]) / 1e6));
+            }
+            assertEquals(hub.getSampleCount(channel), sensor(channel).getFetchCount(), String.format("Every scheduled sample of %s should read the sensor.", channel));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.jacobcxdev.ev3mazeproject.simulation;
+
+import com.jacobcxdev.ev3mazeproject.hardware.BuildDescription;
+import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import lejos.robotics.RegulatedMotor;
+import lejos.robotics.RegulatedMotorListener;
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.mapping.LineMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a {@code SimRegulatedMotor} accelerates at its set acceleration, follows a trapezoidal profile which stops on the limit angle when rotating to it, and that synchronising it holds the {@code SimWorld} still until every synchronisation has ended.<br/><br/>
+ *
+ * The world is stepped by the test rather than by its thread, so every tacho count is exact.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class SimRegulatedMotorTest {
+	// Private Static Fields
+
+	/**
+	 * The length of each step of simulated time (in nanoseconds).
+	 */
+	private static final long STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * The number of steps per simulated second.
+	 */
+	private static final int STEPS_PER_SECOND = 1000;
+
+	// Private Fields
+
+	/**
+	 * The {@code SimWorld} of the test, in an empty room.
+	 */
+	private SimWorld world;
+
+	/**
+	 * The {@code SimRegulatedMotor} driving the left wheel.
+	 */
+	private SimRegulatedMotor motor;
+
+	// Private Methods
+
+	/**
+	 * Steps the world forward by an amount of simulated time.
+	 *
+	 * @param seconds The simulated time (in seconds).
+	 */
+	private void step(double seconds) {
+		for (long i = Math.round(seconds * STEPS_PER_SECOND); i > 0; i--) {
+			world.step(STEP_NANOS);
+		}
+	}
+
+	// Test Methods
+
+	@BeforeEach
+	void createWorld() {
+		var room = new LineMap(new Line[0], new Rectangle(-1000, -1000, 2000, 2000));
+		world = new SimWorld(room, new BuildDescription(150, 45, 80, BaseGyroSensor.GyroOrientation.GLYPH_TOP), 100, 1);
+		motor = world.getLeftMotor();
+	}
+
+	@Test
+	void tachoCountFollowsAcceleration() {
+		motor.setAcceleration(1000);
+		motor.setSpeed(500);
+		motor.forward();
+		assertTrue(motor.isMoving());
+
+		// While accelerating, the motor turns through half the acceleration times the time squared.
+		for (var time : new double[] {.1, .2, .3}) {
+			step(.1);
+			assertEquals(500 * time * time, motor.getTachoCount(), 1, String.format("Tacho count after %.1f s", time));
+			assertEquals(1000 * time, motor.getRotationSpeed(), 1, String.format("Speed after %.1f s", time));
+		}
+
+		// It reaches its speed after half a second, then turns at that speed.
+		step(.7);
+		assertEquals(500, motor.getRotationSpeed());
+		assertEquals(125 + 250, motor.getTachoCount(), 1);
+
+		// Stopping decelerates at the same rate, so it turns through another 125 degrees.
+		motor.stop(true);
+		step(.25);
+		assertEquals(250, motor.getRotationSpeed(), 1);
+		step(.5);
+		assertEquals(0, motor.getRotationSpeed());
+		assertEquals(500, motor.getTachoCount(), 1);
+
+		// Backwards is the same, counting down from the reset tacho count.
+		motor.resetTachoCount();
+		assertEquals(0, motor.getTachoCount());
+		motor.backward();
+		step(1);
+		assertEquals(-500, motor.getRotationSpeed());
+		assertEquals(-375, motor.getTachoCount(), 1);
+
+		// The speed is limited to the maximum speed of the motor.
+		motor.setSpeed(-5000);
+		assertEquals(motor.getMaxSpeed(), motor.getSpeed());
+	}
+
+	@Test
+	void rotateToFollowsTrapezoidalProfile() {
+		var events = new ArrayList<String>();
+		motor.addListener(new RegulatedMotorListener() {
+			@Override
+			public void rotationStarted(RegulatedMotor motor, int tachoCount, boolean stalled, long timeStamp) {
+				events.add("started at " + tachoCount);
+			}
+
+			@Override
+			public void rotationStopped(RegulatedMotor motor, int tachoCount, boolean stalled, long timeStamp) {
+				events.add("stopped at " + tachoCount);
+			}
+		});
+		motor.setAcceleration(2000);
+		motor.setSpeed(400);
+
+		// 0.2 s and 40 degrees to accelerate, 1.6 s and 640 degrees at speed, and 0.2 s and 40 degrees to decelerate.
+		motor.rotateTo(720, true);
+		assertEquals(720, motor.getLimitAngle());
+		List<Integer> speeds = new ArrayList<>();
+		while (motor.isMoving() && speeds.size() < 3 * STEPS_PER_SECOND) {
+			world.step(STEP_NANOS);
+			speeds.add(motor.getRotationSpeed());
+		}
+		assertEquals(720, motor.getTachoCount(), "The rotation should stop on the limit angle.");
+		assertEquals(0, motor.getRotationSpeed());
+		assertEquals(2, speeds.size() / (double)STEPS_PER_SECOND, .05, "Duration of the rotation (in seconds)");
+		assertEquals(List.of("started at 0", "stopped at 720"), events);
+
+		// The speed rises at the acceleration to the set speed, holds there, then falls at the acceleration, without overshooting.
+		var falling = false;
+		var atSpeed = 0;
+		for (int i = 1; i < speeds.size() - 1; i++) {
+			var change = speeds.get(i) - speeds.get(i - 1);
+			assertTrue(Math.abs(change) <= 3, String.format("The speed changed by %d deg/s in one step at %d ms.", change, i));
+			assertTrue(speeds.get(i) <= 400, String.format("The speed was %d deg/s at %d ms.", speeds.get(i), i));
+			falling |= change < 0;
+			assertFalse(falling && change > 0, String.format("The speed rose again at %d ms.", i));
+			if (speeds.get(i) == 400) {
+				atSpeed++;
+			}
+		}
+		assertEquals(1.6, atSpeed / (double)STEPS_PER_SECOND, .05, "Time at the set speed (in seconds)");
+
+		// A rotation too short to reach the set speed follows a triangular profile, and relative rotations are from the current tacho count.
+		motor.rotate(-20, true);
+		assertEquals(700, motor.getLimitAngle());
+		var maxSpeed = 0;
+		while (motor.isMoving()) {
+			world.step(STEP_NANOS);
+			maxSpeed = Math.max(maxSpeed, Math.abs(motor.getRotationSpeed()));
+		}
+		assertEquals(700, motor.getTachoCount());
+		assertEquals(200, maxSpeed, 10, "The peak speed of a 20 degree rotation at 2000 deg/s/s");
+	}
+
+	@Test
+	@Timeout(10)
+	void synchronizationHoldsWorldStill() throws InterruptedException {
+		var left = world.getLeftMotor();
+		var right = world.getRightMotor();
+		left.startSynchronization();
+		assertTrue(world.isSynchronizing());
+
+		// The world cannot step while the motors are synchronised.
+		var stepper = new Thread(() -> world.step(STEP_NANOS));
+		stepper.start();
+		stepper.join(100);
+		assertTrue(stepper.isAlive(), "The world stepped while the motors were synchronised.");
+
+		// Blocking commands return at once, and nested synchronisations keep the world still until the outermost ends.
+		right.startSynchronization();
+		left.rotate(360);
+		right.rotate(360);
+		right.endSynchronization();
+		assertTrue(world.isSynchronizing());
+		stepper.join(100);
+		assertTrue(stepper.isAlive(), "The world stepped before the outer synchronisation ended.");
+		assertEquals(0, world.getTime());
+		assertEquals(0, left.getTachoCount());
+
+		// Both motors start in the same step once the synchronisation ends, and stay together.
+		left.endSynchronization();
+		assertFalse(world.isSynchronizing());
+		stepper.join();
+		assertEquals(STEP_NANOS, world.getTime());
+		while (left.isMoving() || right.isMoving()) {
+			assertEquals(left.getTachoCount(), right.getTachoCount(), String.format("Tacho counts after %d ms", world.getTime() / STEP_NANOS));
+			world.step(STEP_NANOS);
+		}
+		assertEquals(360, left.getTachoCount());
+		assertEquals(360, right.getTachoCount());
+	}
+}
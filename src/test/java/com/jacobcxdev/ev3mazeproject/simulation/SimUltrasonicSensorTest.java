@@ -0,0 +1,101 @@
+package com.jacobcxdev.ev3mazeproject.simulation;
+
+import com.jacobcxdev.ev3mazeproject.hardware.BuildDescription;
+import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import com.jacobcxdev.ev3mazeproject.sensors.BaseUltrasonicSensor;
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.mapping.LineMap;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that the {@code SimUltrasonicSensor}s of a {@code SimWorld} measure the distance from their position on the EV3 to the nearest wall in the direction they face, in metres, and measure nothing beyond their range.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class SimUltrasonicSensorTest {
+	// Private Static Fields
+
+	/**
+	 * The {@code BuildDescription} of the simulated EV3, whose ultrasonic sensors are 150 mm apart.
+	 */
+	private static final BuildDescription BUILD_DESCRIPTION = new BuildDescription(150, 45, 80, BaseGyroSensor.GyroOrientation.GLYPH_TOP);
+
+	/**
+	 * The largest difference allowed between a distance and the distance measured (in metres).
+	 */
+	private static final double TOLERANCE = 1e-4;
+
+	// Private Static Methods
+
+	/**
+	 * Measures a sample from a {@code BaseUltrasonicSensor}.
+	 *
+	 * @param sensor The {@code BaseUltrasonicSensor}.
+	 * @return The distance measured (in metres).
+	 */
+	private static float measure(BaseUltrasonicSensor sensor) {
+		var sample = new float[1];
+		sensor.getDistanceMode().fetchSample(sample, 0);
+		return sample[0];
+	}
+
+	// Test Methods
+
+	@Test
+	void measuresNearestWallInDirectionFaced() {
+		// Walls 300 mm to the left, 1 m to the right and 600 mm ahead, and one 4 m behind, which is out of range.
+		var room = new LineMap(new Line[] {
+			new Line(-300, -5000, -300, 5000),
+			new Line(1000, -5000, 1000, 5000),
+			new Line(-5000, 600, 5000, 600),
+			new Line(-5000, -4000, 5000, -4000)
+		}, new Rectangle(-5000, -5000, 10000, 10000));
+		var world = new SimWorld(room, BUILD_DESCRIPTION, 100, 1);
+		var ports = world.createPortConfiguration();
+		var left = ports.leftUltrasonicSensor;
+		var right = ports.rightUltrasonicSensor;
+
+		// Facing ahead, each sensor measures from its own side of the EV3.
+		assertEquals(.225, measure(left), TOLERANCE);
+		assertEquals(.925, measure(right), TOLERANCE);
+
+		// Facing right, the left sensor is 75 mm ahead of the centre facing the wall ahead, and the right sensor faces the wall behind.
+		world.setPose(0, 0, 90);
+		assertEquals(.525, measure(left), TOLERANCE);
+		assertEquals(Float.POSITIVE_INFINITY, measure(right));
+
+		// At an angle, the distance is along the direction the sensor faces.
+		world.setPose(0, 0, 30);
+		var radians = Math.toRadians(30);
+		var leftX = -75 * Math.cos(radians);
+		assertEquals((leftX + 300) / Math.cos(radians) / 1000, measure(left), TOLERANCE);
+		var rightX = 75 * Math.cos(radians);
+		assertEquals((1000 - rightX) / Math.cos(radians) / 1000, measure(right), TOLERANCE);
+
+		// Moving the EV3 moves the sensors with it.
+		world.setPose(500, 0, 0);
+		assertEquals(.725, measure(left), TOLERANCE);
+		assertEquals(.425, measure(right), TOLERANCE);
+	}
+
+	@Test
+	void measuresNothingBeyondMaximumRange() {
+		var room = new LineMap(new Line[] {new Line(2625, -100, 2625, 100)}, new Rectangle(-3000, -3000, 6000, 6000));
+		var world = new SimWorld(room, BUILD_DESCRIPTION, 100, 1);
+		var right = world.createPortConfiguration().rightUltrasonicSensor;
+
+		// The right sensor is 75 mm right of the centre, so it is 2.55 m from the wall, which is just in range.
+		assertEquals(2.55, measure(right), TOLERANCE);
+		world.setPose(1, 0, 0);
+		assertEquals(2.549, measure(right), TOLERANCE);
+		world.setPose(-1, 0, 0);
+		assertEquals(Float.POSITIVE_INFINITY, measure(right));
+
+		// A wall beside the path of the sound is not measured.
+		world.setPose(0, 101, 0);
+		assertEquals(Float.POSITIVE_INFINITY, measure(right));
+	}
+}
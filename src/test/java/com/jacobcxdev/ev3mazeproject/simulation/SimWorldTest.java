@@ -0,0 +1,133 @@
+package com.jacobcxdev.ev3mazeproject.simulation;
+
+import com.jacobcxdev.ev3mazeproject.hardware.BuildDescription;
+import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.mapping.LineMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a {@code SimWorld} moves the EV3 by the rotation of its wheels, and that the wall in front of the EV3 stops it with its touch sensor pressed while still letting it rotate and reverse.<br/><br/>
+ *
+ * The world is stepped by the test rather than by its thread, so every position is exact.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class SimWorldTest {
+	// Private Static Fields
+
+	/**
+	 * The length of each step of simulated time (in nanoseconds).
+	 */
+	private static final long STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * The {@code BuildDescription} of the simulated EV3.
+	 */
+	private static final BuildDescription BUILD_DESCRIPTION = new BuildDescription(150, 45, 80, BaseGyroSensor.GyroOrientation.GLYPH_TOP);
+
+	/**
+	 * The distance from the centre of the EV3 to its touch sensor (in millimetres).
+	 */
+	private static final float BUMPER_OFFSET = 100;
+
+	/**
+	 * The distance the EV3 travels per degree its wheels turn (in millimetres).
+	 */
+	private static final double DISTANCE_PER_DEGREE = Math.PI * BUILD_DESCRIPTION.wheelDiameter / 360;
+
+	// Private Static Methods
+
+	/**
+	 * Steps a {@code SimWorld} until both wheel motors have stopped.
+	 *
+	 * @param world The {@code SimWorld}.
+	 */
+	private static void stepUntilStopped(SimWorld world) {
+		while (world.getLeftMotor().isMoving() || world.getRightMotor().isMoving()) {
+			world.step(STEP_NANOS);
+		}
+	}
+
+	// Test Methods
+
+	@Test
+	void wheelsMoveEV3() {
+		var room = new LineMap(new Line[0], new Rectangle(-1000, -1000, 2000, 2000));
+		var world = new SimWorld(room, BUILD_DESCRIPTION, BUMPER_OFFSET, 1);
+		var left = world.getLeftMotor();
+		var right = world.getRightMotor();
+
+		// Turning both wheels by the same angle drives straight ahead along the heading.
+		left.rotate(720, true);
+		right.rotate(720, true);
+		stepUntilStopped(world);
+		assertEquals(0, world.getX(), 1e-9);
+		assertEquals(720 * DISTANCE_PER_DEGREE, world.getY(), 1e-6);
+		assertEquals(0, world.getHeading(), 1e-9);
+
+		// Turning them in opposite directions rotates on the spot, clockwise when the left wheel goes forwards.
+		left.rotate(360, true);
+		right.rotate(-360, true);
+		stepUntilStopped(world);
+		var turn = Math.toDegrees(360 * DISTANCE_PER_DEGREE / BUILD_DESCRIPTION.wheelOffset);
+		assertEquals(turn, world.getHeading(), 1e-6);
+		assertEquals(0, world.getX(), 1e-6);
+		assertEquals(720 * DISTANCE_PER_DEGREE, world.getY(), 1e-6);
+
+		// Headings are reported in the range [0, 360).
+		world.setPose(0, 0, -90);
+		assertEquals(270, world.getHeading(), 1e-9);
+		assertEquals(-90, world.getUnwrappedHeading(), 1e-9);
+	}
+
+	@Test
+	void bumperStopsEV3AtWall() {
+		var room = new LineMap(new Line[] {new Line(-1000, 500, 1000, 500)}, new Rectangle(-1000, -1000, 2000, 2000));
+		var world = new SimWorld(room, BUILD_DESCRIPTION, BUMPER_OFFSET, 1);
+		var touchSensor = world.createPortConfiguration().touchSensor;
+		var left = world.getLeftMotor();
+		var right = world.getRightMotor();
+		assertFalse(touchSensor.isPressed());
+
+		// Driving at the wall stops the EV3 with its bumper against it, however far its wheels keep turning.
+		left.forward();
+		right.forward();
+		var sample = new float[1];
+		for (int i = 0; i < 5000; i++) {
+			world.step(STEP_NANOS);
+			assertTrue(world.getY() <= 500 - BUMPER_OFFSET + 1e-3, String.format("The EV3 drove through the wall to y = %.3f.", world.getY()));
+		}
+		assertEquals(500 - BUMPER_OFFSET, world.getY(), 1, "The EV3 should stop with its bumper on the wall.");
+		assertEquals(0, world.getX(), 1e-9);
+		assertTrue(left.getTachoCount() * DISTANCE_PER_DEGREE > 500, "The wheels should keep turning against the wall.");
+		assertTrue(touchSensor.isPressed());
+		touchSensor.getTouchMode().fetchSample(sample, 0);
+		assertEquals(1, sample[0]);
+
+		// The EV3 can still rotate away from the wall, which releases the bumper.
+		left.rotate(90, true);
+		right.rotate(-90, true);
+		stepUntilStopped(world);
+		assertTrue(world.getHeading() > 10, String.format("The EV3 only rotated to %.1f deg.", world.getHeading()));
+		assertFalse(touchSensor.isPressed());
+		touchSensor.getTouchMode().fetchSample(sample, 0);
+		assertEquals(0, sample[0]);
+
+		// And reverse away from it.
+		world.setPose(0, 500 - BUMPER_OFFSET, 0);
+		assertTrue(touchSensor.isPressed());
+		left.rotate(-360, true);
+		right.rotate(-360, true);
+		stepUntilStopped(world);
+		assertEquals(500 - BUMPER_OFFSET - 360 * DISTANCE_PER_DEGREE, world.getY(), 1e-6);
+		assertFalse(touchSensor.isPressed());
+	}
+}
@@ -0,0 +1,65 @@
+package com.jacobcxdev.ev3mazeproject.simulation;
+
+import com.jacobcxdev.ev3mazeproject.hardware.BuildDescription;
+import com.jacobcxdev.ev3mazeproject.sensors.BaseGyroSensor;
+import lejos.robotics.geometry.Line;
+import lejos.robotics.geometry.Rectangle;
+import lejos.robotics.mapping.LineMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests a whole simulated mapping run of a small maze, so that a change to the behaviours, the chassis or the {@code MazeStore} which stops the EV3 reaching the exit, changes the moves it takes to get there or makes the map less accurate is caught.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class SimulationRunnerTest {
+	// Private Static Fields
+
+	/**
+	 * The {@code BuildDescription} of the simulated EV3.
+	 */
+	private static final BuildDescription BUILD_DESCRIPTION = new BuildDescription(150, 45, 80, BaseGyroSensor.GyroOrientation.GLYPH_TOP);
+
+	/**
+	 * The distance from the centre of the EV3 to its touch sensor (in millimetres).
+	 */
+	private static final float BUMPER_OFFSET = 100;
+
+	/**
+	 * The number of simulated seconds which pass per real second, low enough that the heading controller keeps up on a single CPU.
+	 */
+	private static final double TIME_SCALE = 10;
+
+	/**
+	 * The longest simulated time the run may take (in seconds), several times what it takes to reach the exit.
+	 */
+	private static final double TIME_LIMIT = 120;
+
+	// Test Methods
+
+	@Test
+	@Timeout(60)
+	void mapsSmallMaze() {
+		// A 300 mm wide corridor which turns right after 1 m and leads out of the maze 1.35 m later.
+		var maze = new LineMap(new Line[] {
+			new Line(-150, -200, 150, -200),
+			new Line(-150, -200, -150, 1000),
+			new Line(150, -200, 150, 700),
+			new Line(-150, 1000, 1500, 1000),
+			new Line(150, 700, 1500, 700)
+		}, new Rectangle(-150, -200, 1650, 1200));
+		var report = new SimulationRunner(maze, BUILD_DESCRIPTION, BUMPER_OFFSET, TIME_SCALE, TIME_LIMIT).run();
+
+		assertTrue(report.exited, String.format("The EV3 did not reach the exit:%n%s", report));
+		assertTrue(report.simulatedTime / 1e9 < TIME_LIMIT / 2, String.format("The EV3 took too long to reach the exit:%n%s", report));
+		assertEquals(6, report.moveCount, String.format("The EV3 took a different route to the exit:%n%s", report));
+		assertEquals(3, report.turnCount, String.format("The EV3 took a different route to the exit:%n%s", report));
+		assertTrue(report.wallCount > 0, String.format("No walls were mapped:%n%s", report));
+		assertTrue(report.meanMapError < 200, String.format("The map is less accurate than it was:%n%s", report));
+		assertTrue(report.maxMapError < 550, String.format("The map is less accurate than it was:%n%s", report));
+	}
+}
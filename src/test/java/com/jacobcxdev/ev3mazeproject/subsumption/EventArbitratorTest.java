@@ -0,0 +1,264 @@
+package com.jacobcxdev.ev3mazeproject.subsumption;
+
+import lejos.robotics.subsumption.Behavior;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that {@code EventArbitrator} keeps the priority, suppression and {@code returnWhenInactive} semantics of LeJOS' {@code Arbitrator}.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class EventArbitratorTest {
+	// Private Static Classes
+
+	/**
+	 * A class used to stand in for a behaviour, which wants control while a flag is set and records each action it starts.
+	 */
+	private static class FakeBehavior implements Behavior {
+		// Public Fields
+
+		/**
+		 * Whether the behaviour wants control.
+		 */
+		public volatile boolean wantsControl;
+
+		// Private Fields
+
+		/**
+		 * The name recorded when an action starts.
+		 */
+		private final String name;
+
+		/**
+		 * The queue the name is recorded in when an action starts.
+		 */
+		private final BlockingQueue<String> actions;
+
+		/**
+		 * Whether each action runs until it is suppressed, rather than returning immediately and giving up control.
+		 */
+		private final boolean runsUntilSuppressed;
+
+		/**
+		 * Whether the running action has been suppressed.
+		 */
+		private boolean suppressed;
+
+		/**
+		 * The number of times the behaviour has been suppressed.
+		 */
+		private int suppressCount;
+
+		// Public Constructors
+
+		/**
+		 * Creates a {@code FakeBehavior} object.
+		 *
+		 * @param name The name recorded when an action starts.
+		 * @param actions The queue the name is recorded in when an action starts.
+		 * @param runsUntilSuppressed Whether each action runs until it is suppressed, rather than returning immediately and giving up control.
+		 */
+		public FakeBehavior(String name, BlockingQueue<String> actions, boolean runsUntilSuppressed) {
+			this.name = name;
+			this.actions = actions;
+			this.runsUntilSuppressed = runsUntilSuppressed;
+		}
+
+		// Public Getters/Setters
+
+		/**
+		 * Gets the number of times the behaviour has been suppressed.
+		 *
+		 * @return The number of times the behaviour has been suppressed.
+		 */
+		public synchronized int getSuppressCount() {
+			return suppressCount;
+		}
+
+		// Behavior Override Methods
+
+		@Override
+		public boolean takeControl() {
+			return wantsControl;
+		}
+
+		@Override
+		public void action() {
+			synchronized (this) {
+				suppressed = false;
+			}
+			actions.add(name);
+			if (!runsUntilSuppressed) {
+				wantsControl = false;
+				return;
+			}
+			synchronized (this) {
+				while (!suppressed) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+		}
+
+		@Override
+		public synchronized void suppress() {
+			suppressed = true;
+			suppressCount++;
+			notifyAll();
+		}
+	}
+
+	// Private Static Fields
+
+	/**
+	 * The longest time to wait for an action to start (in milliseconds).
+	 */
+	private static final long ACTION_TIMEOUT = 5000;
+
+	/**
+	 * The time to wait to check that nothing happens (in milliseconds).
+	 */
+	private static final long QUIET_PERIOD = 100;
+
+	// Private Fields
+
+	/**
+	 * The names of the behaviours whose actions have started, in order.
+	 */
+	private final BlockingQueue<String> actions = new LinkedBlockingQueue<>();
+
+	/**
+	 * The {@code EventArbitrator} of the test, which is stopped after it.
+	 */
+	private EventArbitrator arbitrator;
+
+	/**
+	 * The thread running {@code EventArbitrator.go()}, if any.
+	 */
+	private Thread arbitration;
+
+	// Private Methods
+
+	/**
+	 * Runs {@code go()} of the {@code EventArbitrator} of the test on another thread.
+	 */
+	private void goInBackground() {
+		arbitration = new Thread(arbitrator::go, "TestArbitration");
+		arbitration.setDaemon(true);
+		arbitration.start();
+	}
+
+	/**
+	 * Waits for the next action to start.
+	 *
+	 * @return The name of the behaviour whose action started, or {@code null} if none started in time.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	private String nextAction() throws InterruptedException {
+		return actions.poll(ACTION_TIMEOUT, TimeUnit.MILLISECONDS);
+	}
+
+	// Test Methods
+
+	@AfterEach
+	void stopArbitrator() throws InterruptedException {
+		if (arbitrator != null) {
+			arbitrator.stop();
+		}
+		if (arbitration != null) {
+			arbitration.join(ACTION_TIMEOUT);
+		}
+	}
+
+	@Test
+	@Timeout(10)
+	void higherPriorityBehaviourRunsFirst() throws InterruptedException {
+		var low = new FakeBehavior("low", actions, false);
+		var middle = new FakeBehavior("middle", actions, false);
+		var high = new FakeBehavior("high", actions, false);
+		low.wantsControl = true;
+		middle.wantsControl = true;
+		high.wantsControl = true;
+		arbitrator = new EventArbitrator(new Behavior[] {low, middle, high}, true);
+		arbitrator.go();
+
+		assertEquals("high", actions.poll());
+		assertEquals("middle", actions.poll());
+		assertEquals("low", actions.poll());
+		assertNull(actions.poll(), "No behaviour should run twice.");
+		assertEquals(0, low.getSuppressCount() + middle.getSuppressCount() + high.getSuppressCount(), "Actions which return on their own should not be suppressed.");
+	}
+
+	@Test
+	@Timeout(10)
+	void higherPriorityTransitionSuppressesRunningAction() throws InterruptedException {
+		var low = new FakeBehavior("low", actions, true);
+		var high = new FakeBehavior("high", actions, false);
+		low.wantsControl = true;
+		arbitrator = new EventArbitrator(new Behavior[] {low, high});
+		goInBackground();
+		assertEquals("low", nextAction());
+
+		// A signal with no higher priority behaviour wanting control must leave the running action alone.
+		arbitrator.signal();
+		assertNull(actions.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS));
+		assertEquals(0, low.getSuppressCount());
+
+		// Once the higher priority behaviour wants control, the running action is suppressed, and resumes after it.
+		high.wantsControl = true;
+		arbitrator.signal();
+		assertEquals("high", nextAction());
+		assertEquals("low", nextAction());
+		assertEquals(1, low.getSuppressCount());
+
+		arbitrator.stop();
+		arbitration.join(ACTION_TIMEOUT);
+		assertFalse(arbitration.isAlive(), "go() did not return after stop().");
+		assertEquals(2, low.getSuppressCount(), "stop() should suppress the running action.");
+		assertFalse(arbitrator.isRunning());
+	}
+
+	@Test
+	@Timeout(10)
+	void returnsWhenInactiveOnlyIfAsked() throws InterruptedException {
+		var behavior = new FakeBehavior("behavior", actions, false);
+
+		// With returnWhenInactive, go() returns as soon as no behaviour wants control.
+		arbitrator = new EventArbitrator(new Behavior[] {behavior}, true);
+		arbitrator.go();
+		assertFalse(arbitrator.isRunning());
+		assertNull(actions.poll());
+
+		// Without it, go() waits to be signalled, so a behaviour which wants control later still runs.
+		arbitrator = new EventArbitrator(new Behavior[] {behavior}, false);
+		goInBackground();
+		assertNull(actions.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS));
+		assertTrue(arbitration.isAlive(), "go() returned while no behaviour wanted control.");
+		var evaluations = arbitrator.getEvaluationCount();
+		assertNull(actions.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS));
+		assertEquals(evaluations, arbitrator.getEvaluationCount(), "takeControl() should not be polled while the arbitrator is not signalled.");
+
+		behavior.wantsControl = true;
+		arbitrator.signal();
+		assertEquals("behavior", nextAction());
+
+		arbitrator.stop();
+		arbitration.join(ACTION_TIMEOUT);
+		assertFalse(arbitration.isAlive(), "go() did not return after stop().");
+	}
+}
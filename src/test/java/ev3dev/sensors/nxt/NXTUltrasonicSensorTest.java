@@ -0,0 +1,111 @@
+package ev3dev.sensors.nxt;
+
+import lejos.hardware.port.SensorPort;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests that a {@code NXTUltrasonicSensor} on a fake sysfs tree only switches mode when a sample is fetched in a different mode to the current one.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class NXTUltrasonicSensorTest {
+    // Private Static Fields
+
+    /**
+     * The system property EV3Dev reads the root of the device classes from, in place of {@code /sys/class}.
+     */
+    private static final String TESTING_KEY = "EV3DEV_TESTING_KEY";
+
+    /**
+     * The address of the input port the sensor is connected to.
+     */
+    private static final String ADDRESS = "ev3-ports:in1";
+
+    /**
+     * The number of samples fetched in each run of the same mode.
+     */
+    private static final int FETCHES = 1000;
+
+    // Private Fields
+
+    /**
+     * The root of the fake sysfs tree.
+     */
+    @TempDir
+    Path sysfs;
+
+    /**
+     * The value of the testing system property before the test, restored after it.
+     */
+    private String previousRoot;
+
+    // Test Methods
+
+    @BeforeEach
+    void createFakeSysfs() throws IOException {
+        Files.createDirectories(sysfs.resolve("power_supply/lego-ev3-battery")); // Detected as an EV3.
+        var port = Files.createDirectories(sysfs.resolve("lego-port/port0"));
+        Files.writeString(port.resolve("address"), ADDRESS + "\n");
+        Files.writeString(port.resolve("mode"), "auto\n");
+        Files.writeString(port.resolve("set_device"), "");
+        var sensor = Files.createDirectories(sysfs.resolve("lego-sensor/sensor0"));
+        Files.writeString(sensor.resolve("address"), ADDRESS + ":i2c1\n");
+        Files.writeString(sensor.resolve("mode"), "US-DIST-CM\n");
+        Files.writeString(sensor.resolve("value0"), "42\n");
+        previousRoot = System.setProperty(TESTING_KEY, sysfs.toString());
+    }
+
+    @AfterEach
+    void restoreRoot() {
+        if (previousRoot != null) {
+            System.setProperty(TESTING_KEY, previousRoot);
+        } else {
+            System.clearProperty(TESTING_KEY);
+        }
+    }
+
+    @Test
+    void switchesModeOnlyWhenItChanges() {
+        List<String> switches = new ArrayList<>();
+        var sensor = new NXTUltrasonicSensor(SensorPort.S1) {
+            @Override
+            protected void switchMode(String newMode, long switchDelay) {
+                switches.add(newMode);
+            }
+        };
+        assertSame(sensor.getDistanceMode(), sensor.getDistanceMode(), "Requesting a mode should not create a new provider.");
+        assertEquals(List.of(), switches, "Requesting a mode should not switch to it.");
+
+        var sample = new float[1];
+        for (int i = 0; i < FETCHES; i++) {
+            sensor.getDistanceMode().fetchSample(sample, 0);
+        }
+        assertEquals(42, sample[0]);
+        sensor.getPingMode().fetchSample(sample, 0);
+        for (int i = 0; i < FETCHES; i++) {
+            sensor.getDistanceMode().fetchSample(sample, 0);
+        }
+        assertEquals(List.of("US-DIST-CM", "US-LISTEN", "US-DIST-CM"), switches);
+        assertEquals(3, sensor.getModeSwitchCount());
+
+        // Enabling the sensor keeps the distance mode it is already in, and disabling it switches once.
+        sensor.enable();
+        sensor.disable();
+        sensor.disable();
+        assertEquals(List.of("US-DIST-CM", "US-LISTEN", "US-DIST-CM", "US-SI-CM"), switches);
+        assertFalse(sensor.isEnabled());
+    }
+}
@@ -0,0 +1,549 @@
+package lejos.robotics.chassis;
+
+import lejos.robotics.RegulatedMotor;
+import lejos.robotics.RegulatedMotorListener;
+import lejos.robotics.navigation.Move;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the fast path of a two wheel differential {@code WheeledChassis} issues the same motor commands and reports the same displacements as the matrix path it replaces, and that its odometer integrates known tacho deltas into its pose and pose history.
+ *
+ * @author Jacob Clayden (<a href="https://github.com/jacobcxdev">@jacobcxdev</a>)
+ */
+class WheeledChassisTest {
+  // Private Static Classes
+
+  /**
+   * A class used to stand in for a motor, which records the commands sent to it and reports a tacho count and rotation speed set by the test.
+   * The tacho count can also advance at a constant rate, read from {@code System.nanoTime()}.
+   */
+  private static class RecordingMotor implements RegulatedMotor {
+    // Private Fields
+
+    /**
+     * The name of the motor, prefixed to each command it records.
+     */
+    private final String name;
+
+    /**
+     * The list the commands are recorded in, shared by the motors of a chassis.
+     */
+    private final List<String> commands;
+
+    /**
+     * The tacho count reported by the motor (in degrees).
+     */
+    private int tachoCount;
+
+    /**
+     * The rotation speed reported by the motor (in degrees per second).
+     */
+    private int rotationSpeed;
+
+    /**
+     * The rate the tacho count advances at (in degrees per second).
+     */
+    private double degreesPerSecond;
+
+    /**
+     * The time the tacho count started advancing (in nanoseconds).
+     */
+    private long runningSince;
+
+    // Public Constructors
+
+    /**
+     * Creates a {@code RecordingMotor} object.
+     *
+     * @param name The name of the motor, prefixed to each command it records.
+     * @param commands The list the commands are recorded in.
+     */
+    public RecordingMotor(String name, List<String> commands) {
+      this.name = name;
+      this.commands = commands;
+    }
+
+    // Private Methods
+
+    /**
+     * Records a command.
+     *
+     * @param command The command, with its arguments.
+     */
+    private void record(String command) {
+      commands.add(name + "." + command);
+    }
+
+    // RegulatedMotor Override Methods
+
+    @Override
+    public void forward() {
+      record("forward()");
+    }
+
+    @Override
+    public void backward() {
+      record("backward()");
+    }
+
+    @Override
+    public void stop() {
+      record("stop()");
+    }
+
+    @Override
+    public void flt() {
+      record("flt()");
+    }
+
+    @Override
+    public boolean isMoving() {
+      return false;
+    }
+
+    @Override
+    public int getTachoCount() {
+      if (degreesPerSecond == 0) {
+        return tachoCount;
+      }
+      return tachoCount + (int) ((System.nanoTime() - runningSince) * degreesPerSecond / 1e9);
+    }
+
+    @Override
+    public void resetTachoCount() {
+      tachoCount = 0;
+    }
+
+    @Override
+    public int getRotationSpeed() {
+      return rotationSpeed;
+    }
+
+    @Override
+    public void addListener(RegulatedMotorListener listener) {}
+
+    @Override
+    public RegulatedMotorListener removeListener() {
+      return null;
+    }
+
+    @Override
+    public void stop(boolean immediateReturn) {
+      stop();
+    }
+
+    @Override
+    public void flt(boolean immediateReturn) {
+      flt();
+    }
+
+    @Override
+    public void waitComplete() {}
+
+    @Override
+    public void rotate(int angle, boolean immediateReturn) {
+      record(String.format("rotate(%d)", angle));
+    }
+
+    @Override
+    public void rotate(int angle) {
+      rotate(angle, false);
+    }
+
+    @Override
+    public void rotateTo(int limitAngle) {
+      rotateTo(limitAngle, false);
+    }
+
+    @Override
+    public void rotateTo(int limitAngle, boolean immediateReturn) {
+      record(String.format("rotateTo(%d)", limitAngle));
+    }
+
+    @Override
+    public int getLimitAngle() {
+      return 0;
+    }
+
+    @Override
+    public void setSpeed(int speed) {
+      record(String.format("setSpeed(%d)", speed));
+    }
+
+    @Override
+    public int getSpeed() {
+      return 0;
+    }
+
+    @Override
+    public float getMaxSpeed() {
+      return 740;
+    }
+
+    @Override
+    public boolean isStalled() {
+      return false;
+    }
+
+    @Override
+    public void setStallThreshold(int error, int time) {}
+
+    @Override
+    public void setAcceleration(int acceleration) {
+      record(String.format("setAcceleration(%d)", acceleration));
+    }
+
+    @Override
+    public void synchronizeWith(RegulatedMotor[] syncList) {}
+
+    @Override
+    public void startSynchronization() {}
+
+    @Override
+    public void endSynchronization() {}
+
+    @Override
+    public void close() {}
+  }
+
+  /**
+   * A class used to represent a chassis together with its motors and the commands they have recorded.
+   */
+  private static class Rig {
+    // Public Fields
+
+    /**
+     * The commands recorded by the motors of the chassis.
+     */
+    public final List<String> commands = new ArrayList<>();
+
+    /**
+     * The left motor of the chassis.
+     */
+    public final RecordingMotor left = new RecordingMotor("left", commands);
+
+    /**
+     * The right motor of the chassis.
+     */
+    public final RecordingMotor right = new RecordingMotor("right", commands);
+
+    /**
+     * The chassis.
+     */
+    public final WheeledChassis chassis;
+
+    // Public Constructors
+
+    /**
+     * Creates a {@code Rig} object with the wheel geometry of the maze robot.
+     *
+     * @param fastDifferential Whether the chassis should use the fast path for a two wheel differential chassis.
+     */
+    public Rig(boolean fastDifferential) {
+      var wheels = new Wheel[] {
+        WheeledChassis.modelWheel(left, WHEEL_DIAMETER).offset(-WHEEL_OFFSET),
+        WheeledChassis.modelWheel(right, WHEEL_DIAMETER).offset(WHEEL_OFFSET)
+      };
+      chassis = new WheeledChassis(wheels, WheeledChassis.TYPE_DIFFERENTIAL, fastDifferential);
+      commands.clear();
+    }
+
+    // Public Methods
+
+    /**
+     * Sets the tacho counts and rotation speeds reported by the motors.
+     *
+     * @param leftTacho The tacho count of the left motor (in degrees).
+     * @param rightTacho The tacho count of the right motor (in degrees).
+     * @param leftSpeed The rotation speed of the left motor (in degrees per second).
+     * @param rightSpeed The rotation speed of the right motor (in degrees per second).
+     */
+    public void setMotors(int leftTacho, int rightTacho, int leftSpeed, int rightSpeed) {
+      left.tachoCount = leftTacho;
+      right.tachoCount = rightTacho;
+      left.rotationSpeed = leftSpeed;
+      right.rotationSpeed = rightSpeed;
+    }
+
+    /**
+     * Turns the wheels by a number of degrees at once, so that the odometer never sees one wheel turned without the other.
+     *
+     * @param leftDelta The angle to turn the left motor by (in degrees).
+     * @param rightDelta The angle to turn the right motor by (in degrees).
+     */
+    public void turnWheels(int leftDelta, int rightDelta) {
+      // The odometer reads the tacho counts while holding the lock of the chassis.
+      synchronized (chassis) {
+        left.tachoCount += leftDelta;
+        right.tachoCount += rightDelta;
+      }
+    }
+
+    /**
+     * Starts both wheels turning at a constant rate.
+     *
+     * @param degreesPerSecond The rate the motors turn at (in degrees per second).
+     */
+    public void run(double degreesPerSecond) {
+      synchronized (chassis) {
+        var now = System.nanoTime();
+        for (var motor : new RecordingMotor[] {left, right}) {
+          motor.runningSince = now;
+          motor.degreesPerSecond = degreesPerSecond;
+        }
+      }
+    }
+  }
+
+  // Private Static Fields
+
+  /**
+   * The diameter of each wheel (in millimetres).
+   */
+  private static final double WHEEL_DIAMETER = 56;
+
+  /**
+   * The distance of each wheel from the centre of the chassis (in millimetres).
+   */
+  private static final double WHEEL_OFFSET = 61.5;
+
+  /**
+   * The rotation speeds the motors report when commands are issued, as left and right pairs (in degrees per second).
+   */
+  private static final int[][] ROTATION_SPEEDS = {{0, 0}, {360, 360}, {-200, 450}, {720, -720}, {17, 3}};
+
+  /**
+   * The tolerance of a position calculated by the odometer (in millimetres).
+   */
+  private static final double POSITION_TOLERANCE = 1e-2;
+
+  /**
+   * The tolerance of a heading calculated by the odometer (in degrees).
+   */
+  private static final double HEADING_TOLERANCE = 1e-3;
+
+  // Private Fields
+
+  /**
+   * The chassis using the fast path.
+   */
+  private Rig fast;
+
+  /**
+   * The chassis using the matrix path.
+   */
+  private Rig matrix;
+
+  // Private Methods
+
+  /**
+   * Sets the same tacho counts and rotation speeds on the motors of both chassis.
+   *
+   * @param leftTacho The tacho count of the left motor (in degrees).
+   * @param rightTacho The tacho count of the right motor (in degrees).
+   * @param leftSpeed The rotation speed of the left motor (in degrees per second).
+   * @param rightSpeed The rotation speed of the right motor (in degrees per second).
+   */
+  private void setMotors(int leftTacho, int rightTacho, int leftSpeed, int rightSpeed) {
+    fast.setMotors(leftTacho, rightTacho, leftSpeed, rightSpeed);
+    matrix.setMotors(leftTacho, rightTacho, leftSpeed, rightSpeed);
+  }
+
+  /**
+   * Asserts that both chassis have issued the same commands, then clears them.
+   *
+   * @param description A description of what issued the commands.
+   */
+  private void assertSameCommands(String description) {
+    assertFalse(matrix.commands.isEmpty(), description + " issued no commands.");
+    assertEquals(matrix.commands, fast.commands, description);
+    fast.commands.clear();
+    matrix.commands.clear();
+  }
+
+  /**
+   * Asserts that two {@code Move} objects describe the same displacement.
+   *
+   * @param expected The displacement from the matrix path.
+   * @param actual The displacement from the fast path.
+   * @param description A description of the displacement.
+   */
+  private static void assertSameMove(Move expected, Move actual, String description) {
+    assertEquals(expected.getMoveType(), actual.getMoveType(), description);
+    assertEquals(expected.getDistanceTraveled(), actual.getDistanceTraveled(), description);
+    assertEquals(expected.getAngleTurned(), actual.getAngleTurned(), description);
+  }
+
+  /**
+   * Asserts that the odometer of the fast chassis is at a pose, and that the latest sample of its pose history matches it.
+   *
+   * @param x The expected x coordinate (in millimetres).
+   * @param y The expected y coordinate (in millimetres).
+   * @param heading The expected heading (in degrees).
+   */
+  private void assertPose(double x, double y, double heading) {
+    var pose = fast.chassis.getPoseProvider().getPose();
+    assertEquals(x, pose.getX(), POSITION_TOLERANCE);
+    assertEquals(y, pose.getY(), POSITION_TOLERANCE);
+    assertEquals(heading, pose.getHeading(), HEADING_TOLERANCE);
+
+    var sample = new float[3];
+    fast.chassis.getPoseHistory().latest(sample, 0);
+    assertArrayEquals(new float[] {pose.getX(), pose.getY(), pose.getHeading()}, sample, "The latest pose in the history should be the pose of the odometer.");
+  }
+
+  // Test Methods
+
+  @BeforeEach
+  void createChassis() {
+    fast = new Rig(true);
+    matrix = new Rig(false);
+    assertTrue(fast.chassis.twoWheelDifferential);
+    assertFalse(matrix.chassis.twoWheelDifferential);
+  }
+
+  @Test
+  void setVelocityIssuesSameCommands() {
+    double[][] velocities = {{0, 0, 0}, {200, 0, 0}, {-150, 0, 0}, {0, 0, 90}, {0, 0, -45.5}, {120, 0, 30}, {80, 180, -60}, {333.3, 0, 12.25}};
+    for (var speeds : ROTATION_SPEEDS) {
+      setMotors(0, 0, speeds[0], speeds[1]);
+      for (var velocity : velocities) {
+        fast.chassis.setVelocity(velocity[0], velocity[1], velocity[2]);
+        matrix.chassis.setVelocity(velocity[0], velocity[1], velocity[2]);
+        assertSameCommands(String.format("setVelocity(%s, %s, %s) at %d, %d deg/s", velocity[0], velocity[1], velocity[2], speeds[0], speeds[1]));
+      }
+    }
+  }
+
+  @Test
+  void travelAndRotateIssueSameCommands() {
+    fast.chassis.setSpeed(150, 60);
+    matrix.chassis.setSpeed(150, 60);
+    fast.chassis.setAcceleration(400, 200);
+    matrix.chassis.setAcceleration(400, 200);
+    for (var distance : new double[] {0, 1, 250, -250, 1234.5, -0.4, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+      fast.chassis.travel(distance);
+      matrix.chassis.travel(distance);
+      assertSameCommands(String.format("travel(%s)", distance));
+    }
+    for (var angle : new double[] {0, 1, 90, -90, 180, -737.25, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+      fast.chassis.rotate(angle);
+      matrix.chassis.rotate(angle);
+      assertSameCommands(String.format("rotate(%s)", angle));
+    }
+  }
+
+  @Test
+  void getDisplacementReturnsSameMoves() {
+    int[][] tachoCounts = {{0, 0}, {360, 360}, {-720, -720}, {200, -200}, {-95, 95}, {500, 120}, {3, 4}, {-1000, 250}, {123456, 123000}};
+    for (var start : new int[][] {{0, 0}, {1000, -1000}, {-37, 12}}) {
+      setMotors(start[0], start[1], 0, 0);
+      fast.chassis.moveStart();
+      matrix.chassis.moveStart();
+      for (var delta : tachoCounts) {
+        setMotors(start[0] + delta[0], start[1] + delta[1], 0, 0);
+        var description = String.format("getDisplacement() after %d, %d deg from %d, %d deg", delta[0], delta[1], start[0], start[1]);
+        assertSameMove(matrix.chassis.getDisplacement(new Move(0, 0, false)), fast.chassis.getDisplacement(new Move(0, 0, false)), description);
+      }
+    }
+
+    // Both wheels turning one revolution forwards travels one circumference.
+    setMotors(0, 0, 0, 0);
+    fast.chassis.moveStart();
+    setMotors(360, 360, 0, 0);
+    var move = fast.chassis.getDisplacement(new Move(0, 0, false));
+    assertEquals(Move.MoveType.TRAVEL, move.getMoveType());
+    assertEquals(Math.PI * WHEEL_DIAMETER, move.getDistanceTraveled(), 1e-3);
+    assertEquals(0, move.getAngleTurned(), 1e-6);
+  }
+
+  @Test
+  @Timeout(10)
+  void odometerIntegratesTachoDeltas() {
+    var circumference = Math.PI * WHEEL_DIAMETER;
+    assertPose(0, 0, 0);
+
+    // One revolution of both wheels travels one circumference forwards.
+    fast.turnWheels(360, 360);
+    fast.chassis.updatePose();
+    assertPose(circumference, 0, 0);
+
+    // Turning the wheels 123 deg in opposite directions rotates the chassis by 2 * 123 * 56 / (4 * 61.5) = 56 deg.
+    fast.turnWheels(123, -123);
+    fast.chassis.updatePose();
+    assertPose(circumference, 0, 56);
+
+    // Another revolution travels one circumference along the new heading.
+    fast.turnWheels(360, 360);
+    fast.chassis.updatePose();
+    var x = circumference + circumference * Math.cos(Math.toRadians(56));
+    var y = circumference * Math.sin(Math.toRadians(56));
+    assertPose(x, y, 56);
+
+    // Rotating past 180 deg wraps the heading.
+    fast.turnWheels(330, -330);
+    fast.chassis.updatePose();
+    assertPose(x, y, 56 + 2 * 330 * WHEEL_DIAMETER / (4 * WHEEL_OFFSET) - 360);
+
+    // The history holds every pose passed through, oldest first.
+    var history = fast.chassis.getPoseHistory();
+    var timestamps = new long[history.getCapacity()];
+    var values = new float[timestamps.length * 3];
+    var n = history.read(timestamps, values, timestamps.length);
+    for (int i = 1; i < n; i++) {
+      assertTrue(timestamps[i] >= timestamps[i - 1], "The history should be in time order.");
+    }
+    float[][] poses = {{0, 0, 0}, {(float) circumference, 0, 0}, {(float) circumference, 0, 56}, {(float) x, (float) y, 56}};
+    var next = 0;
+    for (int i = 0; i < n && next < poses.length; i++) {
+      var pose = Arrays.copyOfRange(values, i * 3, i * 3 + 3);
+      if (Math.abs(pose[0] - poses[next][0]) < POSITION_TOLERANCE && Math.abs(pose[1] - poses[next][1]) < POSITION_TOLERANCE && Math.abs(pose[2] - poses[next][2]) < HEADING_TOLERANCE) {
+        next++;
+      }
+    }
+    assertEquals(poses.length, next, "The history is missing a pose the odometer passed through.");
+  }
+
+  @Test
+  @Timeout(10)
+  void firstUpdateHasFiniteSpeedAndAcceleration() {
+    var odometer = fast.chassis.getPoseProvider();
+    fast.turnWheels(90, 45);
+    fast.chassis.updatePose();
+    for (var value : new double[] {odometer.getLinearSpeed(), odometer.getAngularSpeed(), odometer.getLinearAcceleration(), odometer.getAngularAcceleration()}) {
+      assertTrue(Double.isFinite(value), "The first update should give a finite speed and acceleration.");
+    }
+  }
+
+  @Test
+  @Timeout(10)
+  void speedIsPerSecond() throws InterruptedException {
+    // At 36000 deg/s, both wheels travel 100 circumferences a second.
+    var expected = 100 * Math.PI * WHEEL_DIAMETER;
+    var odometer = fast.chassis.getPoseProvider();
+    fast.run(36000);
+
+    // The tracker may have updated the pose just before, so take the median of several updates.
+    var speeds = new double[5];
+    for (int i = 0; i < speeds.length; i++) {
+      TimeUnit.MILLISECONDS.sleep(20);
+      fast.chassis.updatePose();
+      speeds[i] = odometer.getLinearSpeed();
+      assertTrue(Double.isFinite(odometer.getLinearAcceleration()));
+    }
+    Arrays.sort(speeds);
+    assertEquals(expected, speeds[speeds.length / 2], expected * .2, "The linear speed should be in millimetres per second.");
+  }
+}